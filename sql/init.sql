@@ -434,6 +434,7 @@ create table if not exists fish_pet
     exp        INT      default 0 comment '当前经验值',
     mood       INT      default 100 comment '宠物心情值（0-100）',
     hunger     INT      default 0 comment '积饿度（越高越饿，建议范围 0-100）',
+    statusTime DATETIME default CURRENT_TIMESTAMP not null comment '饥饿度、心情值对应的时间点',
     extendData VARCHAR(1024) comment '宠物扩展数据（技能、形象等，JSON 格式）',
     createTime DATETIME default CURRENT_TIMESTAMP not null comment '创建时间',
     updateTime DATETIME default CURRENT_TIMESTAMP not null on update CURRENT_TIMESTAMP comment '更新时间',
@@ -0,0 +1,5 @@
+-- 朋友圈动态列表游标分页索引
+-- 列表按 (isTop, createTime, id) 倒序排列，游标条件和排序都走该索引
+-- @author cong
+
+ALTER TABLE `moments` ADD INDEX `idx_top_time_id` (`isTop`, `createTime`, `id`);
@@ -0,0 +1,5 @@
+-- 宠物表新增 statusTime 字段
+-- statusTime：hunger、mood 对应的时间点，读取时按距今整小时数扣减（每小时饥饿度 -5、心情值 -3），不再定时改写全表
+ALTER TABLE fish_pet
+    ADD COLUMN statusTime DATETIME DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '饥饿度、心情值对应的时间点'
+        AFTER hunger;
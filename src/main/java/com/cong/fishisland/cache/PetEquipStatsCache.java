@@ -0,0 +1,316 @@
+package com.cong.fishisland.cache;
+
+import com.cong.fishisland.constant.PetRedisKey;
+import com.cong.fishisland.model.vo.pet.PetEquipStatsVO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 宠物装备属性汇总缓存
+ * Description: 每只宠物的装备属性汇总（装备基础属性 + 主属性 + 锻造词条 + 锻造等级加成）以基本类型保存，
+ * 本地 Caffeine 在前、Redis 在后。每只宠物在 Redis 有一个版本号，穿脱装备、锻造变化时自增；
+ * 缓存值带有构建时读到的版本号，与当前版本号不一致的值一律视为过期重建，本地副本由失效广播带着新版本号清掉，
+ * 因此构建过程中发生的变更也不会让旧值被继续使用
+ *
+ * @author cong
+ */
+@Slf4j
+@Component
+public class PetEquipStatsCache {
+
+    private static final int LOCAL_MAX_SIZE = 10_000;
+    private static final long LOCAL_TTL_MINUTES = 10;
+    private static final long REDIS_TTL_MINUTES = 30;
+    /**
+     * 版本号的过期时间远大于缓存值，版本号过期重新从 1 计数时不会有同版本的旧值残留
+     */
+    private static final long VERSION_TTL_DAYS = 7;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedissonClient redissonClient;
+    /**
+     * 值为已构建的属性，或只带版本号的占位（收到失效后记下的最低版本，比它旧的构建结果不再写入）
+     */
+    private final Cache<Long, Stats> localCache;
+
+    private RTopic evictTopic;
+    private Integer listenerId;
+
+    public PetEquipStatsCache(StringRedisTemplate stringRedisTemplate, RedissonClient redissonClient) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redissonClient = redissonClient;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(LOCAL_MAX_SIZE)
+                .expireAfterWrite(LOCAL_TTL_MINUTES, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * 订阅其他节点的失效广播，消息格式 petId:version；只有 petId 时表示版本号未能自增，直接清掉本地副本
+     */
+    @PostConstruct
+    public void subscribe() {
+        evictTopic = redissonClient.getTopic(PetRedisKey.getKey(PetRedisKey.EQUIP_STATS_EVICT_TOPIC), StringCodec.INSTANCE);
+        listenerId = evictTopic.addListener(String.class, (channel, msg) -> {
+            int split = msg.indexOf(':');
+            try {
+                if (split < 0) {
+                    localCache.invalidate(Long.valueOf(msg));
+                } else {
+                    raiseFloor(Long.valueOf(msg.substring(0, split)), Long.parseLong(msg.substring(split + 1)));
+                }
+            } catch (RuntimeException e) {
+                log.error("宠物装备属性失效广播格式错误：{}", msg);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (evictTopic != null && listenerId != null) {
+            evictTopic.removeListener(listenerId);
+        }
+    }
+
+    /**
+     * 读取宠物装备属性汇总
+     *
+     * @param petId  宠物 ID
+     * @param loader 缓存未命中或已过期时的计算逻辑
+     * @return 属性汇总（每次返回新对象，调用方可随意修改），loader 返回 null 时返回 null
+     */
+    public PetEquipStatsVO get(Long petId, Function<Long, PetEquipStatsVO> loader) {
+        if (petId == null) {
+            return null;
+        }
+        Stats stats = localCache.getIfPresent(petId);
+        if (stats != null && stats.present) {
+            return stats.toVO();
+        }
+
+        // 先读版本号再计算，计算期间发生的变更会让版本号前进，写入的旧版本值随后被识别为过期
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(Arrays.asList(versionKey(petId), statsKey(petId)));
+        long version = parseVersion(values == null ? null : values.get(0));
+        stats = Stats.decode(values == null ? null : values.get(1));
+        if (stats == null || stats.version != version) {
+            PetEquipStatsVO vo = loader.apply(petId);
+            if (vo == null) {
+                return null;
+            }
+            stats = Stats.of(version, vo);
+            stringRedisTemplate.opsForValue().set(statsKey(petId), stats.encode(), REDIS_TTL_MINUTES, TimeUnit.MINUTES);
+        }
+        Stats built = stats;
+        localCache.asMap().compute(petId, (id, old) -> old != null && old.version > built.version ? old : built);
+        return built.toVO();
+    }
+
+    /**
+     * 宠物装备属性发生变化：版本号自增并删除 Redis 中的值，广播其他节点清掉本地副本；
+     * 在事务中调用时等提交后再执行，避免提交前被并发请求用旧数据重新构建；
+     * Redis 操作失败时仍尽力删除 Redis 中的值并广播，不让其他节点继续使用本地旧值
+     *
+     * @param petId 宠物 ID
+     */
+    public void invalidate(Long petId) {
+        if (petId == null) {
+            return;
+        }
+        Runnable evict = () -> {
+            try {
+                String versionKey = versionKey(petId);
+                Long version = stringRedisTemplate.opsForValue().increment(versionKey);
+                stringRedisTemplate.expire(versionKey, VERSION_TTL_DAYS, TimeUnit.DAYS);
+                stringRedisTemplate.delete(statsKey(petId));
+                raiseFloor(petId, version == null ? 0 : version);
+                if (evictTopic != null) {
+                    evictTopic.publish(petId + ":" + version);
+                }
+            } catch (Exception e) {
+                localCache.invalidate(petId);
+                log.error("宠物装备属性缓存失效失败，petId：{}", petId, e);
+                evictWithoutVersion(petId);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    /**
+     * 版本号未能自增时的兜底：删除 Redis 中的值，并广播只带 petId 的消息让其他节点清掉本地副本，
+     * 两步互不影响，任一步失败都只记录日志
+     */
+    private void evictWithoutVersion(Long petId) {
+        try {
+            stringRedisTemplate.delete(statsKey(petId));
+        } catch (Exception e) {
+            log.error("宠物装备属性缓存删除失败，petId：{}", petId, e);
+        }
+        try {
+            if (evictTopic != null) {
+                evictTopic.publish(String.valueOf(petId));
+            }
+        } catch (Exception e) {
+            log.error("宠物装备属性失效广播失败，petId：{}", petId, e);
+        }
+    }
+
+    /**
+     * 本地只保留不低于该版本的值
+     */
+    private void raiseFloor(Long petId, long version) {
+        localCache.asMap().compute(petId, (id, old) -> old != null && old.version >= version ? old : Stats.floor(version));
+    }
+
+    private static long parseVersion(String value) {
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    private static String statsKey(Long petId) {
+        return PetRedisKey.getKey(PetRedisKey.EQUIP_STATS, String.valueOf(petId));
+    }
+
+    private static String versionKey(Long petId) {
+        return PetRedisKey.getKey(PetRedisKey.EQUIP_STATS_VERSION, String.valueOf(petId));
+    }
+
+    /**
+     * 带版本号的属性汇总，字段全部为基本类型；Redis 中以逗号分隔的一行文本保存
+     */
+    static final class Stats {
+
+        private static final int FIELDS = 15;
+
+        final long version;
+        final boolean present;
+        final int attack;
+        final int defense;
+        final int hp;
+        final int speed;
+        final double critRate;
+        final double comboRate;
+        final double dodgeRate;
+        final double blockRate;
+        final double lifesteal;
+        final double critResistance;
+        final double comboResistance;
+        final double dodgeResistance;
+        final double blockResistance;
+        final double lifestealResistance;
+
+        private Stats(long version, boolean present, int attack, int defense, int hp, int speed,
+                      double critRate, double comboRate, double dodgeRate, double blockRate, double lifesteal,
+                      double critResistance, double comboResistance, double dodgeResistance,
+                      double blockResistance, double lifestealResistance) {
+            this.version = version;
+            this.present = present;
+            this.attack = attack;
+            this.defense = defense;
+            this.hp = hp;
+            this.speed = speed;
+            this.critRate = critRate;
+            this.comboRate = comboRate;
+            this.dodgeRate = dodgeRate;
+            this.blockRate = blockRate;
+            this.lifesteal = lifesteal;
+            this.critResistance = critResistance;
+            this.comboResistance = comboResistance;
+            this.dodgeResistance = dodgeResistance;
+            this.blockResistance = blockResistance;
+            this.lifestealResistance = lifestealResistance;
+        }
+
+        static Stats floor(long version) {
+            return new Stats(version, false, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        }
+
+        static Stats of(long version, PetEquipStatsVO vo) {
+            return new Stats(version, true,
+                    intOf(vo.getTotalBaseAttack()), intOf(vo.getTotalBaseDefense()), intOf(vo.getTotalBaseHp()), intOf(vo.getSpeed()),
+                    doubleOf(vo.getCritRate()), doubleOf(vo.getComboRate()), doubleOf(vo.getDodgeRate()),
+                    doubleOf(vo.getBlockRate()), doubleOf(vo.getLifesteal()),
+                    doubleOf(vo.getCritResistance()), doubleOf(vo.getComboResistance()), doubleOf(vo.getDodgeResistance()),
+                    doubleOf(vo.getBlockResistance()), doubleOf(vo.getLifestealResistance()));
+        }
+
+        /**
+         * 解析 Redis 中的值，格式不对时视为未命中
+         */
+        static Stats decode(String value) {
+            if (value == null) {
+                return null;
+            }
+            String[] parts = value.split(",");
+            if (parts.length != FIELDS) {
+                return null;
+            }
+            try {
+                return new Stats(Long.parseLong(parts[0]), true,
+                        Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), Integer.parseInt(parts[4]),
+                        Double.parseDouble(parts[5]), Double.parseDouble(parts[6]), Double.parseDouble(parts[7]),
+                        Double.parseDouble(parts[8]), Double.parseDouble(parts[9]),
+                        Double.parseDouble(parts[10]), Double.parseDouble(parts[11]), Double.parseDouble(parts[12]),
+                        Double.parseDouble(parts[13]), Double.parseDouble(parts[14]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        String encode() {
+            return version + "," + attack + "," + defense + "," + hp + "," + speed
+                    + "," + critRate + "," + comboRate + "," + dodgeRate + "," + blockRate + "," + lifesteal
+                    + "," + critResistance + "," + comboResistance + "," + dodgeResistance
+                    + "," + blockResistance + "," + lifestealResistance;
+        }
+
+        PetEquipStatsVO toVO() {
+            PetEquipStatsVO vo = new PetEquipStatsVO();
+            vo.setTotalBaseAttack(attack);
+            vo.setTotalBaseDefense(defense);
+            vo.setTotalBaseHp(hp);
+            vo.setSpeed(speed);
+            vo.setCritRate(critRate);
+            vo.setComboRate(comboRate);
+            vo.setDodgeRate(dodgeRate);
+            vo.setBlockRate(blockRate);
+            vo.setLifesteal(lifesteal);
+            vo.setCritResistance(critResistance);
+            vo.setComboResistance(comboResistance);
+            vo.setDodgeResistance(dodgeResistance);
+            vo.setBlockResistance(blockResistance);
+            vo.setLifestealResistance(lifestealResistance);
+            return vo;
+        }
+
+        private static int intOf(Integer value) {
+            return value == null ? 0 : value;
+        }
+
+        private static double doubleOf(Double value) {
+            return value == null ? 0.0 : value;
+        }
+    }
+}
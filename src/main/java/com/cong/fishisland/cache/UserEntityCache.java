@@ -0,0 +1,257 @@
+package com.cong.fishisland.cache;
+
+import cn.hutool.json.JSONUtil;
+import com.cong.fishisland.config.UserCacheProperties;
+import com.cong.fishisland.constant.RedisKey;
+import com.cong.fishisland.model.entity.user.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.BeanUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 用户信息两级缓存
+ * Description: 本地 Caffeine 在前、Redis 在后，都未命中才查库并回填；用户写入后删除两级缓存，
+ * 并通过 Redis 频道通知其他节点清掉本地副本。返回的都是副本，调用方修改后再 updateById 不会污染缓存
+ *
+ * @author cong
+ */
+@Slf4j
+@Component
+public class UserEntityCache {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedissonClient redissonClient;
+    private final UserCacheProperties properties;
+    private final Cache<Long, User> localCache;
+
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong redisMisses = new AtomicLong();
+    private final AtomicLong dbLoads = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private RTopic evictTopic;
+    private Integer listenerId;
+
+    public UserEntityCache(StringRedisTemplate stringRedisTemplate, RedissonClient redissonClient,
+                           UserCacheProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redissonClient = redissonClient;
+        this.properties = properties;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(properties.getLocalMaxSize())
+                .expireAfterWrite(properties.getLocalTtlSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 订阅其他节点的失效广播
+     */
+    @PostConstruct
+    public void subscribe() {
+        evictTopic = redissonClient.getTopic(RedisKey.getKey(RedisKey.USER_ENTITY_EVICT_TOPIC), StringCodec.INSTANCE);
+        listenerId = evictTopic.addListener(String.class, (channel, msg) -> {
+            try {
+                localCache.invalidate(Long.valueOf(msg));
+            } catch (NumberFormatException e) {
+                log.error("用户缓存失效广播格式错误：{}", msg);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (evictTopic != null && listenerId != null) {
+            evictTopic.removeListener(listenerId);
+        }
+    }
+
+    /**
+     * 读取单个用户
+     *
+     * @param userId 用户 ID
+     * @param loader 缓存未命中时的查库逻辑
+     * @return 用户副本，不存在时返回 null
+     */
+    public User get(Long userId, Function<Long, User> loader) {
+        if (userId == null) {
+            return null;
+        }
+        User user = localCache.getIfPresent(userId);
+        if (user == null) {
+            user = readRedis(userId);
+            if (user == null) {
+                dbLoads.incrementAndGet();
+                user = loader.apply(userId);
+                if (user == null) {
+                    return null;
+                }
+                writeRedis(user);
+            }
+            localCache.put(userId, user);
+        }
+        return copy(user);
+    }
+
+    /**
+     * 批量读取用户，按层依次补齐未命中的部分
+     *
+     * @param userIds    用户 ID
+     * @param bulkLoader 缓存未命中时的批量查库逻辑
+     * @return 用户副本列表，不存在的用户不返回
+     */
+    public List<User> getByIds(Collection<Long> userIds, Function<Collection<Long>, List<User>> bulkLoader) {
+        if (userIds == null || userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<Long> ids = new LinkedHashSet<>(userIds);
+        Map<Long, User> found = new LinkedHashMap<>(localCache.getAllPresent(ids));
+
+        List<Long> redisMissing = ids.stream().filter(id -> !found.containsKey(id)).collect(Collectors.toList());
+        if (!redisMissing.isEmpty()) {
+            List<String> jsons = stringRedisTemplate.opsForValue().multiGet(redisMissing.stream()
+                    .map(id -> RedisKey.getKey(RedisKey.USER_ENTITY_CACHE, id))
+                    .collect(Collectors.toList()));
+            List<Long> dbMissing = new ArrayList<>();
+            for (int i = 0; i < redisMissing.size(); i++) {
+                String json = jsons == null ? null : jsons.get(i);
+                Long id = redisMissing.get(i);
+                if (json == null) {
+                    redisMisses.incrementAndGet();
+                    dbMissing.add(id);
+                    continue;
+                }
+                redisHits.incrementAndGet();
+                User user = JSONUtil.toBean(json, User.class);
+                localCache.put(id, user);
+                found.put(id, user);
+            }
+            if (!dbMissing.isEmpty()) {
+                dbLoads.addAndGet(dbMissing.size());
+                List<User> loaded = bulkLoader.apply(dbMissing);
+                writeRedis(loaded);
+                loaded.forEach(user -> {
+                    localCache.put(user.getId(), user);
+                    found.put(user.getId(), user);
+                });
+            }
+        }
+
+        List<User> result = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                result.add(copy(user));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 失效用户缓存：删除本地与 Redis 两级，并广播其他节点删除本地副本
+     *
+     * @param userId 用户 ID
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        invalidations.incrementAndGet();
+        localCache.invalidate(userId);
+        try {
+            stringRedisTemplate.delete(RedisKey.getKey(RedisKey.USER_ENTITY_CACHE, userId));
+            if (evictTopic != null) {
+                evictTopic.publish(String.valueOf(userId));
+            }
+        } catch (Exception e) {
+            log.error("用户缓存失效失败，userId：{}", userId, e);
+        }
+    }
+
+    /**
+     * 缓存统计
+     *
+     * @return 本地命中率（百分比）、各层命中与未命中次数、查库次数、失效次数及本地缓存大小
+     */
+    public Map<String, Long> getStats() {
+        CacheStats localStats = localCache.stats();
+        long redisHit = redisHits.get();
+        long redisMiss = redisMisses.get();
+        long requests = localStats.requestCount();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("localHits", localStats.hitCount());
+        stats.put("localMisses", localStats.missCount());
+        stats.put("localHitRatePercent", Math.round(localStats.hitRate() * 100));
+        stats.put("redisHits", redisHit);
+        stats.put("redisMisses", redisMiss);
+        stats.put("redisHitRatePercent", redisHit + redisMiss == 0 ? 0L : redisHit * 100 / (redisHit + redisMiss));
+        stats.put("dbLoads", dbLoads.get());
+        stats.put("overallHitRatePercent", requests == 0 ? 0L : (requests - dbLoads.get()) * 100 / requests);
+        stats.put("invalidations", invalidations.get());
+        stats.put("localSize", localCache.estimatedSize());
+        return stats;
+    }
+
+    private User readRedis(Long userId) {
+        String json = stringRedisTemplate.opsForValue().get(RedisKey.getKey(RedisKey.USER_ENTITY_CACHE, userId));
+        if (json == null) {
+            redisMisses.incrementAndGet();
+            return null;
+        }
+        redisHits.incrementAndGet();
+        return JSONUtil.toBean(json, User.class);
+    }
+
+    private void writeRedis(User user) {
+        stringRedisTemplate.opsForValue().set(RedisKey.getKey(RedisKey.USER_ENTITY_CACHE, user.getId()),
+                JSONUtil.toJsonStr(user), properties.getRedisTtlSeconds(), TimeUnit.SECONDS);
+    }
+
+    private void writeRedis(List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (User user : users) {
+                    ops.opsForValue().set(RedisKey.getKey(RedisKey.USER_ENTITY_CACHE, user.getId()),
+                            JSONUtil.toJsonStr(user), properties.getRedisTtlSeconds(), TimeUnit.SECONDS);
+                }
+                return null;
+            }
+        });
+    }
+
+    private static User copy(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        return copy;
+    }
+}
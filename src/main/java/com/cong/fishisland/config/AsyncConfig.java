@@ -58,4 +58,50 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * 宠物自动喂食分块执行线程池，线程数即同时进行的喂食事务数
+     *
+     * @return 线程池执行器
+     */
+    @Bean(name = "petAutoFeedExecutor")
+    public Executor petAutoFeedExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // 核心线程数
+        executor.setCorePoolSize(4);
+        // 最大线程数
+        executor.setMaxPoolSize(4);
+        // 队列容量（分块数量不多，全部排队）
+        executor.setQueueCapacity(10000);
+        // 线程名前缀
+        executor.setThreadNamePrefix("pet-auto-feed-");
+        // 拒绝策略
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        // 等待所有任务结束后再关闭线程池
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 基金行情数据源请求线程池，多个数据源、多只基金并行请求
+     *
+     * @return 线程池执行器
+     */
+    @Bean(name = "fundQuoteExecutor")
+    public Executor fundQuoteExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        // 核心线程数
+        executor.setCorePoolSize(16);
+        // 最大线程数
+        executor.setMaxPoolSize(32);
+        // 队列容量
+        executor.setQueueCapacity(500);
+        // 线程名前缀
+        executor.setThreadNamePrefix("fund-quote-");
+        // 拒绝策略
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.cong.fishisland.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 聊天消息异步落库配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fishisland.room-message.write-behind")
+@Data
+public class RoomMessageWriteProperties {
+
+    /**
+     * 缓冲队列容量，队列满时退化为调用线程同步写入
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 单次批量插入的最大行数
+     */
+    private int batchSize = 200;
+
+    /**
+     * 凑批的最长等待时间（毫秒），到时即使未满也会写入
+     */
+    private long flushIntervalMillis = 200;
+}
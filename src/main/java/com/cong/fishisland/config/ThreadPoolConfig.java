@@ -23,11 +23,6 @@ public class ThreadPoolConfig implements AsyncConfigurer {
      * 项目共用线程池
      */
     public static final String WANWU_EXECUTOR = "fishExecutor";
-    /**
-     * websocket通信线程池
-     */
-    public static final String WS_EXECUTOR = "websocketExecutor";
-
 
     public static final String AI_CHAT_EXECUTOR = "aiChatExecutor";
 
@@ -55,21 +50,6 @@ public class ThreadPoolConfig implements AsyncConfigurer {
         return executor;
     }
 
-    @Bean(WS_EXECUTOR)
-    public ThreadPoolTaskExecutor websocketExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(16);
-        executor.setMaxPoolSize(16);
-        //支持同时推送1000人
-        executor.setQueueCapacity(1000);
-        executor.setThreadNamePrefix("websocket-executor-");
-        //满了直接丢弃，默认为不重要消息推送
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
-        executor.setThreadFactory(new MyThreadFactory(executor));
-        executor.initialize();
-        return executor;
-    }
-
     @Bean(AI_CHAT_EXECUTOR)
     public ThreadPoolTaskExecutor chatAiExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
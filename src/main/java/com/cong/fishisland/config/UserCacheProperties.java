@@ -0,0 +1,29 @@
+package com.cong.fishisland.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 用户信息缓存配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fishisland.user-cache")
+@Data
+public class UserCacheProperties {
+
+    /**
+     * 本地缓存最多保存的用户数
+     */
+    private long localMaxSize = 10000;
+
+    /**
+     * 本地缓存存活时间（秒），失效广播丢失时的兜底
+     */
+    private long localTtlSeconds = 60;
+
+    /**
+     * Redis 缓存存活时间（秒）
+     */
+    private long redisTtlSeconds = 600;
+}
@@ -0,0 +1,50 @@
+package com.cong.fishisland.config;
+
+import com.cong.fishisland.model.enums.MessageTypeEnum;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * WebSocket 服务配置
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fishisland.websocket")
+@Data
+public class WebSocketProperties {
+
+    /**
+     * 出站缓冲低水位（字节），回落到该值以下时连接恢复可写
+     */
+    private int writeBufferLowWaterMark = 32 * 1024;
+
+    /**
+     * 出站缓冲高水位（字节），超过后连接标记为不可写
+     */
+    private int writeBufferHighWaterMark = 64 * 1024;
+
+    /**
+     * 连接持续不可写超过该时长（秒）视为慢消费者，直接断开
+     */
+    private int slowConsumerTimeoutSeconds = 30;
+
+    /**
+     * 连接不可写时只保留最新一条的消息类型
+     */
+    private List<String> coalesceTypes = Arrays.asList(
+            MessageTypeEnum.REFRESH_DRAW.getType(),
+            MessageTypeEnum.REFRESH_ROOM.getType()
+    );
+
+    /**
+     * 连接不可写时直接丢弃的消息类型（在线名单增量带版本号，客户端发现断档后会重新拉取快照）
+     */
+    private List<String> droppableTypes = Arrays.asList(
+            MessageTypeEnum.USER_ONLINE.getType(),
+            MessageTypeEnum.USER_OFFLINE.getType(),
+            MessageTypeEnum.ROSTER_DELTA.getType()
+    );
+}
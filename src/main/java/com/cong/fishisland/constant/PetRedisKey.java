@@ -27,6 +27,21 @@ public interface PetRedisKey {
      */
     String FORGE_UPGRADE_LOCK = "forge:upgrade:lock";
 
+    /**
+     * 宠物装备属性汇总缓存（petId），值带有构建时的版本号
+     */
+    String EQUIP_STATS = "equip:stats";
+
+    /**
+     * 宠物装备属性版本号（petId），穿脱装备、锻造变化时自增
+     */
+    String EQUIP_STATS_VERSION = "equip:stats:version";
+
+    /**
+     * 宠物装备属性本地缓存失效广播频道
+     */
+    String EQUIP_STATS_EVICT_TOPIC = "equip:stats:evict";
+
     /**
      * 获取完整的Redis键
      *
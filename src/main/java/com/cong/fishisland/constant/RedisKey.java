@@ -106,8 +106,97 @@ public interface RedisKey {
      */
     String POST_REWARD_USER_KEY = "post:reward:%d:%s";
 
+    /**
+     * 帖子评论数缓存 post:comment:num:{postId}
+     */
+    String POST_COMMENT_NUM = "post:comment:num:%d";
+
+    /**
+     * 帖子评论树版本号 comment:tree:version:{postId}，评论写入时递增使缓存的评论树失效
+     */
+    String COMMENT_TREE_VERSION = "comment:tree:version:%d";
+
+    /**
+     * 评论树分页缓存 comment:tree:{postId}:{版本号}:{页码}:{页大小}:{排序字段}:{排序方式}
+     */
+    String COMMENT_TREE_CACHE = "comment:tree:%d:%s:%d:%d:%s:%s";
+
+    /**
+     * WebSocket 集群广播频道
+     */
+    String WS_CLUSTER_TOPIC = "ws:cluster:broadcast";
+
+    /**
+     * WebSocket 存活节点 ws:online:nodes（score 为最近心跳时间）
+     */
+    String WS_ONLINE_NODES = "ws:online:nodes";
+
+    /**
+     * WebSocket 节点在线用户 ws:online:node:{nodeId}（uid -> 在线用户信息）
+     */
+    String WS_ONLINE_NODE_USERS = "ws:online:node:%s";
+
+    /**
+     * 聊天记录备份进度（最后一个已归档的消息 id），中断后从这里继续
+     */
+    String CHAT_BACKUP_CHECKPOINT = "chat:backup:checkpoint";
+
+    /**
+     * 用户信息缓存 user:entity:{userId}
+     */
+    String USER_ENTITY_CACHE = "user:entity:%s";
+
+    /**
+     * 用户信息缓存失效广播频道
+     */
+    String USER_ENTITY_EVICT_TOPIC = "user:entity:evict";
+
+    /**
+     * 帖子搜索索引同步频道（消息为 节点ID:帖子ID）
+     */
+    String POST_SEARCH_SYNC_TOPIC = "post:search:sync";
+
+    /**
+     * 排行榜 leaderboard:{榜单名}（ZSet，member 为 userId，score 为分值）
+     */
+    String LEADERBOARD = "leaderboard:%s";
+
+    /**
+     * 排行榜已从数据库加载的标记 leaderboard:loaded:{榜单名}
+     */
+    String LEADERBOARD_LOADED = "leaderboard:loaded:%s";
+
+    /**
+     * 排行榜加载锁 leaderboard:load:lock:{榜单名}
+     */
+    String LEADERBOARD_LOAD_LOCK = "leaderboard:load:lock:%s";
+
+    /**
+     * 待落库的农场排行增量（userId:类型:日期 -> 增量）
+     */
+    String FARM_RANKING_PENDING = "farm:ranking:pending";
+
+    /**
+     * 正在落库的农场排行增量，落库失败时保留，下一轮继续
+     */
+    String FARM_RANKING_FLUSHING = "farm:ranking:flushing";
+
+    /**
+     * 农场排行增量落库锁
+     */
+    String FARM_RANKING_FLUSH_LOCK = "farm:ranking:flush:lock";
+
+    /**
+     * 用户点赞过的朋友圈动态 moments:liked:{userId}（Set，首次使用时从数据库加载）
+     */
+    String MOMENTS_LIKED_SET = "moments:liked:%s";
+
+    /**
+     * 会员有效期索引同步频道（消息为 节点ID:用户ID）
+     */
+    String VIP_ENTITLEMENT_SYNC_TOPIC = "vip:entitlement:sync";
+
     static String getKey(String key, Object... objects) {
         return BASE_KEY + String.format(key, objects);
     }
-
 }
@@ -22,6 +22,11 @@ public interface UndercoverGameRedisKey {
      */
     String ROOM_INFO = BASE_KEY + "roomInfo:%s";
     
+    /**
+     * 房间索引键（有序集合，成员为房间ID，分数为创建时间毫秒）
+     */
+    String ROOM_INDEX = BASE_KEY + "room_index";
+    
     /**
      * 玩家身份键
      */
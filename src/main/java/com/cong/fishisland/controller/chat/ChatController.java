@@ -1,8 +1,10 @@
 package com.cong.fishisland.controller.chat;
 
+import cn.dev33.satoken.annotation.SaCheckRole;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cong.fishisland.common.BaseResponse;
 import com.cong.fishisland.common.ResultUtils;
+import com.cong.fishisland.constant.UserConstant;
 import com.cong.fishisland.service.impl.chat.FlexChatServiceDemo;
 import com.cong.fishisland.model.dto.chat.MessageQueryRequest;
 import com.cong.fishisland.model.vo.chat.RoomMessageVo;
@@ -19,6 +21,7 @@ import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 聊天控制器
@@ -57,4 +60,18 @@ public class ChatController {
       return   ResultUtils.success(webSocketService.getOnlineUserList());
 
     }
+
+    @GetMapping("/ws/stats")
+    @ApiOperation(value = "获取 WebSocket 推送统计（仅管理员）")
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    public BaseResponse<Map<String, Map<String, Long>>> getPushStats() {
+        return ResultUtils.success(webSocketService.getPushStats());
+    }
+
+    @GetMapping("/message/buffer/stats")
+    @ApiOperation(value = "获取聊天消息写缓冲统计（仅管理员）")
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    public BaseResponse<Map<String, Long>> getMessageBufferStats() {
+        return ResultUtils.success(roomMessageService.getWriteBufferStats());
+    }
 }
\ No newline at end of file
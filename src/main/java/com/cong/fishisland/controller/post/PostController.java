@@ -169,10 +169,7 @@ public class PostController {
     @SaCheckRole(UserConstant.ADMIN_ROLE)
     @ApiOperation(value = "分页获取列表（仅管理员）")
     public BaseResponse<Page<Post>> listPostByPage(@RequestBody PostQueryRequest postQueryRequest) {
-        long current = postQueryRequest.getCurrent();
-        long size = postQueryRequest.getPageSize();
-        Page<Post> postPage = postService.page(new Page<>(current, size),
-                postService.getQueryWrapper(postQueryRequest));
+        Page<Post> postPage = searchPostPage(postQueryRequest);
         return ResultUtils.success(postPage);
     }
 
@@ -185,12 +182,10 @@ public class PostController {
     @PostMapping("/list/page/vo")
     @ApiOperation(value = "分页获取列表（封装类）")
     public BaseResponse<Page<PostVO>> listPostVoByPage(@RequestBody PostQueryRequest postQueryRequest) {
-        long current = postQueryRequest.getCurrent();
         long size = postQueryRequest.getPageSize();
         // 限制爬虫
         ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-        Page<Post> postPage = postService.page(new Page<>(current, size),
-                postService.getQueryWrapper(postQueryRequest));
+        Page<Post> postPage = searchPostPage(postQueryRequest);
         return ResultUtils.success(postService.getPostVOPage(postPage));
     }
 
@@ -208,15 +203,28 @@ public class PostController {
         }
         User loginUser = userService.getLoginUser();
         postQueryRequest.setUserId(loginUser.getId());
-        long current = postQueryRequest.getCurrent();
         long size = postQueryRequest.getPageSize();
         // 限制爬虫
         ThrowUtils.throwIf(size > 20, ErrorCode.PARAMS_ERROR);
-        Page<Post> postPage = postService.page(new Page<>(current, size),
-                postService.getQueryWrapper(postQueryRequest));
+        Page<Post> postPage = searchPostPage(postQueryRequest);
         return ResultUtils.success(postService.getPostVOPage(postPage));
     }
 
+    /**
+     * 带搜索词时优先走搜索索引，索引不可用时回退到数据库查询
+     *
+     * @param postQueryRequest 发布查询请求
+     * @return {@link Page}<{@link Post}>
+     */
+    private Page<Post> searchPostPage(PostQueryRequest postQueryRequest) {
+        Page<Post> postPage = postService.searchFromEs(postQueryRequest);
+        if (postPage != null) {
+            return postPage;
+        }
+        return postService.page(new Page<>(postQueryRequest.getCurrent(), postQueryRequest.getPageSize()),
+                postService.getQueryWrapper(postQueryRequest));
+    }
+
     // endregion
 
     /**
@@ -22,11 +22,13 @@ import com.cong.fishisland.service.LinuxDoOAuth2Service;
 import com.cong.fishisland.service.UserPointsService;
 import com.cong.fishisland.service.UserService;
 import com.cong.fishisland.utils.RedisUtils;
+import com.cong.fishisland.websocket.event.UserSessionChangeEvent;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
 import me.zhyd.oauth.model.AuthCallback;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
@@ -41,6 +43,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAdjusters;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static com.cong.fishisland.constant.SystemConstants.SALT;
@@ -63,6 +66,8 @@ public class UserController {
     private UserPointsService userPointsService;
     @Resource
     private LinuxDoOAuth2Service linuxDoOAuth2Service;
+    @Resource
+    private ApplicationEventPublisher applicationEventPublisher;
 
     // region 登录相关
 
@@ -340,7 +345,11 @@ public class UserController {
         if (deleteRequest == null || Long.parseLong(deleteRequest.getId()) <= 0) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR);
         }
-        boolean b = userService.removeById(Long.parseLong(deleteRequest.getId()));
+        long id = Long.parseLong(deleteRequest.getId());
+        boolean b = userService.removeById(id);
+        if (b) {
+            applicationEventPublisher.publishEvent(new UserSessionChangeEvent(this, id));
+        }
         return ResultUtils.success(b);
     }
 
@@ -361,6 +370,8 @@ public class UserController {
         BeanUtils.copyProperties(userUpdateRequest, user);
         boolean result = userService.updateById(user);
         ThrowUtils.throwIf(!result, ErrorCode.OPERATION_ERROR);
+        // 角色等信息可能变化，使聊天连接上缓存的会话失效
+        applicationEventPublisher.publishEvent(new UserSessionChangeEvent(this, user.getId()));
         return ResultUtils.success(true);
     }
 
@@ -382,6 +393,18 @@ public class UserController {
         return ResultUtils.success(user);
     }
 
+    /**
+     * 获取用户信息缓存统计（仅管理员）
+     *
+     * @return {@link BaseResponse}<{@link Map}>
+     */
+    @GetMapping("/cache/stats")
+    @SaCheckRole(UserConstant.ADMIN_ROLE)
+    @ApiOperation(value = "获取用户信息缓存统计（仅管理员）")
+    public BaseResponse<Map<String, Long>> getUserCacheStats() {
+        return ResultUtils.success(userService.getUserCacheStats());
+    }
+
     /**
      * 根据 id 获取包装类
      *
@@ -4,6 +4,7 @@ import com.cong.fishisland.constant.RedisKey;
 import com.cong.fishisland.model.vo.game.BossVO;
 import com.cong.fishisland.service.BossService;
 import com.cong.fishisland.service.PetTournamentService;
+import com.cong.fishisland.service.impl.game.BossHealthPool;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +27,7 @@ import java.util.concurrent.TimeUnit;
 public class BossCacheJob {
 
     private final BossService bossService;
+    private final BossHealthPool bossHealthPool;
     private final PetTournamentService petTournamentService;
     private final StringRedisTemplate redisTemplate;
     private final ObjectMapper objectMapper;
@@ -95,20 +97,8 @@ public class BossCacheJob {
             // 4. 初始化每个Boss的血量到Redis（每天重置Boss血量）
             // 5. 重置每个Boss的挑战排行榜（删除排行榜数据）
             for (BossVO boss : bossList) {
-                String healthKey = RedisKey.getKey(RedisKey.BOSS_HEALTH_CACHE_KEY, boss.getId());
-                redisTemplate.opsForValue().set(
-                        healthKey,
-                        String.valueOf(boss.getHealth()),
-                        24,
-                        TimeUnit.HOURS
-                );
-                
-                // 删除排行榜数据，实现每天重置
-                String rankingKey = RedisKey.getKey(RedisKey.BOSS_CHALLENGE_RANKING_KEY, boss.getId());
-                redisTemplate.delete(rankingKey);
-                String rewardDistributedKey = RedisKey.getKey(RedisKey.BOSS_REWARD_DISTRIBUTED_KEY, boss.getId());
-                redisTemplate.delete(rewardDistributedKey);
-                log.debug("已重置Boss排行榜，bossId: {}, rankingKey: {}", boss.getId(), rankingKey);
+                bossHealthPool.reset(boss.getId(), boss.getHealth());
+                log.debug("已重置Boss血量和排行榜，bossId: {}", boss.getId());
             }
 
             log.info("Boss数据缓存成功，共缓存{}个Boss，缓存key: {}，已重置所有Boss排行榜", bossList.size(), cacheKey);
@@ -30,10 +30,6 @@ public class PetStatusUpdateJob {
     private final PetTournamentService petTournamentService;
     private final PetAutoFeedService petAutoFeedService;
 
-    // 每小时饥饿度减少值
-    private static final int HUNGER_DECREMENT = 5;
-    // 每小时心情值减少值
-    private static final int MOOD_DECREMENT = 3;
     // 宠物产出积分的最大值
     private static final int MAX_PET_POINTS = 60;
 
@@ -67,34 +63,6 @@ public class PetStatusUpdateJob {
         }
     }
 
-    /**
-     * 每小时更新宠物状态
-     * 每小时扣除5点饥饿度、3点心情值
-     * 注意：60级宠物不会扣除饥饿度和心情值，会自动保持满值
-     * 注意：饥饿度和心情值为0的宠物无法获得经验
-     */
-    @Scheduled(fixedRate = 3600000, initialDelay = 3600000)
-    public void updatePetStatus() {
-        log.info("开始执行宠物状态更新任务");
-
-        try {
-            // 使用批量更新方法一次性更新所有宠物状态
-            int updatedCount = fishPetService.batchUpdatePetStatus(HUNGER_DECREMENT, MOOD_DECREMENT);
-
-            if (updatedCount > 0) {
-                log.info("宠物状态批量更新成功，共更新{}个宠物", updatedCount);
-                log.info("提醒：60级宠物状态保持满值，其他宠物扣除饥饿度和心情值");
-                log.info("提醒：饥饿度和心情值为0的宠物将无法获得经验和升级");
-            } else {
-                log.info("没有宠物需要更新状态");
-            }
-
-            log.info("宠物状态更新任务执行完成");
-        } catch (Exception e) {
-            log.error("宠物状态更新任务执行异常", e);
-        }
-    }
-    
     /**
      * 每天凌晨0点执行宠物积分产出
      * 产出积分 = 宠物等级（最高10积分）
@@ -169,7 +137,7 @@ public class PetStatusUpdateJob {
 
     /**
      * 每小时执行宠物自动喂食
-     * 在宠物状态扣减之后执行，确保饥饿度已更新
+     * 饥饿度按经过时间折算（见 PetVitals），不再依赖定时扣减
      * 对所有启用自动喂食且饥饿度达到阈值的宠物，自动消耗背包中的食物
      */
     @Scheduled(fixedRate = 3600000, initialDelay = 3660000)
@@ -0,0 +1,218 @@
+package com.cong.fishisland.manager;
+
+import com.cong.fishisland.constant.RedisKey;
+import com.cong.fishisland.model.dto.leaderboard.LeaderboardEntry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 排行榜管理
+ * Description: 基于 Redis ZSet 的通用排行榜，事件发生时 ZINCRBY 累加分值，读榜用 ZREVRANGE 只取前 N 名，
+ * 个人名次用 ZREVRANK。榜单首次使用（或 Redis 数据丢失）时从数据库加载一次，加载前不接受写入，避免覆盖历史分值
+ *
+ * @author cong
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LeaderboardManager {
+
+    /**
+     * 写入后榜单与加载标记同时过期（空榜加载时 ZSet 还不存在，首次写入时补上过期时间）
+     */
+    private static final String SYNC_TTL =
+            "local ttl = redis.call('PTTL', KEYS[2]) " +
+            "if ttl > 0 and redis.call('PTTL', KEYS[1]) < 0 then redis.call('PEXPIRE', KEYS[1], ttl) end ";
+
+    /**
+     * KEYS[1] 榜单，KEYS[2] 加载标记；ARGV[1] 增量，ARGV[2] userId。未加载返回 0
+     */
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[2]) == 0 then return 0 end " +
+            "redis.call('ZINCRBY', KEYS[1], ARGV[1], ARGV[2]) " +
+            SYNC_TTL +
+            "return 1", Long.class);
+
+    /**
+     * KEYS[1] 榜单，KEYS[2] 加载标记；ARGV[1] 分值，ARGV[2] userId。只在分值更高时写入，未加载返回 0
+     */
+    private static final DefaultRedisScript<Long> SET_IF_HIGHER_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[2]) == 0 then return 0 end " +
+            "local current = redis.call('ZSCORE', KEYS[1], ARGV[2]) " +
+            "if not current or tonumber(current) < tonumber(ARGV[1]) then " +
+            "redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2]) end " +
+            SYNC_TTL +
+            "return 1", Long.class);
+
+    private static final long LOAD_LOCK_LEASE_SECONDS = 30;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedissonClient redissonClient;
+
+    /**
+     * 获取榜单
+     *
+     * @param name   榜单名，如 farm:steal_count:total
+     * @param ttl    过期时间，为空表示永久保存
+     * @param loader 首次使用时从数据库加载 userId -> 分值，为空表示从零开始
+     * @return 榜单
+     */
+    public Board board(String name, Duration ttl, Supplier<Map<Long, Long>> loader) {
+        return new Board(name, ttl, loader);
+    }
+
+    /**
+     * 按日期区分的榜单名
+     *
+     * @param name 榜单名
+     * @param date 日期
+     * @return 榜单名:yyyyMMdd
+     */
+    public static String dailyName(String name, LocalDate date) {
+        return name + ":" + date.format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+
+    /**
+     * 单个榜单
+     */
+    public class Board {
+
+        private final String name;
+        private final Duration ttl;
+        private final Supplier<Map<Long, Long>> loader;
+        private final String key;
+        private final String loadedKey;
+
+        private Board(String name, Duration ttl, Supplier<Map<Long, Long>> loader) {
+            this.name = name;
+            this.ttl = ttl;
+            this.loader = loader;
+            this.key = RedisKey.getKey(RedisKey.LEADERBOARD, name);
+            this.loadedKey = RedisKey.getKey(RedisKey.LEADERBOARD_LOADED, name);
+        }
+
+        /**
+         * 累加分值
+         */
+        public void increment(Long userId, long delta) {
+            execute(INCREMENT_SCRIPT, userId, delta);
+        }
+
+        /**
+         * 分值更高时才更新，适合“历史最高”类榜单
+         */
+        public void setIfHigher(Long userId, long score) {
+            execute(SET_IF_HIGHER_SCRIPT, userId, score);
+        }
+
+        /**
+         * 前 N 名
+         *
+         * @param limit N
+         * @return 按分值降序的条目
+         */
+        public List<LeaderboardEntry> top(int limit) {
+            if (limit <= 0) {
+                return Collections.emptyList();
+            }
+            ensureLoaded();
+            Set<ZSetOperations.TypedTuple<String>> tuples =
+                    stringRedisTemplate.opsForZSet().reverseRangeWithScores(key, 0, limit - 1L);
+            List<LeaderboardEntry> entries = new ArrayList<>();
+            if (tuples == null) {
+                return entries;
+            }
+            int rank = 1;
+            for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+                Double score = tuple.getScore();
+                entries.add(new LeaderboardEntry(rank++, Long.valueOf(tuple.getValue()),
+                        score == null ? 0L : score.longValue()));
+            }
+            return entries;
+        }
+
+        /**
+         * 个人名次
+         *
+         * @param userId 用户 ID
+         * @return 不在榜上时返回 null
+         */
+        public LeaderboardEntry rankOf(Long userId) {
+            ensureLoaded();
+            String member = String.valueOf(userId);
+            Long rank = stringRedisTemplate.opsForZSet().reverseRank(key, member);
+            if (rank == null) {
+                return null;
+            }
+            Double score = stringRedisTemplate.opsForZSet().score(key, member);
+            return new LeaderboardEntry(rank.intValue() + 1, userId, score == null ? 0L : score.longValue());
+        }
+
+        private void execute(DefaultRedisScript<Long> script, Long userId, long value) {
+            List<String> keys = Arrays.asList(key, loadedKey);
+            Long result = stringRedisTemplate.execute(script, keys, String.valueOf(value), String.valueOf(userId));
+            if (result == null || result == 0) {
+                load();
+                stringRedisTemplate.execute(script, keys, String.valueOf(value), String.valueOf(userId));
+            }
+        }
+
+        private void ensureLoaded() {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(loadedKey))) {
+                load();
+            }
+        }
+
+        /**
+         * 从数据库加载榜单，多节点下只加载一次
+         */
+        private void load() {
+            RLock lock = redissonClient.getLock(RedisKey.getKey(RedisKey.LEADERBOARD_LOAD_LOCK, name));
+            lock.lock(LOAD_LOCK_LEASE_SECONDS, TimeUnit.SECONDS);
+            try {
+                if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(loadedKey))) {
+                    return;
+                }
+                Map<Long, Long> scores = loader == null ? Collections.emptyMap() : loader.get();
+                stringRedisTemplate.delete(key);
+                if (!scores.isEmpty()) {
+                    Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>(scores.size());
+                    scores.forEach((userId, score) ->
+                            tuples.add(new DefaultTypedTuple<>(String.valueOf(userId), score.doubleValue())));
+                    stringRedisTemplate.opsForZSet().add(key, tuples);
+                }
+                if (ttl == null) {
+                    stringRedisTemplate.opsForValue().set(loadedKey, "1");
+                } else {
+                    stringRedisTemplate.expire(key, ttl);
+                    stringRedisTemplate.opsForValue().set(loadedKey, "1", ttl);
+                }
+                log.info("排行榜 {} 已从数据库加载，共 {} 条", name, scores.size());
+            } finally {
+                if (lock.isHeldByCurrentThread()) {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
@@ -4,8 +4,11 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cong.fishisland.model.entity.chat.RoomMessage;
 import com.cong.fishisland.model.entity.chat.RoomMessageBackup;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 import java.util.Date;
 import java.util.List;
@@ -18,15 +21,33 @@ import java.util.List;
 public interface RoomMessageBackupMapper extends BaseMapper<RoomMessageBackup> {
 
     /**
-     * 查询一周前的所有消息（绕过逻辑删除）
+     * 原表当前最小 id
+     */
+    @Select("SELECT MIN(id) FROM room_message")
+    Long selectMinMessageId();
+
+    /**
+     * 原表当前最大 id
+     */
+    @Select("SELECT MAX(id) FROM room_message")
+    Long selectMaxMessageId();
+
+    /**
+     * 流式读取 id 区间 [fromId, toId) 内早于指定时间的消息（绕过逻辑删除）
      */
     @Select("SELECT id, userId, roomId, messageJson, messageId, createTime, updateTime, isDelete " +
-            "FROM room_message WHERE createTime < #{oneWeekAgo}")
-    List<RoomMessage> selectOldMessages(@Param("oneWeekAgo") Date oneWeekAgo);
+            "FROM room_message WHERE id >= #{fromId} AND id < #{toId} AND createTime < #{before} ORDER BY id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<RoomMessage> streamOldMessages(@Param("fromId") long fromId,
+                                          @Param("toId") long toId,
+                                          @Param("before") Date before);
 
     /**
-     * 物理删除一周前的消息
+     * 按 id 物理删除原表消息
      */
-    @Delete("DELETE FROM room_message WHERE createTime < #{oneWeekAgo}")
-    int deleteOldMessages(@Param("oneWeekAgo") Date oneWeekAgo);
+    @Delete("<script>" +
+            "DELETE FROM room_message WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int deleteMessagesByIds(@Param("ids") List<Long> ids);
 }
@@ -3,8 +3,11 @@ package com.cong.fishisland.mapper.chat;
 import com.cong.fishisland.model.entity.chat.RoomMessage;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.List;
+
 /**
 * @author cong
 * @description 针对表【room_message(房间消息表)】的数据库操作Mapper
@@ -18,6 +21,17 @@ public interface RoomMessageMapper extends BaseMapper<RoomMessage> {
      */
     @Delete("DELETE FROM room_message WHERE id = #{id}")
     int physicalDeleteById(@Param("id") Long id);
+
+    /**
+     * 多行插入（单条 INSERT 语句写入整批消息）
+     */
+    @Insert("<script>" +
+            "INSERT INTO room_message (userId, roomId, messageJson, messageId, createTime) VALUES " +
+            "<foreach collection='list' item='item' separator=','>" +
+            "(#{item.userId}, #{item.roomId}, #{item.messageJson}, #{item.messageId}, #{item.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<RoomMessage> list);
 }
 
 
@@ -2,6 +2,12 @@ package com.cong.fishisland.mapper.comment;
 
 import com.cong.fishisland.model.entity.comment.Comment;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
 * @author 许林涛
@@ -11,8 +17,53 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 */
 public interface CommentMapper extends BaseMapper<Comment> {
 
-}
-
+    /**
+     * 批量统计多个帖子各自的评论数
+     *
+     * @return List of map with keys: postId, cnt
+     */
+    @Select("<script>" +
+            "SELECT postId, COUNT(*) AS cnt FROM comment " +
+            "WHERE isDelete = 0 AND postId IN " +
+            "<foreach item='id' collection='postIds' open='(' separator=',' close=')'> #{id} </foreach>" +
+            " GROUP BY postId" +
+            "</script>")
+    List<Map<String, Object>> batchCountByPostIds(@Param("postIds") Collection<Long> postIds);
 
+    /**
+     * 批量查询多个帖子各自点赞最高的一条顶级评论
+     */
+    @Select("<script>" +
+            "SELECT id, postId, userId, rootId, parentId, content, thumbNum, createTime, updateTime, isDelete FROM (" +
+            "SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.postId ORDER BY c.thumbNum DESC, c.id ASC) AS rn " +
+            "FROM comment c WHERE c.isDelete = 0 AND c.parentId IS NULL AND c.postId IN " +
+            "<foreach item='id' collection='postIds' open='(' separator=',' close=')'> #{id} </foreach>" +
+            ") t WHERE t.rn = 1" +
+            "</script>")
+    List<Comment> selectTopThumbByPostIds(@Param("postIds") Collection<Long> postIds);
 
+    /**
+     * 批量查询多个根评论各自最早的若干条二级评论
+     */
+    @Select("<script>" +
+            "SELECT id, postId, userId, rootId, parentId, content, thumbNum, createTime, updateTime, isDelete FROM (" +
+            "SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.rootId ORDER BY c.createTime ASC, c.id ASC) AS rn " +
+            "FROM comment c WHERE c.isDelete = 0 AND c.rootId IN " +
+            "<foreach item='id' collection='rootIds' open='(' separator=',' close=')'> #{id} </foreach>" +
+            ") t WHERE t.rn &lt;= #{limit} ORDER BY t.rootId, t.rn" +
+            "</script>")
+    List<Comment> selectPreviewChildren(@Param("rootIds") Collection<Long> rootIds, @Param("limit") int limit);
 
+    /**
+     * 批量统计多个根评论各自的二级评论数
+     *
+     * @return List of map with keys: rootId, cnt
+     */
+    @Select("<script>" +
+            "SELECT rootId, COUNT(*) AS cnt FROM comment " +
+            "WHERE isDelete = 0 AND rootId IN " +
+            "<foreach item='id' collection='rootIds' open='(' separator=',' close=')'> #{id} </foreach>" +
+            " GROUP BY rootId" +
+            "</script>")
+    List<Map<String, Object>> batchCountByRootIds(@Param("rootIds") Collection<Long> rootIds);
+}
@@ -1,32 +1,44 @@
 package com.cong.fishisland.mapper.farm;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
-import com.cong.fishisland.model.dto.farm.RankingDTO;
 import com.cong.fishisland.model.entity.farm.FarmRanking;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
-import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.annotations.Select;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface FarmRankingMapper extends BaseMapper<FarmRanking> {
 
-    @Update("UPDATE farm_ranking SET todayValue = todayValue + #{todayValue}, totalValue = totalValue + #{totalValue}, updateTime = NOW() " +
-            "WHERE userId = #{userId} AND type = #{type} AND date = #{date}")
-    int updateRankingValue(@Param("userId") Long userId, @Param("type") String type, @Param("date") LocalDate date,
-                           @Param("todayValue") Integer todayValue, @Param("totalValue") Integer totalValue);
-
-    List<RankingDTO> selectTodayStealExpRanking(@Param("date") LocalDate date, @Param("type") String type);
-
-    List<RankingDTO> selectTodayStealCountRanking(@Param("date") LocalDate date, @Param("type") String type);
-
-    List<RankingDTO> selectTodayDefenseRanking(@Param("date") LocalDate date, @Param("type") String type);
-
-    List<RankingDTO> selectTotalStealExpRanking(@Param("type") String type);
-
-    List<RankingDTO> selectTotalStealCountRanking(@Param("type") String type);
-
-    List<RankingDTO> selectTotalDefenseRanking(@Param("type") String type);
+    /**
+     * 批量累加排行数值，当天没有记录时插入
+     *
+     * @param rankings 每条记录的 todayValue/totalValue 为本次增量
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO farm_ranking (userId, type, date, todayValue, totalValue) VALUES " +
+            "<foreach item='item' collection='rankings' separator=','>" +
+            "(#{item.userId}, #{item.type}, #{item.date}, #{item.todayValue}, #{item.totalValue})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE todayValue = todayValue + VALUES(todayValue), " +
+            "totalValue = totalValue + VALUES(totalValue), updateTime = NOW()" +
+            "</script>")
+    int batchAddRankingValue(@Param("rankings") List<FarmRanking> rankings);
+
+    /**
+     * 某天各用户的数值，用于加载每日排行榜
+     */
+    @Select("SELECT userId, todayValue AS score FROM farm_ranking WHERE type = #{type} AND date = #{date}")
+    List<Map<String, Object>> selectDailyScores(@Param("type") String type, @Param("date") LocalDate date);
+
+    /**
+     * 各用户的累计数值（按天汇总），用于加载累计排行榜
+     */
+    @Select("SELECT userId, SUM(todayValue) AS score FROM farm_ranking WHERE type = #{type} GROUP BY userId")
+    List<Map<String, Object>> selectTotalScores(@Param("type") String type);
 }
@@ -3,6 +3,11 @@ package com.cong.fishisland.mapper.moments;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cong.fishisland.model.entity.moments.MomentsLike;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 朋友圈点赞 Mapper
@@ -11,4 +16,21 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface MomentsLikeMapper extends BaseMapper<MomentsLike> {
+
+    /**
+     * 每条动态最早点赞的前 limit 条记录，用于列表展示点赞人
+     *
+     * @param momentIds 动态ID
+     * @param limit     每条动态返回的条数
+     * @return 点赞记录（按动态、点赞先后排序）
+     */
+    @Select("<script>" +
+            "SELECT id, momentId, userId, createTime FROM (" +
+            "SELECT id, momentId, userId, createTime, " +
+            "ROW_NUMBER() OVER (PARTITION BY momentId ORDER BY id) AS rn " +
+            "FROM moments_like WHERE momentId IN " +
+            "<foreach collection='momentIds' item='momentId' open='(' separator=',' close=')'>#{momentId}</foreach>" +
+            ") t WHERE t.rn &lt;= #{limit} ORDER BY momentId, id" +
+            "</script>")
+    List<MomentsLike> selectLikePreviews(@Param("momentIds") Collection<Long> momentIds, @Param("limit") int limit);
 }
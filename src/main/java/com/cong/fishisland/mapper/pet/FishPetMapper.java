@@ -16,20 +16,10 @@ import java.util.Map;
  */
 public interface FishPetMapper extends BaseMapper<FishPet> {
     
-    /**
-     * 批量更新宠物状态
-     * 30级宠物会保持饥饿度为100和心情值为100（满心情）
-     * 
-     * @param hungerDecrement 饥饿度减少值
-     * @param moodDecrement 心情值减少值
-     * @return 更新的记录数
-     */
-    int batchUpdatePetStatus(@Param("hungerDecrement") int hungerDecrement, @Param("moodDecrement") int moodDecrement);
-    
     /**
      * 批量更新在线用户宠物经验
      * 经验值满100时，等级加1，经验值清零
-     * 当宠物升级到30级时，经验值、饥饿度和心情值会自动回满
+     * 当宠物升级到60级时，饥饿度和心情值会自动回满
      *
      * @param userIds 在线用户ID列表
      * @return 更新的记录数
@@ -38,7 +28,7 @@ public interface FishPetMapper extends BaseMapper<FishPet> {
     
     /**
      * 获取所有符合条件的宠物及其用户ID和等级
-     * 条件：饥饿度和心情值都大于0
+     * 条件：按当前时间折算后饥饿度或心情值大于0
      *
      * @return 宠物列表，包含用户ID和宠物等级
      */
@@ -3,6 +3,10 @@ package com.cong.fishisland.mapper.pet;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cong.fishisland.model.entity.pet.PetAutoFeedConfig;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 /**
  * 宠物自动喂食配置 Mapper
@@ -11,4 +15,21 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface PetAutoFeedConfigMapper extends BaseMapper<PetAutoFeedConfig> {
+
+    /**
+     * 查询需要喂食的配置：已启用、宠物未满级，且按经过时间折算后的饥饿度低于触发阈值
+     * 按 userId、id 排序，便于按用户分块
+     *
+     * @param hungerDecay     每小时饥饿度减少值
+     * @param fullStatusLevel 饥饿度保持满值的等级
+     * @return 配置列表
+     */
+    @Select("SELECT c.* FROM pet_auto_feed_config c " +
+            "INNER JOIN fish_pet p ON p.petId = c.petId AND p.userId = c.userId AND p.isDelete = 0 " +
+            "WHERE c.enabled = 1 AND c.isDelete = 0 " +
+            "AND IFNULL(p.level, 1) < #{fullStatusLevel} " +
+            "AND IFNULL(p.hunger, 0) - #{hungerDecay} * IFNULL(TIMESTAMPDIFF(HOUR, p.statusTime, NOW()), 0) < c.triggerThreshold " +
+            "ORDER BY c.userId, c.id")
+    List<PetAutoFeedConfig> selectHungryConfigs(@Param("hungerDecay") int hungerDecay,
+                                                @Param("fullStatusLevel") int fullStatusLevel);
 }
@@ -2,8 +2,11 @@ package com.cong.fishisland.mapper.post;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cong.fishisland.model.entity.post.Post;
+import org.apache.ibatis.annotations.Param;
+
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 帖子数据库操作
@@ -16,6 +19,14 @@ public interface PostMapper extends BaseMapper<Post> {
      */
     List<Post> listPostWithDelete(Date minUpdateTime);
 
+    /**
+     * 批量累加浏览数
+     *
+     * @param deltas 帖子 id -> 浏览数增量
+     * @return 影响行数
+     */
+    int batchAddViewNum(@Param("deltas") Map<Long, Long> deltas);
+
 }
 
 
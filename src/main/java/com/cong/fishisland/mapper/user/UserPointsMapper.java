@@ -2,6 +2,11 @@ package com.cong.fishisland.mapper.user;
 
 import com.cong.fishisland.model.entity.user.UserPoints;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
 
 /**
 * @author cong
@@ -11,6 +16,43 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 */
 public interface UserPointsMapper extends BaseMapper<UserPoints> {
 
+    /**
+     * 增加总积分并按新积分重算等级（MySQL 按顺序赋值，level 使用的是更新后的 points）
+     *
+     * @param thresholds 2 级及以上的起始积分，升序
+     */
+    @Update("<script>" +
+            "UPDATE user_points SET points = points + #{delta}, " +
+            "level = INTERVAL(points<foreach collection='thresholds' item='t'>, #{t}</foreach>) + 1" +
+            "<if test='signIn'>, lastSignInDate = NOW()</if> " +
+            "WHERE userId = #{userId} AND isDelete = 0" +
+            "</script>")
+    int addPoints(@Param("userId") Long userId, @Param("delta") int delta,
+                  @Param("thresholds") List<Integer> thresholds, @Param("signIn") boolean signIn);
+
+    /**
+     * 无条件调整已用积分（返还、奖励等增加可用积分的场景）
+     */
+    @Update("UPDATE user_points SET usedPoints = IFNULL(usedPoints, 0) + #{delta} " +
+            "WHERE userId = #{userId} AND isDelete = 0")
+    int addUsedPoints(@Param("userId") Long userId, @Param("delta") int delta);
+
+    /**
+     * 可用积分充足时才增加已用积分，返回 0 表示积分不足或用户不存在
+     */
+    @Update("UPDATE user_points SET usedPoints = IFNULL(usedPoints, 0) + #{amount} " +
+            "WHERE userId = #{userId} AND isDelete = 0 AND points - IFNULL(usedPoints, 0) >= #{amount}")
+    int spendPoints(@Param("userId") Long userId, @Param("amount") int amount);
+
+    /**
+     * 按 userId 升序锁定多个用户的积分行，直到事务结束
+     */
+    @Select("<script>" +
+            "SELECT userId FROM user_points WHERE userId IN " +
+            "<foreach collection='userIds' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "ORDER BY userId FOR UPDATE" +
+            "</script>")
+    List<Long> lockByUserIds(@Param("userIds") List<Long> userIds);
 }
 
 
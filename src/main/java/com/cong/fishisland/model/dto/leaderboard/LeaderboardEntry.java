@@ -0,0 +1,31 @@
+package com.cong.fishisland.model.dto.leaderboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 排行榜条目
+ *
+ * @author cong
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntry {
+
+    /**
+     * 名次，从 1 开始
+     */
+    private Integer rank;
+
+    /**
+     * 用户 ID
+     */
+    private Long userId;
+
+    /**
+     * 分值
+     */
+    private Long score;
+}
@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 import java.io.Serializable;
+import java.util.Date;
 
 /**
  * 朋友圈列表查询请求
@@ -21,5 +22,14 @@ public class MomentsQueryRequest extends PageRequest implements Serializable {
     @ApiModelProperty(value = "指定查看某个用户的动态，为空则查看好友动态")
     private Long userId;
 
+    @ApiModelProperty(value = "游标：上一页最后一条动态的ID，传入后走游标分页，忽略页码且不返回总数")
+    private Long cursorId;
+
+    @ApiModelProperty(value = "游标：上一页最后一条动态的 isTop")
+    private Integer cursorIsTop;
+
+    @ApiModelProperty(value = "游标：上一页最后一条动态的 createTime")
+    private Date cursorCreateTime;
+
     private static final long serialVersionUID = 1L;
 }
@@ -26,4 +26,9 @@ public class WSChannelExtraDTO {
      * 前端如果登录了，记录用户信息
      */
     private UserChatResponse userChatResponse;
+
+    /**
+     * 客户端登录时声明支持在线名单增量，不再向其推送旧版上线/下线消息
+     */
+    private boolean rosterDelta;
 }
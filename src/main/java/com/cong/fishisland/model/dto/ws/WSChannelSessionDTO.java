@@ -0,0 +1,52 @@
+package com.cong.fishisland.model.dto.ws;
+
+import com.cong.fishisland.model.entity.user.User;
+import lombok.Data;
+
+/**
+ * WebSocket 连接会话
+ * Description: 登录时解析好的身份、角色、禁言和会员状态，缓存在连接上供消息热路径直接使用
+ *
+ * @author cong
+ */
+@Data
+public class WSChannelSessionDTO {
+    /**
+     * 用户 ID
+     */
+    private Long uid;
+
+    /**
+     * 会话对应的 token
+     */
+    private String token;
+
+    /**
+     * 登录用户
+     */
+    private User user;
+
+    /**
+     * 是否管理员
+     */
+    private boolean admin;
+
+    /**
+     * 禁言结束时间戳，0 表示未禁言
+     */
+    private long muteEndTime;
+
+    /**
+     * 是否会员
+     */
+    private boolean vip;
+
+    /**
+     * 会话加载时间
+     */
+    private long loadedAt;
+
+    public boolean isMuted(long now) {
+        return muteEndTime > now;
+    }
+}
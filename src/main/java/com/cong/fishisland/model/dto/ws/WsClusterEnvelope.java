@@ -0,0 +1,43 @@
+package com.cong.fishisland.model.dto.ws;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * WebSocket 集群广播信封
+ * Description: 节点之间通过 Redis 频道转发的推送消息
+ *
+ * @author cong
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class WsClusterEnvelope {
+    /**
+     * 发布消息的节点 ID，节点收到自己发布的消息时直接忽略
+     */
+    private String nodeId;
+
+    /**
+     * 消息类型
+     */
+    private String type;
+
+    /**
+     * 已序列化的 WSBaseResp JSON
+     */
+    private String payload;
+
+    /**
+     * 定向推送的用户 ID，为空表示推送给所有在线用户
+     */
+    private Long targetUid;
+
+    /**
+     * 广播时需要跳过的用户 ID
+     */
+    private Long skipUid;
+}
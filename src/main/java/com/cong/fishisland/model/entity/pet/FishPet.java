@@ -58,6 +58,11 @@ public class FishPet implements Serializable {
      * 饥饿度（越高越饿，建议范围 0-100）
      */
     private Integer hunger;
+
+    /**
+     * 饥饿度、心情值对应的时间点，读取时按距今小时数扣减
+     */
+    private Date statusTime;
     
     /**
      * 宠物扩展数据（技能、形象等，JSON格式）
@@ -33,6 +33,8 @@ public enum MessageTypeEnum {
     REFRESH_DRAW("refreshDraw", "刷新绘画房间信息"),
     USER_ONLINE("userOnline", "用户上线"),
     USER_OFFLINE("userOffline", "用户下线"),
+    ROSTER_SNAPSHOT("rosterSnapshot", "在线用户快照"),
+    ROSTER_DELTA("rosterDelta", "在线用户增量变更"),
     USER_MESSAGE_REVOKE("userMessageRevoke", "用户撤回消息"),
     CREATE_DRAW_ROOM("createDrawRoom", "创建绘画房间"),
     ROOM_DRAW_CREATED("roomDrawCreated", "房间绘画创建成功"),
@@ -20,6 +20,7 @@ public enum WSReqTypeEnum {
     MESSAGE(2, "发送消息"),
     AUTHORIZE(3, "登录认证"),
     HEARTBEAT(4, "心跳包"),
+    ROSTER_SNAPSHOT(5, "拉取在线用户快照"),
     ;
 
     private final Integer type;
@@ -125,22 +125,6 @@ public class BattleStatsVO {
 
     // ---- 内部工具 ----
 
-    /**
-     * 根据速度判断先手
-     * <p>速度高的一方先攻击；速度相同时随机决定（50% 概率）。
-     *
-     * @param a   一方战斗属性
-     * @param b   另一方战斗属性
-     * @param rng 随机数生成器
-     * @return true 表示 a 先手，false 表示 b 先手
-     */
-    public static boolean aGoesFirst(BattleStatsVO a, BattleStatsVO b, java.util.Random rng) {
-        if (a.speed != b.speed) {
-            return a.speed > b.speed;
-        }
-        return rng.nextBoolean();
-    }
-
     private static int    getInt(Integer val) { return val != null ? val  : 0;   }
     private static double getDbl(Double  val) { return val != null ? val  : 0.0; }
 }
@@ -0,0 +1,37 @@
+package com.cong.fishisland.model.ws.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 在线用户增量变更
+ *
+ * @author cong
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RosterDelta {
+    /**
+     * 变更后的名单版本号，客户端发现版本不连续时应发送 rosterSnapshot 请求（type=5）重新拉取快照
+     */
+    private Long version;
+
+    /**
+     * 变更类型：join / leave / update
+     */
+    private String op;
+
+    /**
+     * 用户 ID
+     */
+    private String uid;
+
+    /**
+     * 用户信息，leave 时为空
+     */
+    private UserChatResponse user;
+}
@@ -0,0 +1,27 @@
+package com.cong.fishisland.model.ws.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 在线用户快照
+ *
+ * @author cong
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RosterSnapshot {
+    /**
+     * 快照对应的名单版本号，之后只需应用版本号更大的增量变更
+     */
+    private Long version;
+
+    /**
+     * 在线用户
+     */
+    private List<UserChatResponse> users;
+}
@@ -54,7 +54,7 @@ public interface BossService {
     BossBattleInfoVO getBossBattleInfo(Long bossId);
     /**
      * 分配Boss击败奖励
-     * 按排行榜排名百分比分配Boss总积分
+     * 按排行榜排名百分比分配Boss总积分；Boss 被击杀时立即触发，每日结算时再兜底一次，同一天只发放一次
      *
      * @param bossId Boss ID
      * @param totalRewardPoints Boss总积分
@@ -8,6 +8,9 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.cong.fishisland.model.vo.comment.CommentNodeVO;
 import com.cong.fishisland.model.vo.comment.CommentVO;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
 * @author 许林涛
 * @description 针对表【comment(评论表)】的数据库操作Service
@@ -24,6 +27,11 @@ public interface CommentService extends IService<Comment> {
      */
     Page<CommentNodeVO> getCommentTreeByPostId(CommentQueryRequest commentQueryRequest);
 
+    /**
+     * 使帖子已缓存的评论树失效（评论增删、点赞变化时调用）
+     */
+    void evictCommentTree(Long postId);
+
     /**
      * 获取二级评论
      */
@@ -34,6 +42,13 @@ public interface CommentService extends IService<Comment> {
      */
     Integer getCommentNum(Long postId);
 
+    /**
+     * 批量获取评论数
+     *
+     * @return 帖子id -> 评论数，没有评论的帖子为 0
+     */
+    Map<Long, Integer> getCommentNumMap(Collection<Long> postIds);
+
     /**
      * 获取帖子最新一条评论
      */
@@ -43,4 +58,11 @@ public interface CommentService extends IService<Comment> {
      * 获取帖子点赞最高一条评论
      */
     CommentVO getThumbComment(Long postId);
+
+    /**
+     * 批量获取帖子点赞最高一条评论
+     *
+     * @return 帖子id -> 评论，没有顶级评论的帖子不返回
+     */
+    Map<Long, Comment> getThumbCommentMap(Collection<Long> postIds);
 }
@@ -1,7 +1,6 @@
 package com.cong.fishisland.service;
 
 import com.cong.fishisland.model.dto.farm.RankingDTO;
-import com.cong.fishisland.model.entity.farm.FarmRanking;
 
 import java.util.List;
 
@@ -71,15 +71,6 @@ public interface FishPetService extends IService<FishPet> {
      */
     PetVO patPet(Long petId);
     
-    /**
-     * 批量更新宠物状态
-     * 
-     * @param hungerDecrement 饥饿度减少值
-     * @param moodDecrement 心情值减少值
-     * @return 更新的记录数
-     */
-    int batchUpdatePetStatus(int hungerDecrement, int moodDecrement);
-    
     /**
      * 批量更新在线用户宠物经验
      * 经验值满100时，等级加1，经验值清零
@@ -148,7 +139,7 @@ public interface FishPetService extends IService<FishPet> {
     PetEquipStatsVO getPetEquipStatsByUserId(Long userId);
 
     /**
-     * 根据已加载的宠物实体获取装备属性统计（避免重复查库）
+     * 根据已加载的宠物实体获取装备属性统计（按 petId 读缓存，穿脱装备、锻造变化后自动重建）
      *
      * @param fishPet 已加载的宠物实体
      * @return 装备属性统计VO
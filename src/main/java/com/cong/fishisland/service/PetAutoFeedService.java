@@ -30,14 +30,14 @@ public interface PetAutoFeedService extends IService<PetAutoFeedConfig> {
 
     /**
      * 执行自动喂食（定时任务调用）
-     * 遍历所有启用的配置，对饥饿度低于阈值的宠物自动消耗食物喂食
+     * 联表筛出饥饿度低于阈值的宠物，按用户分块、多线程并行，每块一个事务自动消耗食物喂食
      *
      * @return 成功喂食的宠物数量
      */
     int executeAutoFeed();
 
     /**
-     * 对单条配置执行自动喂食（事务方法，由 executeAutoFeed 通过代理调用）
+     * 对单条配置执行自动喂食（事务方法，逐条查询，适用于单个宠物的即时喂食）
      *
      * @param config 自动喂食配置
      * @return 是否执行了喂食
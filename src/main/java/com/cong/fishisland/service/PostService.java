@@ -59,7 +59,7 @@ public interface PostService extends IService<Post> {
     Page<PostVO> getPostVOPage(Page<Post> postPage);
 
     /**
-     * 增加帖子浏览数
+     * 增加帖子浏览数（内存合并，定时批量写库）
      * @param postId 帖子id
      */
     void incrementViewCountAsync(Long postId);
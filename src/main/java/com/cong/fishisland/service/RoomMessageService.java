@@ -6,6 +6,8 @@ import com.cong.fishisland.model.entity.chat.RoomMessage;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.cong.fishisland.model.vo.chat.RoomMessageVo;
 
+import java.util.Map;
+
 /**
 * @author cong
 * @description 针对表【room_message(房间消息表)】的数据库操作Service
@@ -14,4 +16,33 @@ import com.cong.fishisland.model.vo.chat.RoomMessageVo;
 public interface RoomMessageService extends IService<RoomMessage> {
 
     Page<RoomMessageVo> listMessageVoByPage(MessageQueryRequest messageQueryRequest);
+
+    /**
+     * 异步保存消息（进入写缓冲，凑批后落库）
+     *
+     * @param roomMessage 消息
+     */
+    void saveAsync(RoomMessage roomMessage);
+
+    /**
+     * 按消息唯一标识查询，包括写缓冲中尚未落库的消息
+     *
+     * @param messageId 消息唯一标识
+     * @return 消息，不存在时返回 null
+     */
+    RoomMessage getByMessageId(String messageId);
+
+    /**
+     * 按消息唯一标识删除，消息仍在写缓冲中时直接取消写入
+     *
+     * @param messageId 消息唯一标识
+     */
+    void removeByMessageId(String messageId);
+
+    /**
+     * 写缓冲统计
+     *
+     * @return 队列深度、写入量及写入耗时
+     */
+    Map<String, Long> getWriteBufferStats();
 }
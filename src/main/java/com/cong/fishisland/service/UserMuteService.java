@@ -33,4 +33,12 @@ public interface UserMuteService {
      * @return 用户禁言信息
      */
     UserMuteVO getUserMuteInfo(Long userId);
+
+    /**
+     * 获取用户禁言结束时间
+     *
+     * @param userId 用户ID
+     * @return 禁言结束时间戳，未禁言时返回 0
+     */
+    long getMuteEndTime(Long userId);
 } 
\ No newline at end of file
@@ -57,7 +57,7 @@ public interface UserPointsService extends IService<UserPoints> {
     void checkAvailablePoints(Long userId, Integer requiredPoints);
 
     /**
-     * 在多个用户的积分锁保护下执行操作（按 userId 升序加锁，避免死锁）
+     * 在同一事务内锁定多个用户的积分行后执行操作（按 userId 升序加锁，避免死锁）
      */
     void runWithUserPointsLocks(Long[] userIds, Runnable action);
 }
@@ -8,6 +8,7 @@ import com.cong.fishisland.model.entity.user.User;
 import com.cong.fishisland.model.vo.user.*;
 
 import java.util.List;
+import java.util.Map;
 
 import me.zhyd.oauth.model.AuthCallback;
 
@@ -195,4 +196,11 @@ public interface UserService extends IService<User> {
      */
     String generateUserAnnualReport();
 
+    /**
+     * 用户信息缓存统计
+     *
+     * @return 各级命中率、命中与未命中次数、查库次数等
+     */
+    Map<String, Long> getUserCacheStats();
+
 }
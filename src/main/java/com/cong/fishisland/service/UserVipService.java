@@ -9,6 +9,9 @@ import com.cong.fishisland.model.dto.user.UserVipUpdateRequest;
 import com.cong.fishisland.model.entity.user.UserVip;
 import com.cong.fishisland.model.vo.user.UserVipVO;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * @author cong
  * @description 针对表【user_vip(用户会员表)】的数据库操作Service
@@ -64,6 +67,14 @@ public interface UserVipService extends IService<UserVip> {
      */
     boolean isUserVip(Long userId);
 
+    /**
+     * 批量检查用户是否是会员（列表展示用）
+     *
+     * @param userIds 用户ID列表
+     * @return 用户ID → 是否是会员
+     */
+    Map<Long, Boolean> areVips(Collection<Long> userIds);
+
     /**
      * 检查用户是否是永久会员
      *
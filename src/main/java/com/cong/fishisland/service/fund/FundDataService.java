@@ -5,11 +5,18 @@ import cn.hutool.http.HttpResponse;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.Charset;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -41,15 +48,18 @@ public class FundDataService {
     private static final String STATUS_CLOSED = "closed";
     private static final String STATUS_TRADING = "trading";
     
-    // API URL模板
-    private static final String SINA_FUND_URL_TEMPLATE = "http://hq.sinajs.cn/list=f_%s";
-    private static final String SINA_INDEX_URL_TEMPLATE = "http://hq.sinajs.cn/list=%s";
+    // API URL模板（%s 为数据源地址）
+    private static final String SINA_FUND_URL_TEMPLATE = "%s/list=f_%s";
+    private static final String SINA_INDEX_URL_TEMPLATE = "%s/list=%s";
     private static final String SINA_REFERER = "http://finance.sina.com.cn/";
-    private static final String EASTMONEY_L2_URL = "http://push2.eastmoney.com/api/qt/stock/get";
-    private static final String EASTMONEY_EST_URL_TEMPLATE = "http://fundgz.1234567.com.cn/js/%s.js?rt=%d";
+    private static final String EASTMONEY_EST_URL_TEMPLATE = "%s/js/%s.js?rt=%d";
+
+    // 新浪 list= 接口单次请求的基金数量
+    private static final int SINA_BATCH_SIZE = 50;
     
     // 正则表达式
     private static final Pattern QUOTE_PATTERN = Pattern.compile("=\"(.*?)\"");
+    private static final Pattern SINA_BATCH_QUOTE_PATTERN = Pattern.compile("hq_str_f_(\\w+)=\"(.*?)\"");
     private static final Pattern JSONP_PATTERN = Pattern.compile("jsonpgz\\((.*?)\\);");
     
     // L2行情支持的基金代码前缀
@@ -66,6 +76,16 @@ public class FundDataService {
     private static final String EMPTY_NAME = "";
     private static final int WEEKEND_START_DAY = 6; // Saturday
 
+    // 数据源地址，可通过配置指向本地桩服务做离线测试和压测
+    @Value("${fund.upstream.sina-url:http://hq.sinajs.cn}")
+    private String sinaBaseUrl = "http://hq.sinajs.cn";
+
+    @Value("${fund.upstream.eastmoney-l2-url:http://push2.eastmoney.com/api/qt/stock/get}")
+    private String eastMoneyL2Url = "http://push2.eastmoney.com/api/qt/stock/get";
+
+    @Value("${fund.upstream.eastmoney-est-url:http://fundgz.1234567.com.cn}")
+    private String eastMoneyEstBaseUrl = "http://fundgz.1234567.com.cn";
+
     /**
      * 从新浪财经获取基金数据
      * 【数据源 A：新浪财经】
@@ -77,7 +97,7 @@ public class FundDataService {
      * @return 基金数据，包含 name, gsz(当前价), dwjz(昨收价), gszzl(涨幅), date；失败返回空Map
      */
     public JSONObject fetchFromSina(String code) {
-        String url = String.format(SINA_FUND_URL_TEMPLATE, code);
+        String url = String.format(SINA_FUND_URL_TEMPLATE, sinaBaseUrl, code);
         
         try (HttpResponse httpResponse = HttpRequest.get(url)
                 .header("User-Agent", USER_AGENT)
@@ -100,6 +120,47 @@ public class FundDataService {
         return createEmptyResult();
     }
 
+    /**
+     * 批量从新浪财经获取基金数据
+     * 新浪 list= 接口一次可查询多个代码（list=f_000001,f_000002），按 SINA_BATCH_SIZE 分批请求
+     *
+     * @param codes 基金代码
+     * @return 基金代码 -> 基金数据，失败的代码不在结果中
+     */
+    public Map<String, JSONObject> fetchFromSinaBatch(Collection<String> codes) {
+        List<String> codeList = new ArrayList<>(new LinkedHashSet<>(codes));
+        Map<String, JSONObject> result = new HashMap<>(codeList.size() * 2);
+
+        for (int from = 0; from < codeList.size(); from += SINA_BATCH_SIZE) {
+            List<String> batch = codeList.subList(from, Math.min(from + SINA_BATCH_SIZE, codeList.size()));
+            String url = String.format(SINA_FUND_URL_TEMPLATE, sinaBaseUrl, String.join(",f_", batch));
+
+            try (HttpResponse httpResponse = HttpRequest.get(url)
+                    .header("User-Agent", USER_AGENT)
+                    .header("Referer", SINA_REFERER)
+                    .timeout(DEFAULT_TIMEOUT)
+                    .execute()) {
+
+                String content = new String(httpResponse.bodyBytes(), Charset.forName(CHARSET_GBK));
+                Matcher matcher = SINA_BATCH_QUOTE_PATTERN.matcher(content);
+
+                while (matcher.find()) {
+                    String[] data = matcher.group(2).split(",");
+                    if (data.length > 4) {
+                        try {
+                            result.put(matcher.group(1), buildSinaFundData(data));
+                        } catch (NumberFormatException e) {
+                            log.warn("新浪财经数据格式错误 - 基金代码: {}", matcher.group(1));
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("批量获取新浪财经数据失败 - 基金代码: {}, 错误: {}", batch, e.getMessage());
+            }
+        }
+        return result;
+    }
+
     /**
      * 构建新浪基金数据对象
      */
@@ -136,11 +197,11 @@ public class FundDataService {
      */
     public JSONObject fetchL2Market(String code) {
         // 只支持特定代码开头的基金
-        if (!code.matches(L2_SUPPORTED_PREFIX_REGEX)) {
+        if (!isL2Supported(code)) {
             return createEmptyResult();
         }
 
-        try (HttpResponse httpResponse = HttpRequest.get(EASTMONEY_L2_URL)
+        try (HttpResponse httpResponse = HttpRequest.get(eastMoneyL2Url)
                 .form("secid", buildSecId(code))
                 .form("fields", "f43,f60,f170")  // f43现价, f60昨收, f170官方涨幅
                 .form("invt", "2")
@@ -158,6 +219,16 @@ public class FundDataService {
         return createEmptyResult();
     }
 
+    /**
+     * 是否支持L2实时行情
+     *
+     * @param code 基金代码
+     * @return 场内基金（15/16/50/51/56/58 开头）返回 true
+     */
+    public static boolean isL2Supported(String code) {
+        return code != null && code.matches(L2_SUPPORTED_PREFIX_REGEX);
+    }
+
     /**
      * 构建证券ID（secid）
      * 5开头用1.前缀，其他用0.前缀
@@ -201,7 +272,7 @@ public class FundDataService {
      * @return 基金数据，包含 name, gsz(实时估值), dwjz(昨日净值), gszzl(估算涨幅), gztime；失败返回空Map
      */
     public JSONObject fetchEastMoneyEstimate(String code) {
-        String url = String.format(EASTMONEY_EST_URL_TEMPLATE, code, System.currentTimeMillis());
+        String url = String.format(EASTMONEY_EST_URL_TEMPLATE, eastMoneyEstBaseUrl, code, System.currentTimeMillis());
         
         try (HttpResponse httpResponse = HttpRequest.get(url)
                 .timeout(DEFAULT_TIMEOUT)
@@ -243,7 +314,7 @@ public class FundDataService {
      * @return 指数数据，包含 name(指数名称), current(当前点位), change(涨跌点数), changePct(涨跌幅)；失败返回空Map
      */
     public JSONObject fetchIndexData(String code) {
-        String url = String.format(SINA_INDEX_URL_TEMPLATE, code);
+        String url = String.format(SINA_INDEX_URL_TEMPLATE, sinaBaseUrl, code);
         
         try (HttpResponse httpResponse = HttpRequest.get(url)
                 .header("User-Agent", USER_AGENT)
@@ -290,7 +361,7 @@ public class FundDataService {
      *
      * @return true=交易时间, false=非交易时间
      */
-    private boolean isFundTradingTime() {
+    public boolean isFundTradingTime() {
         LocalTime now = LocalTime.now();
         int dayOfWeek = java.time.LocalDate.now().getDayOfWeek().getValue(); // 1=Monday, 7=Sunday
 
@@ -0,0 +1,213 @@
+package com.cong.fishisland.service.fund;
+
+import com.alibaba.fastjson.JSONObject;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 基金行情共享缓存
+ * Description: 按基金代码缓存 getBestFundData 同口径的行情，所有用户共享，短时间内同一只基金只请求一次数据源。
+ * 并发未命中的同一代码合并为一次加载；一批代码未命中时新浪走 list= 批量接口，
+ * L2 和天天基金逐只并行请求。缓存的行情对象只读，调用方不要修改
+ *
+ * @author shing
+ */
+@Slf4j
+@Service
+public class FundQuoteService {
+
+    /**
+     * 行情缓存时间（秒）
+     */
+    private static final long QUOTE_TTL_SECONDS = 10;
+
+    /**
+     * 最多缓存的基金数
+     */
+    private static final long MAX_CACHED_CODES = 10000;
+
+    /**
+     * 等待数据源的最长时间（秒），数据源自身超时为 1~2 秒，降级时最多串行两次
+     */
+    private static final long LOAD_WAIT_SECONDS = 6;
+
+    private static final String DEFAULT_FUND_NAME_PREFIX = "基金";
+
+    private final FundDataService fundDataService;
+    private final Executor fundQuoteExecutor;
+    private final AsyncLoadingCache<String, JSONObject> quoteCache;
+
+    public FundQuoteService(FundDataService fundDataService,
+                            @Qualifier("fundQuoteExecutor") Executor fundQuoteExecutor) {
+        this.fundDataService = fundDataService;
+        this.fundQuoteExecutor = fundQuoteExecutor;
+        this.quoteCache = Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_CODES)
+                .expireAfterWrite(QUOTE_TTL_SECONDS, TimeUnit.SECONDS)
+                .executor(fundQuoteExecutor)
+                .buildAsync(new AsyncCacheLoader<String, JSONObject>() {
+                    @Override
+                    public CompletableFuture<JSONObject> asyncLoad(String code, Executor executor) {
+                        return loadQuotes(Collections.singleton(code))
+                                .thenApply(quotes -> quotes.get(code));
+                    }
+
+                    @Override
+                    public CompletableFuture<Map<String, JSONObject>> asyncLoadAll(Iterable<? extends String> codes,
+                                                                                 Executor executor) {
+                        Set<String> codeSet = new LinkedHashSet<>();
+                        codes.forEach(codeSet::add);
+                        return loadQuotes(codeSet);
+                    }
+                });
+    }
+
+    /**
+     * 获取单只基金行情
+     *
+     * @param code 基金代码
+     * @return 基金数据，字段同 {@link FundDataService#getBestFundData(String)}；所有数据源均失败时返回空对象
+     */
+    public JSONObject getQuote(String code) {
+        JSONObject quote = getQuotes(Collections.singleton(code)).get(code);
+        return quote != null ? quote : new JSONObject();
+    }
+
+    /**
+     * 批量获取基金行情
+     *
+     * @param codes 基金代码
+     * @return 基金代码 -> 基金数据；数据源失败的代码对应空对象，整体超时时缺少对应代码
+     */
+    public Map<String, JSONObject> getQuotes(Collection<String> codes) {
+        Set<String> codeSet = codes.stream()
+                .filter(StringUtils::isNotBlank)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (codeSet.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return quoteCache.getAll(codeSet).get(LOAD_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("获取基金行情失败 - 基金代码: {}, 错误: {}", codeSet, e.getMessage());
+        }
+        return Collections.emptyMap();
+    }
+
+    /**
+     * 从数据源加载一批基金行情，数据源选择策略与 getBestFundData 一致，全程不阻塞线程池
+     */
+    private CompletableFuture<Map<String, JSONObject>> loadQuotes(Set<String> codes) {
+        CompletableFuture<Map<String, JSONObject>> sinaFuture =
+                CompletableFuture.supplyAsync(() -> fundDataService.fetchFromSinaBatch(codes), fundQuoteExecutor);
+
+        if (!fundDataService.isFundTradingTime()) {
+            // 非交易时间：新浪官方净值，缺失的代码降级天天基金
+            return sinaFuture.thenCompose(sinaQuotes -> {
+                Map<String, CompletableFuture<JSONObject>> eastFutures = new HashMap<>();
+                for (String code : codes) {
+                    if (isEmpty(sinaQuotes.get(code))) {
+                        eastFutures.put(code, fetchAsync(() -> fundDataService.fetchEastMoneyEstimate(code)));
+                    }
+                }
+                return CompletableFuture.allOf(eastFutures.values().toArray(new CompletableFuture[0]))
+                        .thenApply(v -> {
+                            Map<String, JSONObject> quotes = new HashMap<>(codes.size() * 2);
+                            for (String code : codes) {
+                                JSONObject sinaData = sinaQuotes.get(code);
+                                CompletableFuture<JSONObject> eastFuture = eastFutures.get(code);
+                                quotes.put(code, firstNonEmpty(code, sinaData, eastFuture == null ? null : eastFuture.join()));
+                            }
+                            return quotes;
+                        });
+            });
+        }
+
+        // 交易时间：新浪、L2、天天基金同时请求，按 L2 > 天天基金 > 新浪 取用，新浪和天天基金同时提供 L2 缺少的名称
+        Map<String, CompletableFuture<JSONObject>> l2Futures = new HashMap<>();
+        Map<String, CompletableFuture<JSONObject>> eastFutures = new HashMap<>();
+        for (String code : codes) {
+            if (FundDataService.isL2Supported(code)) {
+                l2Futures.put(code, fetchAsync(() -> fundDataService.fetchL2Market(code)));
+            }
+            eastFutures.put(code, fetchAsync(() -> fundDataService.fetchEastMoneyEstimate(code)));
+        }
+        CompletableFuture<?>[] all = new CompletableFuture[l2Futures.size() + eastFutures.size() + 1];
+        int i = 0;
+        for (CompletableFuture<JSONObject> future : l2Futures.values()) {
+            all[i++] = future;
+        }
+        for (CompletableFuture<JSONObject> future : eastFutures.values()) {
+            all[i++] = future;
+        }
+        all[i] = sinaFuture;
+
+        return CompletableFuture.allOf(all).thenApply(v -> {
+            Map<String, JSONObject> sinaQuotes = sinaFuture.join();
+            Map<String, JSONObject> quotes = new HashMap<>(codes.size() * 2);
+            for (String code : codes) {
+                JSONObject sinaData = sinaQuotes.get(code);
+                JSONObject eastData = eastFutures.get(code).join();
+                CompletableFuture<JSONObject> l2Future = l2Futures.get(code);
+                JSONObject l2Data = l2Future == null ? null : l2Future.join();
+                if (!isEmpty(l2Data)) {
+                    l2Data.put("name", resolveName(code, sinaData, eastData));
+                    quotes.put(code, l2Data);
+                } else {
+                    quotes.put(code, firstNonEmpty(code, eastData, sinaData));
+                }
+            }
+            return quotes;
+        });
+    }
+
+    private CompletableFuture<JSONObject> fetchAsync(Supplier<JSONObject> fetcher) {
+        return CompletableFuture.supplyAsync(fetcher, fundQuoteExecutor);
+    }
+
+    private JSONObject firstNonEmpty(String code, JSONObject first, JSONObject second) {
+        if (!isEmpty(first)) {
+            return first;
+        }
+        if (!isEmpty(second)) {
+            return second;
+        }
+        log.warn("所有数据源均失败 - 基金代码: {}", code);
+        return new JSONObject();
+    }
+
+    private String resolveName(String code, JSONObject sinaData, JSONObject eastData) {
+        if (!isEmpty(sinaData) && sinaData.getString("name") != null) {
+            return sinaData.getString("name");
+        }
+        if (!isEmpty(eastData) && eastData.getString("name") != null) {
+            return eastData.getString("name");
+        }
+        return DEFAULT_FUND_NAME_PREFIX + code;
+    }
+
+    private static boolean isEmpty(JSONObject data) {
+        return data == null || data.isEmpty();
+    }
+}
@@ -9,9 +9,10 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
- * 备份批次写入器 —— 独立 Bean，保证子线程调用时能走 Spring AOP 事务代理
+ * 备份批次写入器 —— 独立 Bean，保证调用时能走 Spring AOP 事务代理
  *
  * @author cong
  */
@@ -20,11 +21,14 @@ import java.util.List;
 public class RoomMessageBackupBatchWriter extends ServiceImpl<RoomMessageBackupMapper, RoomMessageBackup> {
 
     /**
-     * 每批独立开事务写入，REQUIRES_NEW 确保子线程自己持有连接，不依赖调用方事务
+     * 每批独立开事务：写入备份表并物理删除原表对应消息，两步同成同败，中断后重跑不会重复或丢失
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
     public void writeBatch(List<RoomMessageBackup> batch) {
         this.saveBatch(batch);
-        log.info("备份批次写入完成，本批 {} 条，线程：{}", batch.size(), Thread.currentThread().getName());
+        List<Long> ids = batch.stream().map(RoomMessageBackup::getId).collect(Collectors.toList());
+        int deleted = baseMapper.deleteMessagesByIds(ids);
+        log.info("备份批次写入完成，本批 {} 条，删除原表 {} 条，id 区间 [{}, {}]",
+                batch.size(), deleted, ids.get(0), ids.get(ids.size() - 1));
     }
 }
@@ -1,24 +1,32 @@
 package com.cong.fishisland.service.impl.chat;
 
+import cn.hutool.core.text.CharSequenceUtil;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
-import com.cong.fishisland.config.ThreadPoolConfig;
+import com.cong.fishisland.common.ErrorCode;
+import com.cong.fishisland.common.exception.BusinessException;
+import com.cong.fishisland.constant.RedisKey;
 import com.cong.fishisland.mapper.chat.RoomMessageBackupMapper;
 import com.cong.fishisland.model.entity.chat.RoomMessage;
 import com.cong.fishisland.model.entity.chat.RoomMessageBackup;
 import com.cong.fishisland.service.RoomMessageBackupService;
+import com.cong.fishisland.utils.RedisUtils;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 /**
  * 聊天记录备份 Service 实现
+ * 按主键区间用游标流式读取原表，每满一批在独立事务中写入备份表并删除原表，
+ * 内存只占一批数据；每批完成后记录进度，中断后重跑从进度处继续
  *
  * @author cong
  */
@@ -29,59 +37,101 @@ public class RoomMessageBackupServiceImpl extends ServiceImpl<RoomMessageBackupM
 
     private static final int BATCH_SIZE = 500;
 
-    @Resource(name = ThreadPoolConfig.WANWU_EXECUTOR)
-    private ThreadPoolTaskExecutor fishExecutor;
+    /**
+     * 单个游标扫描的主键区间跨度，控制每条查询的持续时间
+     */
+    private static final long ID_RANGE = 20000L;
 
+    /**
+     * 进度保留时间，超过后视为新一轮从头扫描
+     */
+    private static final Duration CHECKPOINT_TTL = Duration.ofDays(7);
 
     @Resource
     private RoomMessageBackupBatchWriter batchWriter;
 
+    @Resource
+    private SqlSessionFactory sqlSessionFactory;
+
     @Override
     public void backupOldMessages() {
-        long twoWeeksMillis = 7L * 24 * 60 * 60 * 1000;
-        Date twoWeeksAgo = new Date(System.currentTimeMillis() - twoWeeksMillis);
+        long oneWeekMillis = 7L * 24 * 60 * 60 * 1000;
+        Date oneWeekAgo = new Date(System.currentTimeMillis() - oneWeekMillis);
 
-        List<RoomMessage> oldMessages = baseMapper.selectOldMessages(twoWeeksAgo);
-        if (oldMessages.isEmpty()) {
+        Long minId = baseMapper.selectMinMessageId();
+        Long maxId = baseMapper.selectMaxMessageId();
+        if (minId == null || maxId == null) {
             log.info("没有需要备份的聊天记录");
             return;
         }
 
-        log.info("开始备份聊天记录，共 {} 条，分批大小 {}", oldMessages.size(), BATCH_SIZE);
+        String checkpointKey = RedisKey.getKey(RedisKey.CHAT_BACKUP_CHECKPOINT);
+        long fromId = Math.max(minId, readCheckpoint(checkpointKey) + 1);
+        log.info("开始备份聊天记录，起始 id {}，最大 id {}，分批大小 {}", fromId, maxId, BATCH_SIZE);
 
-        // 并行流加速数据转换（纯 CPU，无 IO）
         Date backupTime = new Date();
-        List<RoomMessageBackup> backupList = oldMessages.parallelStream().map(msg -> {
-            RoomMessageBackup backup = new RoomMessageBackup();
-            backup.setId(msg.getId());
-            backup.setUserId(msg.getUserId());
-            backup.setRoomId(msg.getRoomId());
-            backup.setMessageJson(msg.getMessageJson());
-            backup.setMessageId(msg.getMessageId());
-            backup.setCreateTime(msg.getCreateTime());
-            backup.setUpdateTime(msg.getUpdateTime());
-            backup.setIsDelete(msg.getIsDelete());
-            backup.setBackupTime(backupTime);
-            return backup;
-        }).collect(Collectors.toList());
-
-        // 分批，每批提交给线程池，各自开独立事务写入
-
-        // 等待所有批次完成，任意一批异常则向上抛，不执行删除
-        CompletableFuture.allOf(partition(backupList, BATCH_SIZE).stream()
-                .map(batch -> CompletableFuture.runAsync(
-                        () -> batchWriter.writeBatch(batch), fishExecutor)).toArray(CompletableFuture[]::new)).join();
-
-        // 全部备份成功后物理删除原表
-        int deleted = baseMapper.deleteOldMessages(twoWeeksAgo);
-        log.info("聊天记录备份完成，共备份 {} 条，物理删除 {} 条", backupList.size(), deleted);
+        List<RoomMessageBackup> batch = new ArrayList<>(BATCH_SIZE);
+        long archived = 0;
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            RoomMessageBackupMapper streamMapper = sqlSession.getMapper(RoomMessageBackupMapper.class);
+            for (long rangeStart = fromId; rangeStart <= maxId; rangeStart += ID_RANGE) {
+                long rangeEnd = Math.min(rangeStart + ID_RANGE, maxId + 1);
+                try (Cursor<RoomMessage> cursor = streamMapper.streamOldMessages(rangeStart, rangeEnd, oneWeekAgo)) {
+                    for (RoomMessage message : cursor) {
+                        batch.add(toBackup(message, backupTime));
+                        if (batch.size() >= BATCH_SIZE) {
+                            archived += writeBatch(batch, checkpointKey);
+                        }
+                    }
+                }
+                archived += writeBatch(batch, checkpointKey);
+                // 整个区间处理完再推进到区间末尾，未到期的消息留给下一轮
+                saveCheckpoint(checkpointKey, rangeEnd - 1);
+            }
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "聊天记录备份游标关闭失败");
+        }
+
+        // 整轮完成后清除进度，下一轮从头扫描，避免遗漏本轮尚未到期的消息
+        RedisUtils.delete(checkpointKey);
+        log.info("聊天记录备份完成，共备份并物理删除 {} 条", archived);
     }
 
-    private <T> List<List<T>> partition(List<T> list, int size) {
-        List<List<T>> result = new ArrayList<>();
-        for (int i = 0; i < list.size(); i += size) {
-            result.add(list.subList(i, Math.min(i + size, list.size())));
+    /**
+     * 写入一批并记录进度，写入后清空批次
+     */
+    private int writeBatch(List<RoomMessageBackup> batch, String checkpointKey) {
+        if (batch.isEmpty()) {
+            return 0;
         }
-        return result;
+        // 任意一批异常直接向上抛，进度停在上一批，重跑时从这里继续
+        batchWriter.writeBatch(batch);
+        int size = batch.size();
+        saveCheckpoint(checkpointKey, batch.get(size - 1).getId());
+        batch.clear();
+        return size;
+    }
+
+    private long readCheckpoint(String checkpointKey) {
+        String checkpoint = RedisUtils.get(checkpointKey);
+        return CharSequenceUtil.isBlank(checkpoint) ? 0L : Long.parseLong(checkpoint);
+    }
+
+    private void saveCheckpoint(String checkpointKey, long lastId) {
+        RedisUtils.set(checkpointKey, String.valueOf(lastId), CHECKPOINT_TTL);
+    }
+
+    private RoomMessageBackup toBackup(RoomMessage msg, Date backupTime) {
+        RoomMessageBackup backup = new RoomMessageBackup();
+        backup.setId(msg.getId());
+        backup.setUserId(msg.getUserId());
+        backup.setRoomId(msg.getRoomId());
+        backup.setMessageJson(msg.getMessageJson());
+        backup.setMessageId(msg.getMessageId());
+        backup.setCreateTime(msg.getCreateTime());
+        backup.setUpdateTime(msg.getUpdateTime());
+        backup.setIsDelete(msg.getIsDelete());
+        backup.setBackupTime(backupTime);
+        return backup;
     }
 }
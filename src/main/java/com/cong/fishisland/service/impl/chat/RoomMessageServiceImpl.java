@@ -10,7 +10,9 @@ import com.cong.fishisland.service.RoomMessageService;
 import com.cong.fishisland.mapper.chat.RoomMessageMapper;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.Resource;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -22,6 +24,9 @@ import java.util.stream.Collectors;
 public class RoomMessageServiceImpl extends ServiceImpl<RoomMessageMapper, RoomMessage>
         implements RoomMessageService {
 
+    @Resource
+    private RoomMessageWriteBuffer roomMessageWriteBuffer;
+
     @Override
     public Page<RoomMessageVo> listMessageVoByPage(MessageQueryRequest messageQueryRequest) {
         Long roomId = messageQueryRequest.getRoomId();
@@ -57,6 +62,34 @@ public class RoomMessageServiceImpl extends ServiceImpl<RoomMessageMapper, RoomM
         return buildMessageVoPage(messagePage.getRecords(), 1, size, 0);
     }
 
+    @Override
+    public void saveAsync(RoomMessage roomMessage) {
+        roomMessageWriteBuffer.submit(roomMessage);
+    }
+
+    @Override
+    public RoomMessage getByMessageId(String messageId) {
+        RoomMessage pending = roomMessageWriteBuffer.getPending(messageId);
+        if (pending != null) {
+            return pending;
+        }
+        return this.getOne(new LambdaQueryWrapper<RoomMessage>()
+                .eq(RoomMessage::getMessageId, messageId), false);
+    }
+
+    @Override
+    public void removeByMessageId(String messageId) {
+        if (roomMessageWriteBuffer.cancel(messageId) != null) {
+            return;
+        }
+        this.remove(new LambdaQueryWrapper<RoomMessage>().eq(RoomMessage::getMessageId, messageId));
+    }
+
+    @Override
+    public Map<String, Long> getWriteBufferStats() {
+        return roomMessageWriteBuffer.getStats();
+    }
+
     private Page<RoomMessageVo> buildMessageVoPage(List<RoomMessage> messages, int current, int size, long total) {
         List<RoomMessageVo> chatMessageRespList = messages.stream()
                 .map(item -> new RoomMessageVo().getVoByEntity(item))
@@ -0,0 +1,259 @@
+package com.cong.fishisland.service.impl.chat;
+
+import com.cong.fishisland.config.RoomMessageWriteProperties;
+import com.cong.fishisland.mapper.chat.RoomMessageMapper;
+import com.cong.fishisland.model.entity.chat.RoomMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 聊天消息写缓冲
+ * Description: 聊天消息先进入有界队列，由单独的线程按条数或时间窗口凑批后多行插入，发送方不再等待数据库；
+ * 未落库的消息按 messageId 建索引，撤回时可以直接从缓冲中取消。队列满时退化为调用线程同步写入，停机时写完剩余消息
+ *
+ * @author cong
+ */
+@Slf4j
+@Component
+public class RoomMessageWriteBuffer {
+
+    private final RoomMessageMapper roomMessageMapper;
+    private final RoomMessageWriteProperties properties;
+    private final BlockingQueue<RoomMessage> queue;
+
+    /**
+     * 尚未落库的消息，key 为 messageId
+     */
+    private final Map<String, RoomMessage> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 已在缓冲中被撤回、写入时需要跳过的 messageId
+     */
+    private final Set<String> cancelledIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 认领并写入一批消息期间持有，撤回时加同一把锁，保证消息要么在缓冲中被取消、要么已经落库
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong flushedBatches = new AtomicLong();
+    private final AtomicLong syncWrites = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong failedRows = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    public RoomMessageWriteBuffer(RoomMessageMapper roomMessageMapper, RoomMessageWriteProperties properties) {
+        this.roomMessageMapper = roomMessageMapper;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = new Thread(this::runLoop, "room-message-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * 停机时停止凑批线程并写完剩余消息
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<RoomMessage> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            flush(rest);
+        }
+        log.info("聊天消息写缓冲已停止，停机前写入 {} 条", rest.size());
+    }
+
+    /**
+     * 提交一条消息，队列满时在调用线程同步写入
+     *
+     * @param roomMessage 消息
+     */
+    public void submit(RoomMessage roomMessage) {
+        if (roomMessage.getCreateTime() == null) {
+            roomMessage.setCreateTime(new Date());
+        }
+        String messageId = roomMessage.getMessageId();
+        if (messageId != null) {
+            pending.put(messageId, roomMessage);
+        }
+        enqueued.incrementAndGet();
+        if (!running || !queue.offer(roomMessage)) {
+            syncWrites.incrementAndGet();
+            List<RoomMessage> single = new ArrayList<>(1);
+            single.add(roomMessage);
+            flush(single);
+        }
+    }
+
+    /**
+     * 获取尚未落库的消息
+     *
+     * @param messageId 消息唯一标识
+     * @return 缓冲中的消息，已落库或不存在时返回 null
+     */
+    public RoomMessage getPending(String messageId) {
+        return messageId == null ? null : pending.get(messageId);
+    }
+
+    /**
+     * 从缓冲中取消尚未落库的消息
+     *
+     * @param messageId 消息唯一标识
+     * @return 被取消的消息，已落库或不存在时返回 null
+     */
+    public RoomMessage cancel(String messageId) {
+        if (messageId == null) {
+            return null;
+        }
+        flushLock.lock();
+        try {
+            RoomMessage removed = pending.remove(messageId);
+            if (removed != null) {
+                cancelledIds.add(messageId);
+                cancelled.incrementAndGet();
+            }
+            return removed;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 写缓冲统计
+     *
+     * @return 队列深度、写入行数、批次数、同步写入数、取消数、失败数及写入耗时（毫秒）
+     */
+    public Map<String, Long> getStats() {
+        long batches = flushedBatches.get();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", (long) queue.size());
+        stats.put("pending", (long) pending.size());
+        stats.put("enqueued", enqueued.get());
+        stats.put("flushedRows", flushedRows.get());
+        stats.put("flushedBatches", batches);
+        stats.put("syncWrites", syncWrites.get());
+        stats.put("cancelled", cancelled.get());
+        stats.put("failedRows", failedRows.get());
+        stats.put("lastFlushMillis", TimeUnit.NANOSECONDS.toMillis(lastFlushNanos.get()));
+        stats.put("maxFlushMillis", TimeUnit.NANOSECONDS.toMillis(maxFlushNanos.get()));
+        stats.put("avgFlushMillis", batches == 0 ? 0L : TimeUnit.NANOSECONDS.toMillis(flushNanos.get() / batches));
+        return stats;
+    }
+
+    private void runLoop() {
+        List<RoomMessage> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            try {
+                RoomMessage first = queue.poll(properties.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMillis());
+                while (batch.size() < properties.getBatchSize()) {
+                    queue.drainTo(batch, properties.getBatchSize() - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= properties.getBatchSize() || remaining <= 0) {
+                        break;
+                    }
+                    RoomMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // 停机时中断，已取出的消息在下方写入，其余由 stop 处理
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<RoomMessage> batch) {
+        flushLock.lock();
+        try {
+            // 已被撤回的消息跳过，其余写入并移出索引
+            List<RoomMessage> rows = new ArrayList<>(batch.size());
+            for (RoomMessage message : batch) {
+                String messageId = message.getMessageId();
+                if (messageId != null) {
+                    if (cancelledIds.remove(messageId)) {
+                        continue;
+                    }
+                    pending.remove(messageId, message);
+                }
+                rows.add(message);
+            }
+            if (rows.isEmpty()) {
+                return;
+            }
+            long start = System.nanoTime();
+            writeRows(rows);
+            long elapsed = System.nanoTime() - start;
+            flushedBatches.incrementAndGet();
+            flushNanos.addAndGet(elapsed);
+            lastFlushNanos.set(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writeRows(List<RoomMessage> rows) {
+        try {
+            roomMessageMapper.insertBatch(rows);
+            flushedRows.addAndGet(rows.size());
+            return;
+        } catch (Exception e) {
+            log.error("聊天消息批量写入失败，逐条重试，本批 {} 条", rows.size(), e);
+        }
+        // 批量失败时逐条写入，避免一条坏数据拖垮整批
+        for (RoomMessage row : rows) {
+            try {
+                roomMessageMapper.insert(row);
+                flushedRows.incrementAndGet();
+            } catch (Exception e) {
+                failedRows.incrementAndGet();
+                log.error("聊天消息写入失败，messageId：{}", row.getMessageId(), e);
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.cong.fishisland.service.impl.comment;
 
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
@@ -9,6 +11,7 @@ import com.cong.fishisland.common.ErrorCode;
 import com.cong.fishisland.common.exception.BusinessException;
 import com.cong.fishisland.common.exception.ThrowUtils;
 import com.cong.fishisland.constant.CommonConstant;
+import com.cong.fishisland.constant.RedisKey;
 import com.cong.fishisland.mapper.comment.CommentMapper;
 import com.cong.fishisland.mapper.comment.CommentThumbMapper;
 import com.cong.fishisland.model.dto.comment.ChildCommentQueryRequest;
@@ -18,16 +21,26 @@ import com.cong.fishisland.model.entity.comment.CommentThumb;
 import com.cong.fishisland.model.entity.user.User;
 import com.cong.fishisland.model.vo.comment.CommentNodeVO;
 import com.cong.fishisland.model.vo.comment.CommentVO;
+import com.cong.fishisland.model.vo.user.UserVO;
 import com.cong.fishisland.service.CommentService;
 import com.cong.fishisland.service.UserService;
+import com.cong.fishisland.utils.RedisUtils;
 import com.cong.fishisland.utils.SqlUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 import toolgood.words.StringSearch;
 
 import javax.annotation.Resource;
+import java.io.Serializable;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -48,6 +61,31 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment>
     @Resource
     private CommentThumbMapper commentThumbMapper;
 
+    @Resource
+    private StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 评论树每个顶级评论预览的二级评论条数
+     */
+    private static final int PREVIEW_CHILDREN_SIZE = 3;
+
+    /**
+     * 评论树缓存存活时间
+     */
+    private static final Duration COMMENT_TREE_TTL = Duration.ofSeconds(60);
+
+    /**
+     * 评论数缓存存活时间，计数与数据库出现偏差时到期后重新统计
+     */
+    private static final long COMMENT_NUM_TTL_HOURS = 24;
+
+    /**
+     * 计数已缓存时才增减，未缓存的帖子下次读取时从数据库统计
+     */
+    private static final DefaultRedisScript<Long> INCR_IF_EXISTS_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return redis.call('INCRBY', KEYS[1], ARGV[1]) end return nil",
+            Long.class);
+
     @Override
     public Long addComment(Comment comment) {
         // 参数校验
@@ -55,9 +93,22 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment>
         if (!this.save(comment)) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "评论添加失败");
         }
+        incrCommentNum(comment.getPostId(), 1);
+        evictCommentTree(comment.getPostId());
         return comment.getId();
     }
 
+    @Override
+    public boolean removeById(Serializable id) {
+        Comment comment = this.getById(id);
+        boolean result = super.removeById(id);
+        if (result && comment != null) {
+            incrCommentNum(comment.getPostId(), -1);
+            evictCommentTree(comment.getPostId());
+        }
+        return result;
+    }
+
     @Override
     public Page<CommentNodeVO> getCommentTreeByPostId(CommentQueryRequest commentQueryRequest) {
         // 参数校验
@@ -68,6 +119,44 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment>
         String sortField = commentQueryRequest.getSortField();
         String sortOrder = commentQueryRequest.getSortOrder();
 
+        // 评论树不含当前用户的点赞状态，所有用户共享缓存；评论写入或点赞变化时递增版本号使其失效
+        String version = RedisUtils.get(RedisKey.getKey(RedisKey.COMMENT_TREE_VERSION, postId));
+        String cacheKey = RedisKey.getKey(RedisKey.COMMENT_TREE_CACHE, postId,
+                version == null ? "0" : version, current, size, sortField, sortOrder);
+        Page<CommentNodeVO> pageResult = readCommentTree(cacheKey, current, size);
+        if (pageResult == null) {
+            pageResult = loadCommentTree(postId, current, size, sortField, sortOrder);
+            writeCommentTree(cacheKey, pageResult);
+        }
+
+        // 当前用户的点赞状态一次查出
+        List<CommentNodeVO> nodes = pageResult.getRecords();
+        Set<Long> commentIds = new HashSet<>();
+        nodes.forEach(node -> {
+            commentIds.add(node.getId());
+            node.getPreviewChildren().forEach(child -> commentIds.add(child.getId()));
+        });
+        Set<Long> thumbedIds = getThumbedCommentIds(commentIds);
+        nodes.forEach(node -> {
+            node.setHasThumb(thumbedIds.contains(node.getId()));
+            node.getPreviewChildren().forEach(child -> child.setHasThumb(thumbedIds.contains(child.getId())));
+        });
+        return pageResult;
+    }
+
+    @Override
+    public void evictCommentTree(Long postId) {
+        if (postId == null) {
+            return;
+        }
+        RedisUtils.inc(RedisKey.getKey(RedisKey.COMMENT_TREE_VERSION, postId), 1, TimeUnit.DAYS);
+    }
+
+    /**
+     * 加载一页评论树：顶级评论分页一次、预览二级评论一次窗口查询、二级评论数一次分组统计、用户信息一次批量查询，
+     * 查询次数与顶级评论条数无关
+     */
+    private Page<CommentNodeVO> loadCommentTree(Long postId, int current, int size, String sortField, String sortOrder) {
         // 分页查询顶级评论
         Page<Comment> topPage = new Page<>(current, size);
         QueryWrapper<Comment> queryWrapper = new QueryWrapper<>();
@@ -80,75 +169,84 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment>
         if (CollUtil.isEmpty(topComments)) {
             return new Page<>(current, size, 0);
         }
-        // 收集所有需要查询的用户ID
-        Set<Long> userIds = new HashSet<>();
-        topComments.forEach(comment -> userIds.add(comment.getUserId()));
-        // 为每个顶级评论加载部分二级评论
-        Map<Long, List<Comment>> childrenMap = new HashMap<>();
-        for (Comment top : topComments) {
-            // 加载前3条二级评论
-            List<Comment> children = this.list(new LambdaQueryWrapper<Comment>()
-                    .eq(Comment::getRootId, top.getId())
-                    .eq(Comment::getIsDelete, 0)
-                    .orderByAsc(Comment::getCreateTime)
-                    .last("LIMIT 3")
-            );
-            childrenMap.put(top.getId(), children);
-            children.forEach(child -> userIds.add(child.getUserId()));
-        }
+        List<Long> topIds = topComments.stream().map(Comment::getId).collect(Collectors.toList());
+
+        // 每个顶级评论的前几条二级评论
+        Map<Long, List<Comment>> childrenMap = baseMapper.selectPreviewChildren(topIds, PREVIEW_CHILDREN_SIZE).stream()
+                .collect(Collectors.groupingBy(Comment::getRootId));
+        // 二级评论总数
+        Map<Long, Integer> childCountMap = new HashMap<>();
+        baseMapper.batchCountByRootIds(topIds).forEach(m -> childCountMap.put(
+                ((Number) m.get("rootId")).longValue(),
+                ((Number) m.get("cnt")).intValue()));
 
         // 批量查询用户信息
-        Map<Long, User> userMap = new HashMap<>();
-        if (!userIds.isEmpty()) {
-            List<User> users = userService.listByIds(userIds);
-            users.forEach(user -> userMap.put(user.getId(), user));
-        }
+        Set<Long> userIds = new HashSet<>();
+        topComments.forEach(comment -> userIds.add(comment.getUserId()));
+        childrenMap.values().forEach(children -> children.forEach(child -> userIds.add(child.getUserId())));
+        Map<Long, UserVO> userVOMap = userService.getUserVO(userService.listByIds(userIds)).stream()
+                .collect(Collectors.toMap(UserVO::getId, userVO -> userVO, (a, b) -> a));
 
         // 构建节点列表
         List<CommentNodeVO> nodes = topComments.stream().map(top -> {
             CommentNodeVO node = new CommentNodeVO();
             BeanUtils.copyProperties(top, node);
+            node.setUser(userVOMap.get(top.getUserId()));
+            node.setChildCount(childCountMap.getOrDefault(top.getId(), 0));
 
-            // 填充顶级评论用户信息
-            User user = userMap.get(top.getUserId());
-            if (user != null) {
-                node.setUser(userService.getUserVO(user));
-            }
-
-            // 获取二级评论总数
-            node.setChildCount((int) this.count(new LambdaQueryWrapper<Comment>()
-                    .eq(Comment::getRootId, top.getId())
-            ));
-
-            // 填充二级评论用户信息
-            List<Comment> children = childrenMap.get(top.getId());
-            List<CommentVO> childVOs = children.stream().map(child -> {
+            List<CommentVO> childVOs = childrenMap.getOrDefault(top.getId(), Collections.emptyList()).stream().map(child -> {
                 CommentVO vo = new CommentVO();
                 BeanUtils.copyProperties(child, vo);
-
-                User childUser = userMap.get(child.getUserId());
-                if (childUser != null) {
-                    vo.setUser(userService.getUserVO(childUser));
-                }
-                vo.setHasThumb(hasCommentThumb(child.getId()));
+                vo.setUser(userVOMap.get(child.getUserId()));
                 return vo;
             }).collect(Collectors.toList());
             node.setPreviewChildren(childVOs);
-            node.setHasThumb(hasCommentThumb(top.getId()));
             return node;
         }).collect(Collectors.toList());
 
         Page<CommentNodeVO> pageResult = new Page<>();
+        pageResult.setCurrent(current);
+        pageResult.setSize(size);
+        pageResult.setTotal(page.getTotal());
+        pageResult.setRecords(nodes);
+        return pageResult;
+    }
 
-        if (CollUtil.isNotEmpty(nodes)) {
-            pageResult.setCurrent(current);
-            pageResult.setSize(size);
-            pageResult.setTotal(page.getTotal());
-            pageResult.setRecords(nodes);
+    private Page<CommentNodeVO> readCommentTree(String cacheKey, int current, int size) {
+        String json = RedisUtils.get(cacheKey);
+        if (json == null) {
+            return null;
         }
+        JSONObject cached = JSONUtil.parseObj(json);
+        Page<CommentNodeVO> pageResult = new Page<>(current, size, cached.getLong("total"));
+        pageResult.setRecords(cached.getJSONArray("records").toList(CommentNodeVO.class));
         return pageResult;
     }
 
+    private void writeCommentTree(String cacheKey, Page<CommentNodeVO> pageResult) {
+        JSONObject cached = new JSONObject();
+        cached.set("total", pageResult.getTotal());
+        cached.set("records", pageResult.getRecords());
+        RedisUtils.set(cacheKey, cached.toString(), COMMENT_TREE_TTL);
+    }
+
+    /**
+     * 当前用户在给定评论中点过赞的评论id，未登录时为空
+     */
+    private Set<Long> getThumbedCommentIds(Collection<Long> commentIds) {
+        User loginUser = userService.getLoginUserPermitNull();
+        if (loginUser == null || CollUtil.isEmpty(commentIds)) {
+            return Collections.emptySet();
+        }
+        return commentThumbMapper.selectList(new LambdaQueryWrapper<CommentThumb>()
+                        .select(CommentThumb::getCommentId)
+                        .in(CommentThumb::getCommentId, commentIds)
+                        .eq(CommentThumb::getUserId, loginUser.getId()))
+                .stream()
+                .map(CommentThumb::getCommentId)
+                .collect(Collectors.toSet());
+    }
+
     @Override
     public Page<CommentVO> getChildComments(ChildCommentQueryRequest request) {
         // 参数校验
@@ -175,18 +273,16 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment>
                 .map(Comment::getUserId)
                 .collect(Collectors.toSet());
 
-        Map<Long, User> userMap = userService.listByIds(userIds).stream()
-                .collect(Collectors.toMap(User::getId, user -> user));
+        Map<Long, UserVO> userVOMap = userService.getUserVO(userService.listByIds(userIds)).stream()
+                .collect(Collectors.toMap(UserVO::getId, userVO -> userVO, (a, b) -> a));
+        Set<Long> thumbedIds = getThumbedCommentIds(children.stream().map(Comment::getId).collect(Collectors.toList()));
 
         // 转换为VO并填充用户信息
         List<CommentVO> commentVOs = children.stream().map(child -> {
             CommentVO vo = new CommentVO();
             BeanUtils.copyProperties(child, vo);
-            User user = userMap.get(child.getUserId());
-            if (user != null) {
-                vo.setUser(userService.getUserVO(user));
-            }
-            vo.setHasThumb(hasCommentThumb(child.getId()));
+            vo.setUser(userVOMap.get(child.getUserId()));
+            vo.setHasThumb(thumbedIds.contains(child.getId()));
             return vo;
         }).collect(Collectors.toList());
 
@@ -199,9 +295,49 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment>
     @Override
     public Integer getCommentNum(Long postId) {
         ThrowUtils.throwIf(postId == null, ErrorCode.PARAMS_ERROR, "帖子id不能为空");
-        return (int) this.count(new LambdaQueryWrapper<Comment>()
-                .eq(Comment::getPostId, postId)
-        );
+        return getCommentNumMap(Collections.singletonList(postId)).getOrDefault(postId, 0);
+    }
+
+    @Override
+    public Map<Long, Integer> getCommentNumMap(Collection<Long> postIds) {
+        Map<Long, Integer> result = new HashMap<>();
+        if (CollUtil.isEmpty(postIds)) {
+            return result;
+        }
+        // 先读缓存，未命中的帖子用一条分组统计补齐并回填
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(postIds));
+        List<String> cached = stringRedisTemplate.opsForValue().multiGet(ids.stream()
+                .map(postId -> RedisKey.getKey(RedisKey.POST_COMMENT_NUM, postId))
+                .collect(Collectors.toList()));
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            String num = cached == null ? null : cached.get(i);
+            if (num == null) {
+                missing.add(ids.get(i));
+            } else {
+                result.put(ids.get(i), Integer.parseInt(num));
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        Map<Long, Integer> counted = new HashMap<>();
+        missing.forEach(postId -> counted.put(postId, 0));
+        baseMapper.batchCountByPostIds(missing).forEach(m -> counted.put(
+                ((Number) m.get("postId")).longValue(),
+                ((Number) m.get("cnt")).intValue()));
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                counted.forEach((postId, num) -> ops.opsForValue().set(RedisKey.getKey(RedisKey.POST_COMMENT_NUM, postId),
+                        String.valueOf(num), COMMENT_NUM_TTL_HOURS, TimeUnit.HOURS));
+                return null;
+            }
+        });
+        result.putAll(counted);
+        return result;
     }
 
     @Override
@@ -227,6 +363,23 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment>
         return comment == null ? null : safeGetCommentVO(comment);
     }
 
+    @Override
+    public Map<Long, Comment> getThumbCommentMap(Collection<Long> postIds) {
+        if (CollUtil.isEmpty(postIds)) {
+            return new HashMap<>();
+        }
+        return baseMapper.selectTopThumbByPostIds(postIds).stream()
+                .collect(Collectors.toMap(Comment::getPostId, comment -> comment, (a, b) -> a));
+    }
+
+    private void incrCommentNum(Long postId, long delta) {
+        if (postId == null) {
+            return;
+        }
+        stringRedisTemplate.execute(INCR_IF_EXISTS_SCRIPT,
+                Collections.singletonList(RedisKey.getKey(RedisKey.POST_COMMENT_NUM, postId)), String.valueOf(delta));
+    }
+
     private CommentVO safeGetCommentVO(Comment comment) {
         if (comment == null) {
             return null;
@@ -268,19 +421,6 @@ public class CommentServiceImpl extends ServiceImpl<CommentMapper, Comment>
         }
     }
 
-    private Boolean hasCommentThumb(Long commentId) {
-        User loginUser = userService.getLoginUserPermitNull();
-        if (commentId == null || loginUser == null) {
-            return false;
-        }
-        return commentThumbMapper.selectOne(new LambdaQueryWrapper<CommentThumb>()
-                .select(CommentThumb::getId)
-                .eq(CommentThumb::getCommentId, commentId)
-                .eq(CommentThumb::getUserId, loginUser.getId())
-                .last("LIMIT 1")
-        ) != null;
-    }
-
 }
 
 
@@ -9,6 +9,7 @@ import com.cong.fishisland.mapper.comment.CommentMapper;
 import com.cong.fishisland.model.entity.comment.Comment;
 import com.cong.fishisland.model.entity.comment.CommentThumb;
 import com.cong.fishisland.model.entity.user.User;
+import com.cong.fishisland.service.CommentService;
 import com.cong.fishisland.service.CommentThumbService;
 import com.cong.fishisland.mapper.comment.CommentThumbMapper;
 import com.cong.fishisland.service.event.EventRemindHandler;
@@ -31,6 +32,8 @@ public class CommentThumbServiceImpl extends ServiceImpl<CommentThumbMapper, Com
     private CommentMapper commentMapper;
     @Resource
     private EventRemindHandler eventRemindHandler;
+    @Resource
+    private CommentService commentService;
 
     @Override
     public int doCommentThumb(long commentId, User loginUser) {
@@ -45,6 +48,10 @@ public class CommentThumbServiceImpl extends ServiceImpl<CommentThumbMapper, Com
         CommentThumbService thumbService = (CommentThumbService) AopContext.currentProxy();
         synchronized (String.valueOf(userId).intern()) {
             int result = thumbService.doCommentThumbInner(userId, commentId);
+            if (result != 0) {
+                // 点赞数变化，缓存的评论树失效
+                commentService.evictCommentTree(comment.getPostId());
+            }
             // 异步处理事件提醒（避免通知自己）
             if (result == 1 && !comment.getUserId().equals(userId)) {
                 eventRemindHandler.handleCommentLike(commentId, userId, comment.getUserId(),comment.getPostId());
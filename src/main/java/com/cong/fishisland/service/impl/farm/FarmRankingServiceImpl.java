@@ -1,56 +1,102 @@
 package com.cong.fishisland.service.impl.farm;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.cong.fishisland.constant.RedisKey;
+import com.cong.fishisland.manager.LeaderboardManager;
 import com.cong.fishisland.mapper.farm.FarmRankingMapper;
 import com.cong.fishisland.model.dto.farm.RankingDTO;
+import com.cong.fishisland.model.dto.leaderboard.LeaderboardEntry;
 import com.cong.fishisland.model.entity.farm.FarmRanking;
+import com.cong.fishisland.model.entity.user.User;
 import com.cong.fishisland.model.enums.farm.FarmRankingTypeEnum;
 import com.cong.fishisland.service.FarmRankingService;
+import com.cong.fishisland.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * 农场排行榜服务实现
+ * Description: 排行数据实时写入 Redis 排行榜，读榜只取前 N 名；同时把增量记入待落库 Hash，
+ * 由定时任务批量累加到 farm_ranking 表，数据库只作为持久化和排行榜丢失后的加载来源
+ */
+@Slf4j
 @Service
 public class FarmRankingServiceImpl extends ServiceImpl<FarmRankingMapper, FarmRanking> implements FarmRankingService {
 
+    /**
+     * 排行榜展示条数
+     */
+    private static final int TOP_N = 100;
+
+    /**
+     * 每日排行榜保留时长
+     */
+    private static final Duration DAILY_BOARD_TTL = Duration.ofDays(2);
+
+    /**
+     * 单条 SQL 批量落库的记录数
+     */
+    private static final int FLUSH_BATCH_SIZE = 200;
+
     @Autowired
     private FarmRankingMapper rankingMapper;
 
+    @Autowired
+    private LeaderboardManager leaderboardManager;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
     @Override
     public List<RankingDTO> getTodayStealExpRanking() {
-        LocalDate today = LocalDate.now();
-        return rankingMapper.selectTodayStealExpRanking(today, FarmRankingTypeEnum.STEAL_EXP.getValue());
+        return toRankingDTOs(todayBoard(FarmRankingTypeEnum.STEAL_EXP).top(TOP_N), true);
     }
 
     @Override
     public List<RankingDTO> getTodayStealCountRanking() {
-        LocalDate today = LocalDate.now();
-        return rankingMapper.selectTodayStealCountRanking(today, FarmRankingTypeEnum.STEAL_COUNT.getValue());
+        return toRankingDTOs(todayBoard(FarmRankingTypeEnum.STEAL_COUNT).top(TOP_N), true);
     }
 
     @Override
     public List<RankingDTO> getTodayDefenseRanking() {
-        LocalDate today = LocalDate.now();
-        return rankingMapper.selectTodayDefenseRanking(today, FarmRankingTypeEnum.DEFENSE.getValue());
+        return toRankingDTOs(todayBoard(FarmRankingTypeEnum.DEFENSE).top(TOP_N), true);
     }
 
     @Override
     public List<RankingDTO> getTotalStealExpRanking() {
-        return rankingMapper.selectTotalStealExpRanking(FarmRankingTypeEnum.STEAL_EXP.getValue());
+        return toRankingDTOs(totalBoard(FarmRankingTypeEnum.STEAL_EXP).top(TOP_N), false);
     }
 
     @Override
     public List<RankingDTO> getTotalStealCountRanking() {
-        return rankingMapper.selectTotalStealCountRanking(FarmRankingTypeEnum.STEAL_COUNT.getValue());
+        return toRankingDTOs(totalBoard(FarmRankingTypeEnum.STEAL_COUNT).top(TOP_N), false);
     }
 
     @Override
     public List<RankingDTO> getTotalDefenseRanking() {
-        return rankingMapper.selectTotalDefenseRanking(FarmRankingTypeEnum.DEFENSE.getValue());
+        return toRankingDTOs(totalBoard(FarmRankingTypeEnum.DEFENSE).top(TOP_N), false);
     }
 
     @Override
@@ -63,20 +109,149 @@ public class FarmRankingServiceImpl extends ServiceImpl<FarmRankingMapper, FarmR
         updateRanking(ownerId, FarmRankingTypeEnum.DEFENSE, damage);
     }
 
+    /**
+     * 把待落库的排行增量批量累加到数据库，多节点下同一时间只有一个节点在处理
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void flushPendingRanking() {
+        RLock lock = redissonClient.getLock(RedisKey.getKey(RedisKey.FARM_RANKING_FLUSH_LOCK));
+        if (!lock.tryLock()) {
+            return;
+        }
+        try {
+            String pendingKey = RedisKey.getKey(RedisKey.FARM_RANKING_PENDING);
+            String flushingKey = RedisKey.getKey(RedisKey.FARM_RANKING_FLUSHING);
+            // 上一轮未处理完的先处理，否则把待落库的增量整体切换出来，新的增量继续写入待落库 Hash
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(flushingKey))) {
+                if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(pendingKey))) {
+                    return;
+                }
+                stringRedisTemplate.rename(pendingKey, flushingKey);
+            }
+            Map<Object, Object> pending = stringRedisTemplate.opsForHash().entries(flushingKey);
+            List<String> fields = new ArrayList<>(FLUSH_BATCH_SIZE);
+            List<FarmRanking> rankings = new ArrayList<>(FLUSH_BATCH_SIZE);
+            for (Map.Entry<Object, Object> entry : pending.entrySet()) {
+                FarmRanking ranking = parsePending(entry.getKey().toString(), entry.getValue().toString());
+                fields.add(entry.getKey().toString());
+                if (ranking != null) {
+                    rankings.add(ranking);
+                }
+                if (fields.size() >= FLUSH_BATCH_SIZE) {
+                    flushBatch(flushingKey, fields, rankings);
+                }
+            }
+            if (!fields.isEmpty()) {
+                flushBatch(flushingKey, fields, rankings);
+            }
+            stringRedisTemplate.delete(flushingKey);
+        } catch (Exception e) {
+            log.error("农场排行落库失败，下一轮重试", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushBatch(String flushingKey, List<String> fields, List<FarmRanking> rankings) {
+        if (!rankings.isEmpty()) {
+            rankingMapper.batchAddRankingValue(rankings);
+        }
+        // 已落库的字段立即移除，失败重试时不会重复累加
+        stringRedisTemplate.opsForHash().delete(flushingKey, fields.toArray());
+        fields.clear();
+        rankings.clear();
+    }
+
+    /**
+     * 解析待落库增量：userId:类型:日期 -> 增量
+     */
+    private FarmRanking parsePending(String field, String value) {
+        String[] parts = field.split(":");
+        if (parts.length != 3) {
+            log.error("农场排行增量格式错误，已丢弃：{}", field);
+            return null;
+        }
+        try {
+            int delta = Integer.parseInt(value);
+            FarmRanking ranking = new FarmRanking();
+            ranking.setUserId(Long.valueOf(parts[0]));
+            ranking.setType(parts[1]);
+            ranking.setDate(LocalDate.parse(parts[2]));
+            ranking.setTodayValue(delta);
+            ranking.setTotalValue(delta);
+            return ranking;
+        } catch (Exception e) {
+            log.error("农场排行增量格式错误，已丢弃：{} -> {}", field, value);
+            return null;
+        }
+    }
+
     private void updateRanking(Long userId, FarmRankingTypeEnum type, int value) {
         LocalDate today = LocalDate.now();
-        int updated = rankingMapper.updateRankingValue(userId, type.getValue(), today, value, value);
-        if (updated == 0) {
-            LocalDateTime now = LocalDateTime.now();
-            FarmRanking ranking = new FarmRanking();
-            ranking.setUserId(userId);
-            ranking.setType(type.getValue());
-            ranking.setDate(today);
-            ranking.setTodayValue(value);
-            ranking.setTotalValue(value);
-            ranking.setCreateTime(now);
-            ranking.setUpdateTime(now);
-            save(ranking);
+        Runnable apply = () -> {
+            todayBoard(type, today).increment(userId, value);
+            totalBoard(type).increment(userId, value);
+            stringRedisTemplate.opsForHash().increment(RedisKey.getKey(RedisKey.FARM_RANKING_PENDING),
+                    userId + ":" + type.getValue() + ":" + today, value);
+        };
+        // 偷菜在事务中进行，提交后再计入排行，回滚时排行不受影响
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private LeaderboardManager.Board todayBoard(FarmRankingTypeEnum type) {
+        return todayBoard(type, LocalDate.now());
+    }
+
+    private LeaderboardManager.Board todayBoard(FarmRankingTypeEnum type, LocalDate date) {
+        return leaderboardManager.board(LeaderboardManager.dailyName("farm:" + type.getValue(), date), DAILY_BOARD_TTL,
+                () -> toScoreMap(rankingMapper.selectDailyScores(type.getValue(), date)));
+    }
+
+    private LeaderboardManager.Board totalBoard(FarmRankingTypeEnum type) {
+        return leaderboardManager.board("farm:" + type.getValue() + ":total", null,
+                () -> toScoreMap(rankingMapper.selectTotalScores(type.getValue())));
+    }
+
+    private static Map<Long, Long> toScoreMap(List<Map<String, Object>> rows) {
+        Map<Long, Long> scores = new HashMap<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Object score = row.get("score");
+            scores.put(((Number) row.get("userId")).longValue(), score == null ? 0L : ((Number) score).longValue());
+        }
+        return scores;
+    }
+
+    /**
+     * 榜单条目转为 DTO，用户名走用户缓存批量获取
+     */
+    private List<RankingDTO> toRankingDTOs(List<LeaderboardEntry> entries, boolean today) {
+        if (entries.isEmpty()) {
+            return new ArrayList<>();
         }
+        List<Long> userIds = entries.stream().map(LeaderboardEntry::getUserId).collect(Collectors.toList());
+        Map<Long, User> userMap = userService.listByIds(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return entries.stream().map(entry -> {
+            RankingDTO dto = new RankingDTO();
+            dto.setRank(entry.getRank());
+            dto.setUserId(entry.getUserId());
+            User user = userMap.get(entry.getUserId());
+            dto.setUsername(user == null ? null : user.getUserName());
+            int value = entry.getScore().intValue();
+            if (today) {
+                dto.setTodayValue(value);
+            }
+            dto.setTotalValue(value);
+            return dto;
+        }).collect(Collectors.toList());
     }
 }
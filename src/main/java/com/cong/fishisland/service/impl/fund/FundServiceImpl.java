@@ -18,6 +18,7 @@ import com.cong.fishisland.model.vo.fund.FundListVO;
 import com.cong.fishisland.model.enums.fund.FundConstants;
 import com.cong.fishisland.model.vo.fund.MarketIndexVO;
 import com.cong.fishisland.service.fund.FundDataService;
+import com.cong.fishisland.service.fund.FundQuoteService;
 import com.cong.fishisland.service.FundService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
@@ -55,6 +56,9 @@ public class FundServiceImpl extends ServiceImpl<FundMapper, Fund> implements Fu
     @Resource
     private FundDataService fundDataService;
 
+    @Resource
+    private FundQuoteService fundQuoteService;
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Boolean addFund(AddFundRequest addFundRequest, Long userId) {
@@ -406,10 +410,17 @@ public class FundServiceImpl extends ServiceImpl<FundMapper, Fund> implements Fu
         // 累计统计数据
         FundStatistics statistics = new FundStatistics();
 
+        // 一次批量获取所有持仓的行情（共享缓存，未命中的代码并行请求数据源）
+        List<String> codes = new ArrayList<>(fundList.size());
+        for (int i = 0; i < fundList.size(); i++) {
+            codes.add(fundList.getJSONObject(i).getString("code"));
+        }
+        Map<String, JSONObject> quotes = fundQuoteService.getQuotes(codes);
+
         // 处理每个基金
         for (int i = 0; i < fundList.size(); i++) {
             JSONObject fundItem = fundList.getJSONObject(i);
-            FundItemVO fundItemVO = processSingleFund(fundItem, statistics);
+            FundItemVO fundItemVO = processSingleFund(fundItem, quotes.get(fundItem.getString("code")), statistics);
             fundItemList.add(fundItemVO);
         }
 
@@ -436,14 +447,14 @@ public class FundServiceImpl extends ServiceImpl<FundMapper, Fund> implements Fu
     /**
      * 处理单个基金，计算各项指标
      */
-    private FundItemVO processSingleFund(JSONObject fundItem, FundStatistics statistics) {
+    private FundItemVO processSingleFund(JSONObject fundItem, JSONObject fundData, FundStatistics statistics) {
         String code = fundItem.getString("code");
         String name = fundItem.getString("name");
         BigDecimal shares = fundItem.getBigDecimal("shares");
         BigDecimal cost = fundItem.getBigDecimal("cost");
 
         // 获取实时行情数据
-        FundRealTimeData realTimeData = fetchRealTimeData(code, name, cost);
+        FundRealTimeData realTimeData = fetchRealTimeData(code, name, cost, fundData);
 
         // 计算各项指标
         FundCalculations calculations = calculateFundMetrics(shares, cost, realTimeData);
@@ -456,16 +467,15 @@ public class FundServiceImpl extends ServiceImpl<FundMapper, Fund> implements Fu
     }
 
     /**
-     * 获取基金实时数据
+     * 解析基金实时数据，行情缺失时按成本价计算
      */
-    private FundRealTimeData fetchRealTimeData(String code, String name, BigDecimal cost) {
+    private FundRealTimeData fetchRealTimeData(String code, String name, BigDecimal cost, JSONObject fundData) {
         BigDecimal currentPrice = cost != null ? cost : ZERO;
         BigDecimal prevPrice = cost != null ? cost : ZERO;
         BigDecimal changePercent = ZERO;
         String fundName = name;
 
         try {
-            JSONObject fundData = fundDataService.getBestFundData(code);
             if (fundData != null && !fundData.isEmpty()) {
                 currentPrice = BigDecimal.valueOf(fundData.getDoubleValue("gsz"));
                 prevPrice = BigDecimal.valueOf(fundData.getDoubleValue("dwjz"));
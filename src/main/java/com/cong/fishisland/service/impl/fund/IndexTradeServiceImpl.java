@@ -61,7 +61,7 @@ public class IndexTradeServiceImpl extends ServiceImpl<IndexTradeMapper, IndexTr
 
     // ==================== 常量定义 ====================
 
-    /** 指数买入业务锁（与 user:points:lock 形成双重保护） */
+    /** 指数买入业务锁（积分扣减本身由条件更新保证不透支） */
     private static final String INDEX_BUY_LOCK_PREFIX = "index:trade:buy:lock:";
     private static final long INDEX_BUY_LOCK_WAIT_SECONDS = 5;
     private static final long INDEX_BUY_LOCK_LEASE_SECONDS = 15;
@@ -169,7 +169,7 @@ public class IndexTradeServiceImpl extends ServiceImpl<IndexTradeMapper, IndexTr
 
     /**
      * 指数买入外层锁：串行化「校验 → 扣积分 → 加仓 → 记流水」整段流程。
-     * 内层 {@link UserPointsService#deductPoints} 仍有 user:points:lock 保护积分字段。
+     * 内层 {@link UserPointsService#deductPoints} 以条件更新保证可用积分不为负。
      */
     private <T> T runWithIndexBuyLock(Long userId, Supplier<T> action) {
         RLock lock = redissonClient.getLock(INDEX_BUY_LOCK_PREFIX + userId);
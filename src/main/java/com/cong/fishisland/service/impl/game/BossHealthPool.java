@@ -0,0 +1,138 @@
+package com.cong.fishisland.service.impl.game;
+
+import com.cong.fishisland.constant.RedisKey;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 世界Boss血量
+ * Description: Boss 血量只保存在 Redis，每次攻击由一段 Lua 脚本原子完成“扣血（最低到 0）→ 累加伤害排行”，
+ * 并发挑战者的伤害不会互相覆盖；血量从大于 0 变为 0 的那一次调用返回击杀标记，只有这一次触发击杀结算
+ *
+ * @author cong
+ */
+@Component
+@RequiredArgsConstructor
+public class BossHealthPool {
+
+    /**
+     * 血量、排行榜过期时间，每天零点由定时任务重置
+     */
+    static final Duration STATE_TTL = Duration.ofHours(24);
+
+    /**
+     * KEYS[1] 血量；ARGV[1] 满血血量，ARGV[2] 过期秒数。不存在时按满血初始化
+     */
+    private static final String HEALTH_SCRIPT =
+            "local hp = redis.call('GET', KEYS[1]) " +
+            "if not hp then redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) return tonumber(ARGV[1]) end " +
+            "return tonumber(hp)";
+
+    /**
+     * KEYS[1] 血量，KEYS[2] 伤害排行；ARGV[1] 满血血量，ARGV[2] 过期秒数，ARGV[3] 伤害，ARGV[4] 用户ID
+     * 返回 {实际伤害, 剩余血量, 是否击杀}。Boss 已被击败时不计入排行
+     */
+    private static final String DAMAGE_SCRIPT =
+            "local hp = redis.call('GET', KEYS[1]) " +
+            "if not hp then hp = tonumber(ARGV[1]) redis.call('SET', KEYS[1], hp, 'EX', ARGV[2]) else hp = tonumber(hp) end " +
+            "if hp <= 0 then return {0, 0, 0} end " +
+            "local damage = math.min(math.max(tonumber(ARGV[3]), 0), hp) " +
+            "local remaining = hp " +
+            "if damage > 0 then remaining = redis.call('DECRBY', KEYS[1], damage) end " +
+            "redis.call('ZINCRBY', KEYS[2], damage, ARGV[4]) " +
+            "redis.call('EXPIRE', KEYS[2], ARGV[2]) " +
+            "if remaining == 0 then return {damage, 0, 1} end " +
+            "return {damage, remaining, 0}";
+
+    private static final DefaultRedisScript<Long> REDIS_HEALTH_SCRIPT = new DefaultRedisScript<>(HEALTH_SCRIPT, Long.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> REDIS_DAMAGE_SCRIPT = new DefaultRedisScript<>(DAMAGE_SCRIPT, List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 当前血量，尚未初始化时按满血初始化
+     *
+     * @param bossId    Boss ID
+     * @param maxHealth 满血血量
+     * @return 当前血量，0 表示已被击败
+     */
+    public int currentHealth(Long bossId, int maxHealth) {
+        Long health = stringRedisTemplate.execute(REDIS_HEALTH_SCRIPT,
+                Collections.singletonList(RedisKey.getKey(RedisKey.BOSS_HEALTH_CACHE_KEY, bossId)),
+                String.valueOf(maxHealth), String.valueOf(STATE_TTL.getSeconds()));
+        return health == null ? maxHealth : health.intValue();
+    }
+
+    /**
+     * 对 Boss 造成一次伤害并计入伤害排行
+     *
+     * @param bossId    Boss ID
+     * @param maxHealth 满血血量（血量尚未初始化时使用）
+     * @param userId    攻击者
+     * @param damage    本次伤害，0 表示未命中但仍记为参与
+     * @return 扣血结果
+     */
+    public DamageResult applyDamage(Long bossId, int maxHealth, Long userId, int damage) {
+        List<?> result = stringRedisTemplate.execute(REDIS_DAMAGE_SCRIPT,
+                Arrays.asList(RedisKey.getKey(RedisKey.BOSS_HEALTH_CACHE_KEY, bossId),
+                        RedisKey.getKey(RedisKey.BOSS_CHALLENGE_RANKING_KEY, bossId)),
+                String.valueOf(maxHealth), String.valueOf(STATE_TTL.getSeconds()),
+                String.valueOf(damage), String.valueOf(userId));
+        if (result == null || result.size() < 3) {
+            throw new IllegalStateException("Boss扣血脚本返回异常，bossId: " + bossId);
+        }
+        return new DamageResult(toInt(result.get(0)), toInt(result.get(1)), toInt(result.get(2)) == 1);
+    }
+
+    /**
+     * 重置为满血，并清空伤害排行和奖励发放标记
+     *
+     * @param bossId    Boss ID
+     * @param maxHealth 满血血量
+     */
+    public void reset(Long bossId, int maxHealth) {
+        stringRedisTemplate.opsForValue().set(RedisKey.getKey(RedisKey.BOSS_HEALTH_CACHE_KEY, bossId),
+                String.valueOf(maxHealth), STATE_TTL);
+        stringRedisTemplate.delete(Arrays.asList(
+                RedisKey.getKey(RedisKey.BOSS_CHALLENGE_RANKING_KEY, bossId),
+                RedisKey.getKey(RedisKey.BOSS_REWARD_DISTRIBUTED_KEY, bossId)));
+    }
+
+    private static int toInt(Object value) {
+        return ((Number) value).intValue();
+    }
+
+    /**
+     * 一次扣血的结果
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class DamageResult {
+
+        /**
+         * 实际扣除的血量（不超过扣血前的剩余血量）
+         */
+        private final int applied;
+
+        /**
+         * 扣血后的剩余血量
+         */
+        private final int remaining;
+
+        /**
+         * 是否由本次攻击击杀
+         */
+        private final boolean killed;
+    }
+}
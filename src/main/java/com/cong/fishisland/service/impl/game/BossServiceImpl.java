@@ -9,7 +9,6 @@ import com.cong.fishisland.mapper.game.BossMapper;
 import com.cong.fishisland.model.entity.game.Boss;
 import com.cong.fishisland.model.entity.pet.FishPet;
 import com.cong.fishisland.model.entity.user.User;
-import com.cong.fishisland.model.vo.game.AttackResultVO;
 import com.cong.fishisland.model.vo.game.BattleResultVO;
 import com.cong.fishisland.model.vo.game.BossBattleInfoVO;
 import com.cong.fishisland.model.vo.game.BattleStatsVO;
@@ -20,6 +19,8 @@ import com.cong.fishisland.service.BossService;
 import com.cong.fishisland.service.FishPetService;
 import com.cong.fishisland.service.UserPointsService;
 import com.cong.fishisland.service.UserService;
+import com.cong.fishisland.service.impl.game.combat.CombatEngine;
+import com.cong.fishisland.service.impl.game.combat.CombatLog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.StringRedisTemplate;
@@ -29,12 +30,11 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
-import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -54,18 +54,16 @@ public class BossServiceImpl implements BossService {
     private final UserPointsService userPointsService;
     private final StringRedisTemplate redisTemplate;
     private final BossMapper bossMapper;
-    private final Random random = new Random();
+    private final BossHealthPool bossHealthPool;
 
-    // Boss血量缓存过期时间（24小时）
+    // Boss奖励发放标记过期时间（24小时）
     private static final long BOSS_HEALTH_CACHE_EXPIRE_HOURS = 24;
 
     // 每天最大挑战次数
     private static final int MAX_DAILY_CHALLENGES = 2;
 
-    // 暴击伤害倍数
-    private static final double CRITICAL_DAMAGE_MULTIPLIER = BattleConstant.CRITICAL_DAMAGE_MULTIPLIER;
-    // 连击伤害倍数
-    private static final double COMBO_DAMAGE_MULTIPLIER = BattleConstant.COMBO_DAMAGE_MULTIPLIER;
+    // 单场战斗最大动作数
+    private static final int MAX_BATTLE_ACTIONS = 100;
 
     // Boss击败积分分配百分比（按排名）
     // 第1名: 20%, 第2名: 15%, 第3名: 10%, 第4-5名: 各8%, 第6-10名: 各5%
@@ -145,118 +143,29 @@ public class BossServiceImpl implements BossService {
         // 构建宠物和Boss的战斗属性
         BattleStatsVO petStats = BattleStatsVO.fromPet(
                 pet.getLevel() != null ? pet.getLevel() : 1,
-                fishPetService.getPetEquipStats(),
+                fishPetService.getPetEquipStatsByPet(pet),
                 BattleConstant.BASE_ATK, BattleConstant.GROWTH_RATE);
         BattleStatsVO bossStats = BattleStatsVO.fromBoss(boss);
 
-        int currentPetHealth = petStats.getHealth();
-        List<BattleResultVO> battleResults = new ArrayList<>();
-        // 速度高的一方先手；相同时随机决定（Boss 速度默认 0，宠物通常先手）
-        boolean petTurn = BattleStatsVO.aGoesFirst(petStats, bossStats, new java.util.Random());
-        int totalDamage = 0;
-        int maxActions = 100;
-
-        while (currentPetHealth > 0 && currentBossHealth > 0 && maxActions-- > 0) {
-
-            BattleResultVO result = new BattleResultVO();
-            String attackerType = petTurn ? "PET" : "BOSS";
-            result.setAttackerType(attackerType);
-
-            AttackResultVO attackResult;
-            if (petTurn) {
-                attackResult = performAttack(petStats, bossStats, currentPetHealth, currentBossHealth);
-                if (!attackResult.isDodge()) {
-                    currentBossHealth = Math.max(0, currentBossHealth - attackResult.getDamage());
-                    currentPetHealth = Math.min(petStats.getHealth(), currentPetHealth + attackResult.getLifestealHeal());
-                    totalDamage += attackResult.getDamage();
-                }
-            } else {
-                attackResult = performAttack(bossStats, petStats, currentBossHealth, currentPetHealth);
-                if (!attackResult.isDodge()) {
-                    currentPetHealth = Math.max(0, currentPetHealth - attackResult.getDamage());
-                }
-            }
-
-            result.setDamage(attackResult.getDamage());
-            result.setIsDodge(attackResult.isDodge());
-            result.setIsCritical(attackResult.isCritical());
-            result.setIsCombo(attackResult.isCombo());
-            result.setIsBlock(attackResult.isBlock());
-            result.setLifestealHeal(attackResult.getLifestealHeal());
-            result.setIsNormalAttack(!attackResult.isDodge() && !attackResult.isCritical() && !attackResult.isCombo() && !attackResult.isBlock());
-            result.setPetRemainingHealth(currentPetHealth);
-            result.setBossRemainingHealth(currentBossHealth);
-            battleResults.add(result);
-
-            if ("PET".equals(attackerType)) {
-                updateBossHealthToRedis(bossId, currentBossHealth);
-            }
-
-            if (!attackResult.isCombo()) {
-                petTurn = !petTurn;
-            }
-        }
+        // 每次宠物攻击都原子扣血并计入排行，其他挑战者同时造成的伤害也会体现在剩余血量中
+        SharedBossHealth sharedHealth = new SharedBossHealth(bossHealthPool, bossId, boss.getHealth(), userId, currentBossHealth);
+        CombatLog combatLog = CombatEngine.fight(petStats, bossStats, ThreadLocalRandom.current().nextLong(),
+                MAX_BATTLE_ACTIONS, sharedHealth);
+        boolean killed = sharedHealth.killed;
+        // 记录种子和双方属性，可用 CombatEngine 复现本场宠物与 Boss 的随机判定
+        log.info("Boss 战斗，bossId：{}，userId：{}，种子：{}，宠物属性：{}，Boss 属性：{}",
+                bossId, userId, combatLog.getSeed(), petStats, bossStats);
 
         // 增加用户今天挑战次数
         incrementDailyChallengeCount(userId, bossId);
 
-        // 将用户造成的伤害存入排行榜
-        updateBossChallengeRanking(bossId, userId, totalDamage);
-
-        return battleResults;
-    }
-
-    /**
-     * 执行一次攻击：attacker 攻击 defender
-     */
-    private AttackResultVO performAttack(BattleStatsVO attacker, BattleStatsVO defender,
-                                          int attackerCurrentHp, int defenderCurrentHp) {
-        AttackResultVO result = new AttackResultVO();
-
-        // 闪避：防守方闪避率 - 攻击方抗闪避率
-        double effectiveDodge = Math.max(0.0, defender.getDodgeRate() - attacker.getDodgeResistance());
-        if (random.nextDouble() < effectiveDodge) {
-            result.setDodge(true);
-            result.setDamage(0);
-            return result;
+        // 只有把血量打到 0 的那次攻击会拿到击杀标记，击杀结算只触发一次
+        if (killed) {
+            log.info("Boss被击败，bossId: {}, 击杀者: {}", bossId, userId);
+            distributeBossKillRewards(bossId, boss.getRewardPoints());
         }
 
-        // 格挡：防守方格挡率 - 攻击方抗格挡率（触发后减伤50%）
-        double effectiveBlock = Math.max(0.0, defender.getBlockRate() - attacker.getBlockResistance());
-        boolean isBlock = random.nextDouble() < effectiveBlock;
-        result.setBlock(isBlock);
-
-        // 暴击：攻击方暴击率 - 防守方抗暴击率
-        double effectiveCrit = Math.max(0.0, attacker.getCritRate() - defender.getCritResistance());
-        boolean isCritical = random.nextDouble() < effectiveCrit;
-
-        // 连击：攻击方连击率 - 防守方抗连击率
-        double effectiveCombo = Math.max(0.0, attacker.getComboRate() - defender.getComboResistance());
-        boolean isCombo = random.nextDouble() < effectiveCombo;
-
-        result.setCritical(isCritical);
-        result.setCombo(isCombo);
-
-        double damageMultiplier = 1.0;
-        if (isCritical) damageMultiplier *= CRITICAL_DAMAGE_MULTIPLIER;
-        if (isCombo) damageMultiplier *= COMBO_DAMAGE_MULTIPLIER;
-        if (isBlock) damageMultiplier *= BattleConstant.BLOCK_DAMAGE_REDUCTION;
-
-        int baseDamage = (int) (attacker.getAttack() * damageMultiplier);
-        int damageAfterDefense = Math.max(1, baseDamage - defender.getDefense());
-        double damageVariation = 0.9 + random.nextDouble() * 0.2;
-        int damage = Math.min((int) (damageAfterDefense * damageVariation), defenderCurrentHp);
-        result.setDamage(damage);
-
-        // 吸血：攻击方吸血率 - 防守方抗吸血率，回复量不超过缺失血量
-        double effectiveLifesteal = Math.max(0.0, attacker.getLifesteal() - defender.getLifestealResistance());
-        if (effectiveLifesteal > 0 && damage > 0) {
-            int heal = (int) (damage * effectiveLifesteal);
-            int missing = attacker.getHealth() - attackerCurrentHp;
-            result.setLifestealHeal(Math.min(heal, missing));
-        }
-
-        return result;
+        return combatLog.toBattleResults("PET", "BOSS");
     }
 
     /**
@@ -296,52 +205,18 @@ public class BossServiceImpl implements BossService {
      * 从Redis获取Boss当前血量
      *
      * @param bossId Boss ID
-     * @param defaultHealth 默认血量（如果Redis中没有数据）
-     * @return Boss当前血量
+     * @param defaultHealth 满血血量（如果Redis中没有数据）
+     * @return Boss当前血量，0 表示今天已被击败
      */
     private int getBossHealthFromRedis(Long bossId, Integer defaultHealth) {
         try {
-            String healthKey = RedisKey.getKey(RedisKey.BOSS_HEALTH_CACHE_KEY, bossId);
-            String healthStr = redisTemplate.opsForValue().get(healthKey);
-            
-            if (healthStr != null && !healthStr.isEmpty()) {
-                int health = Integer.parseInt(healthStr);
-                // 如果血量小于等于0，说明Boss已被击败，返回默认血量（重置）
-                if (health <= 0) {
-                    return defaultHealth;
-                }
-                return health;
-            }
-            
-            // Redis中没有数据，返回默认血量并初始化到Redis
-            updateBossHealthToRedis(bossId, defaultHealth);
-            return defaultHealth;
+            return bossHealthPool.currentHealth(bossId, defaultHealth);
         } catch (Exception e) {
             log.error("从Redis获取Boss血量失败，bossId: {}, 使用默认血量", bossId, e);
             return defaultHealth;
         }
     }
 
-    /**
-     * 更新Boss血量到Redis
-     *
-     * @param bossId Boss ID
-     * @param health Boss当前血量
-     */
-    private void updateBossHealthToRedis(Long bossId, Integer health) {
-        try {
-            String healthKey = RedisKey.getKey(RedisKey.BOSS_HEALTH_CACHE_KEY, bossId);
-            redisTemplate.opsForValue().set(
-                    healthKey,
-                    String.valueOf(health),
-                    BOSS_HEALTH_CACHE_EXPIRE_HOURS,
-                    TimeUnit.HOURS
-            );
-        } catch (Exception e) {
-            log.error("更新Boss血量到Redis失败，bossId: {}, health: {}", bossId, health, e);
-        }
-    }
-
     /**
      * 获取用户今天剩余的挑战次数
      *
@@ -398,25 +273,6 @@ public class BossServiceImpl implements BossService {
         }
     }
 
-    /**
-     * 更新Boss挑战排行榜
-     *
-     * @param bossId Boss ID
-     * @param userId 用户ID
-     * @param damage 造成的伤害
-     */
-    private void updateBossChallengeRanking(Long bossId, Long userId, Integer damage) {
-        try {
-            String rankingKey = RedisKey.getKey(RedisKey.BOSS_CHALLENGE_RANKING_KEY, bossId);
-            // 使用incrementScore累加伤害，如果用户不存在则自动创建
-            redisTemplate.opsForZSet().incrementScore(rankingKey, userId.toString(), damage);
-            // 设置过期时间为24小时
-            redisTemplate.expire(rankingKey, BOSS_HEALTH_CACHE_EXPIRE_HOURS, TimeUnit.HOURS);
-        } catch (Exception e) {
-            log.error("更新Boss挑战排行榜失败，bossId: {}, userId: {}, damage: {}", bossId, userId, damage, e);
-        }
-    }
-
     @Override
     public List<BossChallengeRankingVO> getBossChallengeRanking(Long bossId, Integer limit) {
         // 参数校验
@@ -532,7 +388,7 @@ public class BossServiceImpl implements BossService {
         int petLevel = pet.getLevel() != null ? pet.getLevel() : 1;
         
         // 获取用户的宠物装备属性
-        PetEquipStatsVO petEquipStats = fishPetService.getPetEquipStats();
+        PetEquipStatsVO petEquipStats = fishPetService.getPetEquipStatsByPet(pet);
         int equipAttack = petEquipStats != null && petEquipStats.getTotalBaseAttack() != null 
                 ? petEquipStats.getTotalBaseAttack() : 0;
         int equipHp = petEquipStats != null && petEquipStats.getTotalBaseHp() != null 
@@ -647,4 +503,38 @@ public class BossServiceImpl implements BossService {
             log.error("分配Boss击败奖励失败，bossId: {}, totalRewardPoints: {}", bossId, totalRewardPoints, e);
         }
     }
+
+    /**
+     * 世界Boss的共享血量，记录本场是否由自己完成击杀
+     */
+    private static final class SharedBossHealth implements CombatEngine.SharedHealth {
+
+        private final BossHealthPool pool;
+        private final Long bossId;
+        private final int maxHealth;
+        private final Long userId;
+        private int remaining;
+        private boolean killed;
+
+        private SharedBossHealth(BossHealthPool pool, Long bossId, int maxHealth, Long userId, int remaining) {
+            this.pool = pool;
+            this.bossId = bossId;
+            this.maxHealth = maxHealth;
+            this.userId = userId;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int apply(int damage) {
+            BossHealthPool.DamageResult result = pool.applyDamage(bossId, maxHealth, userId, damage);
+            remaining = result.getRemaining();
+            killed |= result.isKilled();
+            return result.getApplied();
+        }
+
+        @Override
+        public int remaining() {
+            return remaining;
+        }
+    }
 }
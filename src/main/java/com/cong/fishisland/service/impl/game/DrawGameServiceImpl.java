@@ -493,27 +493,40 @@ public class DrawGameServiceImpl implements DrawGameService {
         roomVO.setRoomId(roomId);
         roomVO.setCurrentPlayers(room.getParticipantIds().size());
 
-        // 获取创建者信息
+        // 创建者、绘画者和玩家的用户信息一次取回
+        Set<Long> userIds = new HashSet<>(room.getParticipantIds());
         if (room.getCreatorId() != null) {
-            User creator = userService.getById(room.getCreatorId());
-            if (creator != null) {
-                roomVO.setCreatorName(creator.getUserName());
-                roomVO.setCreatorAvatar(creator.getUserAvatar());
-            }
+            userIds.add(room.getCreatorId());
+        }
+        if (room.getCurrentDrawerId() != null) {
+            userIds.add(room.getCurrentDrawerId());
+        }
+        Map<Long, User> users = userIds.isEmpty() ? Collections.emptyMap() : userService.listByIds(userIds).stream()
+                .collect(Collectors.toMap(User::getId, user -> user, (a, b) -> a));
+
+        // 获取创建者信息
+        User creator = room.getCreatorId() == null ? null : users.get(room.getCreatorId());
+        if (creator != null) {
+            roomVO.setCreatorName(creator.getUserName());
+            roomVO.setCreatorAvatar(creator.getUserAvatar());
         }
 
         // 获取当前绘画者信息
-        if (room.getCurrentDrawerId() != null) {
-            User drawer = userService.getById(room.getCurrentDrawerId());
-            if (drawer != null) {
-                roomVO.setCurrentDrawerName(drawer.getUserName());
-            }
+        User drawer = room.getCurrentDrawerId() == null ? null : users.get(room.getCurrentDrawerId());
+        if (drawer != null) {
+            roomVO.setCurrentDrawerName(drawer.getUserName());
         }
 
-        // 获取房间内所有玩家详细信息
+        // 获取房间内所有玩家详细信息，积分一次 MGET
+        List<Long> participantIds = new ArrayList<>(room.getParticipantIds());
+        List<String> scores = participantIds.isEmpty() ? Collections.emptyList() : stringRedisTemplate.opsForValue().multiGet(
+                participantIds.stream()
+                        .map(userId -> DrawGameRedisKey.getKey(DrawGameRedisKey.PLAYER_SCORE, roomId, userId.toString()))
+                        .collect(Collectors.toList()));
         List<DrawPlayerVO> participants = new ArrayList<>();
-        for (Long userId : room.getParticipantIds()) {
-            User user = userService.getById(userId);
+        for (int i = 0; i < participantIds.size(); i++) {
+            Long userId = participantIds.get(i);
+            User user = users.get(userId);
             if (user != null) {
                 DrawPlayerVO playerVO = new DrawPlayerVO();
                 playerVO.setUserId(userId);
@@ -524,13 +537,8 @@ public class DrawGameServiceImpl implements DrawGameService {
                 playerVO.setHasGuessedCorrectly(room.getCorrectGuessIds().contains(userId));
 
                 // 获取玩家积分
-                String playerScoreKey = DrawGameRedisKey.getKey(DrawGameRedisKey.PLAYER_SCORE, roomId, userId.toString());
-                String scoreStr = stringRedisTemplate.opsForValue().get(playerScoreKey);
-                int score = 0;
-                if (scoreStr != null) {
-                    score = Integer.parseInt(scoreStr);
-                }
-                playerVO.setScore(score);
+                String scoreStr = scores == null ? null : scores.get(i);
+                playerVO.setScore(scoreStr == null ? 0 : Integer.parseInt(scoreStr));
 
                 participants.add(playerVO);
             }
@@ -5,7 +5,6 @@ import com.cong.fishisland.common.ErrorCode;
 import com.cong.fishisland.common.exception.BusinessException;
 import com.cong.fishisland.constant.BattleConstant;
 import com.cong.fishisland.model.entity.pet.FishPet;
-import com.cong.fishisland.model.vo.game.AttackResultVO;
 import com.cong.fishisland.model.vo.game.BattleStatsVO;
 import com.cong.fishisland.model.vo.game.PetBattleInfoVO;
 import com.cong.fishisland.model.vo.game.PetBattleResultVO;
@@ -13,13 +12,14 @@ import com.cong.fishisland.model.vo.pet.PetEquipStatsVO;
 import com.cong.fishisland.service.FishPetService;
 import com.cong.fishisland.service.PetBattleService;
 import com.cong.fishisland.service.UserService;
+import com.cong.fishisland.service.impl.game.combat.CombatEngine;
+import com.cong.fishisland.service.impl.game.combat.CombatLog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 宠物对战服务实现类
@@ -33,7 +33,11 @@ public class PetBattleServiceImpl implements PetBattleService {
 
     private final UserService userService;
     private final FishPetService fishPetService;
-    private final Random random = new Random();
+
+    /**
+     * 单场战斗最大动作数
+     */
+    private static final int MAX_BATTLE_ACTIONS = 100;
 
     @Override
     public PetBattleInfoVO getPetBattleInfo(Long opponentUserId) {
@@ -48,8 +52,8 @@ public class PetBattleServiceImpl implements PetBattleService {
         FishPet myPet = getPetByUserId(myUserId, true);
         FishPet opponentPet = getPetByUserId(opponentUserId, false);
 
-        PetEquipStatsVO myStats = fishPetService.getPetEquipStats();
-        PetEquipStatsVO opponentStats = fishPetService.getPetEquipStatsByUserId(opponentUserId);
+        PetEquipStatsVO myStats = fishPetService.getPetEquipStatsByPet(myPet);
+        PetEquipStatsVO opponentStats = fishPetService.getPetEquipStatsByPet(opponentPet);
 
         PetBattleInfoVO vo = new PetBattleInfoVO();
         vo.setMyPet(buildPetInfo(myPet, myStats));
@@ -72,59 +76,19 @@ public class PetBattleServiceImpl implements PetBattleService {
 
         BattleStatsVO my = BattleStatsVO.fromPet(
                 myPet.getLevel() != null ? myPet.getLevel() : 1,
-                fishPetService.getPetEquipStats(),
+                fishPetService.getPetEquipStatsByPet(myPet),
                 BattleConstant.BASE_ATK, BattleConstant.GROWTH_RATE);
 
         BattleStatsVO opp = BattleStatsVO.fromPet(
                 opponentPet.getLevel() != null ? opponentPet.getLevel() : 1,
-                fishPetService.getPetEquipStatsByUserId(opponentUserId),
+                fishPetService.getPetEquipStatsByPet(opponentPet),
                 BattleConstant.BASE_ATK, BattleConstant.GROWTH_RATE);
 
-        int currentMyHealth = my.getHealth();
-        int currentOppHealth = opp.getHealth();
-
-        List<PetBattleResultVO> results = new ArrayList<>();
-        // 速度高的一方先手；相同时随机决定
-        boolean myTurn = BattleStatsVO.aGoesFirst(my, opp, random);
-        int maxActions = 100;
-
-        while (currentMyHealth > 0 && currentOppHealth > 0 && maxActions-- > 0) {
-
-            PetBattleResultVO result = new PetBattleResultVO();
-            result.setAttackerType(myTurn ? "MY_PET" : "OPPONENT_PET");
-
-            AttackResultVO ar;
-            if (myTurn) {
-                ar = performAttack(my, opp, currentMyHealth, currentOppHealth);
-                if (!ar.isDodge()) {
-                    currentOppHealth = Math.max(0, currentOppHealth - ar.getDamage());
-                    currentMyHealth = Math.min(my.getHealth(), currentMyHealth + ar.getLifestealHeal());
-                }
-            } else {
-                ar = performAttack(opp, my, currentOppHealth, currentMyHealth);
-                if (!ar.isDodge()) {
-                    currentMyHealth = Math.max(0, currentMyHealth - ar.getDamage());
-                    currentOppHealth = Math.min(opp.getHealth(), currentOppHealth + ar.getLifestealHeal());
-                }
-            }
-
-            result.setDamage(ar.getDamage());
-            result.setIsDodge(ar.isDodge());
-            result.setIsCritical(ar.isCritical());
-            result.setIsCombo(ar.isCombo());
-            result.setIsBlock(ar.isBlock());
-            result.setLifestealHeal(ar.getLifestealHeal());
-            result.setIsNormalAttack(!ar.isDodge() && !ar.isCritical() && !ar.isCombo() && !ar.isBlock());
-            result.setMyPetRemainingHealth(currentMyHealth);
-            result.setOpponentPetRemainingHealth(currentOppHealth);
-            results.add(result);
-
-            if (!ar.isCombo()) {
-                myTurn = !myTurn;
-            }
-        }
-
-        return results;
+        CombatLog combatLog = CombatEngine.fight(my, opp, ThreadLocalRandom.current().nextLong(), MAX_BATTLE_ACTIONS);
+        // 记录种子和双方属性，可用 CombatEngine 复现本场战斗
+        log.info("宠物对战，userId：{}，对手：{}，种子：{}，我方属性：{}，对手属性：{}",
+                myUserId, opponentUserId, combatLog.getSeed(), my, opp);
+        return combatLog.toPetBattleResults("MY_PET", "OPPONENT_PET");
     }
 
     // ---- 私有工具方法 ----
@@ -154,68 +118,4 @@ public class PetBattleServiceImpl implements PetBattleService {
         info.setEquippedItems(fishPetService.getEquippedItems(pet));
         return info;
     }
-
-    /**
-     * 执行一次攻击：attacker 攻击 defender
-     *
-     * @param attacker          攻击方战斗属性
-     * @param defender          防守方战斗属性
-     * @param attackerCurrentHp 攻击方当前血量（用于吸血上限）
-     * @param defenderCurrentHp 防守方当前血量（用于伤害上限）
-     */
-    private AttackResultVO performAttack(BattleStatsVO attacker, BattleStatsVO defender,
-                                         int attackerCurrentHp, int defenderCurrentHp) {
-        AttackResultVO result = new AttackResultVO();
-
-        // 闪避：防守方闪避率 - 攻击方抗闪避率
-        double effectiveDodge = Math.max(0.0, defender.getDodgeRate() - attacker.getDodgeResistance());
-        if (random.nextDouble() < effectiveDodge) {
-            result.setDodge(true);
-            result.setDamage(0);
-            return result;
-        }
-
-        // 格挡：防守方格挡率 - 攻击方抗格挡率（触发后减伤50%）
-        double effectiveBlock = Math.max(0.0, defender.getBlockRate() - attacker.getBlockResistance());
-        boolean isBlock = random.nextDouble() < effectiveBlock;
-        result.setBlock(isBlock);
-
-        // 暴击：攻击方暴击率 - 防守方抗暴击率
-        double effectiveCrit = Math.max(0.0, attacker.getCritRate() - defender.getCritResistance());
-        boolean isCritical = random.nextDouble() < effectiveCrit;
-
-        // 连击：攻击方连击率 - 防守方抗连击率
-        double effectiveCombo = Math.max(0.0, attacker.getComboRate() - defender.getComboResistance());
-        boolean isCombo = random.nextDouble() < effectiveCombo;
-
-        result.setCritical(isCritical);
-        result.setCombo(isCombo);
-
-        double multiplier = 1.0;
-        if (isCritical) {
-            multiplier *= BattleConstant.CRITICAL_DAMAGE_MULTIPLIER;
-        }
-        if (isCombo) {
-            multiplier *= BattleConstant.COMBO_DAMAGE_MULTIPLIER;
-        }
-        if (isBlock) {
-            multiplier *= BattleConstant.BLOCK_DAMAGE_REDUCTION;
-        }
-
-        int base = (int) (attacker.getAttack() * multiplier);
-        int afterDefense = Math.max(1, base - defender.getDefense());
-        double variation = 0.9 + random.nextDouble() * 0.2;
-        int damage = Math.min((int) (afterDefense * variation), defenderCurrentHp);
-        result.setDamage(damage);
-
-        // 吸血：攻击方吸血率 - 防守方抗吸血率，回复量不超过缺失血量
-        double effectiveLifesteal = Math.max(0.0, attacker.getLifesteal() - defender.getLifestealResistance());
-        if (effectiveLifesteal > 0 && damage > 0) {
-            int heal = (int) (damage * effectiveLifesteal);
-            int missing = attacker.getHealth() - attackerCurrentHp;
-            result.setLifestealHeal(Math.min(heal, missing));
-        }
-
-        return result;
-    }
 }
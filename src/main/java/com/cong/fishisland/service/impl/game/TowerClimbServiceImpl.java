@@ -5,15 +5,15 @@ import com.cong.fishisland.common.ErrorCode;
 import com.cong.fishisland.common.exception.BusinessException;
 import com.cong.fishisland.constant.BattleConstant;
 import com.cong.fishisland.constant.RedisKey;
+import com.cong.fishisland.manager.LeaderboardManager;
 import com.cong.fishisland.mapper.game.TowerClimbProgressMapper;
 import com.cong.fishisland.mapper.game.TowerClimbRecordMapper;
 import com.cong.fishisland.model.entity.game.TowerClimbProgress;
 import com.cong.fishisland.model.entity.game.TowerClimbRecord;
 import com.cong.fishisland.model.entity.pet.FishPet;
+import com.cong.fishisland.model.dto.leaderboard.LeaderboardEntry;
 import com.cong.fishisland.model.entity.user.User;
 import com.cong.fishisland.model.enums.user.PointsRecordSourceEnum;
-import com.cong.fishisland.model.vo.game.AttackResultVO;
-import com.cong.fishisland.model.vo.game.BattleResultVO;
 import com.cong.fishisland.model.vo.game.BattleStatsVO;
 import com.cong.fishisland.model.vo.game.TowerClimbResultVO;
 import com.cong.fishisland.model.vo.game.TowerFloorMonsterVO;
@@ -24,19 +24,24 @@ import com.cong.fishisland.service.FishPetService;
 import com.cong.fishisland.service.TowerClimbService;
 import com.cong.fishisland.service.UserPointsService;
 import com.cong.fishisland.service.UserService;
+import com.cong.fishisland.service.impl.game.combat.CombatEngine;
+import com.cong.fishisland.service.impl.game.combat.CombatLog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -62,7 +67,7 @@ public class TowerClimbServiceImpl implements TowerClimbService {
     private final TowerClimbRecordMapper towerClimbRecordMapper;
     private final TowerClimbProgressMapper towerClimbProgressMapper;
     private final StringRedisTemplate redisTemplate;
-    private final Random random = new Random();
+    private final LeaderboardManager leaderboardManager;
 
     // 怪物基础属性
     private static final int MONSTER_BASE_HP = 200;
@@ -129,7 +134,7 @@ public class TowerClimbServiceImpl implements TowerClimbService {
 
         // 获取宠物属性
         FishPet pet = getPet(userId);
-        PetEquipStatsVO equipStats = fishPetService.getPetEquipStats();
+        PetEquipStatsVO equipStats = fishPetService.getPetEquipStatsByPet(pet);
         int petLevel = pet.getLevel() != null ? pet.getLevel() : 1;
 
         BattleStatsVO petStats = BattleStatsVO.fromPet(petLevel, equipStats,
@@ -140,15 +145,17 @@ public class TowerClimbServiceImpl implements TowerClimbService {
         BattleStatsVO monsterStats = buildMonsterStats(monster);
 
         // 执行战斗
-        List<BattleResultVO> rounds = doBattle(petStats, monsterStats);
-        BattleResultVO lastRound = rounds.get(rounds.size() - 1);
-        int lastPetHp = lastRound.getPetRemainingHealth();
-        int lastMonsterHp = lastRound.getBossRemainingHealth();
+        CombatLog combatLog = CombatEngine.fight(petStats, monsterStats, ThreadLocalRandom.current().nextLong(), MAX_ROUNDS);
+        // 记录种子和双方属性，可用 CombatEngine 复现本场战斗
+        log.info("爬塔战斗，userId：{}，层数：{}，种子：{}，宠物属性：{}，怪物属性：{}",
+                userId, floor, combatLog.getSeed(), petStats, monsterStats);
+        int lastPetHp = combatLog.getARemainingHealth();
+        int lastMonsterHp = combatLog.getBRemainingHealth();
         // 50 层及以下：宠物存活即胜利；51 层起回合耗尽且怪物未死则失败
         boolean win = lastPetHp > 0
                 && !(floor > KILL_REQUIRED_AFTER_FLOOR
                 && lastMonsterHp > 0
-                && rounds.size() >= MAX_ROUNDS);
+                && combatLog.getActionCount() >= MAX_ROUNDS);
 
         int rewardPoints = 0;
         if (win) {
@@ -156,6 +163,13 @@ public class TowerClimbServiceImpl implements TowerClimbService {
             // 更新最高层数
             progress.setMaxFloor(floor);
             towerClimbProgressMapper.updateById(progress);
+            // 事务提交后再刷新排行榜
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rankingBoard().setIfHigher(userId, floor);
+                }
+            });
             // 发放积分（记录来源为爬塔奖励）
             userPointsService.updateUsedPoints(userId, -rewardPoints,
                     PointsRecordSourceEnum.TOWER_CLIMB.getValue(),
@@ -180,96 +194,7 @@ public class TowerClimbServiceImpl implements TowerClimbService {
         result.setPetHpLeft(lastPetHp);
         result.setRewardPoints(rewardPoints);
         result.setMaxFloor(win ? floor : progress.getMaxFloor());
-        result.setBattleRounds(rounds);
-        return result;
-    }
-
-    // ---- 战斗逻辑 ----
-
-    private List<BattleResultVO> doBattle(BattleStatsVO pet, BattleStatsVO monster) {
-        List<BattleResultVO> rounds = new ArrayList<>();
-        int petHp = pet.getHealth();
-        int monsterHp = monster.getHealth();
-        // 速度高的一方先手；相同时随机决定（野怪速度默认 0，宠物通常先手）
-        boolean petTurn = BattleStatsVO.aGoesFirst(pet, monster, random);
-
-        for (int i = 0; i < MAX_ROUNDS && petHp > 0 && monsterHp > 0; i++) {
-            BattleResultVO round = new BattleResultVO();
-            if (petTurn) {
-                round.setAttackerType("PET");
-                AttackResultVO atk = performAttack(pet, monster, petHp, monsterHp);
-                monsterHp = Math.max(0, monsterHp - atk.getDamage());
-                petHp = Math.min(pet.getHealth(), petHp + atk.getLifestealHeal());
-                round.setDamage(atk.getDamage());
-                round.setIsCritical(atk.isCritical());
-                round.setIsCombo(atk.isCombo());
-                round.setIsBlock(atk.isBlock());
-                round.setIsDodge(atk.isDodge());
-                round.setIsNormalAttack(!atk.isCritical() && !atk.isCombo() && !atk.isDodge());
-                round.setLifestealHeal(atk.getLifestealHeal());
-                // 连击时宠物继续攻击，否则切换到怪物
-                petTurn = atk.isCombo();
-            } else {
-                round.setAttackerType("BOSS");
-                AttackResultVO atk = performAttack(monster, pet, monsterHp, petHp);
-                petHp = Math.max(0, petHp - atk.getDamage());
-                monsterHp = Math.min(monster.getHealth(), monsterHp + atk.getLifestealHeal());
-                round.setDamage(atk.getDamage());
-                round.setIsCritical(atk.isCritical());
-                round.setIsCombo(atk.isCombo());
-                round.setIsBlock(atk.isBlock());
-                round.setIsDodge(atk.isDodge());
-                round.setIsNormalAttack(!atk.isCritical() && !atk.isCombo() && !atk.isDodge());
-                round.setLifestealHeal(atk.getLifestealHeal());
-                petTurn = !atk.isCombo();
-            }
-            round.setPetRemainingHealth(petHp);
-            round.setBossRemainingHealth(monsterHp);
-            rounds.add(round);
-        }
-        return rounds;
-    }
-
-    private AttackResultVO performAttack(BattleStatsVO attacker, BattleStatsVO defender,
-                                         int attackerHp, int defenderHp) {
-        AttackResultVO result = new AttackResultVO();
-
-        double effectiveDodge = Math.max(0.0, defender.getDodgeRate() - attacker.getDodgeResistance());
-        if (random.nextDouble() < effectiveDodge) {
-            result.setDodge(true);
-            result.setDamage(0);
-            return result;
-        }
-
-        double effectiveBlock = Math.max(0.0, defender.getBlockRate() - attacker.getBlockResistance());
-        boolean isBlock = random.nextDouble() < effectiveBlock;
-        result.setBlock(isBlock);
-
-        double effectiveCrit = Math.max(0.0, attacker.getCritRate() - defender.getCritResistance());
-        boolean isCrit = random.nextDouble() < effectiveCrit;
-        result.setCritical(isCrit);
-
-        double effectiveCombo = Math.max(0.0, attacker.getComboRate() - defender.getComboResistance());
-        boolean isCombo = random.nextDouble() < effectiveCombo;
-        result.setCombo(isCombo);
-
-        double multiplier = 1.0;
-        if (isCrit) multiplier *= BattleConstant.CRITICAL_DAMAGE_MULTIPLIER;
-        if (isCombo) multiplier *= BattleConstant.COMBO_DAMAGE_MULTIPLIER;
-        if (isBlock) multiplier *= BattleConstant.BLOCK_DAMAGE_REDUCTION;
-
-        int base = (int) (attacker.getAttack() * multiplier);
-        int afterDef = Math.max(1, base - defender.getDefense());
-        double variation = 0.9 + random.nextDouble() * 0.2;
-        int damage = Math.min((int) (afterDef * variation), defenderHp);
-        result.setDamage(damage);
-
-        double effectiveLifesteal = Math.max(0.0, attacker.getLifesteal() - defender.getLifestealResistance());
-        if (effectiveLifesteal > 0 && damage > 0) {
-            int heal = (int) (damage * effectiveLifesteal);
-            int missing = attacker.getHealth() - attackerHp;
-            result.setLifestealHeal(Math.min(heal, missing));
-        }
+        result.setBattleRounds(combatLog.toBattleResults("PET", "BOSS"));
         return result;
     }
 
@@ -367,32 +292,26 @@ public class TowerClimbServiceImpl implements TowerClimbService {
     @Override
     public List<TowerRankVO> getRanking(int limit) {
         // 按最高层数降序取 top N
-        List<TowerClimbProgress> progressList = towerClimbProgressMapper.selectList(
-                new LambdaQueryWrapper<TowerClimbProgress>()
-                        .gt(TowerClimbProgress::getMaxFloor, 0)
-                        .orderByDesc(TowerClimbProgress::getMaxFloor)
-                        .last("LIMIT " + Math.min(limit, 200)));
-
-        if (progressList.isEmpty()) {
+        List<LeaderboardEntry> entries = rankingBoard().top(Math.min(limit, 200));
+        if (entries.isEmpty()) {
             return new ArrayList<>();
         }
 
         // 批量查用户信息
-        List<Long> userIds = progressList.stream()
-                .map(TowerClimbProgress::getUserId)
+        List<Long> userIds = entries.stream()
+                .map(LeaderboardEntry::getUserId)
                 .collect(Collectors.toList());
         Map<Long, User> userMap = userService.listByIds(userIds).stream()
                 .collect(Collectors.toMap(User::getId, Function.identity()));
 
         // 组装 VO
         List<TowerRankVO> result = new ArrayList<>();
-        for (int i = 0; i < progressList.size(); i++) {
-            TowerClimbProgress p = progressList.get(i);
-            User user = userMap.get(p.getUserId());
+        for (LeaderboardEntry entry : entries) {
+            User user = userMap.get(entry.getUserId());
             TowerRankVO vo = new TowerRankVO();
-            vo.setRank(i + 1);
-            vo.setUserId(p.getUserId());
-            vo.setMaxFloor(p.getMaxFloor());
+            vo.setRank(entry.getRank());
+            vo.setUserId(entry.getUserId());
+            vo.setMaxFloor(entry.getScore().intValue());
             if (user != null) {
                 vo.setUserName(user.getUserName());
                 vo.setUserAvatar(user.getUserAvatar());
@@ -401,4 +320,18 @@ public class TowerClimbServiceImpl implements TowerClimbService {
         }
         return result;
     }
+
+    /**
+     * 爬塔最高层数排行榜，首次使用时从爬塔进度表加载
+     */
+    private LeaderboardManager.Board rankingBoard() {
+        return leaderboardManager.board("tower:max_floor", null, () -> {
+            Map<Long, Long> scores = new HashMap<>();
+            towerClimbProgressMapper.selectList(new LambdaQueryWrapper<TowerClimbProgress>()
+                            .select(TowerClimbProgress::getUserId, TowerClimbProgress::getMaxFloor)
+                            .gt(TowerClimbProgress::getMaxFloor, 0))
+                    .forEach(p -> scores.put(p.getUserId(), p.getMaxFloor().longValue()));
+            return scores;
+        });
+    }
 }
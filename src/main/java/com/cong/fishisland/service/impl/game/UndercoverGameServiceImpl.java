@@ -42,6 +42,7 @@ import java.io.IOException;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * 谁是卧底游戏服务实现
@@ -154,6 +155,8 @@ public class UndercoverGameServiceImpl implements UndercoverGameService {
                         60,
                         TimeUnit.MINUTES
                 );
+                // 写入房间索引，房间列表按创建时间倒序读取
+                stringRedisTemplate.opsForZSet().add(UndercoverGameRedisKey.ROOM_INDEX, roomId, room.getCreateTime().getTime());
 
                 MessageWrapper messageWrapper = getSystemMessageWrapper(loginUser.getUserName() + "创建了一个紧张刺激的谁是卧底房间，大家快来参加吧～");
                 webSocketService.sendToAllOnline(WSBaseResp.builder()
@@ -244,51 +247,17 @@ public class UndercoverGameServiceImpl implements UndercoverGameService {
 
     /**
      * 获取所有房间列表
+     * 从房间索引按创建时间倒序取出房间ID，房间、投票、结果等数据用 MGET 批量读取，不再扫描键空间
      *
      * @return 房间列表
      */
     @Override
     public List<UndercoverRoomVO> getAllRooms() {
-        List<String> roomIds = new ArrayList<>();
-        List<UndercoverRoomVO> roomList = new ArrayList<>();
-
-        // 获取所有以 "fish:undercover:room:" 开头的键
-        Set<String> keys = stringRedisTemplate.keys(UndercoverGameRedisKey.BASE_KEY + "roomInfo:*");
-        if (keys.isEmpty()) {
-            return roomList;
+        Set<String> indexedIds = stringRedisTemplate.opsForZSet().reverseRange(UndercoverGameRedisKey.ROOM_INDEX, 0, -1);
+        if (indexedIds == null || indexedIds.isEmpty()) {
+            return new ArrayList<>();
         }
-
-        // 遍历所有房间键，获取房间信息
-        for (String key : keys) {
-            // 从键中提取房间ID
-            // 格式为 "fish:undercover:room:roomId"，需要提取最后一部分作为roomId
-            String[] parts = key.split(":");
-            if (parts.length < 4) {
-                continue;
-            }
-            String roomId = parts[3];
-
-            // 如果是其他类型的键（如投票记录、结果等），跳过
-            if (roomId.contains(":")) {
-                continue;
-            }
-
-            // 获取房间信息
-            UndercoverRoomVO roomVO = getRoomById(roomId);
-            if (roomVO != null) {
-                roomList.add(roomVO);
-            }
-        }
-
-        // 按创建时间降序排序，最新创建的房间排在前面
-        roomList.sort((r1, r2) -> {
-            if (r1.getCreateTime() == null || r2.getCreateTime() == null) {
-                return 0;
-            }
-            return r2.getCreateTime().compareTo(r1.getCreateTime());
-        });
-
-        return roomList;
+        return buildRoomVOs(new ArrayList<>(indexedIds));
     }
 
     /**
@@ -304,74 +273,119 @@ public class UndercoverGameServiceImpl implements UndercoverGameService {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "房间ID不能为空");
         }
 
-        // 获取房间信息
         String roomJson = stringRedisTemplate.opsForValue().get(
                 UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.ROOM_INFO, roomId));
         if (roomJson == null) {
             // 如果房间不存在，清除活跃房间记录
             stringRedisTemplate.delete(UndercoverGameRedisKey.ACTIVE_ROOM);
+            stringRedisTemplate.opsForZSet().remove(UndercoverGameRedisKey.ROOM_INDEX, roomId);
             return null;
         }
 
+        List<UndercoverRoomVO> roomList = buildRoomVOs(Collections.singletonList(roomId));
+        return roomList.isEmpty() ? null : roomList.get(0);
+    }
 
-        try {
-            UndercoverRoom room = objectMapper.readValue(roomJson, UndercoverRoom.class);
+    /**
+     * 批量构建房间信息，按传入顺序返回
+     * 房间信息、投票记录、游戏结果各一次 MGET，玩家数据一次 MGET，用户信息一次查询；
+     * 已过期的房间从索引中移除
+     *
+     * @param roomIds 房间ID列表
+     * @return 房间信息列表
+     */
+    private List<UndercoverRoomVO> buildRoomVOs(List<String> roomIds) {
+        List<String> roomJsons = stringRedisTemplate.opsForValue().multiGet(roomIds.stream()
+                .map(roomId -> UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.ROOM_INFO, roomId))
+                .collect(Collectors.toList()));
+        Map<String, UndercoverRoom> rooms = new LinkedHashMap<>();
+        List<Object> expiredIds = new ArrayList<>();
+        for (int i = 0; i < roomIds.size(); i++) {
+            String roomJson = roomJsons == null ? null : roomJsons.get(i);
+            if (roomJson == null) {
+                expiredIds.add(roomIds.get(i));
+                continue;
+            }
+            try {
+                rooms.put(roomIds.get(i), objectMapper.readValue(roomJson, UndercoverRoom.class));
+            } catch (JsonProcessingException e) {
+                log.error("解析房间信息失败，roomId：{}", roomIds.get(i), e);
+            }
+        }
+        if (!expiredIds.isEmpty()) {
+            stringRedisTemplate.opsForZSet().remove(UndercoverGameRedisKey.ROOM_INDEX, expiredIds.toArray());
+        }
+        if (rooms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<String> ids = new ArrayList<>(rooms.keySet());
+        List<String> votesJsons = stringRedisTemplate.opsForValue().multiGet(ids.stream()
+                .map(roomId -> UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.ROOM_VOTES, roomId))
+                .collect(Collectors.toList()));
+        List<String> gameResults = stringRedisTemplate.opsForValue().multiGet(ids.stream()
+                .map(roomId -> UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.ROOM_RESULT, roomId))
+                .collect(Collectors.toList()));
+        Map<String, List<UndercoverPlayerDetailVO>> participantsByRoom = buildPlayerDetails(rooms);
+
+        // 获取创建者信息（头像和名称）
+        Set<Long> creatorIds = rooms.values().stream()
+                .map(UndercoverRoom::getCreatorId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, User> creators = creatorIds.isEmpty() ? Collections.emptyMap() : userService.listByIds(creatorIds).stream()
+                .collect(Collectors.toMap(User::getId, user -> user, (a, b) -> a));
+
+        // 获取当前用户及其角色，所有房间共用
+        Long currentUserId = null;
+        String currentRole = null;
+        if (StpUtil.isLogin()) {
+            currentUserId = userService.getLoginUser().getId();
+            currentRole = stringRedisTemplate.opsForValue().get(
+                    UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.PLAYER_ROLE, currentUserId));
+        }
+
+        List<UndercoverRoomVO> roomList = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            String roomId = ids.get(i);
+            UndercoverRoom room = rooms.get(roomId);
             UndercoverRoomVO roomVO = new UndercoverRoomVO();
             BeanUtils.copyProperties(room, roomVO);
             roomVO.setRoomId(roomId);
             roomVO.setCreatorId(room.getCreatorId());
 
-            // 获取创建者信息（头像和名称）
-            if (room.getCreatorId() != null) {
-                User creator = userService.getById(room.getCreatorId());
-                if (creator != null) {
-                    roomVO.setCreatorName(creator.getUserName());
-                    roomVO.setCreatorAvatar(creator.getUserAvatar());
-                }
+            User creator = room.getCreatorId() == null ? null : creators.get(room.getCreatorId());
+            if (creator != null) {
+                roomVO.setCreatorName(creator.getUserName());
+                roomVO.setCreatorAvatar(creator.getUserAvatar());
             }
 
+            roomVO.setParticipants(participantsByRoom.getOrDefault(roomId, new ArrayList<>()));
+            roomVO.setVotes(parseVotes(votesJsons == null ? null : votesJsons.get(i), roomId));
 
-            // 获取房间内所有玩家详细信息
-            List<UndercoverPlayerDetailVO> participants = getRoomPlayersDetail(roomId);
-            roomVO.setParticipants(participants);
-
-            // 获取房间投票记录
-            List<UndercoverVoteVO> votes = getRoomVotes(roomId);
-            roomVO.setVotes(votes);
-
-            // 获取当前用户信息
-            if (StpUtil.isLogin()) {
-                User currentUser = userService.getLoginUser();
-                // 检查当前用户是否在房间中
-                if (room.getParticipantIds().contains(currentUser.getId())) {
-                    // 获取玩家角色
-                    String role = stringRedisTemplate.opsForValue().get(
-                            UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.PLAYER_ROLE, currentUser.getId()));
-
-                    // 根据游戏模式设置角色和词语
-                    if (room.getGameMode() != null && room.getGameMode() == 2) {
-                        // 卧底猜词模式：告知角色，卧底不知道词语
-                        roomVO.setRole(role);
-                        if ("civilian".equals(role)) {
-                            roomVO.setWord(room.getCivilianWord());
-                        } else if ("undercover".equals(role)) {
-                            roomVO.setWord("无");
-                        }
-                        // 卧底的词语设为null，前端可以显示为"未知"
-                    } else {
-                        // 常规模式：不告知角色，所有人都有词语
-                        if ("undercover".equals(role)) {
-                            roomVO.setWord(room.getUndercoverWord());
-                        } else if ("civilian".equals(role)) {
-                            roomVO.setWord(room.getCivilianWord());
-                        }
+            // 检查当前用户是否在房间中
+            if (currentUserId != null && room.getParticipantIds().contains(currentUserId)) {
+                // 根据游戏模式设置角色和词语
+                if (room.getGameMode() != null && room.getGameMode() == 2) {
+                    // 卧底猜词模式：告知角色，卧底不知道词语
+                    roomVO.setRole(currentRole);
+                    if ("civilian".equals(currentRole)) {
+                        roomVO.setWord(room.getCivilianWord());
+                    } else if ("undercover".equals(currentRole)) {
+                        roomVO.setWord("无");
+                    }
+                } else {
+                    // 常规模式：不告知角色，所有人都有词语
+                    if ("undercover".equals(currentRole)) {
+                        roomVO.setWord(room.getUndercoverWord());
+                    } else if ("civilian".equals(currentRole)) {
+                        roomVO.setWord(room.getCivilianWord());
                     }
                 }
             }
 
             // 获取游戏结果
-            String gameResult = stringRedisTemplate.opsForValue().get(
-                    UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.ROOM_RESULT, roomId));
+            String gameResult = gameResults == null ? null : gameResults.get(i);
             if (gameResult != null) {
                 roomVO.setGameResult(gameResult);
             }
@@ -380,12 +394,100 @@ public class UndercoverGameServiceImpl implements UndercoverGameService {
             if (room.getStatus() == RoomStatusEnum.ENDED && StringUtils.isBlank(roomVO.getGameResult())) {
                 roomVO.setGameResult("游戏已结束");
             }
+            roomList.add(roomVO);
+        }
+        return roomList;
+    }
+
+    /**
+     * 批量构建多个房间的玩家详细信息
+     * 所有房间的玩家一次查询用户信息，票数、角色、猜词次数各一次 MGET
+     *
+     * @param rooms 房间ID -> 房间
+     * @return 房间ID -> 玩家详细信息列表
+     */
+    private Map<String, List<UndercoverPlayerDetailVO>> buildPlayerDetails(Map<String, UndercoverRoom> rooms) {
+        Map<String, List<Long>> participantIdsByRoom = new LinkedHashMap<>();
+        Set<Long> allUserIds = new HashSet<>();
+        List<String> voteCountKeys = new ArrayList<>();
+        List<String> roleKeys = new ArrayList<>();
+        List<String> guessCountKeys = new ArrayList<>();
+        rooms.forEach((roomId, room) -> {
+            // 使用有序的参与者ID列表，向后兼容没有有序列表的房间
+            List<Long> participantIds = room.getOrderedParticipantIds() != null && !room.getOrderedParticipantIds().isEmpty()
+                    ? room.getOrderedParticipantIds()
+                    : new ArrayList<>(room.getParticipantIds());
+            participantIdsByRoom.put(roomId, participantIds);
+            allUserIds.addAll(participantIds);
+            for (Long userId : participantIds) {
+                voteCountKeys.add(UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.ROOM_VOTE_COUNT, roomId) + ":" + userId);
+                roleKeys.add(UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.PLAYER_ROLE, userId));
+                guessCountKeys.add(UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.PLAYER_GUESS_COUNT, roomId, userId));
+            }
+        });
+
+        Map<String, List<UndercoverPlayerDetailVO>> result = new HashMap<>();
+        if (allUserIds.isEmpty()) {
+            return result;
+        }
+        Map<Long, User> users = userService.listByIds(allUserIds).stream()
+                .collect(Collectors.toMap(User::getId, user -> user, (a, b) -> a));
+        List<String> voteCounts = stringRedisTemplate.opsForValue().multiGet(voteCountKeys);
+        List<String> roles = stringRedisTemplate.opsForValue().multiGet(roleKeys);
+        List<String> guessCounts = stringRedisTemplate.opsForValue().multiGet(guessCountKeys);
 
+        int index = 0;
+        for (Map.Entry<String, List<Long>> entry : participantIdsByRoom.entrySet()) {
+            UndercoverRoom room = rooms.get(entry.getKey());
+            List<UndercoverPlayerDetailVO> playerDetails = new ArrayList<>();
+            for (Long userId : entry.getValue()) {
+                int position = index++;
+                User user = users.get(userId);
+                if (user == null) {
+                    continue;
+                }
 
-            return roomVO;
+                UndercoverPlayerDetailVO playerDetailVO = new UndercoverPlayerDetailVO();
+                playerDetailVO.setUserId(userId);
+                playerDetailVO.setUserName(user.getUserName());
+                playerDetailVO.setUserAvatar(user.getUserAvatar());
+
+                // 设置是否被淘汰
+                playerDetailVO.setIsEliminated(room.getEliminatedIds().contains(userId));
+
+                // 玩家收到的票数
+                String voteCountStr = voteCounts == null ? null : voteCounts.get(position);
+                playerDetailVO.setVoteCount(voteCountStr == null ? 0 : Integer.parseInt(voteCountStr));
+
+                // 如果是卧底猜词模式，卧底需要展示猜词次数
+                String role = roles == null ? null : roles.get(position);
+                if (room.getGameMode() != null && room.getGameMode() == 2 && "undercover".equals(role)) {
+                    String guessCountStr = guessCounts == null ? null : guessCounts.get(position);
+                    int guessCount = guessCountStr == null ? 0 : Integer.parseInt(guessCountStr);
+                    playerDetailVO.setGuessCount(guessCount);
+                    playerDetailVO.setRemainingGuessCount(Math.max(0, UndercoverGameRedisKey.MAX_GUESS_COUNT - guessCount));
+                }
+
+                playerDetails.add(playerDetailVO);
+            }
+            result.put(entry.getKey(), playerDetails);
+        }
+        return result;
+    }
+
+    /**
+     * 解析房间投票记录，解析失败时返回空列表，避免一个房间的脏数据影响整个列表
+     */
+    private List<UndercoverVoteVO> parseVotes(String votesJson, String roomId) {
+        if (votesJson == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return objectMapper.readValue(votesJson, new TypeReference<List<UndercoverVoteVO>>() {
+            });
         } catch (JsonProcessingException e) {
-            log.error("解析房间信息失败", e);
-            return null;
+            log.error("解析房间投票记录失败，roomId：{}", roomId, e);
+            return Collections.emptyList();
         }
     }
 
@@ -758,6 +860,7 @@ public class UndercoverGameServiceImpl implements UndercoverGameService {
 
                     // 更新房间信息
                     stringRedisTemplate.delete(UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.ROOM_INFO, roomId));
+                    stringRedisTemplate.opsForZSet().remove(UndercoverGameRedisKey.ROOM_INDEX, roomId);
 
 
                     return true;
@@ -1455,65 +1558,8 @@ public class UndercoverGameServiceImpl implements UndercoverGameService {
 
         try {
             UndercoverRoom room = objectMapper.readValue(roomJson, UndercoverRoom.class);
-            List<UndercoverPlayerDetailVO> playerDetails = new ArrayList<>();
-
-            // 使用有序的参与者ID列表
-            List<Long> participantIds;
-            if (room.getOrderedParticipantIds() != null && !room.getOrderedParticipantIds().isEmpty()) {
-                participantIds = room.getOrderedParticipantIds();
-            } else {
-                // 向后兼容，如果没有有序列表，则使用无序集合
-                participantIds = new ArrayList<>(room.getParticipantIds());
-            }
-
-            // 获取所有参与者的详细信息
-            for (Long userId : participantIds) {
-                User user = userService.getById(userId);
-                if (user == null) {
-                    continue;
-                }
-
-                UndercoverPlayerDetailVO playerDetailVO = new UndercoverPlayerDetailVO();
-                playerDetailVO.setUserId(userId);
-                playerDetailVO.setUserName(user.getUserName());
-                playerDetailVO.setUserAvatar(user.getUserAvatar());
-
-                // 设置是否被淘汰
-                playerDetailVO.setIsEliminated(room.getEliminatedIds().contains(userId));
-
-                // 获取玩家收到的票数
-                String voteCountStr = stringRedisTemplate.opsForValue().get(
-                        UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.ROOM_VOTE_COUNT, roomId) + ":" + userId);
-                int voteCount = 0;
-                if (voteCountStr != null) {
-                    voteCount = Integer.parseInt(voteCountStr);
-                }
-                playerDetailVO.setVoteCount(voteCount);
-
-                // 如果是卧底猜词模式，获取玩家角色和猜词次数
-                if (room.getGameMode() != null && room.getGameMode() == 2) {
-                    // 获取玩家角色
-                    String role = stringRedisTemplate.opsForValue().get(
-                            UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.PLAYER_ROLE, userId));
-
-                    // 如果是卧底，设置猜词次数信息
-                    if ("undercover".equals(role)) {
-                        // 获取玩家已猜词次数
-                        String guessCountKey = UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.PLAYER_GUESS_COUNT, roomId, userId);
-                        String guessCountStr = stringRedisTemplate.opsForValue().get(guessCountKey);
-                        int guessCount = 0;
-                        if (guessCountStr != null) {
-                            guessCount = Integer.parseInt(guessCountStr);
-                        }
-                        playerDetailVO.setGuessCount(guessCount);
-                        playerDetailVO.setRemainingGuessCount(Math.max(0, UndercoverGameRedisKey.MAX_GUESS_COUNT - guessCount));
-                    }
-                }
-
-                playerDetails.add(playerDetailVO);
-            }
-
-            return playerDetails;
+            return buildPlayerDetails(Collections.singletonMap(roomId, room))
+                    .getOrDefault(roomId, new ArrayList<>());
         } catch (JsonProcessingException e) {
             log.error("解析房间信息失败", e);
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "获取房间玩家信息失败");
@@ -1561,6 +1607,7 @@ public class UndercoverGameServiceImpl implements UndercoverGameService {
                 // 删除房间相关的所有信息
                 // 1. 删除房间信息
                 stringRedisTemplate.delete(UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.ROOM_INFO, roomId));
+                stringRedisTemplate.opsForZSet().remove(UndercoverGameRedisKey.ROOM_INDEX, roomId);
 
                 // 2. 删除房间投票记录
                 stringRedisTemplate.delete(UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.ROOM_VOTES, roomId));
@@ -1876,6 +1923,7 @@ public class UndercoverGameServiceImpl implements UndercoverGameService {
                         stringRedisTemplate.delete(UndercoverGameRedisKey.ACTIVE_ROOM);
                         // 删除房间信息
                         stringRedisTemplate.delete(UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.ROOM_INFO, roomId));
+                        stringRedisTemplate.opsForZSet().remove(UndercoverGameRedisKey.ROOM_INDEX, roomId);
 
                         // 删除玩家所在房间信息
                         stringRedisTemplate.delete(UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.PLAYER_ROOM, loginUser.getId()));
@@ -1988,6 +2036,7 @@ public class UndercoverGameServiceImpl implements UndercoverGameService {
 
                     if (shouldEndGame) {
                         stringRedisTemplate.delete(UndercoverGameRedisKey.getKey(UndercoverGameRedisKey.ROOM_INFO, roomId));
+                        stringRedisTemplate.opsForZSet().remove(UndercoverGameRedisKey.ROOM_INDEX, roomId);
 
                         // 清除所有玩家的角色信息
                         for (Long playerId : room.getParticipantIds()) {
@@ -0,0 +1,119 @@
+package com.cong.fishisland.service.impl.game.combat;
+
+import lombok.Getter;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 战斗平衡性蒙特卡洛模拟
+ * Description: 对同一组对阵在多线程下批量模拟，统计胜率、平均动作数和吞吐，用于调整 {@code BattleConstant}
+ * 及怪物成长参数；每个线程复用一个随机源和一个只记结果的战斗记录，单场战斗不分配对象
+ *
+ * @author cong
+ */
+public final class CombatBalanceRunner {
+
+    private static final int A_WINS = 0;
+    private static final int B_WINS = 1;
+    private static final int ACTIONS = 2;
+
+    private CombatBalanceRunner() {
+    }
+
+    /**
+     * 批量模拟
+     *
+     * @param matchup    对阵数值
+     * @param maxActions 单场最大动作数
+     * @param fights     模拟场数
+     * @param threads    线程数
+     * @param seed       随机种子，相同参数下结果可复现
+     * @return 统计结果
+     */
+    public static Report run(CombatEngine.Matchup matchup, int maxActions, long fights, int threads, long seed) {
+        AtomicLongArray totals = new AtomicLongArray(3);
+        SplittableRandom root = new SplittableRandom(seed);
+        Thread[] workers = new Thread[threads];
+        long begin = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            long share = fights / threads + (t < fights % threads ? 1 : 0);
+            SplittableRandom random = root.split();
+            workers[t] = new Thread(() -> {
+                CombatLog log = CombatLog.summaryOnly();
+                long aWins = 0;
+                long bWins = 0;
+                long actions = 0;
+                for (long i = 0; i < share; i++) {
+                    CombatEngine.run(matchup, random, maxActions, null, log);
+                    if (log.isAWin()) {
+                        aWins++;
+                    } else if (log.getARemainingHealth() <= 0) {
+                        bWins++;
+                    }
+                    actions += log.getActionCount();
+                    log.reset(0);
+                }
+                totals.addAndGet(A_WINS, aWins);
+                totals.addAndGet(B_WINS, bWins);
+                totals.addAndGet(ACTIONS, actions);
+            }, "combat-balance-" + t);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("平衡性模拟被中断", e);
+            }
+        }
+        return new Report(fights, totals.get(A_WINS), totals.get(B_WINS), totals.get(ACTIONS), System.nanoTime() - begin);
+    }
+
+    /**
+     * 模拟统计
+     */
+    @Getter
+    public static final class Report {
+
+        private final long fights;
+        private final long aWins;
+        private final long bWins;
+        private final long totalActions;
+        private final long elapsedNanos;
+
+        private Report(long fights, long aWins, long bWins, long totalActions, long elapsedNanos) {
+            this.fights = fights;
+            this.aWins = aWins;
+            this.bWins = bWins;
+            this.totalActions = totalActions;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * 动作数耗尽、双方都存活的场数
+         */
+        public long getUnfinished() {
+            return fights - aWins - bWins;
+        }
+
+        public double getAWinRate() {
+            return fights == 0 ? 0 : (double) aWins / fights;
+        }
+
+        public double getAverageActions() {
+            return fights == 0 ? 0 : (double) totalActions / fights;
+        }
+
+        public double getFightsPerMinute() {
+            return elapsedNanos == 0 ? 0 : fights * 60e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d 场：A 胜率 %.2f%%，B 胜 %d，未分胜负 %d，平均 %.1f 个动作，%.0f 场/分钟",
+                    fights, getAWinRate() * 100, bWins, getUnfinished(), getAverageActions(), getFightsPerMinute());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.cong.fishisland.service.impl.game.combat;
+
+import com.cong.fishisland.constant.BattleConstant;
+import com.cong.fishisland.model.vo.game.BattleStatsVO;
+
+import java.util.SplittableRandom;
+
+/**
+ * 统一战斗引擎
+ * Description: Boss、爬塔、宠物对战、武道大会共用的回合循环。双方在一场战斗中不变的数值（攻防、各项有效概率）
+ * 开战前一次性算好放进 {@link Matchup}，回合内只操作基本类型；随机数由种子决定，同一种子可完整重放一场战斗；
+ * 每个动作以几个 int 记入 {@link CombatLog}，只有返回给前端时才展开成 VO
+ *
+ * @author cong
+ */
+public final class CombatEngine {
+
+    private CombatEngine() {
+    }
+
+    /**
+     * 按种子进行一场战斗并记录全部动作
+     *
+     * @param a          A 方（宠物 / 挑战者）
+     * @param b          B 方（Boss / 怪物 / 对手）
+     * @param seed       随机种子
+     * @param maxActions 最大动作数
+     * @return 战斗记录
+     */
+    public static CombatLog fight(BattleStatsVO a, BattleStatsVO b, long seed, int maxActions) {
+        return fight(a, b, seed, maxActions, null);
+    }
+
+    /**
+     * 按种子进行一场战斗并记录全部动作，B 方血量由外部共享
+     *
+     * @param a          A 方
+     * @param b          B 方
+     * @param seed       随机种子
+     * @param maxActions 最大动作数
+     * @param bHealth    B 方共享血量（如世界 Boss），为 null 时使用本地血量
+     * @return 战斗记录
+     */
+    public static CombatLog fight(BattleStatsVO a, BattleStatsVO b, long seed, int maxActions, SharedHealth bHealth) {
+        CombatLog log = CombatLog.recording(maxActions);
+        log.reset(seed);
+        run(Matchup.of(a, b, Rules.DEFAULT), new SplittableRandom(seed), maxActions, bHealth, log);
+        return log;
+    }
+
+    /**
+     * 战斗主循环
+     *
+     * @param m          对阵数值
+     * @param random     随机源
+     * @param maxActions 最大动作数
+     * @param bHealth    B 方共享血量，可为 null
+     * @param log        战斗记录（可为只记结果的记录，循环内不分配对象）
+     */
+    public static void run(Matchup m, SplittableRandom random, int maxActions, SharedHealth bHealth, CombatLog log) {
+        int aHp = m.aMaxHp;
+        int bHp = bHealth != null ? bHealth.remaining() : m.bMaxHp;
+        // 速度高的一方先手；相同时随机决定
+        boolean aTurn = m.aSpeed != m.bSpeed ? m.aSpeed > m.bSpeed : random.nextBoolean();
+        int actions = 0;
+
+        while (aHp > 0 && bHp > 0 && actions < maxActions) {
+            int flags = aTurn ? CombatLog.FLAG_ATTACKER_A : 0;
+            int damage = 0;
+            int heal = 0;
+
+            // 闪避：防守方闪避率 - 攻击方抗闪避率
+            if (random.nextDouble() < (aTurn ? m.aToBDodge : m.bToADodge)) {
+                flags |= CombatLog.FLAG_DODGE;
+            } else {
+                // 格挡 → 暴击 → 连击，顺序与抽取随机数的顺序保持一致，保证同一种子结果可重放
+                boolean block = random.nextDouble() < (aTurn ? m.aToBBlock : m.bToABlock);
+                boolean crit = random.nextDouble() < (aTurn ? m.aToBCrit : m.bToACrit);
+                boolean combo = random.nextDouble() < (aTurn ? m.aToBCombo : m.bToACombo);
+                double multiplier = 1.0;
+                if (crit) {
+                    multiplier *= m.rules.critMultiplier;
+                    flags |= CombatLog.FLAG_CRITICAL;
+                }
+                if (combo) {
+                    multiplier *= m.rules.comboMultiplier;
+                    flags |= CombatLog.FLAG_COMBO;
+                }
+                if (block) {
+                    multiplier *= m.rules.blockReduction;
+                    flags |= CombatLog.FLAG_BLOCK;
+                }
+                int base = (int) ((aTurn ? m.aAttack : m.bAttack) * multiplier);
+                int afterDefense = Math.max(1, base - (aTurn ? m.bDefense : m.aDefense));
+                double variation = 0.9 + random.nextDouble() * 0.2;
+                damage = Math.min((int) (afterDefense * variation), aTurn ? bHp : aHp);
+
+                // 吸血：回复量不超过缺失血量；共享血量的一方不吸血
+                double lifesteal = aTurn ? m.aToBLifesteal : (bHealth != null ? 0.0 : m.bToALifesteal);
+                if (lifesteal > 0 && damage > 0) {
+                    heal = Math.min((int) (damage * lifesteal), aTurn ? m.aMaxHp - aHp : m.bMaxHp - bHp);
+                }
+            }
+
+            if (aTurn) {
+                if (bHealth != null) {
+                    // 闪避时也上报一次（伤害 0），共享血量被其他人打掉的部分同步到本地
+                    int applied = bHealth.apply(damage);
+                    damage = (flags & CombatLog.FLAG_DODGE) != 0 ? 0 : applied;
+                    bHp = bHealth.remaining();
+                } else {
+                    bHp -= damage;
+                }
+                aHp += heal;
+            } else {
+                aHp -= damage;
+                bHp += heal;
+            }
+            log.record(flags, damage, heal, aHp, bHp);
+            actions++;
+
+            // 连击时攻击方继续行动
+            if ((flags & CombatLog.FLAG_COMBO) == 0) {
+                aTurn = !aTurn;
+            }
+        }
+        log.finish(aHp, bHp);
+    }
+
+    /**
+     * 共享血量：B 方血量不在本场战斗内独占时（如多人同时挑战的世界 Boss）由外部扣减
+     */
+    public interface SharedHealth {
+
+        /**
+         * 扣血
+         *
+         * @param damage 本次伤害，0 表示未命中
+         * @return 实际扣除的血量
+         */
+        int apply(int damage);
+
+        /**
+         * 当前剩余血量
+         */
+        int remaining();
+    }
+
+    /**
+     * 伤害倍率规则，默认取 {@link BattleConstant}，平衡性模拟时可替换
+     */
+    public static final class Rules {
+
+        public static final Rules DEFAULT = new Rules(BattleConstant.CRITICAL_DAMAGE_MULTIPLIER,
+                BattleConstant.COMBO_DAMAGE_MULTIPLIER, BattleConstant.BLOCK_DAMAGE_REDUCTION);
+
+        private final double critMultiplier;
+        private final double comboMultiplier;
+        private final double blockReduction;
+
+        public Rules(double critMultiplier, double comboMultiplier, double blockReduction) {
+            this.critMultiplier = critMultiplier;
+            this.comboMultiplier = comboMultiplier;
+            this.blockReduction = blockReduction;
+        }
+    }
+
+    /**
+     * 一组对阵在整场战斗中不变的数值，有效概率 = max(0, 主动属性 - 对方抗性)
+     */
+    public static final class Matchup {
+
+        private final Rules rules;
+        private final int aAttack;
+        private final int aDefense;
+        private final int aMaxHp;
+        private final int aSpeed;
+        private final int bAttack;
+        private final int bDefense;
+        private final int bMaxHp;
+        private final int bSpeed;
+
+        private final double aToBDodge;
+        private final double aToBBlock;
+        private final double aToBCrit;
+        private final double aToBCombo;
+        private final double aToBLifesteal;
+        private final double bToADodge;
+        private final double bToABlock;
+        private final double bToACrit;
+        private final double bToACombo;
+        private final double bToALifesteal;
+
+        private Matchup(BattleStatsVO a, BattleStatsVO b, Rules rules) {
+            this.rules = rules;
+            this.aAttack = a.getAttack();
+            this.aDefense = a.getDefense();
+            this.aMaxHp = a.getHealth();
+            this.aSpeed = a.getSpeed();
+            this.bAttack = b.getAttack();
+            this.bDefense = b.getDefense();
+            this.bMaxHp = b.getHealth();
+            this.bSpeed = b.getSpeed();
+            this.aToBDodge = effective(b.getDodgeRate(), a.getDodgeResistance());
+            this.aToBBlock = effective(b.getBlockRate(), a.getBlockResistance());
+            this.aToBCrit = effective(a.getCritRate(), b.getCritResistance());
+            this.aToBCombo = effective(a.getComboRate(), b.getComboResistance());
+            this.aToBLifesteal = effective(a.getLifesteal(), b.getLifestealResistance());
+            this.bToADodge = effective(a.getDodgeRate(), b.getDodgeResistance());
+            this.bToABlock = effective(a.getBlockRate(), b.getBlockResistance());
+            this.bToACrit = effective(b.getCritRate(), a.getCritResistance());
+            this.bToACombo = effective(b.getComboRate(), a.getComboResistance());
+            this.bToALifesteal = effective(b.getLifesteal(), a.getLifestealResistance());
+        }
+
+        public static Matchup of(BattleStatsVO a, BattleStatsVO b, Rules rules) {
+            return new Matchup(a, b, rules);
+        }
+
+        private static double effective(double rate, double resistance) {
+            return Math.max(0.0, rate - resistance);
+        }
+    }
+}
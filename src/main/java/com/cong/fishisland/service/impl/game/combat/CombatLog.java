@@ -0,0 +1,163 @@
+package com.cong.fishisland.service.impl.game.combat;
+
+import com.cong.fishisland.model.vo.game.BattleResultVO;
+import com.cong.fishisland.model.vo.game.PetBattleResultVO;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 战斗记录
+ * Description: 每个动作按 {标记位, 伤害, 吸血, A 方剩余血量, B 方剩余血量} 5 个 int 顺序存放在一个数组里，
+ * 返回给前端时才展开为 VO；只记结果的记录不保存动作，可在批量模拟时反复复用
+ *
+ * @author cong
+ */
+public final class CombatLog {
+
+    static final int FLAG_ATTACKER_A = 1;
+    static final int FLAG_DODGE = 1 << 1;
+    static final int FLAG_CRITICAL = 1 << 2;
+    static final int FLAG_COMBO = 1 << 3;
+    static final int FLAG_BLOCK = 1 << 4;
+
+    private static final int FIELDS = 5;
+
+    private final int[] actions;
+    private int actionCount;
+    private long seed;
+    private int aRemainingHealth;
+    private int bRemainingHealth;
+
+    private CombatLog(int[] actions) {
+        this.actions = actions;
+    }
+
+    /**
+     * 记录全部动作
+     *
+     * @param maxActions 最大动作数
+     */
+    public static CombatLog recording(int maxActions) {
+        return new CombatLog(new int[maxActions * FIELDS]);
+    }
+
+    /**
+     * 只记结果，不保存动作
+     */
+    public static CombatLog summaryOnly() {
+        return new CombatLog(null);
+    }
+
+    /**
+     * 开始新的一场战斗前清空
+     *
+     * @param seed 本场随机种子
+     */
+    public void reset(long seed) {
+        this.seed = seed;
+        this.actionCount = 0;
+        this.aRemainingHealth = 0;
+        this.bRemainingHealth = 0;
+    }
+
+    void record(int flags, int damage, int heal, int aHp, int bHp) {
+        if (actions != null) {
+            int offset = actionCount * FIELDS;
+            actions[offset] = flags;
+            actions[offset + 1] = damage;
+            actions[offset + 2] = heal;
+            actions[offset + 3] = aHp;
+            actions[offset + 4] = bHp;
+        }
+        actionCount++;
+    }
+
+    void finish(int aHp, int bHp) {
+        this.aRemainingHealth = aHp;
+        this.bRemainingHealth = bHp;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getActionCount() {
+        return actionCount;
+    }
+
+    public int getARemainingHealth() {
+        return aRemainingHealth;
+    }
+
+    public int getBRemainingHealth() {
+        return bRemainingHealth;
+    }
+
+    /**
+     * A 方是否击倒 B 方
+     */
+    public boolean isAWin() {
+        return bRemainingHealth <= 0 && aRemainingHealth > 0;
+    }
+
+    /**
+     * 展开为 Boss / 爬塔的对战结果，A 方为宠物
+     *
+     * @param attackerTypeA A 方攻击时的类型，如 PET
+     * @param attackerTypeB B 方攻击时的类型，如 BOSS
+     * @return 每个动作一条
+     */
+    public List<BattleResultVO> toBattleResults(String attackerTypeA, String attackerTypeB) {
+        List<BattleResultVO> results = new ArrayList<>(actionCount);
+        for (int i = 0; actions != null && i < actionCount; i++) {
+            int offset = i * FIELDS;
+            int flags = actions[offset];
+            BattleResultVO result = new BattleResultVO();
+            result.setAttackerType((flags & FLAG_ATTACKER_A) != 0 ? attackerTypeA : attackerTypeB);
+            result.setDamage(actions[offset + 1]);
+            result.setIsDodge((flags & FLAG_DODGE) != 0);
+            result.setIsCritical((flags & FLAG_CRITICAL) != 0);
+            result.setIsCombo((flags & FLAG_COMBO) != 0);
+            result.setIsBlock((flags & FLAG_BLOCK) != 0);
+            result.setIsNormalAttack(isNormalAttack(flags));
+            result.setLifestealHeal(actions[offset + 2]);
+            result.setPetRemainingHealth(actions[offset + 3]);
+            result.setBossRemainingHealth(actions[offset + 4]);
+            results.add(result);
+        }
+        return results;
+    }
+
+    /**
+     * 展开为宠物对战结果，A 方为我方宠物
+     *
+     * @param attackerTypeA A 方攻击时的类型，如 MY_PET
+     * @param attackerTypeB B 方攻击时的类型，如 OPPONENT_PET
+     * @return 每个动作一条
+     */
+    public List<PetBattleResultVO> toPetBattleResults(String attackerTypeA, String attackerTypeB) {
+        List<PetBattleResultVO> results = new ArrayList<>(actionCount);
+        for (int i = 0; actions != null && i < actionCount; i++) {
+            int offset = i * FIELDS;
+            int flags = actions[offset];
+            PetBattleResultVO result = new PetBattleResultVO();
+            result.setAttackerType((flags & FLAG_ATTACKER_A) != 0 ? attackerTypeA : attackerTypeB);
+            result.setDamage(actions[offset + 1]);
+            result.setIsDodge((flags & FLAG_DODGE) != 0);
+            result.setIsCritical((flags & FLAG_CRITICAL) != 0);
+            result.setIsCombo((flags & FLAG_COMBO) != 0);
+            result.setIsBlock((flags & FLAG_BLOCK) != 0);
+            result.setIsNormalAttack(isNormalAttack(flags));
+            result.setLifestealHeal(actions[offset + 2]);
+            result.setMyPetRemainingHealth(actions[offset + 3]);
+            result.setOpponentPetRemainingHealth(actions[offset + 4]);
+            results.add(result);
+        }
+        return results;
+    }
+
+    private static boolean isNormalAttack(int flags) {
+        return (flags & (FLAG_DODGE | FLAG_CRITICAL | FLAG_COMBO | FLAG_BLOCK)) == 0;
+    }
+}
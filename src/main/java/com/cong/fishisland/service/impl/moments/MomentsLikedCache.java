@@ -0,0 +1,133 @@
+package com.cong.fishisland.service.impl.moments;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cong.fishisland.constant.RedisKey;
+import com.cong.fishisland.mapper.moments.MomentsLikeMapper;
+import com.cong.fishisland.model.entity.moments.MomentsLike;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 用户已点赞动态缓存
+ * Description: 每个用户点赞过的动态ID存为一个 Redis Set，首次使用时从数据库整体加载，
+ * 列表页用 SMISMEMBER 一次判断整页的点赞状态；点赞/取消在事务提交后同步到 Set，Set 不存在时不写入，避免生成不完整的集合
+ *
+ * @author cong
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MomentsLikedCache {
+
+    /**
+     * 缓存时间，过期后下次使用重新加载
+     */
+    private static final Duration LIKED_SET_TTL = Duration.ofMinutes(30);
+
+    /**
+     * 占位成员，没有点赞过任何动态的用户也能缓存（动态ID从 1 开始）
+     */
+    private static final String EMPTY_MEMBER = "0";
+
+    /**
+     * KEYS[1] 已点赞 Set；ARGV[1] 1-点赞 0-取消，ARGV[2] 动态ID。Set 不存在时不处理
+     */
+    private static final DefaultRedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+            "if ARGV[1] == '1' then redis.call('SADD', KEYS[1], ARGV[2]) " +
+            "else redis.call('SREM', KEYS[1], ARGV[2]) end " +
+            "return 1", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MomentsLikeMapper momentsLikeMapper;
+
+    /**
+     * 筛出用户点赞过的动态
+     *
+     * @param userId    用户ID
+     * @param momentIds 动态ID
+     * @return 已点赞的动态ID
+     */
+    public Set<Long> filterLiked(long userId, Collection<Long> momentIds) {
+        if (momentIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String key = RedisKey.getKey(RedisKey.MOMENTS_LIKED_SET, userId);
+        if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(key))) {
+            load(userId, key);
+        }
+        Map<Object, Boolean> members = stringRedisTemplate.opsForSet()
+                .isMember(key, momentIds.stream().map(String::valueOf).toArray());
+        if (members == null) {
+            return queryLiked(userId, momentIds);
+        }
+        Set<Long> liked = new HashSet<>();
+        members.forEach((member, isMember) -> {
+            if (Boolean.TRUE.equals(isMember)) {
+                liked.add(Long.valueOf(member.toString()));
+            }
+        });
+        return liked;
+    }
+
+    /**
+     * 点赞或取消点赞后同步缓存，处于事务中时提交后再同步
+     *
+     * @param userId   用户ID
+     * @param momentId 动态ID
+     * @param liked    true-点赞，false-取消
+     */
+    public void onLikeChanged(long userId, long momentId, boolean liked) {
+        Runnable apply = () -> stringRedisTemplate.execute(UPDATE_SCRIPT,
+                Collections.singletonList(RedisKey.getKey(RedisKey.MOMENTS_LIKED_SET, userId)),
+                liked ? "1" : "0", String.valueOf(momentId));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    private void load(long userId, String key) {
+        List<Object> momentIds = momentsLikeMapper.selectObjs(
+                new LambdaQueryWrapper<MomentsLike>()
+                        .select(MomentsLike::getMomentId)
+                        .eq(MomentsLike::getUserId, userId));
+        String[] members = new String[momentIds.size() + 1];
+        members[0] = EMPTY_MEMBER;
+        for (int i = 0; i < momentIds.size(); i++) {
+            members[i + 1] = String.valueOf(momentIds.get(i));
+        }
+        stringRedisTemplate.opsForSet().add(key, members);
+        stringRedisTemplate.expire(key, LIKED_SET_TTL);
+    }
+
+    private Set<Long> queryLiked(long userId, Collection<Long> momentIds) {
+        return momentsLikeMapper.selectList(
+                        new LambdaQueryWrapper<MomentsLike>()
+                                .eq(MomentsLike::getUserId, userId)
+                                .in(MomentsLike::getMomentId, momentIds))
+                .stream()
+                .map(MomentsLike::getMomentId)
+                .collect(Collectors.toSet());
+    }
+}
@@ -2,6 +2,7 @@ package com.cong.fishisland.service.impl.moments;
 
 import cn.dev33.satoken.stp.StpUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.cong.fishisland.common.ErrorCode;
@@ -68,6 +69,12 @@ public class MomentsServiceImpl extends ServiceImpl<MomentsMapper, Moments>
     private final UserPointsService userPointsService;
     private final UserPointsRecordService userPointsRecordService;
     private final UserVipService userVipService;
+    private final MomentsLikedCache momentsLikedCache;
+
+    /**
+     * 列表和详情每条动态展示的点赞人数，点赞总数取 likeNum
+     */
+    private static final int LIKE_PREVIEW_SIZE = 20;
 
     private static final String MOMENTS_PUBLISH_KEY_PREFIX = "user:moments:publish:";
     private static final String MOMENTS_LIKE_KEY_PREFIX = "user:moments:like:";
@@ -225,26 +232,35 @@ public class MomentsServiceImpl extends ServiceImpl<MomentsMapper, Moments>
     @Override
     public Page<MomentsVO> listMoments(MomentsQueryRequest request) {
         Long userId = StpUtil.isLogin() ? StpUtil.getLoginIdAsLong() : null;
-        Page<Moments> page = new Page<>(request.getCurrent(), request.getPageSize());
 
-        lambdaQuery()
-                .eq(request.getUserId() != null, Moments::getUserId, request.getUserId())
-                // 已登录：过滤仅自己可见（visibility=1）的其他人动态
-                .and(userId != null, w -> w.eq(Moments::getUserId, userId)
-                        .or().ne(Moments::getVisibility, 1))
-                // 未登录：只能查看公开动态
-                .and(userId == null, w -> w.isNull(Moments::getVisibility)
-                        .or().ne(Moments::getVisibility, 1))
-                .orderByDesc(Moments::getIsTop)
-                .orderByDesc(Moments::getCreateTime)
-                .page(page);
+        Page<Moments> page;
+        if (request.getCursorId() != null) {
+            // 游标分页：取排在上一页最后一条之后的动态，不统计总数
+            ThrowUtils.throwIf(request.getCursorIsTop() == null || request.getCursorCreateTime() == null,
+                    ErrorCode.PARAMS_ERROR, "游标参数不完整");
+            Integer cursorIsTop = request.getCursorIsTop();
+            Date cursorCreateTime = request.getCursorCreateTime();
+            Long cursorId = request.getCursorId();
+            page = new Page<>(1, request.getPageSize(), false);
+            feedQuery(request, userId)
+                    .and(w -> w.lt(Moments::getIsTop, cursorIsTop)
+                            .or(o -> o.eq(Moments::getIsTop, cursorIsTop)
+                                    .lt(Moments::getCreateTime, cursorCreateTime))
+                            .or(o -> o.eq(Moments::getIsTop, cursorIsTop)
+                                    .eq(Moments::getCreateTime, cursorCreateTime)
+                                    .lt(Moments::getId, cursorId)))
+                    .page(page);
+        } else {
+            page = new Page<>(request.getCurrent(), request.getPageSize());
+            feedQuery(request, userId).page(page);
+        }
 
         // 批量查询点赞状态
         List<Long> momentIds = page.getRecords().stream()
                 .map(Moments::getId).collect(Collectors.toList());
         Set<Long> likedSet = userId != null ? getLikedSet(userId, momentIds) : Collections.emptySet();
 
-        // 批量查询所有点赞记录，按 momentId 分组
+        // 每条动态只取前几位点赞人
         Map<Long, List<MomentsLike>> likesMap = getLikesMap(momentIds);
 
         // 收集所有涉及的用户ID（动态作者 + 点赞用户）
@@ -262,6 +278,23 @@ public class MomentsServiceImpl extends ServiceImpl<MomentsMapper, Moments>
         return voPage;
     }
 
+    /**
+     * 动态列表查询条件，按 (isTop, createTime, id) 倒序
+     */
+    private LambdaQueryChainWrapper<Moments> feedQuery(MomentsQueryRequest request, Long userId) {
+        return lambdaQuery()
+                .eq(request.getUserId() != null, Moments::getUserId, request.getUserId())
+                // 已登录：过滤仅自己可见（visibility=1）的其他人动态
+                .and(userId != null, w -> w.eq(Moments::getUserId, userId)
+                        .or().ne(Moments::getVisibility, 1))
+                // 未登录：只能查看公开动态
+                .and(userId == null, w -> w.isNull(Moments::getVisibility)
+                        .or().ne(Moments::getVisibility, 1))
+                .orderByDesc(Moments::getIsTop)
+                .orderByDesc(Moments::getCreateTime)
+                .orderByDesc(Moments::getId);
+    }
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public boolean toggleLike(Long momentId) {
@@ -281,6 +314,7 @@ public class MomentsServiceImpl extends ServiceImpl<MomentsMapper, Moments>
                     .eq(Moments::getId, momentId)
                     .setSql("likeNum = GREATEST(likeNum - 1, 0)")
                     .update();
+            momentsLikedCache.onLikeChanged(userId, momentId, false);
             return false;
         } else {
             // 点赞
@@ -292,6 +326,7 @@ public class MomentsServiceImpl extends ServiceImpl<MomentsMapper, Moments>
                     .eq(Moments::getId, momentId)
                     .setSql("likeNum = likeNum + 1")
                     .update();
+            momentsLikedCache.onLikeChanged(userId, momentId, true);
             // 异步通知（避免通知自己）
             if (!moments.getUserId().equals(userId)) {
                 eventRemindHandler.handleMomentsLike(momentId, userId, moments.getUserId());
@@ -498,16 +533,7 @@ public class MomentsServiceImpl extends ServiceImpl<MomentsMapper, Moments>
     }
 
     private Set<Long> getLikedSet(long userId, List<Long> momentIds) {
-        if (momentIds.isEmpty()) {
-            return Collections.emptySet();
-        }
-        return momentsLikeMapper.selectList(
-                        new LambdaQueryWrapper<MomentsLike>()
-                                .eq(MomentsLike::getUserId, userId)
-                                .in(MomentsLike::getMomentId, momentIds))
-                .stream()
-                .map(MomentsLike::getMomentId)
-                .collect(Collectors.toSet());
+        return momentsLikedCache.filterLiked(userId, momentIds);
     }
 
     private Map<Long, User> getUserMap(Set<Long> userIds) {
@@ -518,13 +544,14 @@ public class MomentsServiceImpl extends ServiceImpl<MomentsMapper, Moments>
                 .collect(Collectors.toMap(User::getId, u -> u));
     }
 
+    /**
+     * 每条动态最早的 LIKE_PREVIEW_SIZE 条点赞记录，按 momentId 分组
+     */
     private Map<Long, List<MomentsLike>> getLikesMap(List<Long> momentIds) {
         if (momentIds.isEmpty()) {
             return Collections.emptyMap();
         }
-        return momentsLikeMapper.selectList(
-                        new LambdaQueryWrapper<MomentsLike>()
-                                .in(MomentsLike::getMomentId, momentIds))
+        return momentsLikeMapper.selectLikePreviews(momentIds, LIKE_PREVIEW_SIZE)
                 .stream()
                 .collect(Collectors.groupingBy(MomentsLike::getMomentId));
     }
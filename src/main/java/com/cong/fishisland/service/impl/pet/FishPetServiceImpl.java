@@ -5,6 +5,7 @@ import cn.dev33.satoken.stp.StpUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.cong.fishisland.cache.PetEquipStatsCache;
 import com.cong.fishisland.common.ErrorCode;
 import com.cong.fishisland.common.exception.BusinessException;
 import com.cong.fishisland.config.PetForgeProperties;
@@ -59,6 +60,7 @@ public class FishPetServiceImpl extends ServiceImpl<FishPetMapper, FishPet> impl
     private final PetEquipForgeMapper petEquipForgeMapper;
     private final PetForgeProperties petForgeProperties;
     private final ScriptBehaviorDetectService scriptBehaviorDetectService;
+    private final PetEquipStatsCache petEquipStatsCache;
 
 
     // 每次喂食增加的饥饿度
@@ -122,6 +124,7 @@ public class FishPetServiceImpl extends ServiceImpl<FishPetMapper, FishPet> impl
         fishPet.setExp(0);
         fishPet.setMood(100);
         fishPet.setHunger(0);
+        fishPet.setStatusTime(new Date());
 
         // 如果没有提供宠物图片，设置默认图片
         if (fishPet.getPetUrl() == null || fishPet.getPetUrl().isEmpty()) {
@@ -157,6 +160,8 @@ public class FishPetServiceImpl extends ServiceImpl<FishPetMapper, FishPet> impl
         if (fishPet == null) {
             return null;
         }
+        // 饥饿度、心情值按经过时间折算，只用于展示不回写
+        PetVitals.settle(fishPet);
 
         // 转换为VO
         PetVO petVO = new PetVO();
@@ -171,7 +176,7 @@ public class FishPetServiceImpl extends ServiceImpl<FishPetMapper, FishPet> impl
         petVO.setEquippedItems(equippedItems);
 
         // 获取宠物装备属性统计（装备基础属性 + 锻造词条 + 锻造等级加成的总和）
-        PetEquipStatsVO equipStats = this.getPetEquipStatsByUserId(userId);
+        PetEquipStatsVO equipStats = this.getPetEquipStatsByPet(fishPet);
         petVO.setEquipStats(equipStats);
 
         return petVO;
@@ -564,6 +569,7 @@ public class FishPetServiceImpl extends ServiceImpl<FishPetMapper, FishPet> impl
         if (fishPet == null) {
             throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "该用户没有宠物");
         }
+        PetVitals.settle(fishPet);
 
         // 转换为其他用户宠物VO（不包含扩展数据）
         OtherUserPetVO otherUserPetVO = new OtherUserPetVO();
@@ -578,7 +584,7 @@ public class FishPetServiceImpl extends ServiceImpl<FishPetMapper, FishPet> impl
         otherUserPetVO.setEquippedItems(equippedItems);
 
         // 获取宠物装备属性统计
-        PetEquipStatsVO equipStats = this.getPetEquipStatsByUserId(otherUserId);
+        PetEquipStatsVO equipStats = this.getPetEquipStatsByPet(fishPet);
         otherUserPetVO.setEquipStats(equipStats);
 
         return otherUserPetVO;
@@ -594,6 +600,8 @@ public class FishPetServiceImpl extends ServiceImpl<FishPetMapper, FishPet> impl
         if (fishPet.getLevel() >= PET_LEVEL_MAX) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "宠物已经达到60级，已会自己补充饥饿度");
         }
+        // 先折算到当前时间，再在此基础上喂食，回写时 statusTime 一并更新
+        PetVitals.settle(fishPet);
 
         // 检查饥饿度是否已满
         if (fishPet.getHunger() >= 100) {
@@ -641,6 +649,7 @@ public class FishPetServiceImpl extends ServiceImpl<FishPetMapper, FishPet> impl
         if (fishPet.getLevel() >= PET_LEVEL_MAX) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "宠物已经达到60级，已会自己补充心情值");
         }
+        PetVitals.settle(fishPet);
         // 检查心情值是否已满
         if (fishPet.getMood() >= 100) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "宠物心情已经很好了，不需要再抚摸");
@@ -676,12 +685,6 @@ public class FishPetServiceImpl extends ServiceImpl<FishPetMapper, FishPet> impl
         return petVO;
     }
 
-    @Override
-    public int batchUpdatePetStatus(int hungerDecrement, int moodDecrement) {
-        // 批量更新宠物状态：30级宠物保持满状态，其他宠物扣除相应数值
-        return baseMapper.batchUpdatePetStatus(hungerDecrement, moodDecrement);
-    }
-
     @Override
     public int batchUpdateOnlineUserPetExp(List<String> userIds) {
         if (userIds == null || userIds.isEmpty()) {
@@ -700,7 +703,7 @@ public class FishPetServiceImpl extends ServiceImpl<FishPetMapper, FishPet> impl
 
         // 注意：在SQL实现中，只有当宠物的饥饿度(hunger)或心情值(mood)任意一个大于0时，
         // 宠物才会获得经验并可能升级。这确保了宠物得到基本照顾就能成长。
-        // 当宠物升级到60级时，经验值会设为100，饥饿度设为0，心情值设为100。
+        // 当宠物升级到60级时，经验值会设为100，饥饿度和心情值设为100。
         int updatedCount = baseMapper.batchUpdateOnlineUserPetExp(userIds);
 
         // 为升到60级的宠物记录时间到Redis
@@ -1146,54 +1149,8 @@ public class FishPetServiceImpl extends ServiceImpl<FishPetMapper, FishPet> impl
         if (fishPet == null) {
             return null;
         }
-        // 获取已穿戴的装备列表
-        Map<String, ItemInstanceVO> equippedItems = getEquippedItems(fishPet);
-
-        // 初始化属性统计
-        PetEquipStatsVO statsVO = new PetEquipStatsVO();
-        statsVO.setTotalBaseAttack(0);
-        statsVO.setTotalBaseDefense(0);
-        statsVO.setTotalBaseHp(0);
-        statsVO.setSpeed(0);
-        statsVO.setCritRate(0.0);
-        statsVO.setComboRate(0.0);
-        statsVO.setDodgeRate(0.0);
-        statsVO.setBlockRate(0.0);
-        statsVO.setLifesteal(0.0);
-        statsVO.setCritResistance(0.0);
-        statsVO.setComboResistance(0.0);
-        statsVO.setDodgeResistance(0.0);
-        statsVO.setBlockResistance(0.0);
-        statsVO.setLifestealResistance(0.0);
-
-        if (equippedItems != null && !equippedItems.isEmpty()) {
-            for (ItemInstanceVO item : equippedItems.values()) {
-                if (item == null || item.getTemplate() == null) {
-                    continue;
-                }
-                ItemTemplateVO template = item.getTemplate();
-                if (template.getBaseAttack() != null) {
-                    statsVO.setTotalBaseAttack(statsVO.getTotalBaseAttack() + template.getBaseAttack());
-                }
-                if (template.getBaseDefense() != null) {
-                    statsVO.setTotalBaseDefense(statsVO.getTotalBaseDefense() + template.getBaseDefense());
-                }
-                if (template.getBaseHp() != null) {
-                    statsVO.setTotalBaseHp(statsVO.getTotalBaseHp() + template.getBaseHp());
-                }
-                if (template.getBaseSpeed() != null) {
-                    statsVO.setSpeed(statsVO.getSpeed() == null ? template.getBaseSpeed() : statsVO.getSpeed() + template.getBaseSpeed());
-                }
-                if (template.getMainAttr() != null) {
-                    parseMainAttr(template.getMainAttr(), statsVO);
-                }
-            }
-        }
-
-        // 叠加锻造词条属性和装备等级加成
-        mergeForgeStats(fishPet.getPetId(), statsVO);
-
-        return statsVO;
+        // 未命中时按 petId 重新查库计算，避免用调用方手里可能已过时的实体构建出带新版本号的旧数据
+        return petEquipStatsCache.get(fishPet.getPetId(), petId -> computePetEquipStats(this.getById(petId)));
     }
 
     @Override
@@ -1205,12 +1162,19 @@ public class FishPetServiceImpl extends ServiceImpl<FishPetMapper, FishPet> impl
         // 查询宠物
         QueryWrapper<FishPet> queryWrapper = new QueryWrapper<>();
         queryWrapper.eq("userId", userId);
-        FishPet fishPet = this.getOne(queryWrapper);
+        return getPetEquipStatsByPet(this.getOne(queryWrapper));
+    }
 
+    /**
+     * 计算宠物装备属性汇总：装备基础属性 + mainAttr + 锻造词条 + 锻造等级加成
+     *
+     * @param fishPet 宠物实体
+     * @return 装备属性统计VO，宠物不存在时返回 null
+     */
+    private PetEquipStatsVO computePetEquipStats(FishPet fishPet) {
         if (fishPet == null) {
             return null;
         }
-
         // 获取已穿戴的装备列表
         Map<String, ItemInstanceVO> equippedItems = getEquippedItems(fishPet);
 
@@ -6,6 +6,7 @@ import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.CollectionUtils;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.cong.fishisland.cache.PetEquipStatsCache;
 import com.cong.fishisland.common.ErrorCode;
 import com.cong.fishisland.common.exception.BusinessException;
 import com.cong.fishisland.mapper.pet.FishPetMapper;
@@ -61,6 +62,9 @@ public class ItemInstancesServiceImpl extends ServiceImpl<ItemInstancesMapper, I
     @Resource
     FishPetMapper fishPetMapper;
 
+    @Resource
+    PetEquipStatsCache petEquipStatsCache;
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Long addItemInstance(ItemInstanceAddRequest itemInstanceAddRequest) {
@@ -193,7 +197,8 @@ public class ItemInstancesServiceImpl extends ServiceImpl<ItemInstancesMapper, I
             throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权限编辑该物品实例");
         }
 
-        // 3. 直接复制请求数据到实体对象
+        // 3. 直接复制请求数据到实体对象（先记下原持有人，请求可能改了持有人）
+        Long previousOwnerUserId = itemInstances.getOwnerUserId();
         BeanUtils.copyProperties(itemInstanceEditRequest, itemInstances);
 
         // 4. 特殊处理：数量必须大于0
@@ -214,6 +219,15 @@ public class ItemInstancesServiceImpl extends ServiceImpl<ItemInstancesMapper, I
         if (!updated) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "更新物品实例失败");
         }
+        // 换了模板或持有人的物品如果正穿戴在宠物身上，原持有人和新持有人宠物的属性汇总都随之变化
+        Long ownerUserId = itemInstances.getOwnerUserId();
+        boolean ownerChanged = !Objects.equals(previousOwnerUserId, ownerUserId);
+        if (itemInstanceEditRequest.getTemplateId() != null || ownerChanged) {
+            invalidateEquipStats(previousOwnerUserId);
+            if (ownerChanged && ownerUserId != null) {
+                invalidateEquipStats(ownerUserId);
+            }
+        }
 
         // 直接返回更新后的VO
         ItemInstanceVO vo = new ItemInstanceVO();
@@ -473,6 +487,7 @@ public class ItemInstancesServiceImpl extends ServiceImpl<ItemInstancesMapper, I
         if (updateResult <= 0) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "穿戴装备失败");
         }
+        petEquipStatsCache.invalidate(fishPet.getPetId());
 
         return true;
     }
@@ -529,6 +544,7 @@ public class ItemInstancesServiceImpl extends ServiceImpl<ItemInstancesMapper, I
         if (updateResult <= 0) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "卸下装备失败");
         }
+        petEquipStatsCache.invalidate(fishPet.getPetId());
 
         return true;
     }
@@ -684,6 +700,21 @@ public class ItemInstancesServiceImpl extends ServiceImpl<ItemInstancesMapper, I
         return totalPoints;
     }
 
+    /**
+     * 失效用户宠物的装备属性汇总缓存
+     *
+     * @param userId 用户ID
+     */
+    private void invalidateEquipStats(Long userId) {
+        FishPet fishPet = fishPetMapper.selectOne(new QueryWrapper<FishPet>()
+                .select("petId")
+                .eq("userId", userId)
+                .last("LIMIT 1"));
+        if (fishPet != null) {
+            petEquipStatsCache.invalidate(fishPet.getPetId());
+        }
+    }
+
     /**
      * 获取用户已穿戴装备的ID集合
      *
@@ -5,6 +5,7 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.cong.fishisland.common.ErrorCode;
 import com.cong.fishisland.common.exception.BusinessException;
@@ -24,12 +25,25 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.cong.fishisland.model.enums.user.PointsRecordSourceEnum.PET_AUTO_FEED;
 
@@ -44,17 +58,22 @@ import static com.cong.fishisland.model.enums.user.PointsRecordSourceEnum.PET_AU
 public class PetAutoFeedServiceImpl extends ServiceImpl<PetAutoFeedConfigMapper, PetAutoFeedConfig>
         implements PetAutoFeedService {
 
+    /**
+     * 每个分块（一个事务）包含的配置数，同一用户的配置不会被拆到两个分块
+     */
+    private static final int FEED_CHUNK_SIZE = 100;
+
     private final FishPetService fishPetService;
     private final ItemInstancesService itemInstancesService;
     private final ItemTemplatesService itemTemplatesService;
     private final UserPointsService userPointsService;
+    private final PlatformTransactionManager transactionManager;
 
     /**
-     * 自注入，用于在同类方法间保证 @Transactional 生效（通过 Spring 代理）
+     * 自动喂食分块执行线程池
      */
-    @Autowired
-    @Lazy
-    private PetAutoFeedService self;
+    @Qualifier("petAutoFeedExecutor")
+    private final Executor petAutoFeedExecutor;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -141,32 +160,198 @@ public class PetAutoFeedServiceImpl extends ServiceImpl<PetAutoFeedConfigMapper,
 
     @Override
     public int executeAutoFeed() {
-        // 查询所有启用的自动喂食配置
-        List<PetAutoFeedConfig> enabledConfigs = this.list(
-                new LambdaQueryWrapper<PetAutoFeedConfig>()
-                        .eq(PetAutoFeedConfig::getEnabled, 1)
-        );
-
-        if (enabledConfigs == null || enabledConfigs.isEmpty()) {
-            log.info("没有启用的自动喂食配置");
+        long start = System.currentTimeMillis();
+        // 一次联表查出所有需要喂食的配置，饥饿度在 SQL 中按经过时间折算，不再逐条查询宠物
+        List<PetAutoFeedConfig> hungryConfigs = this.baseMapper.selectHungryConfigs(
+                PetVitals.HUNGER_DECAY_PER_HOUR, PetVitals.FULL_STATUS_LEVEL);
+        if (hungryConfigs.isEmpty()) {
+            log.info("没有需要自动喂食的宠物");
             return 0;
         }
 
-        int successCount = 0;
+        // 食物模板全局只有少量几种，一次加载
+        Set<String> foodCodes = hungryConfigs.stream().map(PetAutoFeedConfig::getFoodCode).collect(Collectors.toSet());
+        Map<String, ItemTemplates> templateMap = itemTemplatesService.list(
+                new LambdaQueryWrapper<ItemTemplates>()
+                        .in(ItemTemplates::getCode, foodCodes)
+                        .eq(ItemTemplates::getCategory, "consumable")
+                        .eq(ItemTemplates::getSubType, "food")
+        ).stream().collect(Collectors.toMap(ItemTemplates::getCode, Function.identity(), (a, b) -> a));
+
+        // 按用户切块：同一用户的配置总在同一块内按顺序处理，不同块并行执行、各自一个事务
+        List<List<PetAutoFeedConfig>> chunks = splitByUser(hungryConfigs);
+        List<CompletableFuture<FeedChunkResult>> futures = new ArrayList<>(chunks.size());
+        for (List<PetAutoFeedConfig> chunk : chunks) {
+            futures.add(CompletableFuture.supplyAsync(() -> runChunk(chunk, templateMap), petAutoFeedExecutor));
+        }
+
+        int fed = 0;
+        int skipped = 0;
+        int failed = 0;
+        int failedChunks = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            FeedChunkResult result = futures.get(i).join();
+            fed += result.fed;
+            skipped += result.skipped;
+            failed += result.failed;
+            if (result.failed > 0) {
+                failedChunks++;
+                log.warn("自动喂食分块 {}/{} 有 {} 条失败（共 {} 条）", i + 1, chunks.size(),
+                        result.failed, chunks.get(i).size());
+            }
+        }
 
-        for (PetAutoFeedConfig config : enabledConfigs) {
-            try {
-                // 通过 self（Spring 代理）调用，确保 @Transactional 生效
-                boolean fed = self.doAutoFeedSingle(config);
-                if (fed) {
-                    successCount++;
+        long costMillis = Math.max(1, System.currentTimeMillis() - start);
+        log.info("自动喂食完成：候选 {} 只，喂食 {}，跳过 {}，失败 {}；分块 {}，失败分块 {}；耗时 {} ms，{} 只/秒",
+                hungryConfigs.size(), fed, skipped, failed, chunks.size(), failedChunks, costMillis,
+                hungryConfigs.size() * 1000L / costMillis);
+        return fed;
+    }
+
+    /**
+     * 按用户切块，块大小达到 FEED_CHUNK_SIZE 后在用户边界处切分（配置已按 userId 排序）
+     */
+    private static List<List<PetAutoFeedConfig>> splitByUser(List<PetAutoFeedConfig> configs) {
+        List<List<PetAutoFeedConfig>> chunks = new ArrayList<>();
+        List<PetAutoFeedConfig> current = new ArrayList<>(FEED_CHUNK_SIZE);
+        Long lastUserId = null;
+        for (PetAutoFeedConfig config : configs) {
+            if (current.size() >= FEED_CHUNK_SIZE && !config.getUserId().equals(lastUserId)) {
+                chunks.add(current);
+                current = new ArrayList<>(FEED_CHUNK_SIZE);
+            }
+            current.add(config);
+            lastUserId = config.getUserId();
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    /**
+     * 在一个事务中处理一块配置：宠物和背包食物各一次批量查询，每条喂食使用保存点，
+     * 单条失败只回滚该条，不影响同块其他喂食
+     */
+    private FeedChunkResult runChunk(List<PetAutoFeedConfig> chunk, Map<String, ItemTemplates> templateMap) {
+        FeedChunkResult result = new FeedChunkResult();
+        TransactionTemplate chunkTx = new TransactionTemplate(transactionManager);
+        TransactionTemplate feedTx = new TransactionTemplate(transactionManager);
+        feedTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+        try {
+            chunkTx.executeWithoutResult(status -> {
+                Map<Long, FishPet> petMap = fishPetService.listByIds(
+                        chunk.stream().map(PetAutoFeedConfig::getPetId).collect(Collectors.toList())
+                ).stream().collect(Collectors.toMap(FishPet::getPetId, Function.identity()));
+                Map<String, Deque<ItemInstances>> foodMap = loadFoodInstances(chunk, templateMap);
+
+                for (PetAutoFeedConfig config : chunk) {
+                    FishPet fishPet = petMap.get(config.getPetId());
+                    ItemTemplates foodTemplate = templateMap.get(config.getFoodCode());
+                    if (fishPet == null || !fishPet.getUserId().equals(config.getUserId())
+                            || foodTemplate == null || !needFeed(fishPet, config)) {
+                        result.skipped++;
+                        continue;
+                    }
+                    Deque<ItemInstances> foods = foodMap.get(foodKey(config.getUserId(), foodTemplate.getId()));
+                    if (foods == null || foods.isEmpty()) {
+                        log.info("自动喂食：用户背包中没有食物，userId={}, foodCode={}", config.getUserId(), config.getFoodCode());
+                        result.skipped++;
+                        continue;
+                    }
+                    try {
+                        feedTx.executeWithoutResult(s -> {
+                            consumeOneFood(foods);
+                            applyFeed(config, fishPet, foodTemplate);
+                        });
+                        result.fed++;
+                    } catch (Exception e) {
+                        result.failed++;
+                        log.error("自动喂食异常，userId={}, petId={}", config.getUserId(), config.getPetId(), e);
+                    }
                 }
-            } catch (Exception e) {
-                log.error("自动喂食异常，userId={}, petId={}", config.getUserId(), config.getPetId(), e);
+            });
+        } catch (Exception e) {
+            // 整块提交失败，块内喂食全部回滚
+            log.error("自动喂食分块提交失败，共 {} 条", chunk.size(), e);
+            result.failed = chunk.size() - result.skipped;
+            result.fed = 0;
+        }
+        return result;
+    }
+
+    /**
+     * 批量加载块内用户背包中的食物实例，按 userId:templateId 分组
+     */
+    private Map<String, Deque<ItemInstances>> loadFoodInstances(List<PetAutoFeedConfig> chunk,
+                                                               Map<String, ItemTemplates> templateMap) {
+        Set<Long> userIds = chunk.stream().map(PetAutoFeedConfig::getUserId).collect(Collectors.toSet());
+        Set<Long> templateIds = chunk.stream()
+                .map(config -> templateMap.get(config.getFoodCode()))
+                .filter(Objects::nonNull)
+                .map(ItemTemplates::getId)
+                .collect(Collectors.toSet());
+        Map<String, Deque<ItemInstances>> foodMap = new HashMap<>();
+        if (templateIds.isEmpty()) {
+            return foodMap;
+        }
+        List<ItemInstances> instances = itemInstancesService.list(
+                new QueryWrapper<ItemInstances>()
+                        .in("ownerUserId", userIds)
+                        .in("templateId", templateIds)
+                        .gt("quantity", 0)
+        );
+        for (ItemInstances instance : instances) {
+            foodMap.computeIfAbsent(foodKey(instance.getOwnerUserId(), instance.getTemplateId()),
+                    key -> new ArrayDeque<>()).add(instance);
+        }
+        return foodMap;
+    }
+
+    private static String foodKey(Long userId, Long templateId) {
+        return userId + ":" + templateId;
+    }
+
+    /**
+     * 消耗一个食物：条件扣减，数量归零时删除实例；扣减失败说明批量读取后数量被其他操作改变，
+     * 回读该实例剩余数量，仍有剩余则重试，否则换用同类的下一个实例，全部用完才算食物不足
+     */
+    private void consumeOneFood(Deque<ItemInstances> foods) {
+        ItemInstances food = foods.peek();
+        while (food != null && !itemInstancesService.update(
+                new UpdateWrapper<ItemInstances>()
+                        .setSql("quantity = quantity - 1")
+                        .eq("id", food.getId())
+                        .ge("quantity", 1))) {
+            ItemInstances latest = itemInstancesService.getById(food.getId());
+            if (latest != null && latest.getQuantity() != null && latest.getQuantity() > 0) {
+                food.setQuantity(latest.getQuantity());
+            } else {
+                foods.poll();
+                food = foods.peek();
             }
         }
+        if (food == null) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "物品数量不足");
+        }
+        food.setQuantity(food.getQuantity() - 1);
+        if (food.getQuantity() <= 0) {
+            foods.poll();
+            itemInstancesService.remove(
+                    new QueryWrapper<ItemInstances>()
+                            .eq("id", food.getId())
+                            .le("quantity", 0)
+            );
+        }
+    }
 
-        return successCount;
+    /**
+     * 分块执行结果
+     */
+    private static class FeedChunkResult {
+        private int fed;
+        private int skipped;
+        private int failed;
     }
 
     @Override
@@ -186,14 +371,8 @@ public class PetAutoFeedServiceImpl extends ServiceImpl<PetAutoFeedConfigMapper,
             return false;
         }
 
-        // 2. 检查饱食度是否低于阈值（hunger 越高越饱，低于阈值说明宠物饿了需要喂食）
-        int currentHunger = fishPet.getHunger() == null ? 0 : fishPet.getHunger();
-        // 饱食度已满（100），不需要喂食
-        if (currentHunger >= 100) {
-            return false;
-        }
-        // 饱食度高于触发阈值，说明还不够饿，不触发喂食
-        if (currentHunger >= config.getTriggerThreshold()) {
+        // 2. 检查饱食度是否低于阈值
+        if (!needFeed(fishPet, config)) {
             return false;
         }
 
@@ -221,7 +400,32 @@ public class PetAutoFeedServiceImpl extends ServiceImpl<PetAutoFeedConfigMapper,
             return false;
         }
 
-        // 5. 解析食物效果（从 mainAttr 读取）
+        // 5. 消耗一个食物并喂食
+        itemInstancesService.consumeItem(foodInstance.getId(), 1);
+        applyFeed(config, fishPet, foodTemplate);
+        return true;
+    }
+
+    /**
+     * 饱食度是否低于阈值（hunger 越高越饱，低于阈值说明宠物饿了需要喂食）
+     * 先按经过时间折算到当前值，回写时 statusTime 一并更新
+     */
+    private static boolean needFeed(FishPet fishPet, PetAutoFeedConfig config) {
+        PetVitals.settle(fishPet);
+        int currentHunger = fishPet.getHunger() == null ? 0 : fishPet.getHunger();
+        // 饱食度已满（100），不需要喂食；高于触发阈值说明还不够饿，不触发喂食
+        return currentHunger < 100 && currentHunger < config.getTriggerThreshold();
+    }
+
+    /**
+     * 食物已扣减后，记录积分日志并更新宠物饱食度、心情值和经验值
+     */
+    private void applyFeed(PetAutoFeedConfig config, FishPet fishPet, ItemTemplates foodTemplate) {
+        Long userId = config.getUserId();
+        Long petId = config.getPetId();
+        int currentHunger = fishPet.getHunger() == null ? 0 : fishPet.getHunger();
+
+        // 解析食物效果（从 mainAttr 读取）
         int hungerRestore = 20;
         int moodBonus = 0;
         int expBonus = 0;
@@ -242,12 +446,11 @@ public class PetAutoFeedServiceImpl extends ServiceImpl<PetAutoFeedConfigMapper,
             }
         }
 
-        // 6. 消耗一个食物，并记录自动喂食积分日志（食物本身已花积分购买，此处仅做行为记录，不再扣分）
-        itemInstancesService.consumeItem(foodInstance.getId(), 1);
+        // 记录自动喂食积分日志（食物本身已花积分购买，此处仅做行为记录，不再扣分）
         userPointsService.updateUsedPoints(userId, 0, PET_AUTO_FEED.getValue(),
                 petId.toString(), "宠物自动喂食消耗食物：" + foodTemplate.getName());
 
-        // 7. 更新宠物饱食度、心情值和经验值
+        // 更新宠物饱食度、心情值和经验值
         // hunger 越高越饱，喂食后增加饱食度，上限 100
         int newHunger = Math.min(100, currentHunger + hungerRestore);
         int currentMood = fishPet.getMood() == null ? 0 : fishPet.getMood();
@@ -281,10 +484,8 @@ public class PetAutoFeedServiceImpl extends ServiceImpl<PetAutoFeedConfigMapper,
 
         fishPetService.updateById(fishPet);
 
-        log.info("自动喂食成功：userId={}, petId={}, 食物={}, 饥饿度 {} -> {}, 心情 {} -> {}, 经验+{}",
+        log.debug("自动喂食成功：userId={}, petId={}, 食物={}, 饥饿度 {} -> {}, 心情 {} -> {}, 经验+{}",
                 userId, petId, config.getFoodCode(), currentHunger, newHunger, currentMood, newMood, expBonus);
-
-        return true;
     }
 
     /**
@@ -3,6 +3,7 @@ package com.cong.fishisland.service.impl.pet;
 import cn.dev33.satoken.stp.StpUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.cong.fishisland.cache.PetEquipStatsCache;
 import com.cong.fishisland.common.ErrorCode;
 import com.cong.fishisland.common.exception.BusinessException;
 import com.cong.fishisland.config.PetForgeProperties;
@@ -52,6 +53,7 @@ public class PetEquipForgeServiceImpl extends ServiceImpl<PetEquipForgeMapper, P
     private final UserPointsService userPointsService;
     private final PetForgeProperties petForgeProperties;
     private final RedissonClient redissonClient;
+    private final PetEquipStatsCache petEquipStatsCache;
 
     private static final long FORGE_UPGRADE_LOCK_WAIT_SECONDS = 3;
     private static final long FORGE_UPGRADE_LOCK_LEASE_SECONDS = 10;
@@ -184,6 +186,7 @@ public class PetEquipForgeServiceImpl extends ServiceImpl<PetEquipForgeMapper, P
         forge.setEntry3(current[2]);
         forge.setEntry4(current[3]);
         updateById(forge);
+        petEquipStatsCache.invalidate(pet.getPetId());
 
         return toVO(forge);
     }
@@ -226,6 +229,7 @@ public class PetEquipForgeServiceImpl extends ServiceImpl<PetEquipForgeMapper, P
             if (success) {
                 forge.setEquipLevel(currentLevel + 1);
                 updateById(forge);
+                petEquipStatsCache.invalidate(pet.getPetId());
                 log.info("宠物[{}]装备[{}]升级成功 {} -> {}", request.getPetId(), slot.getLabel(),
                         currentLevel, currentLevel + 1);
             } else {
@@ -146,6 +146,7 @@ public class PetSkinServiceImpl extends ServiceImpl<PetSkinMapper, PetSkin> impl
             fishPetMapper.updateById(fishPet);
             
             // 返回更新后的宠物信息
+            PetVitals.settle(fishPet);
             PetVO petVO = new PetVO();
             BeanUtils.copyProperties(fishPet, petVO);
             return petVO;
@@ -176,6 +177,7 @@ public class PetSkinServiceImpl extends ServiceImpl<PetSkinMapper, PetSkin> impl
         fishPetMapper.updateById(fishPet);
         
         // 返回更新后的宠物信息
+        PetVitals.settle(fishPet);
         PetVO petVO = new PetVO();
         BeanUtils.copyProperties(fishPet, petVO);
         return petVO;
@@ -0,0 +1,84 @@
+package com.cong.fishisland.service.impl.pet;
+
+import com.cong.fishisland.model.entity.pet.FishPet;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 宠物饥饿度、心情值折算
+ * Description: 数据库只保存某个时间点的饥饿度、心情值及该时间点（statusTime），
+ * 读取时按经过的整小时数扣减，不再由定时任务每小时改写全表；只有用户互动时才回写
+ *
+ * @author cong
+ */
+public final class PetVitals {
+
+    /**
+     * 每小时饥饿度减少值
+     */
+    public static final int HUNGER_DECAY_PER_HOUR = 5;
+
+    /**
+     * 每小时心情值减少值
+     */
+    public static final int MOOD_DECAY_PER_HOUR = 3;
+
+    /**
+     * 饥饿度、心情值上限
+     */
+    public static final int MAX_VALUE = 100;
+
+    /**
+     * 达到该等级后饥饿度、心情值保持满值
+     */
+    public static final int FULL_STATUS_LEVEL = 60;
+
+    private static final long HOUR_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private PetVitals() {
+    }
+
+    /**
+     * 把饥饿度、心情值折算到当前时间，结果写回实体
+     * <p>
+     * statusTime 只前移整小时，不足一小时的部分留到下次折算，随后 updateById 会把三个字段一并写回
+     *
+     * @param fishPet 宠物
+     */
+    public static void settle(FishPet fishPet) {
+        settle(fishPet, new Date());
+    }
+
+    /**
+     * 把饥饿度、心情值折算到指定时间，结果写回实体
+     *
+     * @param fishPet 宠物
+     * @param now     折算时间
+     */
+    public static void settle(FishPet fishPet, Date now) {
+        if (fishPet == null) {
+            return;
+        }
+        if (fishPet.getLevel() != null && fishPet.getLevel() >= FULL_STATUS_LEVEL) {
+            fishPet.setHunger(MAX_VALUE);
+            fishPet.setMood(MAX_VALUE);
+            fishPet.setStatusTime(now);
+            return;
+        }
+        Date statusTime = fishPet.getStatusTime();
+        if (statusTime == null) {
+            fishPet.setStatusTime(now);
+            return;
+        }
+        long hours = (now.getTime() - statusTime.getTime()) / HOUR_MILLIS;
+        if (hours <= 0) {
+            return;
+        }
+        int hunger = fishPet.getHunger() == null ? 0 : fishPet.getHunger();
+        int mood = fishPet.getMood() == null ? 0 : fishPet.getMood();
+        fishPet.setHunger((int) Math.max(0, hunger - hours * HUNGER_DECAY_PER_HOUR));
+        fishPet.setMood((int) Math.max(0, mood - hours * MOOD_DECAY_PER_HOUR));
+        fishPet.setStatusTime(new Date(statusTime.getTime() + hours * HOUR_MILLIS));
+    }
+}
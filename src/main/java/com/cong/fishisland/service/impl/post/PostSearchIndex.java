@@ -0,0 +1,311 @@
+package com.cong.fishisland.service.impl.post;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 帖子倒排索引
+ * Description: 标题、标签、正文分词后按字段加权写入倒排表，中文按单字和相邻二字切分，英文数字按整词切分；
+ * 检索时所有词都要命中，按 BM25 打分排序。索引只保存词项和过滤字段，不保存正文
+ *
+ * @author cong
+ */
+public class PostSearchIndex {
+
+    private static final float TITLE_WEIGHT = 3f;
+    private static final float TAG_WEIGHT = 2f;
+    private static final float CONTENT_WEIGHT = 1f;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /**
+     * 词项 -> (帖子 id -> 加权词频)
+     */
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+
+    private final Map<Long, Doc> docs = new HashMap<>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private double totalLength;
+
+    /**
+     * 写入或覆盖一篇帖子
+     *
+     * @param id         帖子 id
+     * @param title      标题
+     * @param content    正文
+     * @param tags       标签
+     * @param userId     作者 id
+     * @param isFeatured 是否加精
+     * @param createTime 创建时间（毫秒），分数相同时新帖在前
+     */
+    public void put(Long id, String title, String content, List<String> tags, Long userId, Integer isFeatured,
+                    long createTime) {
+        Map<String, Float> termFreq = new HashMap<>();
+        addTerms(termFreq, tokenize(title, false), TITLE_WEIGHT);
+        addTerms(termFreq, tokenize(content, false), CONTENT_WEIGHT);
+        Set<String> tagSet = new HashSet<>();
+        if (tags != null) {
+            for (String tag : tags) {
+                addTerms(termFreq, tokenize(tag, false), TAG_WEIGHT);
+                tagSet.add(tag);
+            }
+        }
+        float length = 0;
+        for (float freq : termFreq.values()) {
+            length += freq;
+        }
+        Doc doc = new Doc(termFreq.keySet(), length, userId, isFeatured, tagSet, createTime);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            termFreq.forEach((term, freq) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(id, freq));
+            docs.put(id, doc);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除一篇帖子
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 检索
+     *
+     * @param text       检索词
+     * @param userId     作者过滤，可为空
+     * @param isFeatured 加精过滤，可为空
+     * @param tags       标签过滤（需全部包含），可为空
+     * @param offset     跳过条数
+     * @param limit      返回条数
+     * @return 命中总数与当前页帖子 id（按相关度降序）
+     */
+    public SearchResult search(String text, Long userId, Integer isFeatured, List<String> tags, long offset, long limit) {
+        Set<String> terms = new LinkedHashSet<>(tokenize(text, true));
+        if (terms.isEmpty()) {
+            return new SearchResult(0, Collections.emptyList());
+        }
+        lock.readLock().lock();
+        try {
+            // 从最短的倒排链开始求交集
+            List<Map<Long, Float>> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Float> list = postings.get(term);
+                if (list == null) {
+                    return new SearchResult(0, Collections.emptyList());
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(Map::size));
+
+            int docCount = docs.size();
+            double avgLength = docCount == 0 ? 1 : totalLength / docCount;
+            List<ScoredDoc> hits = new ArrayList<>();
+            for (Long id : lists.get(0).keySet()) {
+                Doc doc = docs.get(id);
+                if (doc == null || !doc.matches(userId, isFeatured, tags)) {
+                    continue;
+                }
+                double score = 0;
+                boolean all = true;
+                for (Map<Long, Float> list : lists) {
+                    Float freq = list.get(id);
+                    if (freq == null) {
+                        all = false;
+                        break;
+                    }
+                    double idf = Math.log(1 + (docCount - list.size() + 0.5) / (list.size() + 0.5));
+                    score += idf * freq * (K1 + 1) / (freq + K1 * (1 - B + B * doc.length / avgLength));
+                }
+                if (all) {
+                    hits.add(new ScoredDoc(id, score, doc.createTime));
+                }
+            }
+            hits.sort(Comparator.comparingDouble((ScoredDoc hit) -> hit.score).reversed()
+                    .thenComparing(Comparator.comparingLong((ScoredDoc hit) -> hit.createTime).reversed()));
+
+            List<Long> ids = new ArrayList<>();
+            for (long i = Math.max(offset, 0); i < hits.size() && ids.size() < limit; i++) {
+                ids.add(hits.get((int) i).id);
+            }
+            return new SearchResult(hits.size(), ids);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已索引的帖子数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 分词：转小写，中文切成单字和相邻二字，英文数字按连续字符切成整词，其余字符作为分隔
+     *
+     * @param text     文本
+     * @param forQuery 检索词只保留二字组合（单个汉字时保留单字），避免单字倒排链拖慢求交
+     * @return 词项列表
+     */
+    public static List<String> tokenize(String text, boolean forQuery) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder word = new StringBuilder();
+        StringBuilder han = new StringBuilder();
+        for (int i = 0; i < lower.length(); ) {
+            int codePoint = lower.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN) {
+                flushWord(tokens, word);
+                han.appendCodePoint(codePoint);
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                flushHan(tokens, han, forQuery);
+                word.appendCodePoint(codePoint);
+            } else {
+                flushWord(tokens, word);
+                flushHan(tokens, han, forQuery);
+            }
+        }
+        flushWord(tokens, word);
+        flushHan(tokens, han, forQuery);
+        return tokens;
+    }
+
+    private static void flushWord(List<String> tokens, StringBuilder word) {
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushHan(List<String> tokens, StringBuilder han, boolean forQuery) {
+        if (han.length() == 0) {
+            return;
+        }
+        int[] chars = han.codePoints().toArray();
+        if (!forQuery || chars.length == 1) {
+            for (int c : chars) {
+                tokens.add(new String(Character.toChars(c)));
+            }
+        }
+        for (int j = 0; j + 1 < chars.length; j++) {
+            tokens.add(new String(Character.toChars(chars[j])) + new String(Character.toChars(chars[j + 1])));
+        }
+        han.setLength(0);
+    }
+
+    private static void addTerms(Map<String, Float> termFreq, List<String> terms, float weight) {
+        for (String term : terms) {
+            termFreq.merge(term, weight, Float::sum);
+        }
+    }
+
+    private void removeLocked(Long id) {
+        Doc old = docs.remove(id);
+        if (old == null) {
+            return;
+        }
+        totalLength -= old.length;
+        for (String term : old.terms) {
+            Map<Long, Float> list = postings.get(term);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    /**
+     * 检索结果
+     */
+    public static class SearchResult {
+        private final long total;
+        private final List<Long> ids;
+
+        public SearchResult(long total, List<Long> ids) {
+            this.total = total;
+            this.ids = ids;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public List<Long> getIds() {
+            return ids;
+        }
+    }
+
+    private static class Doc {
+        private final Set<String> terms;
+        private final float length;
+        private final Long userId;
+        private final Integer isFeatured;
+        private final Set<String> tags;
+        private final long createTime;
+
+        private Doc(Set<String> terms, float length, Long userId, Integer isFeatured, Set<String> tags, long createTime) {
+            this.terms = terms;
+            this.length = length;
+            this.userId = userId;
+            this.isFeatured = isFeatured;
+            this.tags = tags;
+            this.createTime = createTime;
+        }
+
+        private boolean matches(Long userId, Integer isFeatured, List<String> tags) {
+            if (userId != null && !userId.equals(this.userId)) {
+                return false;
+            }
+            if (isFeatured != null && !isFeatured.equals(this.isFeatured)) {
+                return false;
+            }
+            return tags == null || this.tags.containsAll(tags);
+        }
+    }
+
+    private static class ScoredDoc {
+        private final Long id;
+        private final double score;
+        private final long createTime;
+
+        private ScoredDoc(Long id, double score, long createTime) {
+            this.id = id;
+            this.score = score;
+            this.createTime = createTime;
+        }
+    }
+}
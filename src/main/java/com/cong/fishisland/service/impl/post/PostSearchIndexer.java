@@ -0,0 +1,188 @@
+package com.cong.fishisland.service.impl.post;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.json.JSONUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cong.fishisland.constant.RedisKey;
+import com.cong.fishisland.mapper.post.PostMapper;
+import com.cong.fishisland.model.entity.post.Post;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 帖子搜索索引维护
+ * Description: 启动后异步全量构建倒排索引，构建完成前检索仍走数据库；帖子写入后按 id 回库重建该帖索引，
+ * 并通过 Redis 频道通知其他节点同步；每天凌晨全量重建一次兜底
+ *
+ * @author cong
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostSearchIndexer {
+
+    /**
+     * 全量构建时每批读取的帖子数
+     */
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final PostMapper postMapper;
+    private final RedissonClient redissonClient;
+
+    private final String nodeId = IdUtil.fastSimpleUUID();
+
+    /**
+     * 全量构建期间发生变更的帖子，构建完成后在新索引上重放
+     */
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile PostSearchIndex index = new PostSearchIndex();
+    private volatile boolean ready;
+
+    private RTopic topic;
+    private Integer listenerId;
+
+    @PostConstruct
+    public void subscribe() {
+        topic = redissonClient.getTopic(RedisKey.getKey(RedisKey.POST_SEARCH_SYNC_TOPIC), StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, msg) -> {
+            String[] parts = msg.split(":");
+            if (parts.length != 2 || nodeId.equals(parts[0])) {
+                return;
+            }
+            try {
+                reload(Long.valueOf(parts[1]));
+            } catch (Exception e) {
+                log.error("同步帖子搜索索引失败：{}", msg, e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (topic != null && listenerId != null) {
+            topic.removeListener(listenerId);
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 每天凌晨全量重建，兜底未同步到的变更
+     */
+    @Scheduled(cron = "0 40 3 * * ?")
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            changedDuringRebuild.clear();
+            long start = System.currentTimeMillis();
+            PostSearchIndex fresh = new PostSearchIndex();
+            long lastId = 0;
+            while (true) {
+                List<Post> posts = postMapper.selectList(new LambdaQueryWrapper<Post>()
+                        .select(Post::getId, Post::getTitle, Post::getContent, Post::getTags, Post::getUserId,
+                                Post::getIsFeatured, Post::getCreateTime)
+                        .gt(Post::getId, lastId)
+                        .orderByAsc(Post::getId)
+                        .last("limit " + REBUILD_BATCH_SIZE));
+                posts.forEach(post -> put(fresh, post));
+                if (posts.size() < REBUILD_BATCH_SIZE) {
+                    break;
+                }
+                lastId = posts.get(posts.size() - 1).getId();
+            }
+            index = fresh;
+            ready = true;
+            for (Long postId : new ArrayList<>(changedDuringRebuild)) {
+                reload(postId);
+            }
+            log.info("帖子搜索索引构建完成，帖子数：{}，耗时：{} ms", fresh.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("帖子搜索索引构建失败", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 帖子新增、修改或删除后调用，回库刷新本节点索引并通知其他节点
+     *
+     * @param postId 帖子 id
+     */
+    public void onPostChanged(Long postId) {
+        if (postId == null) {
+            return;
+        }
+        try {
+            reload(postId);
+            topic.publish(nodeId + ":" + postId);
+        } catch (Exception e) {
+            log.error("刷新帖子搜索索引失败，postId：{}", postId, e);
+        }
+    }
+
+    /**
+     * 索引是否已构建完成
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 检索，参数含义见 {@link PostSearchIndex#search}
+     */
+    public PostSearchIndex.SearchResult search(String text, Long userId, Integer isFeatured, List<String> tags,
+                                               long offset, long limit) {
+        return index.search(text, userId, isFeatured, tags, offset, limit);
+    }
+
+    private void reload(Long postId) {
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(postId);
+        }
+        Post post = postMapper.selectById(postId);
+        if (post == null) {
+            index.remove(postId);
+        } else {
+            put(index, post);
+        }
+    }
+
+    private static void put(PostSearchIndex target, Post post) {
+        List<String> tags = null;
+        if (StringUtils.isNotBlank(post.getTags())) {
+            try {
+                tags = JSONUtil.toList(post.getTags(), String.class);
+            } catch (Exception e) {
+                log.warn("帖子标签格式错误，postId：{}", post.getId());
+            }
+        }
+        target.put(post.getId(), post.getTitle(), post.getContent(), tags, post.getUserId(), post.getIsFeatured(),
+                post.getCreateTime() == null ? 0 : post.getCreateTime().getTime());
+    }
+}
@@ -4,7 +4,6 @@ import cn.hutool.core.collection.CollUtil;
 import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
-import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.cong.fishisland.common.ErrorCode;
@@ -18,10 +17,12 @@ import com.cong.fishisland.mapper.post.PostThumbMapper;
 import com.cong.fishisland.model.dto.post.PostFeaturedRequest;
 import com.cong.fishisland.model.dto.post.PostQueryRequest;
 import com.cong.fishisland.model.dto.post.PostRandomThumbRequest;
+import com.cong.fishisland.model.entity.comment.Comment;
 import com.cong.fishisland.model.entity.post.Post;
 import com.cong.fishisland.model.entity.post.PostFavour;
 import com.cong.fishisland.model.entity.post.PostThumb;
 import com.cong.fishisland.model.entity.user.User;
+import com.cong.fishisland.model.vo.comment.CommentVO;
 import com.cong.fishisland.model.vo.post.PostRewardTokenVO;
 import com.cong.fishisland.model.vo.post.PostVO;
 import com.cong.fishisland.model.vo.user.UserRewardVO;
@@ -35,18 +36,19 @@ import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.util.DigestUtils;
 import toolgood.words.StringSearch;
 
 import javax.annotation.Resource;
+import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -86,6 +88,12 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
     @Resource
     private StringRedisTemplate stringRedisTemplate;
 
+    @Resource
+    private PostSearchIndexer postSearchIndexer;
+
+    @Resource
+    private PostViewCounter postViewCounter;
+
     /**
      * 帖子加精
      */
@@ -97,12 +105,9 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
     private static final Integer POST_UNFEATURED_STATUS = 0;
 
     @Override
-    @Async
     public void incrementViewCountAsync(Long postId) {
-        // 使用原子操作更新数据库
-        update(new UpdateWrapper<Post>()
-                .setSql("viewNum = viewNum + 1")
-                .eq("id", postId));
+        // 只在内存中累加，由 PostViewCounter 定时合并写库
+        postViewCounter.increment(postId);
     }
 
     @Override
@@ -121,8 +126,38 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
         updateWrapper.eq(Post::getId, id)
                 .set(Post::getIsFeatured, isFeatured);
 
-        return update(updateWrapper);
+        boolean result = update(updateWrapper);
+        if (result) {
+            postSearchIndexer.onPostChanged(id);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean save(Post entity) {
+        boolean result = super.save(entity);
+        if (result) {
+            postSearchIndexer.onPostChanged(entity.getId());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean updateById(Post entity) {
+        boolean result = super.updateById(entity);
+        if (result) {
+            postSearchIndexer.onPostChanged(entity.getId());
+        }
+        return result;
+    }
 
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        if (result) {
+            postSearchIndexer.onPostChanged(Long.valueOf(id.toString()));
+        }
+        return result;
     }
 
     @Override
@@ -234,9 +269,38 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
         return queryWrapper;
     }
 
+    /**
+     * 从内存倒排索引检索，按相关度排序
+     *
+     * @param postQueryRequest 发布查询请求
+     * @return 索引未就绪、没有搜索词或带标题/内容模糊条件时返回 null，由调用方回退到数据库查询
+     */
     @Override
     public Page<Post> searchFromEs(PostQueryRequest postQueryRequest) {
-        return null;
+        if (postQueryRequest == null || StringUtils.isBlank(postQueryRequest.getSearchText())
+                || StringUtils.isNotBlank(postQueryRequest.getTitle())
+                || StringUtils.isNotBlank(postQueryRequest.getContent())
+                || !postSearchIndexer.isReady()) {
+            return null;
+        }
+        long current = postQueryRequest.getCurrent();
+        long size = postQueryRequest.getPageSize();
+        PostSearchIndex.SearchResult result = postSearchIndexer.search(postQueryRequest.getSearchText(),
+                postQueryRequest.getUserId(), postQueryRequest.getIsFeatured(),
+                CollUtil.isEmpty(postQueryRequest.getTags()) ? null : postQueryRequest.getTags(),
+                (current - 1) * size, size);
+        Page<Post> postPage = new Page<>(current, size, result.getTotal());
+        if (result.getIds().isEmpty()) {
+            return postPage;
+        }
+        // 按检索排名回填帖子
+        Map<Long, Post> postMap = listByIds(result.getIds()).stream()
+                .collect(Collectors.toMap(Post::getId, post -> post));
+        postPage.setRecords(result.getIds().stream()
+                .map(postMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+        return postPage;
     }
 
 
@@ -244,6 +308,7 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
     public PostVO getPostVO(Post post) {
         PostVO postVO = PostVO.objToVo(post);
         long postId = post.getId();
+        postVO.setViewNum(withPendingViews(post));
         // 1. 关联查询用户信息
         Long userId = post.getUserId();
         User user = null;
@@ -280,17 +345,20 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
         if (CollUtil.isEmpty(postList)) {
             return postVoPage;
         }
-        // 1. 关联查询用户信息
+        Set<Long> postIdSet = postList.stream().map(Post::getId).collect(Collectors.toSet());
+        // 1. 评论数与点赞最高评论各一次批量查询
+        Map<Long, Integer> commentNumMap = commentService.getCommentNumMap(postIdSet);
+        Map<Long, Comment> thumbCommentMap = commentService.getThumbCommentMap(postIdSet);
+        // 2. 帖子作者与评论者一次查询用户信息，关注数、粉丝数也批量统计
         Set<Long> userIdSet = postList.stream().map(Post::getUserId).collect(Collectors.toSet());
-        Map<Long, List<User>> userIdUserListMap = userService.listByIds(userIdSet).stream()
-                .collect(Collectors.groupingBy(User::getId));
-        // 2. 已登录，获取用户点赞、收藏状态
+        thumbCommentMap.values().forEach(comment -> userIdSet.add(comment.getUserId()));
+        Map<Long, UserVO> userVOMap = userService.getUserVO(userService.listByIds(userIdSet)).stream()
+                .collect(Collectors.toMap(UserVO::getId, userVO -> userVO, (a, b) -> a));
+        // 3. 已登录，获取用户点赞、收藏状态
         Map<Long, Boolean> postIdHasThumbMap = new HashMap<>();
         Map<Long, Boolean> postIdHasFavourMap = new HashMap<>();
         User loginUser = userService.getLoginUserPermitNull();
         if (loginUser != null) {
-            Set<Long> postIdSet = postList.stream().map(Post::getId).collect(Collectors.toSet());
-            loginUser = userService.getLoginUser();
             // 获取点赞
             QueryWrapper<PostThumb> postThumbQueryWrapper = new QueryWrapper<>();
             postThumbQueryWrapper.in(POST_ID, postIdSet);
@@ -307,25 +375,34 @@ public class PostServiceImpl extends ServiceImpl<PostMapper, Post> implements Po
         // 填充信息
         List<PostVO> postVOList = postList.stream().map(post -> {
             PostVO postVO = PostVO.objToVo(post);
-            Long userId = post.getUserId();
-            User user = null;
             Long postId = post.getId();
-            if (userIdUserListMap.containsKey(userId)) {
-                user = userIdUserListMap.get(userId).get(0);
-            }
-            postVO.setUser(userService.getUserVO(user));
+            postVO.setViewNum(withPendingViews(post));
+            postVO.setUser(userVOMap.get(post.getUserId()));
             postVO.setHasThumb(postIdHasThumbMap.getOrDefault(postId, false));
             postVO.setHasFavour(postIdHasFavourMap.getOrDefault(postId, false));
-            // 获取评论数
-            postVO.setCommentNum(commentService.getCommentNum(postId));
-            // 获取点赞最高一条评论
-            postVO.setThumbComment(commentService.getThumbComment(postId));
+            postVO.setCommentNum(commentNumMap.getOrDefault(postId, 0));
+            // 点赞最高一条评论
+            Comment thumbComment = thumbCommentMap.get(postId);
+            if (thumbComment != null) {
+                CommentVO commentVO = new CommentVO();
+                BeanUtils.copyProperties(thumbComment, commentVO);
+                commentVO.setUser(userVOMap.get(thumbComment.getUserId()));
+                postVO.setThumbComment(commentVO);
+            }
             return postVO;
         }).collect(Collectors.toList());
         postVoPage.setRecords(postVOList);
         return postVoPage;
     }
 
+    /**
+     * 数据库浏览数加上尚未落库的浏览数
+     */
+    private Integer withPendingViews(Post post) {
+        long viewNum = post.getViewNum() == null ? 0 : post.getViewNum();
+        return (int) Math.min(Integer.MAX_VALUE, viewNum + postViewCounter.getPending(post.getId()));
+    }
+
     @Override
     public UserRewardVO randomThumbUser(PostRandomThumbRequest request) {
         // 1. 参数校验
@@ -0,0 +1,171 @@
+package com.cong.fishisland.service.impl.post;
+
+import com.cong.fishisland.mapper.post.PostMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 帖子浏览数合并计数
+ * Description: 浏览只在内存中按帖子累加（LongAdder，热门帖子并发累加不争抢同一个变量），
+ * 定时把各帖子的增量合成一条多行 UPDATE 写库，读取时在数据库值上加未落库的增量，停机时写完剩余增量。
+ * 多节点部署时各节点各自合并，读取只能看到本节点未落库的部分
+ *
+ * @author cong
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PostViewCounter {
+
+    /**
+     * 单条 UPDATE 最多包含的帖子数
+     */
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    /**
+     * 连续多少轮没有新增浏览后移除计数器
+     */
+    private static final int IDLE_ROUNDS_BEFORE_EVICT = 10;
+
+    private final PostMapper postMapper;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 落库期间持有，定时任务与停机写入互斥
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * 记一次浏览
+     *
+     * @param postId 帖子 id
+     */
+    public void increment(Long postId) {
+        if (postId == null) {
+            return;
+        }
+        Counter counter = counters.get(postId);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(postId, id -> new Counter());
+        }
+        counter.views.increment();
+    }
+
+    /**
+     * 尚未落库的浏览数
+     *
+     * @param postId 帖子 id
+     * @return 增量
+     */
+    public long getPending(Long postId) {
+        Counter counter = postId == null ? null : counters.get(postId);
+        return counter == null ? 0 : counter.pending();
+    }
+
+    /**
+     * 定时写库
+     */
+    @Scheduled(fixedDelay = 3000)
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Long> deltas = new LinkedHashMap<>();
+            Map<Long, Counter> batchCounters = new LinkedHashMap<>();
+            Iterator<Map.Entry<Long, Counter>> iterator = counters.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Counter> entry = iterator.next();
+                Counter counter = entry.getValue();
+                // LongAdder 只增不减，sum 与已落库数之差就是本轮增量，本轮没统计到的浏览下一轮补上
+                long total = counter.views.sum();
+                long delta = total - counter.flushed;
+                if (delta <= 0) {
+                    if (++counter.idleRounds >= IDLE_ROUNDS_BEFORE_EVICT) {
+                        evict(entry.getKey(), counter);
+                    }
+                    continue;
+                }
+                counter.idleRounds = 0;
+                deltas.put(entry.getKey(), delta);
+                batchCounters.put(entry.getKey(), counter);
+                if (deltas.size() >= FLUSH_BATCH_SIZE) {
+                    writeBatch(deltas, batchCounters);
+                }
+            }
+            if (!deltas.isEmpty()) {
+                writeBatch(deltas, batchCounters);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 停机时写完剩余增量
+     */
+    @PreDestroy
+    public void drain() {
+        flush();
+        log.info("帖子浏览数已写完，剩余计数器 {} 个", counters.size());
+    }
+
+    private void writeBatch(Map<Long, Long> deltas, Map<Long, Counter> batchCounters) {
+        try {
+            postMapper.batchAddViewNum(deltas);
+            // 写库成功后才计入已落库数，失败时增量保留到下一轮
+            deltas.forEach((postId, delta) -> batchCounters.get(postId).flushed += delta);
+        } catch (Exception e) {
+            log.error("帖子浏览数写库失败，下一轮重试，本批 {} 个帖子", deltas.size(), e);
+        }
+        deltas.clear();
+        batchCounters.clear();
+    }
+
+    /**
+     * 移除长时间无浏览的计数器；移除前后有新浏览时把差额转到新计数器
+     */
+    private void evict(Long postId, Counter counter) {
+        if (!counters.remove(postId, counter)) {
+            return;
+        }
+        long late = counter.views.sum() - counter.flushed;
+        if (late > 0) {
+            counters.computeIfAbsent(postId, id -> new Counter()).views.add(late);
+        }
+    }
+
+    /**
+     * 单个帖子的计数
+     */
+    private static final class Counter {
+
+        /**
+         * 累计浏览数
+         */
+        private final LongAdder views = new LongAdder();
+
+        /**
+         * 已写库的浏览数，只在持有 flushLock 时修改
+         */
+        private volatile long flushed;
+
+        /**
+         * 连续无新增的轮数，只在持有 flushLock 时修改
+         */
+        private int idleRounds;
+
+        private long pending() {
+            return Math.max(0, views.sum() - flushed);
+        }
+    }
+}
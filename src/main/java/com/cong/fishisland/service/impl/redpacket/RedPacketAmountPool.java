@@ -0,0 +1,129 @@
+package com.cong.fishisland.service.impl.redpacket;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 红包金额池
+ * Description: 创建红包时把每一份金额预先拆好放进 Redis 列表，抢红包由一段 Lua 脚本原子完成
+ * “是否抢过 → 弹出一份金额 → 记录抢包人 → 写入积分流水”，不依赖任何本地锁，多实例下同样正确
+ *
+ * @author cong
+ */
+@Component
+@RequiredArgsConstructor
+public class RedPacketAmountPool {
+
+    /**
+     * 待领取金额列表 redpacket:amounts:{redPacketId}
+     */
+    static final String AMOUNTS_KEY_PREFIX = "redpacket:amounts:";
+    /**
+     * 已领取记录 redpacket:grabbed:{redPacketId}（userId -> 金额:领取时间:记录ID）
+     */
+    static final String GRABBED_KEY_PREFIX = "redpacket:grabbed:";
+    /**
+     * 待入账积分流水（userId:金额:红包ID:记录ID），左进右出
+     */
+    static final String LEDGER_KEY = "redpacket:ledger";
+
+    /**
+     * 已抢过
+     */
+    public static final long ALREADY_GRABBED = -1L;
+    /**
+     * 已抢完或已过期
+     */
+    public static final long EXHAUSTED = -2L;
+
+    /**
+     * KEYS[1] 金额列表，KEYS[2] 领取记录，KEYS[3] 积分流水
+     * ARGV[1] 用户ID，ARGV[2] 领取时间，ARGV[3] 记录ID，ARGV[4] 红包ID，ARGV[5] 领取记录过期秒数
+     */
+    private static final String GRAB_SCRIPT =
+            "if redis.call('HEXISTS', KEYS[2], ARGV[1]) == 1 then return -1 end " +
+            "local amount = redis.call('LPOP', KEYS[1]) " +
+            "if not amount then return -2 end " +
+            "redis.call('HSET', KEYS[2], ARGV[1], amount .. ':' .. ARGV[2] .. ':' .. ARGV[3]) " +
+            "if redis.call('TTL', KEYS[2]) < 0 then redis.call('EXPIRE', KEYS[2], ARGV[5]) end " +
+            "redis.call('LPUSH', KEYS[3], ARGV[1] .. ':' .. amount .. ':' .. ARGV[4] .. ':' .. ARGV[3]) " +
+            "return tonumber(amount)";
+
+    private static final DefaultRedisScript<Long> REDIS_GRAB_SCRIPT = new DefaultRedisScript<>(GRAB_SCRIPT, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 存入预拆分的金额
+     *
+     * @param redPacketId 红包ID
+     * @param amounts     每一份金额
+     * @param ttl         过期时间
+     */
+    public void store(String redPacketId, List<Integer> amounts, Duration ttl) {
+        String amountsKey = AMOUNTS_KEY_PREFIX + redPacketId;
+        stringRedisTemplate.opsForList().rightPushAll(amountsKey,
+                amounts.stream().map(String::valueOf).collect(Collectors.toList()));
+        stringRedisTemplate.expire(amountsKey, ttl);
+    }
+
+    /**
+     * 抢一份金额
+     *
+     * @param redPacketId 红包ID
+     * @param userId      用户ID
+     * @param recordId    记录ID
+     * @param grabTime    领取时间（毫秒）
+     * @param ttl         领取记录过期时间
+     * @return 抢到的金额，{@link #ALREADY_GRABBED} 表示已抢过，{@link #EXHAUSTED} 表示已抢完
+     */
+    public long grab(String redPacketId, Long userId, String recordId, long grabTime, Duration ttl) {
+        Long result = stringRedisTemplate.execute(REDIS_GRAB_SCRIPT,
+                Arrays.asList(AMOUNTS_KEY_PREFIX + redPacketId, GRABBED_KEY_PREFIX + redPacketId, LEDGER_KEY),
+                String.valueOf(userId), String.valueOf(grabTime), recordId, redPacketId,
+                String.valueOf(ttl.getSeconds()));
+        return result == null ? EXHAUSTED : result;
+    }
+
+    /**
+     * 是否已抢过
+     */
+    public boolean hasGrabbed(String redPacketId, Long userId) {
+        return stringRedisTemplate.opsForHash().hasKey(GRABBED_KEY_PREFIX + redPacketId, String.valueOf(userId));
+    }
+
+    /**
+     * 剩余未领取的金额
+     */
+    public List<Integer> remainingAmounts(String redPacketId) {
+        List<String> amounts = stringRedisTemplate.opsForList().range(AMOUNTS_KEY_PREFIX + redPacketId, 0, -1);
+        if (amounts == null) {
+            return new ArrayList<>();
+        }
+        return amounts.stream().map(Integer::valueOf).collect(Collectors.toList());
+    }
+
+    /**
+     * 领取记录，userId -> 金额:领取时间:记录ID
+     */
+    public Map<Object, Object> grabbed(String redPacketId) {
+        return stringRedisTemplate.opsForHash().entries(GRABBED_KEY_PREFIX + redPacketId);
+    }
+
+    /**
+     * 已领取份数
+     */
+    public long grabbedCount(String redPacketId) {
+        Long size = stringRedisTemplate.opsForHash().size(GRABBED_KEY_PREFIX + redPacketId);
+        return size == null ? 0 : size;
+    }
+}
@@ -0,0 +1,225 @@
+package com.cong.fishisland.service.impl.redpacket;
+
+import cn.hutool.core.convert.Convert;
+import cn.hutool.core.util.IdUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cong.fishisland.common.exception.BusinessException;
+import com.cong.fishisland.model.entity.user.UserPointsRecord;
+import com.cong.fishisland.service.UserPointsRecordService;
+import com.cong.fishisland.service.UserPointsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.cong.fishisland.model.enums.user.PointsRecordSourceEnum.RED_PACKET_GRAB;
+
+/**
+ * 抢红包积分入账
+ * Description: 抢红包脚本在同一原子操作中写入积分流水，这里异步消费流水给用户加积分，
+ * 抢红包的响应不再等待数据库。流水先原子移入本节点的处理中列表，入账事务提交后才移除，
+ * 节点宕机留下的处理中列表由其他节点（或重启后的新节点）放回流水重新入账；
+ * 入账失败的流水带着重试次数进入重试集合，按指数退避到期后再放回，超过上限或业务上无法入账的进入死信列表；
+ * 每个用户每个红包只能领取一次，入账时按 用户 + 红包 去重，重复的流水不会重复加分
+ *
+ * @author cong
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedPacketPointsLedger {
+
+    /**
+     * 单轮最多处理的流水条数
+     */
+    private static final int MAX_ENTRIES_PER_ROUND = 500;
+    /**
+     * 节点处理中列表 redpacket:ledger:processing:{nodeId}
+     */
+    private static final String PROCESSING_KEY_PREFIX = "redpacket:ledger:processing:";
+    /**
+     * 登记过处理中列表的节点
+     */
+    private static final String NODES_KEY = "redpacket:ledger:nodes";
+    /**
+     * 节点存活标记 redpacket:ledger:alive:{nodeId}，入账时续期，过期即视为宕机
+     */
+    private static final String ALIVE_KEY_PREFIX = "redpacket:ledger:alive:";
+    private static final long ALIVE_TTL_SECONDS = 30;
+    /**
+     * 待重试流水（ZSet，分数为可重试的时间戳毫秒）
+     */
+    private static final String RETRY_KEY = "redpacket:ledger:retry";
+    /**
+     * 无法入账的流水，需人工处理
+     */
+    private static final String DEAD_KEY = "redpacket:ledger:dead";
+    /**
+     * 最多尝试次数，退避 1s、2s、4s…… 最长 5 分钟，总计约半小时
+     */
+    private static final int MAX_ATTEMPTS = 12;
+    private static final long MAX_BACKOFF_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * 原子地把到期的重试流水移回待入账流水：KEYS[1] 重试集合，KEYS[2] 流水；ARGV[1] 当前时间，ARGV[2] 单次上限
+     */
+    private static final DefaultRedisScript<Long> MOVE_DUE_RETRIES_SCRIPT = new DefaultRedisScript<>(
+            "local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) " +
+            "for _, entry in ipairs(due) do " +
+            "redis.call('ZREM', KEYS[1], entry) " +
+            "redis.call('LPUSH', KEYS[2], entry) " +
+            "end " +
+            "return #due", Long.class);
+
+    /**
+     * 入账结果
+     */
+    private enum CreditResult {
+        /**
+         * 已入账、重复或格式错误丢弃
+         */
+        DONE,
+        /**
+         * 暂时失败，稍后重试
+         */
+        RETRY,
+        /**
+         * 业务上无法入账（如用户积分账户不存在），重试也不会成功
+         */
+        DEAD
+    }
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final UserPointsService userPointsService;
+    private final UserPointsRecordService userPointsRecordService;
+    private final PlatformTransactionManager transactionManager;
+
+    private final String nodeId = IdUtil.fastSimpleUUID();
+
+    @Scheduled(fixedDelay = 500)
+    public void drain() {
+        ListOperations<String, String> ops = stringRedisTemplate.opsForList();
+        String processingKey = PROCESSING_KEY_PREFIX + nodeId;
+        keepAlive();
+        stringRedisTemplate.execute(MOVE_DUE_RETRIES_SCRIPT, Arrays.asList(RETRY_KEY, RedPacketAmountPool.LEDGER_KEY),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(MAX_ENTRIES_PER_ROUND));
+        for (int i = 0; i < MAX_ENTRIES_PER_ROUND; i++) {
+            String entry = ops.rightPopAndLeftPush(RedPacketAmountPool.LEDGER_KEY, processingKey);
+            if (entry == null) {
+                return;
+            }
+            CreditResult result = credit(entry);
+            // 先转移再移除，中途宕机最多留下一条重复流水，由入账去重兜底
+            if (result == CreditResult.RETRY) {
+                scheduleRetry(entry);
+            } else if (result == CreditResult.DEAD) {
+                ops.rightPush(DEAD_KEY, entry);
+            }
+            ops.remove(processingKey, 1, entry);
+        }
+    }
+
+    /**
+     * 重试次数加一后按指数退避放入重试集合，超过上限进入死信列表
+     */
+    private void scheduleRetry(String entry) {
+        String[] parts = entry.split(":");
+        int attempts = parts.length > 4 ? Convert.toInt(parts[4], 0) + 1 : 1;
+        if (attempts >= MAX_ATTEMPTS) {
+            log.error("红包积分入账重试 {} 次仍失败，转入死信：{}", attempts, entry);
+            stringRedisTemplate.opsForList().rightPush(DEAD_KEY, entry);
+            return;
+        }
+        String retryEntry = String.join(":", parts[0], parts[1], parts[2], parts.length > 3 ? parts[3] : "", String.valueOf(attempts));
+        long backoff = Math.min(TimeUnit.SECONDS.toMillis(1L << (attempts - 1)), MAX_BACKOFF_MILLIS);
+        stringRedisTemplate.opsForZSet().add(RETRY_KEY, retryEntry, System.currentTimeMillis() + backoff);
+    }
+
+    /**
+     * 把已宕机节点处理中列表里的流水放回待入账流水
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+    public void recoverAbandoned() {
+        try {
+            keepAlive();
+            Set<String> nodes = stringRedisTemplate.opsForSet().members(NODES_KEY);
+            if (nodes == null) {
+                return;
+            }
+            ListOperations<String, String> ops = stringRedisTemplate.opsForList();
+            for (String node : nodes) {
+                if (nodeId.equals(node) || Boolean.TRUE.equals(stringRedisTemplate.hasKey(ALIVE_KEY_PREFIX + node))) {
+                    continue;
+                }
+                String abandonedKey = PROCESSING_KEY_PREFIX + node;
+                int recovered = 0;
+                while (ops.rightPopAndLeftPush(abandonedKey, RedPacketAmountPool.LEDGER_KEY) != null) {
+                    recovered++;
+                }
+                stringRedisTemplate.opsForSet().remove(NODES_KEY, node);
+                if (recovered > 0) {
+                    log.warn("已放回节点 {} 未完成的红包积分流水 {} 条", node, recovered);
+                }
+            }
+        } catch (Exception e) {
+            log.error("回收红包积分处理中流水失败", e);
+        }
+    }
+
+    private void keepAlive() {
+        stringRedisTemplate.opsForValue().set(ALIVE_KEY_PREFIX + nodeId, "1", ALIVE_TTL_SECONDS, TimeUnit.SECONDS);
+        stringRedisTemplate.opsForSet().add(NODES_KEY, nodeId);
+    }
+
+    /**
+     * 入账一条流水：userId:金额:红包ID:记录ID[:已重试次数]
+     *
+     * @return 入账结果（格式错误或已入账的流水直接丢弃，视为完成）
+     */
+    private CreditResult credit(String entry) {
+        String[] parts = entry.split(":");
+        if (parts.length < 3) {
+            log.error("红包积分流水格式错误，已丢弃：{}", entry);
+            return CreditResult.DONE;
+        }
+        try {
+            Long userId = Long.valueOf(parts[0]);
+            int amount = Integer.parseInt(parts[1]);
+            String redPacketId = parts[2];
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                userPointsService.updateUsedPoints(userId, -amount, RED_PACKET_GRAB.getValue(), redPacketId, "抢红包获得积分");
+                // 先更新积分行拿到行锁再查，同一流水的并发重试会在这里看到已提交的记录
+                long credited = userPointsRecordService.count(new LambdaQueryWrapper<UserPointsRecord>()
+                        .eq(UserPointsRecord::getUserId, userId)
+                        .eq(UserPointsRecord::getSourceType, RED_PACKET_GRAB.getValue())
+                        .eq(UserPointsRecord::getSourceId, redPacketId));
+                if (credited > 1) {
+                    log.warn("红包积分流水已入账，跳过重复流水：{}", entry);
+                    status.setRollbackOnly();
+                }
+            });
+            return CreditResult.DONE;
+        } catch (NumberFormatException e) {
+            log.error("红包积分流水格式错误，已丢弃：{}", entry);
+            return CreditResult.DONE;
+        } catch (BusinessException e) {
+            log.error("红包积分无法入账，转入死信：{}，原因：{}", entry, e.getMessage());
+            return CreditResult.DEAD;
+        } catch (Exception e) {
+            log.error("红包积分入账失败，稍后重试：{}", entry, e);
+            return CreditResult.RETRY;
+        }
+    }
+}
@@ -11,7 +11,6 @@ import static com.cong.fishisland.model.enums.user.PointsRecordSourceEnum.*;
 import com.cong.fishisland.model.entity.chat.RoomMessage;
 import com.cong.fishisland.model.entity.donation.DonationRecords;
 import com.cong.fishisland.model.entity.redpacket.RedPacket;
-import com.cong.fishisland.model.entity.redpacket.RedPacketRecord;
 import com.cong.fishisland.model.entity.user.User;
 import com.cong.fishisland.model.entity.user.UserPoints;
 import com.cong.fishisland.model.enums.MessageTypeEnum;
@@ -28,7 +27,6 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
-import org.springframework.beans.BeanUtils;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -38,9 +36,7 @@ import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 /**
@@ -61,11 +57,10 @@ public class RedPacketServiceImpl implements RedPacketService {
     private final RoomMessageService roomMessageService;
     private final DonationRecordsService donationRecordsService;
     private final ScriptBehaviorDetectService scriptBehaviorDetectService;
+    private final RedPacketAmountPool redPacketAmountPool;
 
     // Redis key前缀
     private static final String RED_PACKET_KEY_PREFIX = "redpacket:";
-    private static final String RED_PACKET_RECORD_KEY_PREFIX = "redpacket:record:";
-    private static final String RED_PACKET_USER_KEY_PREFIX = "redpacket:user:";
     private static final String RED_PACKET_DAILY_COUNT_KEY_PREFIX = "redpacket:daily_count:";
     /** 红包与福袋共享免积分次数 */
     private static final String SEND_FREE_COUNT_KEY_PREFIX = "send:free_count:";
@@ -87,10 +82,6 @@ public class RedPacketServiceImpl implements RedPacketService {
     private static final BigDecimal VIP_DONATION_FREE_TWO = new BigDecimal("29");
     private static final BigDecimal VIP_DONATION_FREE_ALL = new BigDecimal("100");
 
-    // 每个红包的本地排队信号量，保证同一时刻只有一个线程执行抢红包核心逻辑
-    private final ConcurrentHashMap<String, Semaphore> redPacketSemaphores = new ConcurrentHashMap<>();
-    // 排队最长等待时间（秒）
-    private static final int QUEUE_WAIT_TIMEOUT_SECONDS = 10;
     private static final int QUIZ_NAME_MAX_LENGTH = 200;
     private static final int QUIZ_ANSWER_MAX_LENGTH = 50;
     /** 答题红包单人单次最多抢到积分 */
@@ -119,18 +110,8 @@ public class RedPacketServiceImpl implements RedPacketService {
         // 如果是平均红包，计算每个红包的金额
         redPacket.setAmountPerPacket(10);
 
-        // 将红包信息存入Redis
-        String redPacketKey = RED_PACKET_KEY_PREFIX + redPacketId;
-        redisTemplate.opsForValue().set(redPacketKey, redPacket, Duration.ofSeconds(RED_PACKET_EXPIRE_TIME));
-
-        // 创建红包记录集合
-        String redPacketRecordKey = RED_PACKET_RECORD_KEY_PREFIX + redPacketId;
-        redisTemplate.expire(redPacketRecordKey, Duration.ofSeconds(RED_PACKET_EXPIRE_TIME));
-
-        // 创建红包用户集合（用于记录抢过红包的用户）
-        String redPacketUserKey = RED_PACKET_USER_KEY_PREFIX + redPacketId;
-        redisTemplate.opsForSet().add(redPacketUserKey, new HashSet<>());
-        redisTemplate.expire(redPacketUserKey, Duration.ofSeconds(RED_PACKET_EXPIRE_TIME));
+        // 将红包信息及预拆分的金额存入Redis
+        storeRedPacket(redPacket);
 
         MessageWrapper systemMessageWrapper = getSystemMessageWrapper("[redpacket]" + redPacketId + "[/redpacket]");
         systemMessageWrapper.getMessage().setRoomId("-1");
@@ -267,19 +248,8 @@ public class RedPacketServiceImpl implements RedPacketService {
             redPacket.setAmountPerPacket(request.getTotalAmount() / request.getCount());
         }
 
-        // 将红包信息存入Redis
-        String redPacketKey = RED_PACKET_KEY_PREFIX + redPacketId;
-        redisTemplate.opsForValue().set(redPacketKey, redPacket, Duration.ofSeconds(RED_PACKET_EXPIRE_TIME));
-
-        // 创建红包记录集合
-        String redPacketRecordKey = RED_PACKET_RECORD_KEY_PREFIX + redPacketId;
-//        redisTemplate.opsForSet().add(redPacketRecordKey, new HashSet<>());
-        redisTemplate.expire(redPacketRecordKey, Duration.ofSeconds(RED_PACKET_EXPIRE_TIME));
-
-        // 创建红包用户集合（用于记录抢过红包的用户）
-        String redPacketUserKey = RED_PACKET_USER_KEY_PREFIX + redPacketId;
-        redisTemplate.opsForSet().add(redPacketUserKey, new HashSet<>());
-        redisTemplate.expire(redPacketUserKey, Duration.ofSeconds(RED_PACKET_EXPIRE_TIME));
+        // 将红包信息及预拆分的金额存入Redis
+        storeRedPacket(redPacket);
 
         //扣减用户可用积分
         if (!freeThisTime) {
@@ -297,9 +267,8 @@ public class RedPacketServiceImpl implements RedPacketService {
 
     @Override
     public Integer grabRedPacket(String redPacketId, Long userId, String answer) {
-        // 获取红包信息
-        String redPacketKey = RED_PACKET_KEY_PREFIX + redPacketId;
-        RedPacket redPacket = JSON.parseObject(JSON.toJSONString(redisTemplate.opsForValue().get(redPacketKey)), RedPacket.class);
+        // 获取红包信息（创建后不再变化，剩余金额和份数以金额池为准）
+        RedPacket redPacket = getRedPacket(redPacketId);
 
         if (redPacket == null) {
             throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "红包不存在");
@@ -316,127 +285,60 @@ public class RedPacketServiceImpl implements RedPacketService {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "红包已抢完或已过期");
         }
 
-        // 检查用户是否已抢过红包
-        String redPacketUserKey = RED_PACKET_USER_KEY_PREFIX + redPacketId;
-        Boolean isMember = redisTemplate.opsForSet().isMember(redPacketUserKey, userId.toString());
-        if (Boolean.TRUE.equals(isMember)) {
+        // 提前拦截重复请求，真正的判断在脚本中原子完成
+        if (redPacketAmountPool.hasGrabbed(redPacketId, userId)) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "您已抢过该红包");
         }
 
         validateGrabAnswer(redPacket, answer);
 
-        // 本地信号量排队：同一红包同一时刻只允许一个线程执行核心逻辑，其余线程按先后顺序等待
-        Semaphore semaphore = redPacketSemaphores.computeIfAbsent(redPacketId, k -> new Semaphore(1, true));
-        boolean acquired = false;
-        try {
-            // 排队等待信号量，最多等待 QUEUE_WAIT_TIMEOUT_SECONDS 秒
-            try {
-                acquired = semaphore.tryAcquire(QUEUE_WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                throw new BusinessException(ErrorCode.OPERATION_ERROR, "抢红包被中断，请重试");
-            }
-            if (!acquired) {
-                log.warn("用户 {} 排队超时，红包ID: {}", userId, redPacketId);
-                throw new BusinessException(ErrorCode.OPERATION_ERROR, "排队超时，请稍后再试");
-            }
-
-            // 再次检查红包状态（双重检查）
-            redPacket = JSON.parseObject(JSON.toJSONString(redisTemplate.opsForValue().get(redPacketKey)), RedPacket.class);
-            if (redPacket == null || redPacket.getStatus() != 0 || redPacket.getRemainingCount() <= 0) {
-                throw new BusinessException(ErrorCode.OPERATION_ERROR, "红包已抢完或已过期");
-            }
-
-            // 再次检查用户是否已抢过红包（双重检查）
-            isMember = redisTemplate.opsForSet().isMember(redPacketUserKey, userId.toString());
-            if (Boolean.TRUE.equals(isMember)) {
-                throw new BusinessException(ErrorCode.OPERATION_ERROR, "您已抢过该红包");
-            }
-
-            // 答题红包在排队期间再次校验答案
-            validateGrabAnswer(redPacket, answer);
-
-            // 计算抢到的金额
-            Integer amount;
-            if (RedPacketTypeEnum.RANDOM.getValue() == redPacket.getType()) {
-                amount = calculateRandomAmount(redPacket);
-            } else {
-                // 平均红包、答题红包均按固定份额分配
-                amount = redPacket.getAmountPerPacket();
-                if (RedPacketTypeEnum.QUIZ.getValue() == redPacket.getType()) {
-                    amount = capQuizGrabAmount(amount, redPacket.getRemainingAmount());
-                }
-            }
-
-            // 更新红包信息
-            redPacket.setRemainingAmount(redPacket.getRemainingAmount() - amount);
-            redPacket.setRemainingCount(redPacket.getRemainingCount() - 1);
-
-            // 如果红包已抢完，更新状态
-            if (redPacket.getRemainingCount() <= 0) {
-                // 已抢完
-                redPacket.setStatus(1);
-            }
-
-            // 更新Redis中的红包信息
-            redisTemplate.opsForValue().set(redPacketKey, redPacket, Duration.ofSeconds(RED_PACKET_EXPIRE_TIME));
-
-            // 记录用户已抢过该红包
-            redisTemplate.opsForSet().add(redPacketUserKey, userId.toString());
-
-            // 创建抢红包记录
-            RedPacketRecord record = new RedPacketRecord();
-            record.setId(generateRecordId());
-            record.setRedPacketId(redPacketId);
-            record.setUserId(userId);
-            record.setAmount(amount);
-            record.setGrabTime(new Date());
-
-            // 将抢红包记录存入Redis
-            String redPacketRecordKey = RED_PACKET_RECORD_KEY_PREFIX + redPacketId;
-            redisTemplate.opsForSet().add(redPacketRecordKey, record);
+        // 脚本原子完成：检查是否抢过、弹出一份金额、记录抢包人、写入积分流水
+        long amount = redPacketAmountPool.grab(redPacketId, userId, generateRecordId(),
+                System.currentTimeMillis(), Duration.ofSeconds(RED_PACKET_EXPIRE_TIME));
+        if (amount == RedPacketAmountPool.ALREADY_GRABBED) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "您已抢过该红包");
+        }
+        if (amount == RedPacketAmountPool.EXHAUSTED) {
+            throw new BusinessException(ErrorCode.OPERATION_ERROR, "红包已抢完或已过期");
+        }
 
-            //增加用户积分
-            userPointsService.updateUsedPoints(userId, -amount, RED_PACKET_GRAB.getValue(), redPacketId, "抢红包获得积分");
+        // 积分由 RedPacketPointsLedger 异步入账
 
-            // 行为检测：若在红包发出后1秒内抢到，标记为脚本用户
-            markScriptUserIfNeeded(userId, redPacket.getCreateTime());
+        // 行为检测：若在红包发出后1秒内抢到，标记为脚本用户
+        markScriptUserIfNeeded(userId, redPacket.getCreateTime());
 
-            return amount;
-        } finally {
-            // 释放本地信号量，让下一个排队的线程进入
-            if (acquired) {
-                semaphore.release();
-            }
-            // 红包已抢完时清理信号量，避免内存泄漏
-            RedPacket finalRedPacket = JSON.parseObject(
-                    JSON.toJSONString(redisTemplate.opsForValue().get(RED_PACKET_KEY_PREFIX + redPacketId)),
-                    RedPacket.class);
-            if (finalRedPacket == null || finalRedPacket.getStatus() != 0) {
-                redPacketSemaphores.remove(redPacketId);
-            }
-        }
+        return (int) amount;
     }
 
     @Override
     public List<RedPacketRecordVO> getRedPacketRecords(String redPacketId) {
         // 获取红包记录
-        String redPacketRecordKey = RED_PACKET_RECORD_KEY_PREFIX + redPacketId;
-        Set<Object> records = redisTemplate.opsForSet().members(redPacketRecordKey);
+        Map<Object, Object> grabbed = redPacketAmountPool.grabbed(redPacketId);
 
-        if (records == null || records.isEmpty()) {
+        if (grabbed.isEmpty()) {
             return Collections.emptyList();
         }
 
-        // 转换为VO列表
-        return records.stream()
-                .map(record -> {
-                    RedPacketRecord redPacketRecord = JSON.parseObject(JSON.toJSONString(record), RedPacketRecord.class);
+        // 批量获取用户信息
+        Set<Long> userIds = grabbed.keySet().stream()
+                .map(key -> Long.valueOf(key.toString()))
+                .collect(Collectors.toSet());
+        Map<Long, User> userMap = userService.listByIds(userIds).stream()
+                .collect(Collectors.toMap(User::getId, user -> user, (a, b) -> a));
+
+        // 转换为VO列表，按领取时间排序
+        return grabbed.entrySet().stream()
+                .map(entry -> {
+                    // 金额:领取时间:记录ID
+                    String[] parts = entry.getValue().toString().split(":", 3);
                     RedPacketRecordVO vo = new RedPacketRecordVO();
-                    BeanUtils.copyProperties(redPacketRecord, vo);
+                    vo.setId(parts[2]);
+                    vo.setRedPacketId(redPacketId);
+                    vo.setUserId(Long.valueOf(entry.getKey().toString()));
+                    vo.setAmount(Integer.valueOf(parts[0]));
+                    vo.setGrabTime(new Date(Long.parseLong(parts[1])));
 
-                    // 获取用户信息
-                    User user = userService.getById(redPacketRecord.getUserId());
+                    User user = userMap.get(vo.getUserId());
                     if (user != null) {
                         vo.setUserName(user.getUserName());
                         vo.setUserAvatar(user.getUserAvatar());
@@ -444,26 +346,27 @@ public class RedPacketServiceImpl implements RedPacketService {
 
                     return vo;
                 })
+                .sorted(Comparator.comparing(RedPacketRecordVO::getGrabTime))
                 .collect(Collectors.toList());
     }
 
     @Override
     public RedPacket getRedPacketDetail(String redPacketId) {
         // 获取红包信息
-        String redPacketKey = RED_PACKET_KEY_PREFIX + redPacketId;
-        RedPacket redPacket = JSON.parseObject(JSON.toJSONString(redisTemplate.opsForValue().get(redPacketKey)), RedPacket.class);
+        RedPacket redPacket = getRedPacket(redPacketId);
 
         if (redPacket == null) {
             throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "红包不存在");
         }
 
-        // 获取红包记录
-        String redPacketRecordKey = RED_PACKET_RECORD_KEY_PREFIX + redPacketId;
-        Set<Object> records = redisTemplate.opsForSet().members(redPacketRecordKey);
-
-        // 设置已抢红包数量
-        if (records != null) {
-            redPacket.setGrabCount(records.size());
+        // 剩余金额、份数和已抢数量以金额池为准
+        List<Integer> remainingAmounts = redPacketAmountPool.remainingAmounts(redPacketId);
+        redPacket.setRemainingCount(remainingAmounts.size());
+        redPacket.setRemainingAmount(remainingAmounts.stream().mapToInt(Integer::intValue).sum());
+        redPacket.setGrabCount((int) redPacketAmountPool.grabbedCount(redPacketId));
+        if (redPacket.getStatus() == 0 && remainingAmounts.isEmpty()) {
+            // 已抢完
+            redPacket.setStatus(1);
         }
 
         // 获取创建者信息
@@ -538,13 +441,49 @@ public class RedPacketServiceImpl implements RedPacketService {
         return "rpr" + UUID.randomUUID().toString().replace("-", "");
     }
 
+    /**
+     * 保存红包信息，并把每一份金额预先拆好存入金额池
+     */
+    private void storeRedPacket(RedPacket redPacket) {
+        Duration ttl = Duration.ofSeconds(RED_PACKET_EXPIRE_TIME);
+        redisTemplate.opsForValue().set(RED_PACKET_KEY_PREFIX + redPacket.getId(), redPacket, ttl);
+        redPacketAmountPool.store(redPacket.getId(), splitAmounts(redPacket), ttl);
+    }
+
+    private RedPacket getRedPacket(String redPacketId) {
+        return JSON.parseObject(JSON.toJSONString(redisTemplate.opsForValue().get(RED_PACKET_KEY_PREFIX + redPacketId)), RedPacket.class);
+    }
+
+    /**
+     * 按红包类型预拆分每一份金额
+     */
+    private List<Integer> splitAmounts(RedPacket redPacket) {
+        List<Integer> amounts = new ArrayList<>(redPacket.getCount());
+        int remainingAmount = redPacket.getTotalAmount();
+        for (int remainingCount = redPacket.getCount(); remainingCount > 0; remainingCount--) {
+            int amount;
+            if (RedPacketTypeEnum.RANDOM.getValue() == redPacket.getType()) {
+                amount = calculateRandomAmount(redPacket, remainingAmount, remainingCount);
+            } else {
+                // 平均红包、答题红包均按固定份额分配
+                amount = redPacket.getAmountPerPacket();
+                if (RedPacketTypeEnum.QUIZ.getValue() == redPacket.getType()) {
+                    amount = capQuizGrabAmount(amount, remainingAmount);
+                }
+            }
+            amounts.add(amount);
+            remainingAmount -= amount;
+        }
+        return amounts;
+    }
+
     /**
      * 计算随机红包金额
      */
-    private Integer calculateRandomAmount(RedPacket redPacket) {
+    private Integer calculateRandomAmount(RedPacket redPacket, int remainingAmount, int remainingCount) {
         // 如果是最后一个红包，直接返回剩余金额
-        if (redPacket.getRemainingCount() == 1) {
-            return redPacket.getRemainingAmount();
+        if (remainingCount == 1) {
+            return remainingAmount;
         }
 
         // 计算平均金额
@@ -556,14 +495,11 @@ public class RedPacketServiceImpl implements RedPacketService {
         int minAmount = 1;
         // 取剩余金额和最大允许金额中的较小值作为上限
         int maxAmount = Math.min(
-                redPacket.getRemainingAmount() - (redPacket.getRemainingCount() - 1) * minAmount,
+                remainingAmount - (remainingCount - 1) * minAmount,
                 maxAllowedAmount
         );
 
-        // 使用Random生成随机数
-        Random random = new Random();
-
-        return random.nextInt(maxAmount) + minAmount;
+        return ThreadLocalRandom.current().nextInt(maxAmount) + minAmount;
     }
 
     /**
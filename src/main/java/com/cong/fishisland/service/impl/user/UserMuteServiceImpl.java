@@ -7,7 +7,9 @@ import com.cong.fishisland.model.vo.user.UserMuteVO;
 import com.cong.fishisland.service.UserMuteService;
 import com.cong.fishisland.service.UserService;
 import com.cong.fishisland.utils.RedisUtils;
+import com.cong.fishisland.websocket.event.UserSessionChangeEvent;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
@@ -26,6 +28,9 @@ public class UserMuteServiceImpl implements UserMuteService {
     @Resource
     private UserService userService;
 
+    @Resource
+    private ApplicationEventPublisher applicationEventPublisher;
+
     @Override
     public boolean muteUser(Long userId, Long duration) {
 
@@ -39,6 +44,7 @@ public class UserMuteServiceImpl implements UserMuteService {
             String muteKey = RedisKey.getKey(RedisKey.USER_MUTE, userId);
             // 设置禁言，值为结束时间的时间戳
             RedisUtils.set(muteKey, String.valueOf(System.currentTimeMillis() + (duration * 1000)), Duration.ofSeconds(duration));
+            applicationEventPublisher.publishEvent(new UserSessionChangeEvent(this, userId));
             return true;
         } catch (Exception e) {
             log.error("禁言用户失败，userId={}, duration={}", userId, duration, e);
@@ -63,7 +69,9 @@ public class UserMuteServiceImpl implements UserMuteService {
                 return true;
             }
             // 直接删除禁言记录
-            return RedisUtils.delete(muteKey);
+            Boolean deleted = RedisUtils.delete(muteKey);
+            applicationEventPublisher.publishEvent(new UserSessionChangeEvent(this, userId));
+            return Boolean.TRUE.equals(deleted);
         } catch (Exception e) {
             log.error("解除用户禁言失败，userId={}", userId, e);
             return false;
@@ -131,4 +139,22 @@ public class UserMuteServiceImpl implements UserMuteService {
             return vo;
         }
     }
+
+    @Override
+    public long getMuteEndTime(Long userId) {
+        if (userId == null) {
+            return 0;
+        }
+        try {
+            String endTimeStr = RedisUtils.get(RedisKey.getKey(RedisKey.USER_MUTE, userId));
+            if (endTimeStr == null || endTimeStr.isEmpty()) {
+                return 0;
+            }
+            long endTime = Long.parseLong(endTimeStr);
+            return endTime > System.currentTimeMillis() ? endTime : 0;
+        } catch (Exception e) {
+            log.error("获取用户禁言结束时间失败，userId={}", userId, e);
+            return 0;
+        }
+    }
 } 
\ No newline at end of file
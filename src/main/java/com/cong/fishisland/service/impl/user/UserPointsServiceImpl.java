@@ -1,7 +1,6 @@
 package com.cong.fishisland.service.impl.user;
 
 import cn.dev33.satoken.stp.StpUtil;
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.cong.fishisland.common.ErrorCode;
 import com.cong.fishisland.common.exception.BusinessException;
@@ -9,31 +8,37 @@ import com.cong.fishisland.common.exception.ThrowUtils;
 import com.cong.fishisland.constant.ActionTypeConstant;
 import com.cong.fishisland.constant.PointConstant;
 import com.cong.fishisland.constant.SourceTypeConstant;
-import com.cong.fishisland.constant.VipTypeConstant;
 import com.cong.fishisland.mapper.event.EventRemindMapper;
-import com.cong.fishisland.mapper.user.UserVipMapper;
 import com.cong.fishisland.model.entity.event.EventRemind;
 import com.cong.fishisland.model.entity.user.UserPoints;
-import com.cong.fishisland.model.entity.user.UserVip;
 import com.cong.fishisland.model.vo.user.SignInVO;
 import com.cong.fishisland.service.UserPointsRecordService;
 import com.cong.fishisland.service.UserPointsService;
 import com.cong.fishisland.mapper.user.UserPointsMapper;
 import com.cong.fishisland.service.UserSignInService;
 import com.cong.fishisland.utils.RedisUtils;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.annotation.PreDestroy;
 import javax.annotation.Resource;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static com.cong.fishisland.model.enums.user.PointsRecordSourceEnum.*;
 
@@ -42,11 +47,12 @@ import static com.cong.fishisland.model.enums.user.PointsRecordSourceEnum.*;
  * @description 针对表【user_points(用户积分)】的数据库操作Service实现
  * @createDate 2025-03-12 16:13:45
  */
+@Slf4j
 @Service
 public class UserPointsServiceImpl extends ServiceImpl<UserPointsMapper, UserPoints>
         implements UserPointsService {
     @Resource
-    private UserVipMapper userVipMapper;
+    private VipEntitlementIndex vipEntitlementIndex;
 
     @Resource
     private UserPointsRecordService userPointsRecordService;
@@ -57,18 +63,35 @@ public class UserPointsServiceImpl extends ServiceImpl<UserPointsMapper, UserPoi
 
     private static final String SIGN_IN_KEY_PREFIX = "user:signin:";
     private static final String SPEAK_KEY_PREFIX = "user:speak:";
-    private static final String USER_POINTS_LOCK_PREFIX = "user:points:lock:";
     private static final int MAX_DAILY_SPEAK_POINTS = 10;
-    private static final long POINTS_LOCK_WAIT_SECONDS = 5;
-    private static final long POINTS_LOCK_LEASE_SECONDS = 10;
+    /**
+     * 发言积分合并入库间隔（毫秒）
+     */
+    private static final long SPEAK_POINTS_FLUSH_MILLIS = 10_000;
     /** 大额积分变动通知接收人（管理员） */
     private static final long POINTS_ALERT_ADMIN_USER_ID = 1L;
 
     @Resource
-    private RedissonClient redissonClient;
+    private EventRemindMapper eventRemindMapper;
 
     @Resource
-    private EventRemindMapper eventRemindMapper;
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 等级对应的积分范围 (起始积分)
+     */
+    private static final int[] LEVEL_THRESHOLDS = {0, 125, 300, 600, 1100, 2100, 4100, 6000, 8000, 10000, 12000, 14000, 16000, 18000};
+
+    /**
+     * 2 级及以上的起始积分，供 SQL 直接计算等级
+     */
+    private static final List<Integer> LEVEL_UP_THRESHOLDS = Arrays.stream(LEVEL_THRESHOLDS)
+            .skip(1).boxed().collect(Collectors.toList());
+
+    /**
+     * 待入库的发言积分，按用户合并后定时写入
+     */
+    private final Map<Long, Integer> pendingSpeakPoints = new ConcurrentHashMap<>();
 
 
     @Override
@@ -133,15 +156,9 @@ public class UserPointsServiceImpl extends ServiceImpl<UserPointsMapper, UserPoi
 
     @Override
     public void updatePoints(Long userId, Integer points, boolean isSignIn) {
-        runWithUserPointsLock(userId, () -> {
-            UserPoints userPoints = this.getById(userId);
-            userPoints.setPoints(userPoints.getPoints() + points);
-            userPoints.setLevel(calculateLevel(userPoints.getPoints()));
-            if (isSignIn) {
-                userPoints.setLastSignInDate(new Date());
-            }
-            this.updateById(userPoints);
-        });
+        // 直接在 SQL 中累加并重算等级，无需先读后写
+        int updated = baseMapper.addPoints(userId, points, LEVEL_UP_THRESHOLDS, isSignIn);
+        ThrowUtils.throwIf(updated == 0, ErrorCode.NOT_FOUND_ERROR, "用户积分不存在");
     }
 
 //    @Override
@@ -160,20 +177,23 @@ public class UserPointsServiceImpl extends ServiceImpl<UserPointsMapper, UserPoi
 
     @Override
     public void updateUsedPoints(Long userId, Integer points) {
-        runWithUserPointsLock(userId, () -> {
-            UserPoints userPoints = this.getById(userId);
-            int used = userPoints.getUsedPoints() == null ? 0 : userPoints.getUsedPoints();
-            userPoints.setUsedPoints(used + points);
-            this.updateById(userPoints);
-        });
+        changeUsedPoints(userId, points);
     }
 
-    public int calculateLevel(int points) {
-        // 等级对应的积分范围 (起始积分)
-        int[] thresholds = {0, 125, 300, 600, 1100, 2100, 4100, 6000, 8000, 10000, 12000, 14000, 16000, 18000};
+    /**
+     * 以增量方式调整已用积分：增加已用（消费）时要求可用积分充足，减少已用（返还、奖励）时直接累加
+     */
+    private void changeUsedPoints(Long userId, int points) {
+        if (points > 0) {
+            ThrowUtils.throwIf(baseMapper.spendPoints(userId, points) == 0, ErrorCode.OPERATION_ERROR, "用户积分不足");
+        } else {
+            ThrowUtils.throwIf(baseMapper.addUsedPoints(userId, points) == 0, ErrorCode.NOT_FOUND_ERROR, "用户积分不存在");
+        }
+    }
 
-        for (int i = thresholds.length - 1; i >= 0; i--) {
-            if (points >= thresholds[i]) {
+    public int calculateLevel(int points) {
+        for (int i = LEVEL_THRESHOLDS.length - 1; i >= 0; i--) {
+            if (points >= LEVEL_THRESHOLDS[i]) {
                 // 级别从 1 开始
                 return i + 1;
             }
@@ -187,34 +207,54 @@ public class UserPointsServiceImpl extends ServiceImpl<UserPointsMapper, UserPoi
         // **发言积分**
         String speakKey = SPEAK_KEY_PREFIX + userId + ":" + LocalDate.now();
 
-        // 获取当前用户今日的发言积分总数
-        Integer currentSpeakPoints = Optional.ofNullable(RedisUtils.get(speakKey))
-                .map(Integer::parseInt)
-                .orElse(0);
-
-        if (currentSpeakPoints >= MAX_DAILY_SPEAK_POINTS) {
-            // 超过每日上限
+        // 原子累加今日发言积分次数，超过每日上限不再奖励
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime nextDayMidnight = now.plusDays(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
+        int expireSeconds = (int) Duration.between(now, nextDayMidnight).getSeconds();
+        Long speakCount = RedisUtils.inc(speakKey, Math.max(expireSeconds, 1), TimeUnit.SECONDS);
+        if (speakCount == null || speakCount > MAX_DAILY_SPEAK_POINTS) {
             return;
         }
 
-        // **数据库增加积分**
-        updatePoints(userId, PointConstant.SPEAK_POINT, false);
-
-        // 记录积分变动
-        UserPoints speakUserPoints = this.getById(userId);
-        int speakBeforePoints = speakUserPoints.getPoints() - PointConstant.SPEAK_POINT;
-        int speakAfterPoints = speakUserPoints.getPoints();
-        int speakUsedPoints = speakUserPoints.getUsedPoints() == null ? 0 : speakUserPoints.getUsedPoints();
-        userPointsRecordService.addPointsIncreaseRecord(userId, PointConstant.SPEAK_POINT, SPEAK.getValue(), "房间发言奖励",
-                speakBeforePoints, speakAfterPoints, speakUsedPoints, speakUsedPoints);
-
-        // **更新 Redis 计数**
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime nextDayMidnight = now.plusDays(1).withHour(0).withMinute(0).withSecond(0).withNano(0);
-        Duration expireDuration = Duration.between(now, nextDayMidnight);
-        //增加发言积分
-        RedisUtils.inc(speakKey, expireDuration);
+        // 发言频率高，先在内存中按用户合并，定时批量入库
+        pendingSpeakPoints.merge(userId, PointConstant.SPEAK_POINT, Integer::sum);
+    }
 
+    /**
+     * 合并写入发言积分：每个用户一次增量更新和一条积分记录，二者在同一事务内，只有回滚时才放回下一轮重试
+     */
+    @PreDestroy
+    @Scheduled(fixedDelay = SPEAK_POINTS_FLUSH_MILLIS)
+    public void flushSpeakPoints() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (Long userId : pendingSpeakPoints.keySet()) {
+            Integer points = pendingSpeakPoints.remove(userId);
+            if (points == null || points <= 0) {
+                continue;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    updatePoints(userId, points, false);
+
+                    // 记录积分变动
+                    UserPoints speakUserPoints = this.getById(userId);
+                    int speakAfterPoints = speakUserPoints.getPoints();
+                    int speakUsedPoints = speakUserPoints.getUsedPoints() == null ? 0 : speakUserPoints.getUsedPoints();
+                    userPointsRecordService.addPointsIncreaseRecord(userId, points, SPEAK.getValue(), "房间发言奖励",
+                            speakAfterPoints - points, speakAfterPoints, speakUsedPoints, speakUsedPoints);
+                });
+            } catch (BusinessException e) {
+                // 积分账户不存在，重试也不会成功
+                log.error("发言积分入库失败，丢弃，用户 {}，积分 {}：{}", userId, points, e.getMessage());
+            } catch (TransactionException e) {
+                // 提交或回滚本身失败，结果未知，不再重试以免重复加分
+                log.error("发言积分入库事务异常，用户 {}，积分 {}", userId, points, e);
+            } catch (Exception e) {
+                log.error("发言积分入库失败，用户 {}，积分 {}", userId, points, e);
+                // 事务已回滚，放回待入库，下一轮重试
+                pendingSpeakPoints.merge(userId, points, Integer::sum);
+            }
+        }
     }
 
     /**
@@ -224,43 +264,35 @@ public class UserPointsServiceImpl extends ServiceImpl<UserPointsMapper, UserPoi
      * @param pointsToDeduct 要扣除的积分
      */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void deductPoints(Long userId, Integer pointsToDeduct) {
         deductPoints(userId, pointsToDeduct, OTHER.getValue(), null, "积分扣除");
     }
 
+    /**
+     * 条件更新保证可用积分不为负；更新与回读在同一事务内，行锁保证流水中的前后值准确
+     */
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void deductPoints(Long userId, Integer pointsToDeduct, String sourceType, String sourceId, String description) {
-        runWithUserPointsLock(userId, () -> doDeductPoints(userId, pointsToDeduct, sourceType, sourceId, description));
-    }
-
-    private void doDeductPoints(Long userId, Integer pointsToDeduct, String sourceType, String sourceId, String description) {
+        ThrowUtils.throwIf(baseMapper.spendPoints(userId, pointsToDeduct) == 0, ErrorCode.OPERATION_ERROR, "用户积分不足");
         UserPoints userPoints = this.getById(userId);
-        ThrowUtils.throwIf(userPoints == null, ErrorCode.NOT_FOUND_ERROR, "用户积分不存在");
-        int total = userPoints.getPoints() == null ? 0 : userPoints.getPoints();
-        int used = userPoints.getUsedPoints() == null ? 0 : userPoints.getUsedPoints();
-        ThrowUtils.throwIf(total - used < pointsToDeduct, ErrorCode.OPERATION_ERROR, "用户积分不足");
-        int beforeUsedPoints = used;
-        userPoints.setUsedPoints(used + pointsToDeduct);
-        this.updateById(userPoints);
+        int afterUsedPoints = userPoints.getUsedPoints();
 
         userPointsRecordService.addPointsRecord(userId, 2, pointsToDeduct,
                 userPoints.getPoints(), userPoints.getPoints(),
-                beforeUsedPoints, userPoints.getUsedPoints(),
+                afterUsedPoints - pointsToDeduct, afterUsedPoints,
                 sourceType, sourceId, description);
         notifyAdminIfLargePointsConsume(userId, pointsToDeduct, description);
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void updateUsedPoints(Long userId, Integer points, String sourceType, String sourceId, String description) {
-        runWithUserPointsLock(userId, () -> doUpdateUsedPoints(userId, points, sourceType, sourceId, description));
-    }
-
-    private void doUpdateUsedPoints(Long userId, Integer points, String sourceType, String sourceId, String description) {
+        changeUsedPoints(userId, points);
         UserPoints userPoints = this.getById(userId);
-        int beforeUsedPoints = userPoints.getUsedPoints() == null ? 0 : userPoints.getUsedPoints();
-        int afterUsedPoints = beforeUsedPoints + points;
-        userPoints.setUsedPoints(afterUsedPoints);
-        this.updateById(userPoints);
+        int afterUsedPoints = userPoints.getUsedPoints();
+        int beforeUsedPoints = afterUsedPoints - points;
 
         if (points < 0) {
             userPointsRecordService.addPointsRecord(userId, 1, -points,
@@ -300,41 +332,18 @@ public class UserPointsServiceImpl extends ServiceImpl<UserPointsMapper, UserPoi
     }
 
     @Override
+    @Transactional(rollbackFor = Exception.class)
     public void runWithUserPointsLocks(Long[] userIds, Runnable action) {
-        Long[] sorted = Arrays.stream(userIds)
-                .filter(id -> id != null)
+        List<Long> sorted = Arrays.stream(userIds)
+                .filter(Objects::nonNull)
                 .distinct()
                 .sorted()
-                .toArray(Long[]::new);
-        if (sorted.length == 0) {
-            action.run();
-            return;
+                .collect(Collectors.toList());
+        if (!sorted.isEmpty()) {
+            // 按 userId 升序锁定积分行，多人互转时不会死锁
+            baseMapper.lockByUserIds(sorted);
         }
-        RLock[] locks = Arrays.stream(sorted)
-                .map(id -> redissonClient.getLock(USER_POINTS_LOCK_PREFIX + id))
-                .toArray(RLock[]::new);
-        try {
-            for (RLock lock : locks) {
-                boolean acquired = lock.tryLock(POINTS_LOCK_WAIT_SECONDS, POINTS_LOCK_LEASE_SECONDS, TimeUnit.SECONDS);
-                if (!acquired) {
-                    throw new BusinessException(ErrorCode.OPERATION_ERROR, "操作频繁，请稍后再试");
-                }
-            }
-            action.run();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "系统繁忙，请稍后再试");
-        } finally {
-            for (int i = locks.length - 1; i >= 0; i--) {
-                if (locks[i].isHeldByCurrentThread()) {
-                    locks[i].unlock();
-                }
-            }
-        }
-    }
-
-    private void runWithUserPointsLock(Long userId, Runnable action) {
-        runWithUserPointsLocks(new Long[]{userId}, action);
+        action.run();
     }
 
     @Override
@@ -347,28 +356,7 @@ public class UserPointsServiceImpl extends ServiceImpl<UserPointsMapper, UserPoi
     }
 
     public boolean isUserVip(Long userId) {
-        if (userId == null) {
-            return false;
-        }
-
-        // 查询用户会员信息
-        QueryWrapper<UserVip> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("userId", userId);
-        queryWrapper.eq("isDelete", 0);
-        UserVip userVip = userVipMapper.selectOne(queryWrapper);
-
-        if (userVip == null) {
-            return false;
-        }
-
-        // 如果是永久会员，直接返回true
-        if (VipTypeConstant.PERMANENT.equals(userVip.getType())) {
-            return true;
-        }
-
-        // 如果是月卡会员，检查是否过期
-        Date now = new Date();
-        return userVip.getValidDays() != null && now.before(userVip.getValidDays());
+        return vipEntitlementIndex.isVip(userId);
     }
 
 }
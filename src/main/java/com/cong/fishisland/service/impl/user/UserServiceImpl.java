@@ -5,12 +5,14 @@ import cn.dev33.satoken.stp.StpUtil;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.date.DateUnit;
 import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.text.CharSequenceUtil;
 import cn.hutool.extra.servlet.ServletUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.cong.fishisland.cache.UserEntityCache;
 import com.cong.fishisland.common.ErrorCode;
 import com.cong.fishisland.common.exception.BusinessException;
 import com.cong.fishisland.common.exception.ThrowUtils;
@@ -18,13 +20,11 @@ import com.cong.fishisland.config.GitHubConfig;
 import com.cong.fishisland.constant.CommonConstant;
 import com.cong.fishisland.constant.NewUserDataTypeWebConstant;
 import com.cong.fishisland.constant.SystemConstants;
-import com.cong.fishisland.constant.VipTypeConstant;
 import com.cong.fishisland.manager.AiManager;
 import com.cong.fishisland.manager.EmailManager;
 import com.cong.fishisland.mapper.user.UserFollowMapper;
 import com.cong.fishisland.mapper.user.UserMapper;
 import com.cong.fishisland.mapper.user.UserThirdAuthMapper;
-import com.cong.fishisland.mapper.user.UserVipMapper;
 import com.cong.fishisland.model.dto.oauth.LinuxDoTokenResponse;
 import com.cong.fishisland.model.dto.oauth.LinuxDoUserInfo;
 import com.cong.fishisland.model.dto.user.NewUserDataWebRequest;
@@ -41,6 +41,7 @@ import com.cong.fishisland.service.annual.AnnualReportAiService;
 import com.cong.fishisland.service.annual.AnnualReportDataAssembler;
 import com.cong.fishisland.service.annual.AnnualReportTemplateService;
 import com.cong.fishisland.utils.SqlUtils;
+import com.cong.fishisland.websocket.event.UserChangeEvent;
 import lombok.extern.slf4j.Slf4j;
 import me.zhyd.oauth.model.AuthCallback;
 import me.zhyd.oauth.model.AuthResponse;
@@ -53,12 +54,15 @@ import org.redisson.api.RateIntervalUnit;
 import org.redisson.api.RateType;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.DigestUtils;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.io.Serializable;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -111,7 +115,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     private UserThirdAuthMapper userThirdAuthMapper;
 
     @Resource
-    private UserVipMapper userVipMapper;
+    private VipEntitlementIndex vipEntitlementIndex;
 
     @Resource
     private LinuxDoOAuth2Service linuxDoOAuth2Service;
@@ -131,6 +135,12 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Resource
     private UserFollowMapper userFollowMapper;
 
+    @Resource
+    private UserEntityCache userEntityCache;
+
+    @Resource
+    private ApplicationEventPublisher applicationEventPublisher;
+
     private static final ConcurrentHashMap<String, ReentrantLock> LOCK_MAP = new ConcurrentHashMap<>();
 
     @Override
@@ -564,7 +574,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         // 先判断是否已登录
         Object userObj = StpUtil.getTokenSessionByToken(token).get(SystemConstants.USER_LOGIN_STATE);
         User currentUser = (User) userObj;
-        // 从数据库查询（追求性能的话可以注释，直接走缓存）
+        // 读取最新用户信息（本地缓存 → Redis → 数据库）
         long userId = currentUser.getId();
         currentUser = this.getById(userId);
         if (currentUser == null) {
@@ -609,7 +619,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         // 先判断是否已登录
         Object userObj = StpUtil.getTokenSession().get(SystemConstants.USER_LOGIN_STATE);
         User currentUser = (User) userObj;
-        // 从数据库查询（追求性能的话可以注释，直接走缓存）
+        // 读取最新用户信息（本地缓存 → Redis → 数据库）
         long userId = currentUser.getId();
         currentUser = this.getById(userId);
         if (currentUser == null) {
@@ -635,11 +645,82 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if (currentUser == null || currentUser.getId() == null) {
             return null;
         }
-        // 从数据库查询（追求性能的话可以注释，直接走缓存）
+        // 读取最新用户信息（本地缓存 → Redis → 数据库）
         long userId = currentUser.getId();
         return this.getById(userId);
     }
 
+    /**
+     * 按 ID 获取用户，依次读取本地缓存、Redis、数据库
+     */
+    @Override
+    public User getById(Serializable id) {
+        Long userId = toUserId(id);
+        if (userId == null) {
+            return super.getById(id);
+        }
+        return userEntityCache.get(userId, super::getById);
+    }
+
+    /**
+     * 批量获取用户，只有两级缓存都未命中的部分才查库
+     */
+    @Override
+    public List<User> listByIds(Collection<? extends Serializable> idList) {
+        List<Long> userIds = new ArrayList<>(idList.size());
+        for (Serializable id : idList) {
+            Long userId = toUserId(id);
+            if (userId == null) {
+                return super.listByIds(idList);
+            }
+            userIds.add(userId);
+        }
+        return userEntityCache.getByIds(userIds, super::listByIds);
+    }
+
+    @Override
+    public boolean updateById(User entity) {
+        boolean result = super.updateById(entity);
+        onUserChanged(entity.getId());
+        return result;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        boolean result = super.removeById(id);
+        onUserChanged(toUserId(id));
+        return result;
+    }
+
+    /**
+     * 用户表写入后失效缓存
+     * 事务内先删一次，保证本事务随后的读取走数据库；事务结束后由 {@link UserChangeEvent} 再删一次并广播
+     */
+    private void onUserChanged(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            userEntityCache.invalidate(userId);
+        }
+        applicationEventPublisher.publishEvent(new UserChangeEvent(this, userId));
+    }
+
+    @Override
+    public Map<String, Long> getUserCacheStats() {
+        return userEntityCache.getStats();
+    }
+
+    private static Long toUserId(Serializable id) {
+        if (id instanceof Number) {
+            return ((Number) id).longValue();
+        }
+        if (id instanceof String && NumberUtil.isLong((String) id)) {
+            return Long.valueOf((String) id);
+        }
+        return null;
+    }
+
     /**
      * 是否为管理员
      *
@@ -668,7 +749,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if (!StpUtil.isLogin() || StpUtil.getTokenSession().get(SystemConstants.USER_LOGIN_STATE) == null) {
             throw new BusinessException(ErrorCode.OPERATION_ERROR, "未登录");
         }
-        // 移除登录态
+        // 移除登录态，WebSocket 连接上缓存的会话由登录态监听器失效
         StpUtil.logout();
         return true;
     }
@@ -727,28 +808,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     }
 
     public boolean isUserVip(Long userId) {
-        if (userId == null) {
-            return false;
-        }
-
-        // 查询用户会员信息
-        QueryWrapper<UserVip> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("userId", userId);
-        queryWrapper.eq("isDelete", 0);
-        UserVip userVip = userVipMapper.selectOne(queryWrapper);
-
-        if (userVip == null) {
-            return false;
-        }
-
-        // 如果是永久会员，直接返回true
-        if (VipTypeConstant.PERMANENT.equals(userVip.getType())) {
-            return true;
-        }
-
-        // 如果是月卡会员，检查是否过期
-        Date now = new Date();
-        return userVip.getValidDays() != null && now.before(userVip.getValidDays());
+        return vipEntitlementIndex.isVip(userId);
     }
 
     @Override
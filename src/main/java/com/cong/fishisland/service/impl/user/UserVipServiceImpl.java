@@ -20,17 +20,22 @@ import com.cong.fishisland.model.vo.user.UserVipVO;
 import com.cong.fishisland.service.UserService;
 import com.cong.fishisland.service.UserVipService;
 import com.cong.fishisland.utils.SqlUtils;
+import com.cong.fishisland.websocket.event.UserSessionChangeEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -48,6 +53,12 @@ public class UserVipServiceImpl extends ServiceImpl<UserVipMapper, UserVip>
     @Resource
     private UserService userService;
 
+    @Resource
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Resource
+    private VipEntitlementIndex vipEntitlementIndex;
+
     @Override
     public QueryWrapper<UserVip> getQueryWrapper(UserVipQueryRequest userVipQueryRequest) {
         QueryWrapper<UserVip> queryWrapper = new QueryWrapper<>();
@@ -145,6 +156,7 @@ public class UserVipServiceImpl extends ServiceImpl<UserVipMapper, UserVip>
             
             boolean update = this.updateById(existingVip);
             ThrowUtils.throwIf(!update, ErrorCode.OPERATION_ERROR, "更新会员信息失败");
+            applicationEventPublisher.publishEvent(new UserSessionChangeEvent(this, userId));
             return existingVip.getId();
         }
         
@@ -159,6 +171,7 @@ public class UserVipServiceImpl extends ServiceImpl<UserVipMapper, UserVip>
         
         boolean save = this.save(userVip);
         ThrowUtils.throwIf(!save, ErrorCode.OPERATION_ERROR, "创建会员失败");
+        applicationEventPublisher.publishEvent(new UserSessionChangeEvent(this, userId));
         return userVip.getId();
     }
 
@@ -195,6 +208,11 @@ public class UserVipServiceImpl extends ServiceImpl<UserVipMapper, UserVip>
         BeanUtils.copyProperties(userVipUpdateRequest, updateVip);
         boolean update = this.updateById(updateVip);
         ThrowUtils.throwIf(!update, ErrorCode.OPERATION_ERROR, "更新会员信息失败");
+        applicationEventPublisher.publishEvent(new UserSessionChangeEvent(this, userVip.getUserId()));
+        if (updateVip.getUserId() != null && !updateVip.getUserId().equals(userVip.getUserId())) {
+            // 会员转给了其他用户
+            applicationEventPublisher.publishEvent(new UserSessionChangeEvent(this, updateVip.getUserId()));
+        }
         return true;
     }
 
@@ -247,67 +265,56 @@ public class UserVipServiceImpl extends ServiceImpl<UserVipMapper, UserVip>
 
     @Override
     public boolean isUserVip(Long userId) {
-        if (userId == null) {
-            return false;
-        }
-        
-        // 查询用户会员信息
-        QueryWrapper<UserVip> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("userId", userId);
-        queryWrapper.eq("isDelete", 0);
-        UserVip userVip = this.getOne(queryWrapper);
-        
-        if (userVip == null) {
-            return false;
-        }
-        
-        // 如果是永久会员，直接返回true
-        if (VipTypeConstant.PERMANENT.equals(userVip.getType())) {
-            return true;
-        }
-        
-        // 如果是月卡会员，检查是否过期
-        Date now = new Date();
-        return userVip.getValidDays() != null && now.before(userVip.getValidDays());
+        return vipEntitlementIndex.isVip(userId);
+    }
+
+    @Override
+    public Map<Long, Boolean> areVips(Collection<Long> userIds) {
+        return vipEntitlementIndex.areVips(userIds);
     }
 
     @Override
     public boolean isPermanentVip(Long userId) {
-        if (userId == null) {
-            return false;
-        }
-        
-        // 查询用户会员信息
-        QueryWrapper<UserVip> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("userId", userId);
-        queryWrapper.eq("type", VipTypeConstant.PERMANENT);
-        queryWrapper.eq("isDelete", 0);
-        return this.count(queryWrapper) > 0;
+        return vipEntitlementIndex.isPermanent(userId);
     }
 
     @Override
     public boolean isVipExpired(Long userId) {
-        if (userId == null) {
-            return true;
+        return !vipEntitlementIndex.isVip(userId);
+    }
+
+    @Override
+    public boolean save(UserVip entity) {
+        boolean saved = super.save(entity);
+        if (saved) {
+            vipEntitlementIndex.onVipChanged(entity.getUserId());
         }
-        
-        // 查询用户会员信息
-        QueryWrapper<UserVip> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("userId", userId);
-        queryWrapper.eq("isDelete", 0);
-        UserVip userVip = this.getOne(queryWrapper);
-        
-        if (userVip == null) {
-            return true;
+        return saved;
+    }
+
+    @Override
+    public boolean updateById(UserVip entity) {
+        // 先查出原记录：部分字段更新时可能不带用户ID，也可能把会员转给了其他用户
+        UserVip existing = entity.getId() == null ? null : this.getById(entity.getId());
+        Long oldUserId = existing == null ? null : existing.getUserId();
+        boolean updated = super.updateById(entity);
+        if (updated) {
+            vipEntitlementIndex.onVipChanged(oldUserId);
+            Long newUserId = entity.getUserId();
+            if (newUserId != null && !newUserId.equals(oldUserId)) {
+                vipEntitlementIndex.onVipChanged(newUserId);
+            }
         }
-        
-        // 永久会员不会过期
-        if (VipTypeConstant.PERMANENT.equals(userVip.getType())) {
-            return false;
+        return updated;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        UserVip userVip = this.getById(id);
+        boolean removed = super.removeById(id);
+        if (removed && userVip != null) {
+            vipEntitlementIndex.onVipChanged(userVip.getUserId());
         }
-        
-        // 月卡会员，检查是否过期
-        Date now = new Date();
-        return userVip.getValidDays() == null || now.after(userVip.getValidDays());
+        return removed;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,319 @@
+package com.cong.fishisland.service.impl.user;
+
+import cn.hutool.core.util.IdUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.cong.fishisland.constant.RedisKey;
+import com.cong.fishisland.constant.VipTypeConstant;
+import com.cong.fishisland.mapper.user.UserVipMapper;
+import com.cong.fishisland.model.entity.user.UserVip;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 会员有效期索引
+ * Description: 进程内按 用户ID → 到期时间毫秒数 保存所有有效会员（永久会员为 {@link #PERMANENT}），存放在两个按用户ID排序的
+ * long 数组里，判断是否会员只需一次二分查找和一次时间比较，到期后自然失效；启动后异步全量加载，加载完成前仍走数据库；
+ * 会员记录写入提交后按用户回库刷新，并通过 Redis 频道通知其他节点同步；每小时全量重建一次兜底
+ *
+ * @author cong
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VipEntitlementIndex {
+
+    /**
+     * 永久会员的到期时间
+     */
+    public static final long PERMANENT = Long.MAX_VALUE;
+
+    private final UserVipMapper userVipMapper;
+    private final RedissonClient redissonClient;
+
+    private final String nodeId = IdUtil.fastSimpleUUID();
+
+    /**
+     * 全量重建期间发生变更的用户，重建完成后在新索引上重放
+     */
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean ready;
+
+    private RTopic topic;
+    private Integer listenerId;
+
+    @PostConstruct
+    public void subscribe() {
+        topic = redissonClient.getTopic(RedisKey.getKey(RedisKey.VIP_ENTITLEMENT_SYNC_TOPIC), StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, msg) -> {
+            String[] parts = msg.split(":");
+            if (parts.length != 2 || nodeId.equals(parts[0])) {
+                return;
+            }
+            try {
+                reload(Long.valueOf(parts[1]));
+            } catch (Exception e) {
+                log.error("同步会员有效期索引失败：{}", msg, e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (topic != null && listenerId != null) {
+            topic.removeListener(listenerId);
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 每小时全量重建，兜底未同步到的变更
+     */
+    @Scheduled(fixedDelay = 3600000, initialDelay = 3600000)
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            changedDuringRebuild.clear();
+            long start = System.currentTimeMillis();
+            // 已过期的月卡不再加载
+            List<UserVip> vips = userVipMapper.selectList(baseQuery()
+                    .and(wrapper -> wrapper.eq(UserVip::getType, VipTypeConstant.PERMANENT)
+                            .or().gt(UserVip::getValidDays, new Date(start))));
+            Snapshot fresh = Snapshot.of(toExpiries(vips));
+            synchronized (this) {
+                snapshot = fresh;
+            }
+            ready = true;
+            for (Long userId : new ArrayList<>(changedDuringRebuild)) {
+                reload(userId);
+            }
+            log.info("会员有效期索引构建完成，会员数：{}，耗时：{} ms", fresh.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("会员有效期索引构建失败", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 会员记录新增、修改或删除后调用：事务提交后回库刷新本节点索引并通知其他节点
+     *
+     * @param userId 用户 ID
+     */
+    public void onVipChanged(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        Runnable refresh = () -> {
+            try {
+                reload(userId);
+                topic.publish(nodeId + ":" + userId);
+            } catch (Exception e) {
+                log.error("刷新会员有效期索引失败，userId：{}", userId, e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    refresh.run();
+                }
+            });
+        } else {
+            refresh.run();
+        }
+    }
+
+    /**
+     * 会员到期时间
+     *
+     * @param userId 用户 ID
+     * @return 到期时间毫秒数，永久会员为 {@link #PERMANENT}，不是会员为 0
+     */
+    public long expiryOf(Long userId) {
+        if (userId == null) {
+            return 0;
+        }
+        if (!ready) {
+            return toExpiries(userVipMapper.selectList(baseQuery().eq(UserVip::getUserId, userId))).getOrDefault(userId, 0L);
+        }
+        return snapshot.expiryOf(userId);
+    }
+
+    /**
+     * 是否有效会员
+     */
+    public boolean isVip(Long userId) {
+        return expiryOf(userId) > System.currentTimeMillis();
+    }
+
+    /**
+     * 是否永久会员
+     */
+    public boolean isPermanent(Long userId) {
+        return expiryOf(userId) == PERMANENT;
+    }
+
+    /**
+     * 批量判断是否有效会员
+     *
+     * @param userIds 用户 ID
+     * @return 用户 ID → 是否会员，按传入顺序，每个用户都有结果
+     */
+    public Map<Long, Boolean> areVips(Collection<Long> userIds) {
+        Map<Long, Boolean> result = new LinkedHashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+        Set<Long> ids = new LinkedHashSet<>(userIds);
+        ids.remove(null);
+        long now = System.currentTimeMillis();
+        if (!ready) {
+            Map<Long, Long> expiries = ids.isEmpty() ? new HashMap<>()
+                    : toExpiries(userVipMapper.selectList(baseQuery().in(UserVip::getUserId, ids)));
+            ids.forEach(id -> result.put(id, expiries.getOrDefault(id, 0L) > now));
+            return result;
+        }
+        Snapshot current = snapshot;
+        ids.forEach(id -> result.put(id, current.expiryOf(id) > now));
+        return result;
+    }
+
+    private void reload(Long userId) {
+        if (rebuilding.get()) {
+            changedDuringRebuild.add(userId);
+        }
+        long expiry = toExpiries(userVipMapper.selectList(baseQuery().eq(UserVip::getUserId, userId)))
+                .getOrDefault(userId, 0L);
+        synchronized (this) {
+            snapshot = snapshot.with(userId, expiry, System.currentTimeMillis());
+        }
+    }
+
+    private static LambdaQueryWrapper<UserVip> baseQuery() {
+        return new LambdaQueryWrapper<UserVip>()
+                .select(UserVip::getUserId, UserVip::getType, UserVip::getValidDays);
+    }
+
+    /**
+     * 同一用户有多条记录时取最晚的到期时间
+     */
+    private static Map<Long, Long> toExpiries(List<UserVip> vips) {
+        Map<Long, Long> expiries = new HashMap<>(vips.size() * 2);
+        for (UserVip vip : vips) {
+            if (vip.getUserId() == null) {
+                continue;
+            }
+            long expiry = VipTypeConstant.PERMANENT.equals(vip.getType()) ? PERMANENT
+                    : vip.getValidDays() == null ? 0 : vip.getValidDays().getTime();
+            expiries.merge(vip.getUserId(), expiry, Math::max);
+        }
+        return expiries;
+    }
+
+    /**
+     * 不可变快照：按用户ID升序的两个平行数组，写入时整体复制（会员变更远少于查询）
+     */
+    static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new long[0], new long[0]);
+
+        private final long[] userIds;
+        private final long[] expiries;
+
+        private Snapshot(long[] userIds, long[] expiries) {
+            this.userIds = userIds;
+            this.expiries = expiries;
+        }
+
+        static Snapshot of(Map<Long, Long> expiries) {
+            long[] ids = new long[expiries.size()];
+            int n = 0;
+            for (Long id : expiries.keySet()) {
+                ids[n++] = id;
+            }
+            Arrays.sort(ids);
+            long[] values = new long[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = expiries.get(ids[i]);
+            }
+            return new Snapshot(ids, values);
+        }
+
+        long expiryOf(long userId) {
+            int i = Arrays.binarySearch(userIds, userId);
+            return i >= 0 ? expiries[i] : 0;
+        }
+
+        /**
+         * 复制出一份设置了该用户到期时间的快照，到期时间不晚于 now 时移除；顺带清掉已过期的其他用户
+         */
+        Snapshot with(long userId, long expiry, long now) {
+            long[] ids = new long[userIds.length + 1];
+            long[] values = new long[userIds.length + 1];
+            int n = 0;
+            boolean placed = false;
+            for (int i = 0; i < userIds.length; i++) {
+                long id = userIds[i];
+                if (!placed && userId <= id) {
+                    placed = true;
+                    if (expiry > now) {
+                        ids[n] = userId;
+                        values[n++] = expiry;
+                    }
+                    if (id == userId) {
+                        continue;
+                    }
+                }
+                if (expiries[i] > now) {
+                    ids[n] = id;
+                    values[n++] = expiries[i];
+                }
+            }
+            if (!placed && expiry > now) {
+                ids[n] = userId;
+                values[n++] = expiry;
+            }
+            return new Snapshot(Arrays.copyOf(ids, n), Arrays.copyOf(values, n));
+        }
+
+        int size() {
+            return userIds.length;
+        }
+    }
+}
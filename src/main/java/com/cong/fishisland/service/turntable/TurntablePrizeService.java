@@ -2,6 +2,7 @@ package com.cong.fishisland.service.turntable;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.cong.fishisland.model.entity.turntable.TurntablePrize;
+import com.cong.fishisland.service.turntable.strategy.TurntablePrizeSampler;
 
 import java.util.List;
 
@@ -24,4 +25,17 @@ public interface TurntablePrizeService extends IService<TurntablePrize> {
      * @return 奖品列表
      */
     List<TurntablePrize> listAvailableByTurntableId(Long turntableId);
+
+    /**
+     * 获取转盘的奖品抽样器（缓存，奖品变化后重新构建）
+     * @param turntableId 转盘ID
+     * @return 抽样器，包含有库存的奖品
+     */
+    TurntablePrizeSampler getSampler(Long turntableId);
+
+    /**
+     * 奖品变化后使转盘的抽样器失效
+     * @param turntableId 转盘ID
+     */
+    void evictSampler(Long turntableId);
 }
@@ -8,9 +8,16 @@ import com.cong.fishisland.common.exception.ThrowUtils;
 import com.cong.fishisland.mapper.turntable.TurntablePrizeMapper;
 import com.cong.fishisland.model.entity.turntable.TurntablePrize;
 import com.cong.fishisland.service.turntable.TurntablePrizeService;
+import com.cong.fishisland.service.turntable.strategy.TurntablePrizeSampler;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.Serializable;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 转盘奖励服务实现
@@ -19,6 +26,15 @@ import java.util.List;
 @Service
 public class TurntablePrizeServiceImpl extends ServiceImpl<TurntablePrizeMapper, TurntablePrize> implements TurntablePrizeService {
 
+    /**
+     * 转盘奖品抽样器缓存
+     * 通过本服务修改奖品时立即失效；直接改库的情况由过期时间兜底
+     */
+    private final LoadingCache<Long, TurntablePrizeSampler> samplerCache = Caffeine.newBuilder()
+            .maximumSize(256)
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .build(turntableId -> TurntablePrizeSampler.of(listAvailableByTurntableId(turntableId)));
+
     @Override
     public List<TurntablePrize> listByTurntableId(Long turntableId) {
         LambdaQueryWrapper<TurntablePrize> queryWrapper = new LambdaQueryWrapper<>();
@@ -36,4 +52,54 @@ public class TurntablePrizeServiceImpl extends ServiceImpl<TurntablePrizeMapper,
                 .and(wrapper -> wrapper.gt(TurntablePrize::getStock, 0).or().eq(TurntablePrize::getStock, -1));
         return this.list(queryWrapper);
     }
+
+    @Override
+    public TurntablePrizeSampler getSampler(Long turntableId) {
+        return samplerCache.get(turntableId);
+    }
+
+    @Override
+    public void evictSampler(Long turntableId) {
+        Runnable evict = () -> {
+            if (turntableId == null) {
+                samplerCache.invalidateAll();
+            } else {
+                samplerCache.invalidate(turntableId);
+            }
+        };
+        // 事务提交后再失效，避免提交前被并发请求用旧数据重新构建
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    @Override
+    public boolean save(TurntablePrize entity) {
+        boolean saved = super.save(entity);
+        evictSampler(entity.getTurntableId());
+        return saved;
+    }
+
+    @Override
+    public boolean updateById(TurntablePrize entity) {
+        boolean updated = super.updateById(entity);
+        // 部分字段更新时可能不带转盘ID，此时全部失效
+        evictSampler(entity.getTurntableId());
+        return updated;
+    }
+
+    @Override
+    public boolean removeById(Serializable id) {
+        TurntablePrize prize = this.getById(id);
+        boolean removed = super.removeById(id);
+        evictSampler(prize == null ? null : prize.getTurntableId());
+        return removed;
+    }
 }
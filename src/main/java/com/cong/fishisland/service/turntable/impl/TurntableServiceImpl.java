@@ -28,6 +28,7 @@ import com.cong.fishisland.service.UserPointsService;
 import com.cong.fishisland.service.UserTitleService;
 import com.cong.fishisland.service.turntable.*;
 import com.cong.fishisland.service.turntable.strategy.DrawStrategy;
+import com.cong.fishisland.service.turntable.strategy.TurntablePrizeSampler;
 import com.cong.fishisland.service.turntable.strategy.impl.GuaranteeDrawStrategy;
 import static com.cong.fishisland.model.enums.user.PointsRecordSourceEnum.*;
 
@@ -41,6 +42,8 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.annotation.Resource;
 import java.util.*;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -154,8 +157,9 @@ public class TurntableServiceImpl extends ServiceImpl<TurntableMapper, Turntable
         }
 
         // 获取奖品列表
-        List<TurntablePrize> prizes = turntablePrizeService.listAvailableByTurntableId(turntableId);
-        ThrowUtils.throwIf(prizes == null || prizes.isEmpty(), ErrorCode.OPERATION_ERROR, "转盘没有可用奖品");
+        TurntablePrizeSampler sampler = turntablePrizeService.getSampler(turntableId);
+        ThrowUtils.throwIf(sampler.isEmpty(), ErrorCode.OPERATION_ERROR, "转盘没有可用奖品");
+        List<TurntablePrize> prizes = sampler.getPrizes();
 
         // 获取用户进度
         TurntableUserProgress progress = turntableUserProgressService.getOrCreateProgress(userId, turntableId, turntable.getGuaranteeCount());
@@ -182,29 +186,21 @@ public class TurntableServiceImpl extends ServiceImpl<TurntableMapper, Turntable
             
             TurntablePrize selectedPrize;
             if (checkResult.isTriggered) {
-                // 触发保底，使用保底策略
-                guaranteeDrawStrategy.setMinQuality(checkResult.minQuality);
-                // 大保底：从用户未拥有的奖品中抽取
-                List<TurntablePrize> candidatePrizes = prizes;
-                if (checkResult.guaranteeType == GuaranteeTypeEnum.BIG.getValue()) {
-                    List<TurntablePrize> unownedPrizes = prizes.stream()
-                            .filter(p -> !isUserOwnedPrize(p, ownedTemplateIds, ownedTitleIds))
-                            .collect(Collectors.toList());
-                    if (!unownedPrizes.isEmpty()) {
-                        candidatePrizes = unownedPrizes;
-                    }
-                }
-                selectedPrize = guaranteeDrawStrategy.draw(candidatePrizes);
+                // 触发保底，使用保底策略；大保底：从用户未拥有的奖品中抽取
+                Predicate<TurntablePrize> excluded = checkResult.guaranteeType == GuaranteeTypeEnum.BIG.getValue()
+                        ? p -> isUserOwnedPrize(p, ownedTemplateIds, ownedTitleIds)
+                        : null;
+                selectedPrize = guaranteeDrawStrategy.draw(sampler, checkResult.minQuality, excluded);
                 isGuaranteeTriggered = true;
                 guaranteeType = checkResult.guaranteeType;
             } else {
                 // 未触发保底，使用权重随机策略
-                selectedPrize = weightRandomDrawStrategy.draw(prizes);
+                selectedPrize = weightRandomDrawStrategy.draw(sampler);
             }
 
             if (selectedPrize == null) {
                 // 如果没有抽中，随机选一个
-                selectedPrize = prizes.get(new Random().nextInt(prizes.size()));
+                selectedPrize = prizes.get(ThreadLocalRandom.current().nextInt(prizes.size()));
             }
 
             // 构建抽奖结果
@@ -0,0 +1,145 @@
+package com.cong.fishisland.service.turntable.strategy;
+
+import com.cong.fishisland.model.entity.turntable.TurntablePrize;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 奖品别名表（Walker/Vose Alias Method）
+ * Description: 按奖品概率权重一次性构建，之后每次抽取只需一次选列、一次比较，O(1) 完成；
+ * 全程使用整数运算，各奖品的抽中概率严格等于 权重 / 总权重。构建后不可变，可在多线程间共享
+ *
+ * @author cong
+ */
+public final class PrizeAliasTable {
+
+    private static final PrizeAliasTable EMPTY = new PrizeAliasTable(new TurntablePrize[0], new int[0], new int[0], 1);
+
+    private final TurntablePrize[] prizes;
+
+    /**
+     * 第 i 列保留自身的阈值，落在 [0, threshold[i]) 时抽中第 i 个奖品，否则抽中 alias[i]
+     */
+    private final int[] threshold;
+
+    private final int[] alias;
+
+    /**
+     * 总权重，列内随机数的取值范围
+     */
+    private final int total;
+
+    private PrizeAliasTable(TurntablePrize[] prizes, int[] threshold, int[] alias, int total) {
+        this.prizes = prizes;
+        this.threshold = threshold;
+        this.alias = alias;
+        this.total = total;
+    }
+
+    /**
+     * 按奖品概率权重构建别名表，权重为空或小于 0 按 0 处理；总权重为 0 时等概率抽取
+     *
+     * @param prizeList 奖品列表
+     * @return 别名表
+     */
+    public static PrizeAliasTable of(List<TurntablePrize> prizeList) {
+        if (prizeList == null || prizeList.isEmpty()) {
+            return EMPTY;
+        }
+        int n = prizeList.size();
+        TurntablePrize[] prizes = prizeList.toArray(new TurntablePrize[0]);
+        long[] weights = new long[n];
+        long totalWeight = 0;
+        for (int i = 0; i < n; i++) {
+            Integer probability = prizes[i].getProbability();
+            weights[i] = probability == null ? 0 : Math.max(0, probability);
+            totalWeight += weights[i];
+        }
+        if (totalWeight > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("奖品总权重超出范围：" + totalWeight);
+        }
+        int[] threshold = new int[n];
+        int[] alias = new int[n];
+        if (totalWeight == 0) {
+            for (int i = 0; i < n; i++) {
+                threshold[i] = 1;
+                alias[i] = i;
+            }
+            return new PrizeAliasTable(prizes, threshold, alias, 1);
+        }
+
+        // 每列容量为 totalWeight，权重放大 n 倍后不足一列的为 small，其余为 large
+        long[] scaled = new long[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n;
+            if (scaled[i] < totalWeight) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+        // small 列用 large 补满，large 扣掉补出去的部分后重新归类
+        while (smallSize > 0 && largeSize > 0) {
+            int s = small[--smallSize];
+            int l = large[--largeSize];
+            threshold[s] = (int) scaled[s];
+            alias[s] = l;
+            scaled[l] -= totalWeight - scaled[s];
+            if (scaled[l] < totalWeight) {
+                small[smallSize++] = l;
+            } else {
+                large[largeSize++] = l;
+            }
+        }
+        // 剩下的列恰好满一列（整数运算无舍入误差，small 不会残留）
+        while (largeSize > 0) {
+            int l = large[--largeSize];
+            threshold[l] = (int) totalWeight;
+            alias[l] = l;
+        }
+        while (smallSize > 0) {
+            int s = small[--smallSize];
+            threshold[s] = (int) totalWeight;
+            alias[s] = s;
+        }
+        return new PrizeAliasTable(prizes, threshold, alias, (int) totalWeight);
+    }
+
+    /**
+     * 抽取一个奖品
+     *
+     * @return 抽中的奖品，表为空时返回 null
+     */
+    public TurntablePrize sample() {
+        return sample(ThreadLocalRandom.current());
+    }
+
+    /**
+     * 使用指定随机源抽取一个奖品
+     *
+     * @param random 随机源
+     * @return 抽中的奖品，表为空时返回 null
+     */
+    public TurntablePrize sample(Random random) {
+        int n = prizes.length;
+        if (n == 0) {
+            return null;
+        }
+        int column = random.nextInt(n);
+        return random.nextInt(total) < threshold[column] ? prizes[column] : prizes[alias[column]];
+    }
+
+    public int size() {
+        return prizes.length;
+    }
+
+    public boolean isEmpty() {
+        return prizes.length == 0;
+    }
+}
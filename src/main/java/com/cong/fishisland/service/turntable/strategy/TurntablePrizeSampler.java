@@ -0,0 +1,92 @@
+package com.cong.fishisland.service.turntable.strategy;
+
+import com.cong.fishisland.model.entity.turntable.TurntablePrize;
+import com.cong.fishisland.model.enums.turntable.PrizeQualityEnum;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 单个转盘的奖品抽样器
+ * Description: 奖品变化时构建一次，包含全部可用奖品的别名表以及每个保底品质档位的别名表，
+ * 构建后不可变，多个请求并发抽取互不影响
+ *
+ * @author cong
+ */
+public final class TurntablePrizeSampler {
+
+    private final List<TurntablePrize> prizes;
+
+    private final PrizeAliasTable normalTable;
+
+    /**
+     * 保底档位：最低品质 -> 该品质及以上奖品的别名表（没有符合品质的奖品时为全部奖品）
+     */
+    private final Map<Integer, PrizeAliasTable> guaranteeTables;
+
+    private TurntablePrizeSampler(List<TurntablePrize> prizes) {
+        this.prizes = Collections.unmodifiableList(new ArrayList<>(prizes));
+        this.normalTable = PrizeAliasTable.of(this.prizes);
+        Map<Integer, PrizeAliasTable> tables = new HashMap<>();
+        for (PrizeQualityEnum quality : PrizeQualityEnum.values()) {
+            int minQuality = quality.getValue();
+            List<TurntablePrize> candidates = guaranteeCandidates(this.prizes, minQuality);
+            tables.put(minQuality, candidates.size() == this.prizes.size() ? normalTable : PrizeAliasTable.of(candidates));
+        }
+        this.guaranteeTables = Collections.unmodifiableMap(tables);
+    }
+
+    /**
+     * 构建抽样器
+     *
+     * @param prizes 可用奖品列表
+     * @return 抽样器
+     */
+    public static TurntablePrizeSampler of(List<TurntablePrize> prizes) {
+        return new TurntablePrizeSampler(prizes == null ? Collections.emptyList() : prizes);
+    }
+
+    /**
+     * 筛选保底候选奖品：指定品质及以上，没有符合品质的奖品时降级为全部奖品
+     *
+     * @param prizes     奖品列表
+     * @param minQuality 最低品质
+     * @return 候选奖品
+     */
+    public static List<TurntablePrize> guaranteeCandidates(List<TurntablePrize> prizes, int minQuality) {
+        List<TurntablePrize> qualified = prizes.stream()
+                .filter(p -> p.getQuality() != null && p.getQuality() >= minQuality)
+                .collect(Collectors.toList());
+        return qualified.isEmpty() ? prizes : qualified;
+    }
+
+    /**
+     * 全部可用奖品的别名表
+     */
+    public PrizeAliasTable normalTable() {
+        return normalTable;
+    }
+
+    /**
+     * 保底档位的别名表
+     *
+     * @param minQuality 最低品质
+     * @return 别名表，品质不在枚举范围内时现场构建
+     */
+    public PrizeAliasTable guaranteeTable(int minQuality) {
+        PrizeAliasTable table = guaranteeTables.get(minQuality);
+        return table != null ? table : PrizeAliasTable.of(guaranteeCandidates(prizes, minQuality));
+    }
+
+    public List<TurntablePrize> getPrizes() {
+        return prizes;
+    }
+
+    public boolean isEmpty() {
+        return prizes.isEmpty();
+    }
+}
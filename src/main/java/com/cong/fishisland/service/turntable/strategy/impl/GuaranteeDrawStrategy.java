@@ -1,87 +1,70 @@
 package com.cong.fishisland.service.turntable.strategy.impl;
 
 import com.cong.fishisland.model.entity.turntable.TurntablePrize;
+import com.cong.fishisland.model.enums.turntable.PrizeQualityEnum;
 import com.cong.fishisland.service.turntable.strategy.DrawStrategy;
+import com.cong.fishisland.service.turntable.strategy.PrizeAliasTable;
+import com.cong.fishisland.service.turntable.strategy.TurntablePrizeSampler;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
-import java.util.Random;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * 保底抽奖策略
  * 当触发保底时，从指定品质及以上的奖品中抽取
+ * 小保底：抽取稀有(R)及以上品质，即 quality >= 2
+ * 大保底：抽取传说(SSR)品质，即 quality >= 4
+ * 保底品质随每次调用传入，策略本身无状态，可被并发抽奖共享
  * @author cong
  */
 @Component
 public class GuaranteeDrawStrategy implements DrawStrategy {
 
-    private final Random random = new Random();
-
     /**
-     * 保底品质阈值
-     * 小保底：抽取稀有(R)及以上品质，即 quality >= 2
-     * 大保底：抽取史诗(SR)及以上品质，即 quality >= 3
+     * 按小保底品质（稀有及以上）抽取
      */
-    private int minQuality = 2;
-
     @Override
     public TurntablePrize draw(List<TurntablePrize> prizes) {
+        return draw(prizes, PrizeQualityEnum.RARE.getValue());
+    }
+
+    /**
+     * 从指定品质及以上的奖品中抽取，没有符合品质的奖品时降级使用全部奖品
+     * @param prizes 奖品列表
+     * @param minQuality 最低品质
+     * @return 抽中的奖品
+     */
+    public TurntablePrize draw(List<TurntablePrize> prizes, int minQuality) {
         if (prizes == null || prizes.isEmpty()) {
             return null;
         }
+        return PrizeAliasTable.of(TurntablePrizeSampler.guaranteeCandidates(prizes, minQuality)).sample();
+    }
 
-        // 过滤出符合保底品质的奖品
-        List<TurntablePrize> qualifiedPrizes = prizes.stream()
-                .filter(p -> p.getQuality() != null && p.getQuality() >= minQuality)
-                .collect(Collectors.toList());
-
-        if (qualifiedPrizes.isEmpty()) {
-            // 如果没有符合品质的奖品，降级使用全部奖品
-            qualifiedPrizes = prizes;
-        }
-
-        // 计算总权重
-        int totalWeight = qualifiedPrizes.stream()
-                .mapToInt(p -> p.getProbability() != null ? p.getProbability() : 0)
-                .sum();
-
-        if (totalWeight <= 0) {
-            return qualifiedPrizes.get(random.nextInt(qualifiedPrizes.size()));
-        }
-
-        // 根据权重选择奖品
-        int randomValue = random.nextInt(totalWeight);
-        int currentWeight = 0;
-        for (TurntablePrize prize : qualifiedPrizes) {
-            int weight = prize.getProbability() != null ? prize.getProbability() : 0;
-            currentWeight += weight;
-            if (randomValue < currentWeight) {
-                return prize;
+    /**
+     * 使用转盘预构建的保底档位别名表抽取
+     * 排除条件（如大保底排除已拥有的奖品）实际排除了奖品时，按剩余奖品现场构建；全部被排除时不排除
+     * @param sampler 转盘抽样器
+     * @param minQuality 最低品质
+     * @param excluded 排除条件，可为 null
+     * @return 抽中的奖品
+     */
+    public TurntablePrize draw(TurntablePrizeSampler sampler, int minQuality, Predicate<TurntablePrize> excluded) {
+        if (excluded != null) {
+            List<TurntablePrize> remaining = sampler.getPrizes().stream()
+                    .filter(excluded.negate())
+                    .collect(Collectors.toList());
+            if (!remaining.isEmpty() && remaining.size() < sampler.getPrizes().size()) {
+                return draw(remaining, minQuality);
             }
         }
-
-        return qualifiedPrizes.get(qualifiedPrizes.size() - 1);
+        return sampler.guaranteeTable(minQuality).sample();
     }
 
     @Override
     public String getStrategyName() {
         return "GUARANTEE";
     }
-
-    /**
-     * 设置保底品质阈值
-     * @param minQuality 最小品质
-     */
-    public void setMinQuality(int minQuality) {
-        this.minQuality = minQuality;
-    }
-
-    /**
-     * 获取保底品质阈值
-     * @return 最小品质
-     */
-    public int getMinQuality() {
-        return minQuality;
-    }
 }
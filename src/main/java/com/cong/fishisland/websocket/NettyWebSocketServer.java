@@ -1,12 +1,16 @@
 package com.cong.fishisland.websocket;
 
+import com.cong.fishisland.config.WebSocketProperties;
 import com.cong.fishisland.websocket.handler.HttpHeadersHandler;
 import com.cong.fishisland.websocket.handler.NettyWebSocketServerHandler;
+import com.cong.fishisland.websocket.handler.SlowConsumerHandler;
+import com.cong.fishisland.websocket.push.WebSocketPusher;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
@@ -23,6 +27,8 @@ import org.springframework.context.annotation.Configuration;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Netty Web 套接字服务器
@@ -38,6 +44,12 @@ public class NettyWebSocketServer {
     private final EventLoopGroup bossGroup = new NioEventLoopGroup(1);
     private final EventLoopGroup workerGroup = new NioEventLoopGroup(8);
 
+    @Resource
+    private WebSocketProperties webSocketProperties;
+
+    @Resource
+    private WebSocketPusher webSocketPusher;
+
     /**
      * 启动 ws server
      *
@@ -66,12 +78,18 @@ public class NettyWebSocketServer {
      * @throws InterruptedException 中断异常
      */
     public void run() throws InterruptedException {
+        WriteBufferWaterMark waterMark = new WriteBufferWaterMark(
+                webSocketProperties.getWriteBufferLowWaterMark(),
+                webSocketProperties.getWriteBufferHighWaterMark());
+        long slowConsumerTimeoutMillis = TimeUnit.SECONDS.toMillis(webSocketProperties.getSlowConsumerTimeoutSeconds());
         // 服务器启动引导对象
         ServerBootstrap serverBootstrap = new ServerBootstrap();
         serverBootstrap.group(bossGroup, workerGroup)
                 .channel(NioServerSocketChannel.class)
                 .option(ChannelOption.SO_BACKLOG, 128)
                 .option(ChannelOption.SO_KEEPALIVE, true)
+                // 出站缓冲水位，超过高水位后连接不可写，由推送器按消息类型执行合并/丢弃策略
+                .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, waterMark)
                 // 为 bossGroup 添加 日志处理器
                 .handler(new LoggingHandler(LogLevel.INFO))
                 .childHandler(new ChannelInitializer<SocketChannel>() {
@@ -80,6 +98,8 @@ public class NettyWebSocketServer {
                         ChannelPipeline pipeline = socketChannel.pipeline();
                         //30秒客户端没有向服务器发送心跳则关闭连接
                         pipeline.addLast(new IdleStateHandler(30, 0, 0));
+                        //长期不可写的慢连接直接断开，避免出站帧堆积在直接内存
+                        pipeline.addLast(new SlowConsumerHandler(webSocketPusher, slowConsumerTimeoutMillis));
                         // 因为使用http协议，所以需要使用http的编码器，解码器
                         pipeline.addLast(new HttpServerCodec());
                         // 以块方式写，添加 chunkedWriter 处理器 支持大数据流
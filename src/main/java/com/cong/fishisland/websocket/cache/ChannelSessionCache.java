@@ -0,0 +1,103 @@
+package com.cong.fishisland.websocket.cache;
+
+import cn.dev33.satoken.stp.StpUtil;
+import cn.hutool.core.text.CharSequenceUtil;
+import com.cong.fishisland.common.exception.BusinessException;
+import com.cong.fishisland.constant.UserConstant;
+import com.cong.fishisland.model.dto.ws.WSChannelSessionDTO;
+import com.cong.fishisland.model.entity.user.User;
+import com.cong.fishisland.service.UserMuteService;
+import com.cong.fishisland.service.UserService;
+import com.cong.fishisland.service.UserVipService;
+import com.cong.fishisland.websocket.utils.NettyUtil;
+import io.netty.channel.Channel;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接会话缓存
+ * Description: 登录时把身份、角色、禁言和会员状态解析一次并挂到 Netty 连接上，
+ * 之后的聊天消息直接读取，不再访问 Redis 或数据库；状态变化以及注销、踢下线时通过
+ * {@link com.cong.fishisland.websocket.event.UserSessionChangeEvent} 失效，下一条消息重新校验 token；
+ * 另设最长存活时间兜底，保证 token 过期、会员到期等无事件的变化也能被感知
+ *
+ * @author cong
+ */
+@Component
+@RequiredArgsConstructor
+public class ChannelSessionCache {
+
+    /**
+     * 会话最长存活时间
+     */
+    private static final long SESSION_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final UserService userService;
+    private final UserMuteService userMuteService;
+    private final UserVipService userVipService;
+
+    /**
+     * 获取连接上的会话，不存在或已过期时重新加载
+     *
+     * @param channel 渠道
+     * @param token   token
+     * @return 会话，token 无效时返回 null
+     */
+    public WSChannelSessionDTO get(Channel channel, String token) {
+        WSChannelSessionDTO session = NettyUtil.getAttr(channel, NettyUtil.SESSION);
+        if (session != null && CharSequenceUtil.equals(session.getToken(), token)
+                && System.currentTimeMillis() - session.getLoadedAt() < SESSION_TTL_MILLIS) {
+            return session;
+        }
+        session = load(token);
+        NettyUtil.setAttr(channel, NettyUtil.SESSION, session);
+        return session;
+    }
+
+    /**
+     * 加载会话
+     *
+     * @param token token
+     * @return 会话，token 无效时返回 null
+     */
+    public WSChannelSessionDTO load(String token) {
+        if (CharSequenceUtil.isEmpty(token)) {
+            return null;
+        }
+        Object loginId = getLoginIdByToken(token);
+        if (loginId == null) {
+            return null;
+        }
+        User user;
+        try {
+            user = userService.getLoginUser(token);
+        } catch (BusinessException e) {
+            // 用户已被删除
+            return null;
+        }
+        WSChannelSessionDTO session = new WSChannelSessionDTO();
+        session.setUid(user.getId());
+        session.setToken(token);
+        session.setUser(user);
+        session.setAdmin(UserConstant.ADMIN_ROLE.equals(user.getUserRole()));
+        session.setMuteEndTime(userMuteService.getMuteEndTime(user.getId()));
+        session.setVip(userVipService.isUserVip(user.getId()));
+        session.setLoadedAt(System.currentTimeMillis());
+        return session;
+    }
+
+    /**
+     * 使连接上的会话失效，下一条消息会重新加载
+     *
+     * @param channel 渠道
+     */
+    public void invalidate(Channel channel) {
+        NettyUtil.setAttr(channel, NettyUtil.SESSION, null);
+    }
+
+    protected Object getLoginIdByToken(String token) {
+        return StpUtil.getLoginIdByToken(token);
+    }
+}
@@ -0,0 +1,178 @@
+package com.cong.fishisland.websocket.cache;
+
+import cn.hutool.json.JSONUtil;
+import com.cong.fishisland.model.enums.MessageTypeEnum;
+import com.cong.fishisland.model.ws.response.RosterDelta;
+import com.cong.fishisland.model.ws.response.RosterSnapshot;
+import com.cong.fishisland.model.ws.response.UserChatResponse;
+import com.cong.fishisland.model.ws.response.WSBaseResp;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 在线用户名单缓存
+ * Description: 以 uid 为 key 维护在线名单和版本号，每次变更版本号加一并产出增量；
+ * 快照和旧版客户端的在线列表序列化结果会被缓存，只有名单变化后才会重新构建；增量可能丢失，随集群心跳与在线用户表对账兜底
+ *
+ * @author cong
+ */
+@Component
+public class OnlineRosterCache {
+
+    public static final String OP_JOIN = "join";
+    public static final String OP_LEAVE = "leave";
+    public static final String OP_UPDATE = "update";
+
+    private final Map<String, UserChatResponse> members = new LinkedHashMap<>();
+
+    private long version;
+
+    /**
+     * 已序列化的快照消息，名单变化后置空
+     */
+    private String snapshotPayload;
+
+    /**
+     * 已序列化的旧版在线列表消息，名单变化后置空
+     */
+    private String legacyPayload;
+
+    /**
+     * 用户上线或资料变化
+     *
+     * @param user 在线用户信息
+     * @return 增量变更，名单未变化时返回 null
+     */
+    public synchronized RosterDelta upsert(UserChatResponse user) {
+        UserChatResponse old = members.put(user.getId(), user);
+        if (user.equals(old)) {
+            return null;
+        }
+        return nextDelta(old == null ? OP_JOIN : OP_UPDATE, user.getId(), user);
+    }
+
+    /**
+     * 用户下线
+     *
+     * @param uid 用户 ID
+     * @return 增量变更，用户本不在名单中时返回 null
+     */
+    public synchronized RosterDelta remove(String uid) {
+        if (members.remove(uid) == null) {
+            return null;
+        }
+        return nextDelta(OP_LEAVE, uid, null);
+    }
+
+    /**
+     * 应用其他节点产生的变更，版本号按本节点重新编号
+     *
+     * @param change 变更
+     * @return 本节点的增量变更，名单未变化时返回 null
+     */
+    public synchronized RosterDelta apply(RosterDelta change) {
+        if (OP_LEAVE.equals(change.getOp())) {
+            return remove(change.getUid());
+        }
+        if (change.getUser() == null) {
+            return null;
+        }
+        return upsert(change.getUser());
+    }
+
+    /**
+     * 用全量名单重置
+     *
+     * @param users 在线用户
+     */
+    public synchronized void reset(Collection<UserChatResponse> users) {
+        members.clear();
+        users.forEach(user -> members.put(user.getId(), user));
+        version++;
+        snapshotPayload = null;
+        legacyPayload = null;
+    }
+
+    /**
+     * 与集群在线用户表对账：表中已没有的用户（如所在节点宕机）产出下线，表中新增或资料变化的用户产出上线/更新
+     *
+     * @param users 集群在线用户
+     * @return 本节点的增量变更，按版本号顺序
+     */
+    public synchronized List<RosterDelta> reconcile(Collection<UserChatResponse> users) {
+        Map<String, UserChatResponse> live = new LinkedHashMap<>();
+        users.forEach(user -> live.put(user.getId(), user));
+        List<RosterDelta> deltas = new ArrayList<>();
+        for (String uid : new ArrayList<>(members.keySet())) {
+            if (!live.containsKey(uid)) {
+                deltas.add(remove(uid));
+            }
+        }
+        for (UserChatResponse user : live.values()) {
+            RosterDelta delta = upsert(user);
+            if (delta != null) {
+                deltas.add(delta);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * 当前在线用户
+     *
+     * @return 在线用户列表
+     */
+    public synchronized List<UserChatResponse> members() {
+        return new ArrayList<>(members.values());
+    }
+
+    /**
+     * 已序列化的快照消息
+     *
+     * @return WSBaseResp JSON
+     */
+    public synchronized String snapshotPayload() {
+        if (snapshotPayload == null) {
+            snapshotPayload = JSONUtil.toJsonStr(WSBaseResp.builder()
+                    .type(MessageTypeEnum.ROSTER_SNAPSHOT.getType())
+                    .data(new RosterSnapshot(version, new ArrayList<>(members.values())))
+                    .build());
+        }
+        return snapshotPayload;
+    }
+
+    /**
+     * 已序列化的旧版在线列表消息（USER_ONLINE，data 为全部在线用户）
+     *
+     * @return WSBaseResp JSON，名单为空时返回 null
+     */
+    public synchronized String legacyPayload() {
+        if (members.isEmpty()) {
+            return null;
+        }
+        if (legacyPayload == null) {
+            legacyPayload = JSONUtil.toJsonStr(WSBaseResp.builder()
+                    .type(MessageTypeEnum.USER_ONLINE.getType())
+                    .data(new ArrayList<>(members.values()))
+                    .build());
+        }
+        return legacyPayload;
+    }
+
+    private RosterDelta nextDelta(String op, String uid, UserChatResponse user) {
+        version++;
+        snapshotPayload = null;
+        legacyPayload = null;
+        return RosterDelta.builder()
+                .version(version)
+                .op(op)
+                .uid(uid)
+                .user(user)
+                .build();
+    }
+}
@@ -0,0 +1,256 @@
+package com.cong.fishisland.websocket.cluster;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.json.JSONUtil;
+import com.cong.fishisland.constant.RedisKey;
+import com.cong.fishisland.model.dto.ws.WsClusterEnvelope;
+import com.cong.fishisland.model.ws.response.UserChatResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RMap;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * WebSocket 集群广播器
+ * Description: 各节点把推送消息发布到 Redis 频道，由其他节点投递给本地连接；
+ * 同时维护全局在线用户表，每个节点只写自己的在线用户 Hash，并通过心跳续期，节点宕机后自动过期
+ *
+ * @author cong
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WsClusterBroadcaster {
+
+    /**
+     * 心跳间隔（毫秒）
+     */
+    private static final long HEARTBEAT_INTERVAL_MILLIS = 30_000L;
+
+    /**
+     * 超过该时长未心跳的节点视为下线（毫秒）
+     */
+    private static final long NODE_EXPIRE_MILLIS = HEARTBEAT_INTERVAL_MILLIS * 3;
+
+    private final RedissonClient redissonClient;
+
+    /**
+     * 当前节点 ID
+     */
+    private final String nodeId = IdUtil.fastSimpleUUID();
+
+    /**
+     * 当前节点登记的在线用户，心跳时整体回写，防止节点 Hash 过期后丢失
+     */
+    private final ConcurrentHashMap<String, String> localOnlineUsers = new ConcurrentHashMap<>();
+
+    /**
+     * 每次心跳完成后执行的回调（如在线名单对账）
+     */
+    private final List<Runnable> heartbeatListeners = new CopyOnWriteArrayList<>();
+
+    private RTopic topic;
+    private Integer listenerId;
+
+    /**
+     * 订阅集群广播
+     *
+     * @param handler 收到其他节点消息后的本地投递逻辑
+     */
+    public synchronized void subscribe(Consumer<WsClusterEnvelope> handler) {
+        if (topic != null) {
+            return;
+        }
+        topic = redissonClient.getTopic(RedisKey.getKey(RedisKey.WS_CLUSTER_TOPIC), StringCodec.INSTANCE);
+        listenerId = topic.addListener(String.class, (channel, msg) -> {
+            try {
+                WsClusterEnvelope envelope = JSONUtil.toBean(msg, WsClusterEnvelope.class);
+                if (nodeId.equals(envelope.getNodeId())) {
+                    // 本节点发布的消息已在本地投递过
+                    return;
+                }
+                handler.accept(envelope);
+            } catch (Exception e) {
+                log.error("处理集群广播消息失败", e);
+            }
+        });
+        heartbeat();
+        log.info("WebSocket 集群节点 {} 已订阅广播频道", nodeId);
+    }
+
+    /**
+     * 发布消息到集群，Redis 不可用时只影响其他节点，本地投递不受影响
+     *
+     * @param envelope 广播信封
+     */
+    public void publish(WsClusterEnvelope envelope) {
+        if (topic == null) {
+            return;
+        }
+        envelope.setNodeId(nodeId);
+        try {
+            topic.publish(JSONUtil.toJsonStr(envelope));
+        } catch (Exception e) {
+            log.error("发布集群广播消息失败，类型：{}", envelope.getType(), e);
+        }
+    }
+
+    /**
+     * 登记本节点在线用户
+     *
+     * @param uid              用户 ID
+     * @param userChatResponse 在线用户信息
+     */
+    public void registerOnline(Long uid, UserChatResponse userChatResponse) {
+        String json = JSONUtil.toJsonStr(userChatResponse);
+        localOnlineUsers.put(uid.toString(), json);
+        try {
+            nodeUsers(nodeId).fastPut(uid.toString(), json);
+        } catch (Exception e) {
+            log.error("登记在线用户失败，uid：{}", uid, e);
+        }
+    }
+
+    /**
+     * 移除本节点在线用户
+     *
+     * @param uid 用户 ID
+     */
+    public void unregisterOnline(Long uid) {
+        localOnlineUsers.remove(uid.toString());
+        try {
+            nodeUsers(nodeId).fastRemove(uid.toString());
+        } catch (Exception e) {
+            log.error("移除在线用户失败，uid：{}", uid, e);
+        }
+    }
+
+    /**
+     * 用户是否仍在任一存活节点在线
+     *
+     * @param uid 用户 ID
+     * @return 是否在线
+     */
+    public boolean isOnline(Long uid) {
+        String field = uid.toString();
+        if (localOnlineUsers.containsKey(field)) {
+            return true;
+        }
+        for (String node : liveNodes()) {
+            if (nodeUsers(node).containsKey(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取全集群在线用户（按 uid 去重）
+     *
+     * @return 在线用户列表
+     */
+    public List<UserChatResponse> getOnlineUsers() {
+        Map<String, UserChatResponse> uniqueUsers = new LinkedHashMap<>();
+        localOnlineUsers.values().forEach(json -> putUser(uniqueUsers, json));
+        for (String node : liveNodes()) {
+            if (nodeId.equals(node)) {
+                continue;
+            }
+            nodeUsers(node).readAllValues().forEach(json -> putUser(uniqueUsers, json));
+        }
+        return new ArrayList<>(uniqueUsers.values());
+    }
+
+    /**
+     * 注册心跳回调，每次心跳续期和清理过期节点后执行
+     *
+     * @param listener 回调
+     */
+    public void addHeartbeatListener(Runnable listener) {
+        heartbeatListeners.add(listener);
+    }
+
+    /**
+     * 节点心跳：续期本节点在线用户表，并清理过期节点
+     */
+    @Scheduled(fixedRate = HEARTBEAT_INTERVAL_MILLIS, initialDelay = HEARTBEAT_INTERVAL_MILLIS)
+    public void heartbeat() {
+        if (topic == null) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            RMap<String, String> users = nodeUsers(nodeId);
+            if (!localOnlineUsers.isEmpty()) {
+                users.putAll(localOnlineUsers);
+            }
+            users.expire(NODE_EXPIRE_MILLIS, TimeUnit.MILLISECONDS);
+            RScoredSortedSet<String> nodes = nodes();
+            nodes.add(now, nodeId);
+            nodes.removeRangeByScore(0, true, now - NODE_EXPIRE_MILLIS, false);
+        } catch (Exception e) {
+            log.error("WebSocket 集群节点心跳失败", e);
+            return;
+        }
+        for (Runnable listener : heartbeatListeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                log.error("WebSocket 集群心跳回调失败", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void destroy() {
+        if (topic == null) {
+            return;
+        }
+        try {
+            topic.removeListener(listenerId);
+            nodes().remove(nodeId);
+            nodeUsers(nodeId).delete();
+        } catch (Exception e) {
+            log.error("WebSocket 集群节点注销失败", e);
+        } finally {
+            topic = null;
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private Collection<String> liveNodes() {
+        return nodes().valueRange(System.currentTimeMillis() - NODE_EXPIRE_MILLIS, true, Double.MAX_VALUE, true);
+    }
+
+    private RScoredSortedSet<String> nodes() {
+        return redissonClient.getScoredSortedSet(RedisKey.getKey(RedisKey.WS_ONLINE_NODES), StringCodec.INSTANCE);
+    }
+
+    private RMap<String, String> nodeUsers(String node) {
+        return redissonClient.getMap(RedisKey.getKey(RedisKey.WS_ONLINE_NODE_USERS, node), StringCodec.INSTANCE);
+    }
+
+    private static void putUser(Map<String, UserChatResponse> uniqueUsers, String json) {
+        UserChatResponse response = JSONUtil.toBean(json, UserChatResponse.class);
+        uniqueUsers.putIfAbsent(response.getId(), response);
+    }
+}
@@ -0,0 +1,19 @@
+package com.cong.fishisland.websocket.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 用户信息变更事件（用户表写入后发布，使用户信息缓存失效）
+ *
+ * @author cong
+ */
+@Getter
+public class UserChangeEvent extends ApplicationEvent {
+    private final Long userId;
+
+    public UserChangeEvent(Object source, Long userId) {
+        super(source);
+        this.userId = userId;
+    }
+}
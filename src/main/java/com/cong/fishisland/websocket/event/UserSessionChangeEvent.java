@@ -0,0 +1,19 @@
+package com.cong.fishisland.websocket.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 用户会话变更事件（角色、禁言、会员状态变化及注销、删除用户时发布，使连接上缓存的会话失效）
+ *
+ * @author cong
+ */
+@Getter
+public class UserSessionChangeEvent extends ApplicationEvent {
+    private final Long userId;
+
+    public UserSessionChangeEvent(Object source, Long userId) {
+        super(source);
+        this.userId = userId;
+    }
+}
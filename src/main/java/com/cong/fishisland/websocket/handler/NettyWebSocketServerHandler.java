@@ -93,13 +93,16 @@ public class NettyWebSocketServerHandler extends SimpleChannelInboundHandler<Tex
         WSReqTypeEnum wsReqTypeEnum = WSReqTypeEnum.of(wsBaseReq.getType());
         switch (wsReqTypeEnum) {
             case LOGIN:
-                getService().handleLoginReq(ctx.channel());
+                getService().handleLoginReq(ctx.channel(), wsBaseReq);
                 break;
             case HEARTBEAT:
                 break;
             case MESSAGE:
                 getService().sendMessage(ctx.channel(),wsBaseReq);
                 break;
+            case ROSTER_SNAPSHOT:
+                getService().sendRosterSnapshot(ctx.channel());
+                break;
             default:
                 log.info("未知类型");
         }
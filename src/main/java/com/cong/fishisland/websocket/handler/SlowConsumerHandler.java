@@ -0,0 +1,66 @@
+package com.cong.fishisland.websocket.handler;
+
+import com.cong.fishisland.websocket.push.WebSocketPusher;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 慢消费者处理程序
+ * Description: 连接出站缓冲超过高水位后开始计时，超过期限仍不可写则断开；恢复可写时补发被合并的消息
+ *
+ * @author cong
+ */
+@Slf4j
+public class SlowConsumerHandler extends ChannelInboundHandlerAdapter {
+
+    private final WebSocketPusher webSocketPusher;
+    private final long timeoutMillis;
+
+    /**
+     * 驱逐任务，只在当前连接的 EventLoop 中读写
+     */
+    private ScheduledFuture<?> evictFuture;
+
+    public SlowConsumerHandler(WebSocketPusher webSocketPusher, long timeoutMillis) {
+        this.webSocketPusher = webSocketPusher;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        Channel channel = ctx.channel();
+        if (channel.isWritable()) {
+            cancelEviction();
+            webSocketPusher.flushPending(channel);
+        } else if (evictFuture == null) {
+            evictFuture = ctx.executor().schedule(() -> {
+                evictFuture = null;
+                if (channel.isActive() && !channel.isWritable()) {
+                    log.warn("连接[{}]持续 {}ms 不可写，判定为慢消费者并断开", channel.id(), timeoutMillis);
+                    webSocketPusher.recordEviction();
+                    channel.close();
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        cancelEviction();
+        webSocketPusher.releasePending(ctx.channel());
+        super.channelInactive(ctx);
+    }
+
+    private void cancelEviction() {
+        if (evictFuture != null) {
+            evictFuture.cancel(false);
+            evictFuture = null;
+        }
+    }
+}
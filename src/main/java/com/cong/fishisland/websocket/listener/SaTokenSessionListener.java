@@ -0,0 +1,43 @@
+package com.cong.fishisland.websocket.listener;
+
+import cn.dev33.satoken.listener.SaTokenListenerForSimple;
+import com.cong.fishisland.websocket.event.UserSessionChangeEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * 登录态变更监听器
+ * Description: 注销、踢下线、被顶下线时使 WebSocket 连接上缓存的会话失效，下一条消息重新校验 token；
+ * 由 Sa-Token 自动注册，覆盖所有调用 StpUtil 下线的路径
+ *
+ * @author cong
+ */
+@Component
+@RequiredArgsConstructor
+public class SaTokenSessionListener extends SaTokenListenerForSimple {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void doLogout(String loginType, Object loginId, String tokenValue) {
+        publish(loginId);
+    }
+
+    @Override
+    public void doKickout(String loginType, Object loginId, String tokenValue) {
+        publish(loginId);
+    }
+
+    @Override
+    public void doReplaced(String loginType, Object loginId, String tokenValue) {
+        publish(loginId);
+    }
+
+    private void publish(Object loginId) {
+        if (loginId == null) {
+            return;
+        }
+        applicationEventPublisher.publishEvent(new UserSessionChangeEvent(this, Long.valueOf(String.valueOf(loginId))));
+    }
+}
@@ -0,0 +1,29 @@
+package com.cong.fishisland.websocket.listener;
+
+import com.cong.fishisland.cache.UserEntityCache;
+import com.cong.fishisland.websocket.event.UserChangeEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 用户信息变更监听器
+ *
+ * @author cong
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeListener {
+
+    private final UserEntityCache userEntityCache;
+
+    /**
+     * 事务结束后（提交或回滚）再删除一次两级缓存并广播，清掉事务期间被并发读取写回的旧数据或未提交数据
+     */
+    @TransactionalEventListener(classes = UserChangeEvent.class, phase = TransactionPhase.AFTER_COMPLETION,
+            fallbackExecution = true)
+    public void invalidateCache(UserChangeEvent event) {
+        userEntityCache.invalidate(event.getUserId());
+    }
+}
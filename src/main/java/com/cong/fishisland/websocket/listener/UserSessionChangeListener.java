@@ -0,0 +1,30 @@
+package com.cong.fishisland.websocket.listener;
+
+import com.cong.fishisland.websocket.event.UserSessionChangeEvent;
+import com.cong.fishisland.websocket.service.WebSocketService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 用户会话变更监听器
+ *
+ * @author cong
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserSessionChangeListener {
+
+    private final WebSocketService webSocketService;
+
+    /**
+     * 事务提交后再失效，避免下一条消息重新加载到未提交的旧数据
+     */
+    @TransactionalEventListener(classes = UserSessionChangeEvent.class, fallbackExecution = true)
+    public void invalidateSession(UserSessionChangeEvent event) {
+        webSocketService.invalidateSession(event.getUserId());
+        log.info("用户{}的连接会话已失效", event.getUserId());
+    }
+}
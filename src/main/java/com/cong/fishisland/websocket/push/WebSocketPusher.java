@@ -0,0 +1,277 @@
+package com.cong.fishisland.websocket.push;
+
+import cn.hutool.json.JSONUtil;
+import com.cong.fishisland.config.WebSocketProperties;
+import com.cong.fishisland.model.ws.response.WSBaseResp;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.Attribute;
+import io.netty.util.AttributeKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebSocket 推送器
+ * Description: 一条消息只序列化一次，编码到池化 ByteBuf 后通过 retainedDuplicate 复用到所有连接，
+ * 写操作由 Netty 投递到各连接自己的 EventLoop，不再经过额外线程池。
+ * 连接不可写（出站缓冲超过高水位）时按消息类型执行出站策略：低优先级消息合并或丢弃，其余消息照常排队
+ *
+ * @author cong
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WebSocketPusher {
+
+    private static final String UNKNOWN_TYPE = "unknown";
+
+    /**
+     * 连接不可写期间被合并的低优先级消息，按消息类型只保留最新一条
+     */
+    private static final AttributeKey<ConcurrentHashMap<String, ByteBuf>> PENDING_FRAMES = AttributeKey.valueOf("pendingFrames");
+
+    private final WebSocketProperties webSocketProperties;
+
+    private Set<String> coalesceTypes = Collections.emptySet();
+    private Set<String> droppableTypes = Collections.emptySet();
+
+    /**
+     * 广播次数
+     */
+    private final LongAdder broadcastCount = new LongAdder();
+    /**
+     * 因长期不可写被断开的慢连接数
+     */
+    private final LongAdder evictedCount = new LongAdder();
+    /**
+     * 按消息类型统计
+     */
+    private final ConcurrentHashMap<String, TypeCounter> typeCounters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        coalesceTypes = new HashSet<>(webSocketProperties.getCoalesceTypes());
+        droppableTypes = new HashSet<>(webSocketProperties.getDroppableTypes());
+    }
+
+    /**
+     * 推送给单个连接
+     *
+     * @param channel    渠道
+     * @param wsBaseResp 消息体
+     */
+    public void push(Channel channel, WSBaseResp<?> wsBaseResp) {
+        if (channel == null) {
+            return;
+        }
+        broadcast(wsBaseResp, Collections.singletonList(channel));
+    }
+
+    /**
+     * 广播给一批连接，消息只编码一次
+     *
+     * @param wsBaseResp 消息体
+     * @param channels   目标连接
+     * @return 实际投递写操作的连接数
+     */
+    public int broadcast(WSBaseResp<?> wsBaseResp, Collection<Channel> channels) {
+        if (channels == null || channels.isEmpty()) {
+            return 0;
+        }
+        return broadcast(wsBaseResp.getType(), JSONUtil.toJsonStr(wsBaseResp), channels);
+    }
+
+    /**
+     * 广播已序列化好的消息，供集群转发等场景复用同一份 JSON
+     *
+     * @param type     消息类型
+     * @param json     消息体 JSON
+     * @param channels 目标连接
+     * @return 实际投递写操作的连接数
+     */
+    public int broadcast(String type, String json, Collection<Channel> channels) {
+        if (channels == null || channels.isEmpty()) {
+            return 0;
+        }
+        broadcastCount.increment();
+        type = type == null ? UNKNOWN_TYPE : type;
+        TypeCounter counter = counterOf(type);
+        ByteBuf payload = ByteBufUtil.writeUtf8(PooledByteBufAllocator.DEFAULT, json);
+        int written = 0;
+        try {
+            for (Channel channel : channels) {
+                if (!channel.isActive()) {
+                    counter.dropped.increment();
+                    continue;
+                }
+                if (!channel.isWritable()) {
+                    if (droppableTypes.contains(type)) {
+                        counter.dropped.increment();
+                        continue;
+                    }
+                    if (coalesceTypes.contains(type)) {
+                        coalesce(channel, type, payload, counter);
+                        continue;
+                    }
+                    counter.deferred.increment();
+                }
+                write(channel, payload.retainedDuplicate(), counter);
+                written++;
+            }
+        } finally {
+            payload.release();
+        }
+        return written;
+    }
+
+    /**
+     * 连接恢复可写后补发被合并的消息
+     *
+     * @param channel 渠道
+     */
+    public void flushPending(Channel channel) {
+        ConcurrentHashMap<String, ByteBuf> pending = channel.attr(PENDING_FRAMES).get();
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        for (String type : pending.keySet()) {
+            ByteBuf frame = pending.remove(type);
+            if (frame != null) {
+                write(channel, frame, counterOf(type));
+            }
+        }
+    }
+
+    /**
+     * 连接关闭时释放被合并的消息
+     *
+     * @param channel 渠道
+     */
+    public void releasePending(Channel channel) {
+        ConcurrentHashMap<String, ByteBuf> pending = channel.attr(PENDING_FRAMES).get();
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        for (String type : pending.keySet()) {
+            ByteBuf frame = pending.remove(type);
+            if (frame != null) {
+                frame.release();
+                counterOf(type).dropped.increment();
+            }
+        }
+    }
+
+    /**
+     * 记录一次慢连接驱逐
+     */
+    public void recordEviction() {
+        evictedCount.increment();
+    }
+
+    /**
+     * 推送统计
+     *
+     * @return total 为全局计数，其余 key 为消息类型对应的计数快照
+     */
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        Map<String, Long> total = new LinkedHashMap<>();
+        total.put("broadcast", broadcastCount.sum());
+        total.put("evicted", evictedCount.sum());
+        stats.put("total", total);
+        new TreeMap<>(typeCounters).forEach((type, counter) -> stats.put(type, counter.snapshot()));
+        return stats;
+    }
+
+    private void coalesce(Channel channel, String type, ByteBuf payload, TypeCounter counter) {
+        Attribute<ConcurrentHashMap<String, ByteBuf>> attr = channel.attr(PENDING_FRAMES);
+        ConcurrentHashMap<String, ByteBuf> pending = attr.get();
+        if (pending == null) {
+            pending = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, ByteBuf> old = attr.setIfAbsent(pending);
+            if (old != null) {
+                pending = old;
+            }
+        }
+        ByteBuf replaced = pending.put(type, payload.retainedDuplicate());
+        if (replaced != null) {
+            replaced.release();
+            counter.coalesced.increment();
+        }
+        // 放入期间连接可能已恢复可写或已关闭，补一次处理避免消息挂起或泄漏
+        if (!channel.isActive()) {
+            releasePending(channel);
+        } else if (channel.isWritable()) {
+            flushPending(channel);
+        }
+    }
+
+    private void write(Channel channel, ByteBuf frame, TypeCounter counter) {
+        int bytes = frame.readableBytes();
+        channel.writeAndFlush(new TextWebSocketFrame(frame))
+                .addListener((ChannelFutureListener) future -> {
+                    if (future.isSuccess()) {
+                        counter.sent.increment();
+                        counter.bytes.add(bytes);
+                    } else {
+                        counter.dropped.increment();
+                    }
+                });
+    }
+
+    private TypeCounter counterOf(String type) {
+        return typeCounters.computeIfAbsent(type, k -> new TypeCounter());
+    }
+
+    /**
+     * 单个消息类型的推送计数
+     */
+    private static final class TypeCounter {
+        /**
+         * 成功写出的帧数
+         */
+        private final LongAdder sent = new LongAdder();
+        /**
+         * 成功写出的字节数
+         */
+        private final LongAdder bytes = new LongAdder();
+        /**
+         * 被丢弃的帧数（连接失效、写失败或不可写时按策略丢弃）
+         */
+        private final LongAdder dropped = new LongAdder();
+        /**
+         * 写入时连接不可写、进入出站缓冲排队的帧数
+         */
+        private final LongAdder deferred = new LongAdder();
+        /**
+         * 不可写期间被新消息覆盖的帧数
+         */
+        private final LongAdder coalesced = new LongAdder();
+
+        private Map<String, Long> snapshot() {
+            Map<String, Long> snapshot = new LinkedHashMap<>();
+            snapshot.put("sent", sent.sum());
+            snapshot.put("bytes", bytes.sum());
+            snapshot.put("dropped", dropped.sum());
+            snapshot.put("deferred", deferred.sum());
+            snapshot.put("coalesced", coalesced.sum());
+            return snapshot;
+        }
+    }
+}
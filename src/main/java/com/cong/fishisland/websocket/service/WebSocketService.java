@@ -7,6 +7,7 @@ import com.cong.fishisland.model.ws.response.WSBaseResp;
 import io.netty.channel.Channel;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Web 套接字服务
@@ -15,12 +16,26 @@ import java.util.List;
  * @date 2023/10/27
  */
 public interface WebSocketService {
+
+    /**
+     * 登录请求中声明支持在线名单增量的标记
+     */
+    String ROSTER_DELTA_CAPABILITY = "rosterDelta";
+
     /**
      * 处理用户登录请求
      *
      * @param channel 渠道
+     * @param req     登录请求，data 为 {@link #ROSTER_DELTA_CAPABILITY} 表示客户端支持在线名单增量
+     */
+    void handleLoginReq(Channel channel, WSBaseReq req);
+
+    /**
+     * 向已登录的连接发送带版本号的在线用户快照，客户端发现增量版本不连续时请求
+     *
+     * @param channel 渠道
      */
-    void handleLoginReq(Channel channel);
+    void sendRosterSnapshot(Channel channel);
 
     /**
      * 处理所有ws连接的事件
@@ -59,4 +74,18 @@ public interface WebSocketService {
     void sendMessage(String token, WSBaseReq req);
 
     List<UserChatResponse> getOnlineUserList();
+
+    /**
+     * 获取推送统计（全局计数及按消息类型的成功、字节、丢弃、延迟、合并数量）
+     *
+     * @return 统计快照
+     */
+    Map<String, Map<String, Long>> getPushStats();
+
+    /**
+     * 使用户所有连接上缓存的会话失效（包括其他节点），下一条消息会重新加载身份、禁言和会员状态
+     *
+     * @param uid 用户 ID
+     */
+    void invalidateSession(Long uid);
 }
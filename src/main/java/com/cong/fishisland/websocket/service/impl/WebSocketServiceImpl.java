@@ -1,6 +1,5 @@
 package com.cong.fishisland.websocket.service.impl;
 
-import cn.dev33.satoken.stp.StpUtil;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.text.CharSequenceUtil;
 import cn.hutool.core.util.ObjectUtil;
@@ -8,11 +7,11 @@ import cn.hutool.json.JSONUtil;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.cong.fishisland.common.ErrorCode;
-import com.cong.fishisland.config.ThreadPoolConfig;
 import com.cong.fishisland.constant.UserConstant;
 import com.cong.fishisland.model.dto.ws.WSChannelExtraDTO;
+import com.cong.fishisland.model.dto.ws.WSChannelSessionDTO;
+import com.cong.fishisland.model.dto.ws.WsClusterEnvelope;
 import com.cong.fishisland.model.entity.chat.RoomMessage;
 import com.cong.fishisland.model.entity.user.User;
 import com.cong.fishisland.model.enums.MessageTypeEnum;
@@ -24,6 +23,7 @@ import com.cong.fishisland.model.ws.request.MessageWrapper;
 import com.cong.fishisland.model.ws.request.Sender;
 import com.cong.fishisland.model.ws.request.WSBaseReq;
 import com.cong.fishisland.model.ws.response.DrawPlayer;
+import com.cong.fishisland.model.ws.response.RosterDelta;
 import com.cong.fishisland.model.ws.response.UserChatResponse;
 import com.cong.fishisland.model.ws.response.WSBaseResp;
 import com.cong.fishisland.model.dto.admin.AdminRevokeRecordDTO;
@@ -32,30 +32,32 @@ import com.cong.fishisland.service.RoomMessageService;
 import com.cong.fishisland.service.UserAiAvatarService;
 import com.cong.fishisland.service.UserMuteService;
 import com.cong.fishisland.service.UserService;
-import com.cong.fishisland.service.UserVipService;
+import com.cong.fishisland.websocket.cache.ChannelSessionCache;
+import com.cong.fishisland.websocket.cache.OnlineRosterCache;
 import com.cong.fishisland.websocket.cache.UserCache;
+import com.cong.fishisland.websocket.cluster.WsClusterBroadcaster;
 import com.cong.fishisland.websocket.event.AIAnswerEvent;
 import com.cong.fishisland.websocket.event.AddSpeakPointEvent;
 import com.cong.fishisland.websocket.event.UserAiAvatarAnswerEvent;
 import com.cong.fishisland.websocket.event.UserOfflineEvent;
 import com.cong.fishisland.websocket.event.UserOnlineEvent;
+import com.cong.fishisland.websocket.push.WebSocketPusher;
 import com.cong.fishisland.websocket.service.WebSocketService;
 import com.cong.fishisland.websocket.utils.NettyUtil;
 import io.netty.channel.Channel;
-import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationEventPublisher;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 import toolgood.words.StringSearch;
 
+import javax.annotation.PostConstruct;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 
 
 /**
@@ -74,15 +76,20 @@ public class WebSocketServiceImpl implements WebSocketService {
     private final UserService userService;
     private final StringSearch wordsUtil;
     private final UserCache userCache;
-    @Qualifier(ThreadPoolConfig.WS_EXECUTOR)
-    private final ThreadPoolTaskExecutor threadPoolTaskExecutor;
+    private final WebSocketPusher webSocketPusher;
+    private final WsClusterBroadcaster wsClusterBroadcaster;
+    private final OnlineRosterCache onlineRosterCache;
+    private final ChannelSessionCache channelSessionCache;
     private final ApplicationEventPublisher applicationEventPublisher;
 
     private static final String ROOM_ID = "roomId";
+    /**
+     * 集群内部消息：使指定用户连接上缓存的会话失效
+     */
+    private static final String SESSION_INVALIDATE_TYPE = "sessionInvalidate";
     private final RoomMessageService roomMessageService;
     private final UserAiAvatarService userAiAvatarService;
     private final UserMuteService userMuteService;
-    private final UserVipService userVipService;
     private final AdminRevokeRecordService adminRevokeRecordService;
 
 
@@ -109,21 +116,45 @@ public class WebSocketServiceImpl implements WebSocketService {
     private static final ConcurrentHashMap<String, CopyOnWriteArrayList<Channel>> DRAW_ROOM_MAP = new ConcurrentHashMap<>();
     private static final ConcurrentHashMap<String, CopyOnWriteArrayList<DrawPlayer>> DRAW_ROOM_PLAYER_MAP = new ConcurrentHashMap<>();
 
+    @PostConstruct
+    public void init() {
+        wsClusterBroadcaster.subscribe(this::deliverClusterMessage);
+        try {
+            // 以集群在线用户初始化本节点名单，之后靠增量变更保持同步
+            onlineRosterCache.reset(wsClusterBroadcaster.getOnlineUsers());
+        } catch (Exception e) {
+            log.error("初始化在线用户名单失败", e);
+        }
+        // 增量可能丢失、宕机节点的用户不会发下线，每次心跳后与集群在线用户表对账
+        wsClusterBroadcaster.addHeartbeatListener(this::reconcileRoster);
+    }
+
+    /**
+     * 在线名单对账，只推送本节点的连接，各节点各自对账
+     */
+    private void reconcileRoster() {
+        List<UserChatResponse> users = wsClusterBroadcaster.getOnlineUsers();
+        synchronized (onlineRosterCache) {
+            onlineRosterCache.reconcile(users).forEach(this::deliverRosterDelta);
+        }
+    }
+
     @Override
-    public void handleLoginReq(Channel channel) {
+    public void handleLoginReq(Channel channel, WSBaseReq req) {
         try {
             String token = NettyUtil.getAttr(channel, NettyUtil.TOKEN);
             if (token == null) {
                 return;
             }
-            Object loginIdByToken = StpUtil.getLoginIdByToken(token);
-            if (loginIdByToken == null) {
+            // 登录时解析并缓存会话，之后的消息不再查询身份、禁言和会员状态
+            WSChannelSessionDTO session = channelSessionCache.get(channel, token);
+            if (session == null) {
                 return;
             }
             //更新上线列表
-            Long userId = Long.valueOf((String) loginIdByToken);
-            online(channel, userId);
-            User loginUser = userService.getLoginUser(token);
+            User loginUser = session.getUser();
+            boolean rosterDelta = ROSTER_DELTA_CAPABILITY.equals(req.getData());
+            online(channel, loginUser, rosterDelta);
 
             //发送用户上线事件
             boolean online = userCache.isOnline(loginUser.getId());
@@ -132,13 +163,14 @@ public class WebSocketServiceImpl implements WebSocketService {
                 applicationEventPublisher.publishEvent(new UserOnlineEvent(this, loginUser));
             }
 
-            // 向当前新连接发送在线用户列表信息
-            List<UserChatResponse> onlineUserList = getOnlineUserList();
-            if (!onlineUserList.isEmpty()) {
-                WSBaseResp<Object> resp = WSBaseResp.builder()
-                        .type(MessageTypeEnum.USER_ONLINE.getType())
-                        .data(onlineUserList).build();
-                sendMsg(channel, resp);
+            // 向当前新连接发送带版本号的快照，之后通过增量变更保持同步；旧版客户端发送缓存的在线用户列表
+            if (rosterDelta) {
+                sendRosterSnapshot(channel);
+            } else {
+                String legacyPayload = onlineRosterCache.legacyPayload();
+                if (legacyPayload != null) {
+                    webSocketPusher.broadcast(MessageTypeEnum.USER_ONLINE.getType(), legacyPayload, Collections.singletonList(channel));
+                }
             }
         } catch (Exception e) {
             log.error("websocket登录失败", e);
@@ -146,6 +178,15 @@ public class WebSocketServiceImpl implements WebSocketService {
         }
     }
 
+    @Override
+    public void sendRosterSnapshot(Channel channel) {
+        if (!ONLINE_WS_MAP.containsKey(channel)) {
+            return;
+        }
+        webSocketPusher.broadcast(MessageTypeEnum.ROSTER_SNAPSHOT.getType(),
+                onlineRosterCache.snapshotPayload(), Collections.singletonList(channel));
+    }
+
     /**
      * 处理所有ws连接的事件
      *
@@ -163,31 +204,34 @@ public class WebSocketServiceImpl implements WebSocketService {
                 .map(WSChannelExtraDTO::getUid);
         boolean offlineAll = offline(channel, uidOptional);
         if (uidOptional.isPresent() && offlineAll) {
+            wsClusterBroadcaster.unregisterOnline(uidOptional.get());
+        }
+        // 用户在其他节点仍有连接时不算下线
+        if (uidOptional.isPresent() && offlineAll && !wsClusterBroadcaster.isOnline(uidOptional.get())) {
             // 只有当用户的所有连接都断开时才发送下线事件
             User user = new User();
             user.setId(uidOptional.get());
             applicationEventPublisher.publishEvent(new UserOfflineEvent(this, user));
-            // 发送当前用户下线信息给所有人
-            sendToAllOnline(WSBaseResp.builder()
-                    .type(MessageTypeEnum.USER_OFFLINE.getType())
-                    .data(uidOptional.get().toString()).build(), uidOptional.get());
+            // 发送当前用户下线变更给所有人
+            publishRosterChange(() -> onlineRosterCache.remove(uidOptional.get().toString()));
         }
     }
 
     /**
-     * 在线发送给所有人
+     * 在线发送给所有人，本节点直接投递，其他节点通过集群广播投递
      *
      * @param wsBaseResp WS基础研究
      * @param skipUid    跳过 UID
      */
     @Override
     public void sendToAllOnline(WSBaseResp<?> wsBaseResp, Long skipUid) {
-        ONLINE_WS_MAP.forEach((channel, ext) -> {
-            if (ObjectUtil.equal(ext.getUid(), skipUid)) {
-                return;
-            }
-            threadPoolTaskExecutor.execute(() -> sendMsg(channel, wsBaseResp));
-        });
+        String payload = JSONUtil.toJsonStr(wsBaseResp);
+        deliverToAll(wsBaseResp.getType(), payload, skipUid);
+        wsClusterBroadcaster.publish(WsClusterEnvelope.builder()
+                .type(wsBaseResp.getType())
+                .payload(payload)
+                .skipUid(skipUid)
+                .build());
     }
 
     @Override
@@ -197,12 +241,121 @@ public class WebSocketServiceImpl implements WebSocketService {
 
     @Override
     public void sendToUid(WSBaseResp<?> wsBaseResp, Long uid) {
+        String payload = JSONUtil.toJsonStr(wsBaseResp);
+        deliverToUid(wsBaseResp.getType(), payload, uid);
+        // 用户可能同时连接在其他节点
+        wsClusterBroadcaster.publish(WsClusterEnvelope.builder()
+                .type(wsBaseResp.getType())
+                .payload(payload)
+                .targetUid(uid)
+                .build());
+    }
+
+    /**
+     * 投递其他节点转发来的消息
+     *
+     * @param envelope 广播信封
+     */
+    private void deliverClusterMessage(WsClusterEnvelope envelope) {
+        if (SESSION_INVALIDATE_TYPE.equals(envelope.getType())) {
+            invalidateLocalSession(envelope.getTargetUid());
+            return;
+        }
+        if (MessageTypeEnum.ROSTER_DELTA.getType().equals(envelope.getType())) {
+            // 名单变更由各节点按自己的版本号重新编号后再推送
+            RosterDelta change = JSONUtil.toBean(envelope.getPayload(), RosterDelta.class);
+            synchronized (onlineRosterCache) {
+                deliverRosterDelta(onlineRosterCache.apply(change));
+            }
+            return;
+        }
+        if (envelope.getTargetUid() != null) {
+            deliverToUid(envelope.getType(), envelope.getPayload(), envelope.getTargetUid());
+        } else {
+            deliverToAll(envelope.getType(), envelope.getPayload(), envelope.getSkipUid());
+        }
+    }
+
+    /**
+     * 推送本节点产生的名单变更，并同步给其他节点
+     *
+     * @param change 名单变更操作，返回空表示名单没有变化
+     */
+    private void publishRosterChange(Supplier<RosterDelta> change) {
+        RosterDelta delta;
+        // 在名单锁内产出并投递，保证本节点推送的版本号有序
+        synchronized (onlineRosterCache) {
+            delta = change.get();
+            deliverRosterDelta(delta);
+        }
+        if (delta == null) {
+            return;
+        }
+        wsClusterBroadcaster.publish(WsClusterEnvelope.builder()
+                .type(MessageTypeEnum.ROSTER_DELTA.getType())
+                .payload(JSONUtil.toJsonStr(delta))
+                .build());
+    }
+
+    private void deliverRosterDelta(RosterDelta delta) {
+        if (delta == null) {
+            return;
+        }
+        WSBaseResp<RosterDelta> resp = WSBaseResp.<RosterDelta>builder()
+                .type(MessageTypeEnum.ROSTER_DELTA.getType())
+                .data(delta).build();
+        // 声明支持增量的客户端只收增量，旧版客户端仍按上线/下线消息维护名单
+        Long uid = Long.valueOf(delta.getUid());
+        WSBaseResp<Object> legacy = toLegacyRosterResp(delta);
+        List<Channel> deltaChannels = new ArrayList<>(ONLINE_WS_MAP.size());
+        List<Channel> legacyChannels = new ArrayList<>();
+        ONLINE_WS_MAP.forEach((channel, ext) -> {
+            if (ext.isRosterDelta()) {
+                deltaChannels.add(channel);
+            } else if (legacy != null && !ObjectUtil.equal(ext.getUid(), uid)) {
+                legacyChannels.add(channel);
+            }
+        });
+        webSocketPusher.broadcast(resp.getType(), JSONUtil.toJsonStr(resp), deltaChannels);
+        if (legacy != null && !legacyChannels.isEmpty()) {
+            webSocketPusher.broadcast(legacy.getType(), JSONUtil.toJsonStr(legacy), legacyChannels);
+        }
+    }
+
+    /**
+     * 旧版客户端的上线/下线消息，资料更新没有对应消息
+     */
+    private WSBaseResp<Object> toLegacyRosterResp(RosterDelta delta) {
+        if (OnlineRosterCache.OP_JOIN.equals(delta.getOp())) {
+            return WSBaseResp.builder()
+                    .type(MessageTypeEnum.USER_ONLINE.getType())
+                    .data(Collections.singletonList(delta.getUser())).build();
+        }
+        if (OnlineRosterCache.OP_LEAVE.equals(delta.getOp())) {
+            return WSBaseResp.builder()
+                    .type(MessageTypeEnum.USER_OFFLINE.getType())
+                    .data(delta.getUid()).build();
+        }
+        return null;
+    }
+
+    private void deliverToAll(String type, String payload, Long skipUid) {
+        List<Channel> channels = new ArrayList<>(ONLINE_WS_MAP.size());
+        ONLINE_WS_MAP.forEach((channel, ext) -> {
+            if (ObjectUtil.equal(ext.getUid(), skipUid)) {
+                return;
+            }
+            channels.add(channel);
+        });
+        webSocketPusher.broadcast(type, payload, channels);
+    }
+
+    private void deliverToUid(String type, String payload, Long uid) {
         CopyOnWriteArrayList<Channel> channels = ONLINE_UID_MAP.get(uid);
         if (CollUtil.isEmpty(channels)) {
-            log.info("用户：{}不在线", uid);
             return;
         }
-        channels.forEach(channel -> threadPoolTaskExecutor.execute(() -> sendMsg(channel, wsBaseResp)));
+        webSocketPusher.broadcast(type, payload, channels);
     }
 
     @Override
@@ -235,21 +388,40 @@ public class WebSocketServiceImpl implements WebSocketService {
 
     @Override
     public List<UserChatResponse> getOnlineUserList() {
-        // 使用Map确保每个用户只返回一次，以uid为key
-        Map<String, UserChatResponse> uniqueUsers = new HashMap<>();
+        // 本节点维护的全集群在线名单
+        return onlineRosterCache.members();
+    }
 
-        ONLINE_WS_MAP.values().forEach(ext -> {
-            UserChatResponse response = ext.getUserChatResponse();
-            uniqueUsers.putIfAbsent(response.getId(), response);
-        });
+    @Override
+    public void invalidateSession(Long uid) {
+        if (uid == null) {
+            return;
+        }
+        invalidateLocalSession(uid);
+        wsClusterBroadcaster.publish(WsClusterEnvelope.builder()
+                .type(SESSION_INVALIDATE_TYPE)
+                .targetUid(uid)
+                .build());
+    }
 
-        return new ArrayList<>(uniqueUsers.values());
+    private void invalidateLocalSession(Long uid) {
+        CopyOnWriteArrayList<Channel> channels = ONLINE_UID_MAP.get(uid);
+        if (CollUtil.isNotEmpty(channels)) {
+            channels.forEach(channelSessionCache::invalidate);
+        }
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> getPushStats() {
+        return webSocketPusher.getStats();
     }
 
     private void sendByType(ChatMessageVo chatMessageVo, String token, Long uid, Channel channel) {
-        // 先检查token是否有效
-        Object loginIdObj = StpUtil.getLoginIdByToken(token);
-        if (loginIdObj == null) {
+        // 优先使用连接上缓存的会话，会话无效说明 token 已失效
+        WSChannelSessionDTO session = channel != null
+                ? channelSessionCache.get(channel, token)
+                : channelSessionCache.load(token);
+        if (session == null) {
             // token无效，返回错误
             if (channel != null) {
                 WSBaseResp<Object> errorResp = WSBaseResp.builder()
@@ -261,13 +433,13 @@ public class WebSocketServiceImpl implements WebSocketService {
             return;
         }
 
-        long loginUserId = Long.parseLong(loginIdObj.toString());
-        User loginUser = userService.getLoginUser(token);
+        long loginUserId = session.getUid();
+        User loginUser = session.getUser();
         MessageTypeEnum messageTypeEnum = MessageTypeEnum.of(chatMessageVo.getType());
         //发送消息
         switch (messageTypeEnum) {
             case UNDERCOVER:
-                SendMessageDto messageDto = getSendMessageDto(chatMessageVo, channel, loginIdObj, loginUserId);
+                SendMessageDto messageDto = getSendMessageDto(chatMessageVo, channel, session);
                 if (messageDto == null) {
                     return;
                 }
@@ -276,7 +448,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                         .data(messageDto.messageDto).build(), loginUserId);
                 break;
             case CHAT:
-                SendMessageDto result = getSendMessageDto(chatMessageVo, channel, loginIdObj, loginUserId);
+                SendMessageDto result = getSendMessageDto(chatMessageVo, channel, session);
                 if (result == null) {
                     return;
                 }
@@ -303,10 +475,9 @@ public class WebSocketServiceImpl implements WebSocketService {
                 break;
             case USER_MESSAGE_REVOKE:
                 //撤回消息
-                RoomMessage roomMess = roomMessageService.getOne(new LambdaQueryWrapper<RoomMessage>()
-                        .eq(RoomMessage::getMessageId, chatMessageVo.getContent()));
-                if (roomMess != null && (roomMess.getUserId() == loginUserId
-                        || loginUser.getUserRole().equals(UserConstant.ADMIN_ROLE))) {
+                // 同时查找写缓冲中尚未落库的消息
+                RoomMessage roomMess = roomMessageService.getByMessageId(chatMessageVo.getContent());
+                if (roomMess != null && (roomMess.getUserId() == loginUserId || session.isAdmin())) {
 
                     // 如果是管理员撤回他人消息，记录到Redis
                     if (!roomMess.getUserId().equals(loginUserId)) {
@@ -327,7 +498,7 @@ public class WebSocketServiceImpl implements WebSocketService {
                         }
                     }
 
-                    roomMessageService.removeById(roomMess.getId());
+                    roomMessageService.removeByMessageId(chatMessageVo.getContent());
                     //发送撤回消息
                     sendToAllOnline(WSBaseResp.builder()
                             .type(MessageTypeEnum.USER_MESSAGE_REVOKE.getType())
@@ -381,7 +552,7 @@ public class WebSocketServiceImpl implements WebSocketService {
         roomMessage.setRoomId(-1L);
         roomMessage.setMessageJson(JSON.toJSONString(result.messageDto));
         roomMessage.setMessageId(result.messageDto.getMessage().getId());
-        roomMessageService.save(roomMessage);
+        roomMessageService.saveAsync(roomMessage);
     }
 
     private void publishAiAvatarAnswerEvents(Message message, MessageWrapper messageDto, List<Sender> mentionedUsers) {
@@ -413,26 +584,31 @@ public class WebSocketServiceImpl implements WebSocketService {
     }
 
     @Nullable
-    private SendMessageDto getSendMessageDto(ChatMessageVo chatMessageVo, Channel channel, Object loginIdObj, long loginUserId) {
+    private SendMessageDto getSendMessageDto(ChatMessageVo chatMessageVo, Channel channel, WSChannelSessionDTO session) {
+        long loginUserId = session.getUid();
         MessageWrapper messageDto = JSON.parseObject(chatMessageVo.getContent(), MessageWrapper.class);
         Message message = messageDto.getMessage();
-        if (!message.getSender().getId().equals(loginIdObj)) {
+        if (!message.getSender().getId().equals(String.valueOf(loginUserId))) {
             log.info("非法消息发送者：{}，消息内容：{}", message.getSender().getId(), message.getContent());
             //直接移除当前用户 ID
             userService.removeById(loginUserId);
+            invalidateSession(loginUserId);
             return null;
         }
         String resultContent = fixMessage(message);
         message.setContent(resultContent);
-        UserMuteVO userMuteInfo = userMuteService.getUserMuteInfo(loginUserId);
-        if (userMuteInfo.getIsMuted()) {
-            //用户被禁言
-            // 异常返回
-            WSBaseResp<Object> errorResp = WSBaseResp.builder().type(MessageTypeEnum.ERROR.getType()).data(userMuteInfo.getRemainingTime()).build();
-            sendMsg(channel, errorResp);
-            return null;
+        // 只有会话显示禁言中才查询剩余时间，同时以实时状态为准防止会话滞后
+        if (session.isMuted(System.currentTimeMillis())) {
+            UserMuteVO userMuteInfo = userMuteService.getUserMuteInfo(loginUserId);
+            if (userMuteInfo.getIsMuted()) {
+                //用户被禁言
+                // 异常返回
+                WSBaseResp<Object> errorResp = WSBaseResp.builder().type(MessageTypeEnum.ERROR.getType()).data(userMuteInfo.getRemainingTime()).build();
+                sendMsg(channel, errorResp);
+                return null;
+            }
         }
-        message.getSender().setVip(userVipService.isUserVip(loginUserId));
+        message.getSender().setVip(session.isVip());
 
         return new SendMessageDto(messageDto, message);
     }
@@ -476,16 +652,12 @@ public class WebSocketServiceImpl implements WebSocketService {
     }
 
     private void moveChess(ChatMessageVo chatMessageVo, Long uid) {
-        CopyOnWriteArrayList<Channel> channels = ONLINE_UID_MAP.get(uid);
-        if (CollUtil.isNotEmpty(channels)) {
-            JSONObject message = JSON.parseObject(chatMessageVo.getContent());
-            message.put(ROOM_ID, message.get(ROOM_ID));
-            WSBaseResp<Object> wsBaseResp = WSBaseResp.builder()
-                    .type(MessageTypeEnum.MOVE_CHESS.getType()).data(message).build();
-            channels.forEach(item -> threadPoolTaskExecutor.execute(() -> sendMsg(item, wsBaseResp)));
-        } else {
-            log.warn("用户 {} 没有可用的WebSocket连接", uid);
-        }
+        JSONObject message = JSON.parseObject(chatMessageVo.getContent());
+        message.put(ROOM_ID, message.get(ROOM_ID));
+        WSBaseResp<Object> wsBaseResp = WSBaseResp.builder()
+                .type(MessageTypeEnum.MOVE_CHESS.getType()).data(message).build();
+        // 对手可能连接在其他节点
+        sendToUid(wsBaseResp, uid);
     }
 
     private void createRoom(Channel channel) {
@@ -558,9 +730,9 @@ public class WebSocketServiceImpl implements WebSocketService {
     /**
      * 用户上线
      */
-    private void online(Channel channel, Long uid) {
+    private void online(Channel channel, User currentUser, boolean rosterDelta) {
         // 删除原来的检查，允许一个用户有多个连接
-        User currentUser = userService.getLoginUser(NettyUtil.getAttr(channel, NettyUtil.TOKEN));
+        Long uid = currentUser.getId();
         LoginUserVO loginUserVO = userService.getLoginUserVO(currentUser);
 
         UserChatResponse userChatResponse = new UserChatResponse();
@@ -600,15 +772,12 @@ public class WebSocketServiceImpl implements WebSocketService {
         WSChannelExtraDTO wsChannelExtraDTO = new WSChannelExtraDTO();
         wsChannelExtraDTO.setUid(uid);
         wsChannelExtraDTO.setUserChatResponse(userChatResponse);
+        wsChannelExtraDTO.setRosterDelta(rosterDelta);
         ONLINE_WS_MAP.put(channel, wsChannelExtraDTO);
+        wsClusterBroadcaster.registerOnline(uid, userChatResponse);
 
-        // 用户首次登录时才广播上线消息（通过channels.size()判断）
-        if (channels.size() == 1) {
-            //发送当前用户上线信息给所有人
-            sendToAllOnline(WSBaseResp.builder()
-                    .type(MessageTypeEnum.USER_ONLINE.getType())
-                    .data(Collections.singletonList(userChatResponse)).build(), uid);
-        }
+        // 用户首次上线或资料变化时才广播名单变更
+        publishRosterChange(() -> onlineRosterCache.upsert(userChatResponse));
     }
 
     /**
@@ -631,7 +800,7 @@ public class WebSocketServiceImpl implements WebSocketService {
      * @param wsBaseResp WS基础研究
      */
     private void sendMsg(Channel channel, WSBaseResp<?> wsBaseResp) {
-        channel.writeAndFlush(new TextWebSocketFrame(JSONUtil.toJsonStr(wsBaseResp)));
+        webSocketPusher.push(channel, wsBaseResp);
     }
 
     /**
@@ -0,0 +1,161 @@
+package com.cong.fishisland.service;
+
+import com.cong.fishisland.service.impl.game.BossHealthPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 世界Boss血量并发压测
+ * 多个挑战者同时攻击同一个 Boss，校验伤害不丢失、不超扣、排行与实际伤害一致且只有一次击杀；需要本机 6379 端口有可用的 Redis
+ *
+ * @author cong
+ */
+class BossHealthPoolStressTest {
+
+    private static final int USER_COUNT = 200;
+    private static final int HITS_PER_USER = 50;
+    private static final int MAX_HIT = 100;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate stringRedisTemplate;
+    private BossHealthPool pool;
+    private long bossId;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory("127.0.0.1", 6379);
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        try {
+            stringRedisTemplate.hasKey("ping");
+        } catch (Exception e) {
+            connectionFactory.destroy();
+            connectionFactory = null;
+            assumeTrue(false, "本地 Redis 不可用，跳过Boss血量并发压测");
+        }
+        pool = new BossHealthPool(stringRedisTemplate);
+        bossId = 900_000_000L + ThreadLocalRandom.current().nextInt(1_000_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (connectionFactory == null) {
+            return;
+        }
+        stringRedisTemplate.delete(Arrays.asList(healthKey(), rankingKey(), "fish:boss:reward:distributed:" + bossId));
+        connectionFactory.destroy();
+    }
+
+    /**
+     * 总伤害超过血量：实际扣血之和恰好等于满血血量，只有一次击杀
+     */
+    @Test
+    void testApplyDamage_concurrentChallengersKillExactlyOnce() throws InterruptedException {
+        int maxHealth = 100_000;
+        Result result = attack(maxHealth);
+
+        assertTrue(result.requested.get() > maxHealth, "压测请求的伤害应超过血量");
+        assertEquals(maxHealth, result.applied.get(), "实际扣血之和应恰好等于满血血量");
+        assertEquals(1, result.kills.get(), "只能有一次击杀");
+        assertEquals(0, pool.currentHealth(bossId, maxHealth));
+        assertRankingMatches(result);
+    }
+
+    /**
+     * 总伤害不足血量：每次伤害都完整扣除，剩余血量 = 满血 - 总伤害
+     */
+    @Test
+    void testApplyDamage_concurrentChallengersPreserveTotalDamage() throws InterruptedException {
+        int maxHealth = USER_COUNT * HITS_PER_USER * MAX_HIT + 1;
+        Result result = attack(maxHealth);
+
+        assertEquals(result.requested.get(), result.applied.get(), "未击杀时伤害不能丢失");
+        assertEquals(0, result.kills.get());
+        assertEquals(maxHealth - result.applied.get(), pool.currentHealth(bossId, maxHealth));
+        assertRankingMatches(result);
+    }
+
+    private Result attack(int maxHealth) throws InterruptedException {
+        Result result = new Result();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(USER_COUNT);
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        for (long userId = 1; userId <= USER_COUNT; userId++) {
+            long uid = userId;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < HITS_PER_USER; i++) {
+                        int damage = ThreadLocalRandom.current().nextInt(MAX_HIT + 1);
+                        BossHealthPool.DamageResult damageResult = pool.applyDamage(bossId, maxHealth, uid, damage);
+                        result.requested.addAndGet(damage);
+                        result.applied.addAndGet(damageResult.getApplied());
+                        result.appliedByUser.merge(uid, (long) damageResult.getApplied(), Long::sum);
+                        if (damageResult.isKilled()) {
+                            result.kills.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS), "压测未在限定时间内完成");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        executor.shutdown();
+        System.out.printf("%d 次并发攻击耗时 %d ms%n", USER_COUNT * HITS_PER_USER, elapsedMillis);
+        return result;
+    }
+
+    private void assertRankingMatches(Result result) {
+        Set<ZSetOperations.TypedTuple<String>> ranking = stringRedisTemplate.opsForZSet().rangeWithScores(rankingKey(), 0, -1);
+        assertNotNull(ranking);
+        long rankingTotal = 0;
+        for (ZSetOperations.TypedTuple<String> tuple : ranking) {
+            long userId = Long.parseLong(tuple.getValue());
+            long score = tuple.getScore().longValue();
+            assertEquals(result.appliedByUser.getOrDefault(userId, 0L), score, "排行伤害应与实际扣血一致，userId: " + userId);
+            rankingTotal += score;
+        }
+        assertEquals(result.applied.get(), rankingTotal, "排行伤害之和应等于实际扣血之和");
+    }
+
+    private String healthKey() {
+        return "fish:boss:health:" + bossId;
+    }
+
+    private String rankingKey() {
+        return "fish:boss:ranking:" + bossId;
+    }
+
+    private static class Result {
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicLong applied = new AtomicLong();
+        private final AtomicInteger kills = new AtomicInteger();
+        private final Map<Long, Long> appliedByUser = new ConcurrentHashMap<>();
+    }
+}
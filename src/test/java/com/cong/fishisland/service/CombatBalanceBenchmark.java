@@ -0,0 +1,42 @@
+package com.cong.fishisland.service;
+
+import com.cong.fishisland.model.vo.game.BattleStatsVO;
+import com.cong.fishisland.service.impl.game.combat.CombatBalanceRunner;
+import com.cong.fishisland.service.impl.game.combat.CombatEngine;
+
+/**
+ * 战斗模拟吞吐基准
+ * 不属于单元测试（类名不匹配 surefire 默认规则，不随 mvn test 运行），在 IDE 中直接运行 main 方法，
+ * 可选参数：场数 线程数；用于评估平衡性调优时每分钟能跑多少场只记结果的模拟
+ *
+ * @author cong
+ */
+public class CombatBalanceBenchmark {
+
+    private static final int MAX_ACTIONS = 100;
+    private static final long WARMUP_FIGHTS = 200_000;
+
+    public static void main(String[] args) {
+        long fights = args.length > 0 ? Long.parseLong(args[0]) : 2_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        CombatEngine.Matchup matchup = CombatEngine.Matchup.of(pet(), pet(), CombatEngine.Rules.DEFAULT);
+        // 预热，让 JIT 编译完热点路径
+        CombatBalanceRunner.run(matchup, MAX_ACTIONS, WARMUP_FIGHTS, threads, 1L);
+        for (int round = 1; round <= 3; round++) {
+            CombatBalanceRunner.Report report = CombatBalanceRunner.run(matchup, MAX_ACTIONS, fights, threads, round + 1L);
+            System.out.printf("第 %d 轮（%d 线程）：%s%n", round, threads, report);
+        }
+    }
+
+    private static BattleStatsVO pet() {
+        BattleStatsVO stats = BattleStatsVO.fromPet(40, null, 10, 0.06);
+        stats.setDefense(5);
+        stats.setCritRate(0.1);
+        stats.setComboRate(0.1);
+        stats.setDodgeRate(0.05);
+        stats.setBlockRate(0.05);
+        stats.setLifesteal(0.05);
+        return stats;
+    }
+}
@@ -0,0 +1,188 @@
+package com.cong.fishisland.service;
+
+import com.cong.fishisland.model.vo.game.BattleResultVO;
+import com.cong.fishisland.model.vo.game.BattleStatsVO;
+import com.cong.fishisland.model.vo.game.PetBattleResultVO;
+import com.cong.fishisland.service.impl.game.combat.CombatBalanceRunner;
+import com.cong.fishisland.service.impl.game.combat.CombatEngine;
+import com.cong.fishisland.service.impl.game.combat.CombatLog;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 统一战斗引擎测试
+ * 校验同一种子可重放、血量守恒、共享血量的扣减方式，并用蒙特卡洛模拟校验胜率及倍率调整对胜率的影响
+ *
+ * @author cong
+ */
+@Slf4j
+class CombatEngineTest {
+
+    private static final int MAX_ACTIONS = 100;
+
+    /**
+     * 同一种子的两场战斗逐个动作完全一致
+     */
+    @Test
+    void testFight_sameSeedReplaysIdentically() {
+        BattleStatsVO pet = pet(30);
+        BattleStatsVO boss = boss(20000);
+
+        List<BattleResultVO> first = CombatEngine.fight(pet, boss, 20261018L, MAX_ACTIONS).toBattleResults("PET", "BOSS");
+        List<BattleResultVO> replay = CombatEngine.fight(pet, boss, 20261018L, MAX_ACTIONS).toBattleResults("PET", "BOSS");
+
+        assertFalse(first.isEmpty());
+        assertEquals(first, replay);
+    }
+
+    /**
+     * 每个动作的血量变化与伤害、吸血一致，且不越界
+     */
+    @Test
+    void testFight_healthIsConserved() {
+        BattleStatsVO my = pet(40);
+        BattleStatsVO opponent = pet(38);
+        opponent.setLifesteal(0.3);
+        for (long seed = 1; seed <= 200; seed++) {
+            CombatLog combatLog = CombatEngine.fight(my, opponent, seed, MAX_ACTIONS);
+            List<PetBattleResultVO> actions = combatLog.toPetBattleResults("MY_PET", "OPPONENT_PET");
+            assertEquals(combatLog.getActionCount(), actions.size());
+            int myHp = my.getHealth();
+            int oppHp = opponent.getHealth();
+            for (PetBattleResultVO action : actions) {
+                boolean mine = "MY_PET".equals(action.getAttackerType());
+                if (action.getIsDodge()) {
+                    assertEquals(0, action.getDamage());
+                    assertEquals(0, action.getLifestealHeal());
+                }
+                if (mine) {
+                    oppHp -= action.getDamage();
+                    myHp += action.getLifestealHeal();
+                } else {
+                    myHp -= action.getDamage();
+                    oppHp += action.getLifestealHeal();
+                }
+                assertEquals(myHp, action.getMyPetRemainingHealth());
+                assertEquals(oppHp, action.getOpponentPetRemainingHealth());
+                assertTrue(myHp >= 0 && myHp <= my.getHealth());
+                assertTrue(oppHp >= 0 && oppHp <= opponent.getHealth());
+            }
+            assertEquals(myHp, combatLog.getARemainingHealth());
+            assertEquals(oppHp, combatLog.getBRemainingHealth());
+        }
+    }
+
+    /**
+     * 共享血量：以外部返回的剩余血量为准，被别人打掉的部分同步到本地，共享方不吸血
+     */
+    @Test
+    void testFight_sharedHealthFollowsExternalState() {
+        BattleStatsVO pet = pet(30);
+        BattleStatsVO boss = boss(5000);
+        boss.setLifesteal(1.0);
+        int[] hp = {3000};
+        CombatEngine.SharedHealth shared = new CombatEngine.SharedHealth() {
+            @Override
+            public int apply(int damage) {
+                // 模拟其他挑战者每次同时打掉 100 血
+                hp[0] = Math.max(0, hp[0] - 100);
+                int applied = Math.min(damage, hp[0]);
+                hp[0] -= applied;
+                return applied;
+            }
+
+            @Override
+            public int remaining() {
+                return hp[0];
+            }
+        };
+
+        CombatLog combatLog = CombatEngine.fight(pet, boss, 7L, MAX_ACTIONS, shared);
+        List<BattleResultVO> actions = combatLog.toBattleResults("PET", "BOSS");
+        for (BattleResultVO action : actions) {
+            if ("BOSS".equals(action.getAttackerType())) {
+                assertEquals(0, action.getLifestealHeal());
+            }
+        }
+        assertEquals(hp[0], combatLog.getBRemainingHealth());
+        assertEquals(hp[0], actions.get(actions.size() - 1).getBossRemainingHealth());
+    }
+
+    /**
+     * 同级同属性对战，先后手随机，胜率应接近 50%（吞吐测量见 {@link CombatBalanceBenchmark}）
+     */
+    @Test
+    void testBalanceRunner_evenMatchupWinRate() {
+        CombatEngine.Matchup matchup = CombatEngine.Matchup.of(pet(40), pet(40), CombatEngine.Rules.DEFAULT);
+        CombatBalanceRunner.Report report = CombatBalanceRunner.run(matchup, MAX_ACTIONS, 200_000, 2, 2L);
+        log.info("同级宠物对战：{}", report);
+
+        assertEquals(200_000, report.getAWins() + report.getBWins() + report.getUnfinished());
+        assertEquals(0.5, report.getAWinRate(), 0.02);
+    }
+
+    /**
+     * 调整倍率规则：只有 A 方有暴击时，提高暴击倍率会提高 A 方胜率
+     */
+    @Test
+    void testBalanceRunner_critMultiplierShiftsWinRate() {
+        BattleStatsVO critPet = pet(40);
+        critPet.setCritRate(0.3);
+        BattleStatsVO plainPet = pet(40);
+
+        CombatBalanceRunner.Report low = CombatBalanceRunner.run(
+                CombatEngine.Matchup.of(critPet, plainPet, new CombatEngine.Rules(1.0, 1.5, 0.5)), MAX_ACTIONS, 200_000, 2, 3L);
+        CombatBalanceRunner.Report high = CombatBalanceRunner.run(
+                CombatEngine.Matchup.of(critPet, plainPet, new CombatEngine.Rules(3.0, 1.5, 0.5)), MAX_ACTIONS, 200_000, 2, 3L);
+        log.info("暴击倍率 1.0：{}；暴击倍率 3.0：{}", low, high);
+
+        assertTrue(high.getAWinRate() > low.getAWinRate() + 0.05);
+    }
+
+    /**
+     * 只记结果的记录可复用，且与完整记录的结果一致
+     */
+    @Test
+    void testRun_summaryOnlyMatchesRecording() {
+        BattleStatsVO pet = pet(30);
+        BattleStatsVO boss = boss(8000);
+        CombatEngine.Matchup matchup = CombatEngine.Matchup.of(pet, boss, CombatEngine.Rules.DEFAULT);
+        CombatLog summary = CombatLog.summaryOnly();
+        for (long seed = 1; seed <= 50; seed++) {
+            summary.reset(seed);
+            CombatEngine.run(matchup, new SplittableRandom(seed), MAX_ACTIONS, null, summary);
+            CombatLog full = CombatEngine.fight(pet, boss, seed, MAX_ACTIONS);
+            assertEquals(full.getActionCount(), summary.getActionCount());
+            assertEquals(full.getARemainingHealth(), summary.getARemainingHealth());
+            assertEquals(full.getBRemainingHealth(), summary.getBRemainingHealth());
+            assertTrue(summary.toBattleResults("PET", "BOSS").isEmpty());
+        }
+    }
+
+    // ==================== 辅助方法 ====================
+
+    private static BattleStatsVO pet(int level) {
+        BattleStatsVO stats = BattleStatsVO.fromPet(level, null, 10, 0.06);
+        stats.setDefense(5);
+        stats.setCritRate(0.1);
+        stats.setComboRate(0.1);
+        stats.setDodgeRate(0.05);
+        stats.setBlockRate(0.05);
+        stats.setLifesteal(0.05);
+        return stats;
+    }
+
+    private static BattleStatsVO boss(int health) {
+        BattleStatsVO stats = new BattleStatsVO();
+        stats.setAttack(60);
+        stats.setHealth(health);
+        stats.setCritRate(0.1);
+        stats.setBlockRate(0.1);
+        return stats;
+    }
+}
@@ -0,0 +1,248 @@
+package com.cong.fishisland.service;
+
+import com.alibaba.fastjson.JSONObject;
+import com.cong.fishisland.service.fund.FundDataService;
+import com.cong.fishisland.service.fund.FundQuoteService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+/**
+ * 基金行情共享缓存测试
+ * 用本地桩 HTTP 服务模拟新浪、L2、天天基金三个数据源（固定延迟模拟网络往返），离线验证合并加载、批量请求和降级策略，
+ * 并统计大量用户查看持仓时实际打到数据源的请求数
+ *
+ * @author shing
+ */
+@Slf4j
+class FundQuoteServiceTest {
+
+    /**
+     * 模拟数据源单次请求耗时
+     */
+    private static final long UPSTREAM_LATENCY_MILLIS = 50;
+
+    private final AtomicInteger sinaRequests = new AtomicInteger();
+    private final AtomicInteger l2Requests = new AtomicInteger();
+    private final AtomicInteger eastRequests = new AtomicInteger();
+    /**
+     * 新浪查不到的基金代码
+     */
+    private final Set<String> sinaMissingCodes = ConcurrentHashMap.newKeySet();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService quoteExecutor;
+    private FundDataService fundDataService;
+    private FundQuoteService fundQuoteService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/sina", this::handleSina);
+        server.createContext("/l2", this::handleL2);
+        server.createContext("/east", this::handleEast);
+        serverExecutor = Executors.newFixedThreadPool(32);
+        server.setExecutor(serverExecutor);
+        server.start();
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        fundDataService = spy(new FundDataService());
+        ReflectionTestUtils.setField(fundDataService, "sinaBaseUrl", baseUrl + "/sina");
+        ReflectionTestUtils.setField(fundDataService, "eastMoneyL2Url", baseUrl + "/l2");
+        ReflectionTestUtils.setField(fundDataService, "eastMoneyEstBaseUrl", baseUrl + "/east");
+        doReturn(false).when(fundDataService).isFundTradingTime();
+
+        quoteExecutor = Executors.newFixedThreadPool(16);
+        fundQuoteService = new FundQuoteService(fundDataService, quoteExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        quoteExecutor.shutdownNow();
+    }
+
+    /**
+     * 同一只基金的并发未命中只请求一次数据源
+     */
+    @Test
+    void testGetQuote_concurrentMissesAreCoalesced() throws Exception {
+        int threads = 50;
+        ExecutorService callers = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<JSONObject>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(callers.submit(() -> {
+                start.await();
+                return fundQuoteService.getQuote("000001");
+            }));
+        }
+        start.countDown();
+        for (Future<JSONObject> future : futures) {
+            assertEquals("基金000001", future.get(10, TimeUnit.SECONDS).getString("name"));
+        }
+        callers.shutdownNow();
+
+        assertEquals(1, sinaRequests.get());
+        assertEquals(0, eastRequests.get());
+    }
+
+    /**
+     * 多只基金未命中时新浪只发一次批量请求，之后在有效期内直接命中缓存
+     */
+    @Test
+    void testGetQuotes_batchesSinaAndCaches() {
+        Map<String, JSONObject> quotes = fundQuoteService.getQuotes(Arrays.asList("000001", "000002", "000003", "000001"));
+        assertEquals(3, quotes.size());
+        assertEquals("SINA_OFFICIAL", quotes.get("000002").getString("source"));
+        assertEquals(1, sinaRequests.get());
+
+        fundQuoteService.getQuotes(Arrays.asList("000003", "000001"));
+        assertEquals(1, sinaRequests.get());
+    }
+
+    /**
+     * 非交易时间新浪缺失的代码降级到天天基金
+     */
+    @Test
+    void testGetQuotes_nonTradingFallsBackToEastMoney() {
+        sinaMissingCodes.add("000009");
+        Map<String, JSONObject> quotes = fundQuoteService.getQuotes(Arrays.asList("000001", "000009"));
+
+        assertEquals("SINA_OFFICIAL", quotes.get("000001").getString("source"));
+        assertEquals("EASTMONEY_EST", quotes.get("000009").getString("source"));
+        assertEquals(1, eastRequests.get());
+    }
+
+    /**
+     * 交易时间场内基金优先 L2 并补全名称，场外基金使用天天基金估算
+     */
+    @Test
+    void testGetQuotes_tradingPrefersL2ThenEstimate() {
+        doReturn(true).when(fundDataService).isFundTradingTime();
+        Map<String, JSONObject> quotes = fundQuoteService.getQuotes(Arrays.asList("510300", "000001"));
+
+        assertEquals("LEVEL2_MARKET", quotes.get("510300").getString("source"));
+        assertEquals("基金510300", quotes.get("510300").getString("name"));
+        assertEquals("EASTMONEY_EST", quotes.get("000001").getString("source"));
+        assertEquals(1, l2Requests.get());
+        assertEquals(1, sinaRequests.get());
+    }
+
+    /**
+     * 1000 个用户各持有 5 只热门基金同时查看持仓，统计耗时和打到数据源的请求数
+     * （无共享缓存时每只持仓至少一次请求，即 5000 次）
+     */
+    @Test
+    void testBenchmark_popularFundsAcrossUsers() throws Exception {
+        int users = 1000;
+        int popularFunds = 20;
+        int holdings = 5;
+        ExecutorService callers = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>(users);
+        for (int u = 0; u < users; u++) {
+            List<String> codes = new ArrayList<>(holdings);
+            for (int h = 0; h < holdings; h++) {
+                codes.add(String.format("%06d", (u + h * 3) % popularFunds + 1));
+            }
+            futures.add(callers.submit(() -> {
+                start.await();
+                return fundQuoteService.getQuotes(codes).size();
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<Integer> future : futures) {
+            assertEquals(holdings, future.get(30, TimeUnit.SECONDS));
+        }
+        long costMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        callers.shutdownNow();
+
+        log.info("{} 个用户 x {} 只持仓：耗时 {} ms，数据源请求 新浪 {} 次、天天基金 {} 次",
+                users, holdings, costMillis, sinaRequests.get(), eastRequests.get());
+        assertTrue(sinaRequests.get() <= popularFunds);
+        assertEquals(0, eastRequests.get());
+    }
+
+    // ==================== 桩数据源 ====================
+
+    /**
+     * 新浪：/sina/list=f_000001,f_000002，GBK 编码，每个代码一行
+     */
+    private void handleSina(HttpExchange exchange) throws IOException {
+        sinaRequests.incrementAndGet();
+        String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), "UTF-8");
+        StringBuilder body = new StringBuilder();
+        for (String symbol : path.substring(path.indexOf("list=") + "list=".length()).split(",")) {
+            String code = symbol.substring("f_".length());
+            body.append("var hq_str_").append(symbol).append("=\"");
+            if (!sinaMissingCodes.contains(code)) {
+                body.append("基金").append(code).append(",1.1000,3.2000,1.0000,2026-10-16");
+            }
+            body.append("\";\n");
+        }
+        respond(exchange, body.toString().getBytes(Charset.forName("GBK")));
+    }
+
+    /**
+     * L2：只返回价格字段，不含名称
+     */
+    private void handleL2(HttpExchange exchange) throws IOException {
+        l2Requests.incrementAndGet();
+        respond(exchange, "{\"data\":{\"f43\":2.5,\"f60\":2.4,\"f170\":4.17}}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 天天基金：/east/js/000001.js，JSONP 格式
+     */
+    private void handleEast(HttpExchange exchange) throws IOException {
+        eastRequests.incrementAndGet();
+        String path = exchange.getRequestURI().getPath();
+        String code = path.substring(path.lastIndexOf('/') + 1, path.lastIndexOf(".js"));
+        String body = "jsonpgz({\"fundcode\":\"" + code + "\",\"name\":\"估算" + code + "\",\"dwjz\":\"1.0000\","
+                + "\"gsz\":\"1.0200\",\"gszzl\":\"2.00\",\"gztime\":\"2026-10-16 15:00\"});";
+        respond(exchange, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void respond(HttpExchange exchange, byte[] body) throws IOException {
+        try {
+            Thread.sleep(UPSTREAM_LATENCY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
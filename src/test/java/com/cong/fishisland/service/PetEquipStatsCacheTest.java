@@ -0,0 +1,155 @@
+package com.cong.fishisland.service;
+
+import com.cong.fishisland.cache.PetEquipStatsCache;
+import com.cong.fishisland.model.vo.pet.PetEquipStatsVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 宠物装备属性缓存测试
+ * 用同一个本地 Redis 模拟两个节点，校验命中时不再计算、失效后各节点都重建、计算期间发生的变更不会留下旧值；
+ * 需要本机 6379 端口有可用的 Redis
+ *
+ * @author cong
+ */
+class PetEquipStatsCacheTest {
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate stringRedisTemplate;
+    private RedissonClient redissonClient;
+    private PetEquipStatsCache nodeA;
+    private PetEquipStatsCache nodeB;
+    private long petId;
+
+    @BeforeEach
+    void setUp() {
+        Config config = new Config();
+        config.useSingleServer()
+                .setAddress(System.getProperty("test.redis.address", "redis://127.0.0.1:6379"))
+                .setConnectionMinimumIdleSize(1)
+                .setConnectionPoolSize(2)
+                .setRetryAttempts(0);
+        try {
+            redissonClient = Redisson.create(config);
+        } catch (Exception e) {
+            assumeTrue(false, "本地 Redis 不可用，跳过宠物装备属性缓存测试");
+        }
+        connectionFactory = new LettuceConnectionFactory("127.0.0.1", 6379);
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        nodeA = new PetEquipStatsCache(stringRedisTemplate, redissonClient);
+        nodeB = new PetEquipStatsCache(stringRedisTemplate, redissonClient);
+        nodeA.subscribe();
+        nodeB.subscribe();
+        petId = 900_000_000L + ThreadLocalRandom.current().nextInt(1_000_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (redissonClient == null) {
+            return;
+        }
+        nodeA.unsubscribe();
+        nodeB.unsubscribe();
+        stringRedisTemplate.delete(Arrays.asList("fish:pet:equip:stats:" + petId, "fish:pet:equip:stats:version:" + petId));
+        connectionFactory.destroy();
+        redissonClient.shutdown();
+    }
+
+    /**
+     * 命中本地或 Redis 时不再计算，且每次返回新对象
+     */
+    @Test
+    void testGet_hitSkipsLoader() {
+        AtomicInteger loads = new AtomicInteger();
+        Function<Long, PetEquipStatsVO> loader = id -> stats(100, loads);
+
+        PetEquipStatsVO first = nodeA.get(petId, loader);
+        PetEquipStatsVO again = nodeA.get(petId, loader);
+        PetEquipStatsVO otherNode = nodeB.get(petId, loader);
+
+        assertEquals(1, loads.get());
+        assertEquals(100, first.getTotalBaseAttack());
+        assertEquals(first, again);
+        assertEquals(first, otherNode);
+        assertNotSame(first, again);
+        assertEquals(0.15, otherNode.getCritRate(), 1e-9);
+    }
+
+    /**
+     * 一个节点失效后，两个节点都读到重建后的值
+     */
+    @Test
+    void testInvalidate_rebuildsOnEveryNode() throws InterruptedException {
+        AtomicInteger loads = new AtomicInteger();
+        nodeA.get(petId, id -> stats(100, loads));
+        nodeB.get(petId, id -> stats(100, loads));
+
+        nodeA.invalidate(petId);
+
+        assertEquals(200, nodeA.get(petId, id -> stats(200, loads)).getTotalBaseAttack());
+        // 广播是异步的，等待另一个节点清掉本地副本
+        int attack = 0;
+        for (int i = 0; i < 50 && attack != 200; i++) {
+            attack = nodeB.get(petId, id -> stats(200, loads)).getTotalBaseAttack();
+            if (attack != 200) {
+                Thread.sleep(100);
+            }
+        }
+        assertEquals(200, attack);
+        assertEquals(2, loads.get(), "节点 B 应直接读到节点 A 重建后写入 Redis 的值");
+    }
+
+    /**
+     * 计算期间属性发生变化：这次算出的旧值带着旧版本号，之后的读取不会再使用它
+     */
+    @Test
+    void testGet_changeDuringLoadIsNeverServedStale() {
+        AtomicInteger loads = new AtomicInteger();
+        PetEquipStatsVO stale = nodeA.get(petId, id -> {
+            // 读到旧数据后、写缓存前，另一个请求完成了穿戴并失效
+            PetEquipStatsVO old = stats(100, loads);
+            nodeA.invalidate(petId);
+            return old;
+        });
+        assertEquals(100, stale.getTotalBaseAttack());
+
+        assertEquals(300, nodeA.get(petId, id -> stats(300, loads)).getTotalBaseAttack());
+        assertEquals(300, nodeB.get(petId, id -> stats(300, loads)).getTotalBaseAttack());
+        assertEquals(2, loads.get());
+    }
+
+    private static PetEquipStatsVO stats(int attack, AtomicInteger loads) {
+        loads.incrementAndGet();
+        PetEquipStatsVO vo = new PetEquipStatsVO();
+        vo.setTotalBaseAttack(attack);
+        vo.setTotalBaseDefense(5);
+        vo.setTotalBaseHp(300);
+        vo.setSpeed(2);
+        vo.setCritRate(0.15);
+        vo.setComboRate(0.0);
+        vo.setDodgeRate(0.05);
+        vo.setBlockRate(0.0);
+        vo.setLifesteal(0.02);
+        vo.setCritResistance(0.0);
+        vo.setComboResistance(0.1);
+        vo.setDodgeResistance(0.0);
+        vo.setBlockResistance(0.0);
+        vo.setLifestealResistance(0.0);
+        return vo;
+    }
+}
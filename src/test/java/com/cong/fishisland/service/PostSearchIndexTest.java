@@ -0,0 +1,62 @@
+package com.cong.fishisland.service;
+
+import com.cong.fishisland.service.impl.post.PostSearchIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 帖子倒排索引测试
+ *
+ * @author cong
+ */
+class PostSearchIndexTest {
+
+    @Test
+    void testTokenize_cjkBigramsAndLatinWords() {
+        assertEquals(Arrays.asList("摸", "鱼", "摸鱼", "java", "17"),
+                PostSearchIndex.tokenize("摸鱼 Java-17", false));
+        assertEquals(Arrays.asList("摸鱼", "鱼岛"), PostSearchIndex.tokenize("摸鱼岛", true));
+        assertEquals(Collections.singletonList("鱼"), PostSearchIndex.tokenize("鱼", true));
+    }
+
+    @Test
+    void testSearch_ranksTitleHitsFirstAndPages() {
+        PostSearchIndex index = new PostSearchIndex();
+        index.put(1L, "今天吃什么", "摸鱼的时候想想晚饭", Collections.singletonList("生活"), 10L, 0, 1000);
+        index.put(2L, "摸鱼指南", "上班摸鱼的正确姿势", Collections.singletonList("摸鱼"), 20L, 1, 2000);
+        index.put(3L, "Java 面试题", "和摸鱼无关", Collections.singletonList("技术"), 10L, 0, 3000);
+
+        PostSearchIndex.SearchResult result = index.search("摸鱼", null, null, null, 0, 10);
+        assertEquals(3, result.getTotal());
+        assertEquals(2L, result.getIds().get(0));
+
+        PostSearchIndex.SearchResult page = index.search("摸鱼", null, null, null, 1, 1);
+        assertEquals(3, page.getTotal());
+        assertEquals(1, page.getIds().size());
+
+        assertEquals(Collections.singletonList(3L), index.search("java 摸鱼", null, null, null, 0, 10).getIds());
+        assertEquals(0, index.search("摸鱼 python", null, null, null, 0, 10).getTotal());
+    }
+
+    @Test
+    void testSearch_filtersAndUpdates() {
+        PostSearchIndex index = new PostSearchIndex();
+        index.put(1L, "摸鱼日常", "内容", Collections.singletonList("生活"), 10L, 0, 1000);
+        index.put(2L, "摸鱼指南", "内容", Collections.singletonList("摸鱼"), 20L, 1, 2000);
+
+        assertEquals(Collections.singletonList(1L), index.search("摸鱼", 10L, null, null, 0, 10).getIds());
+        assertEquals(Collections.singletonList(2L), index.search("摸鱼", null, 1, null, 0, 10).getIds());
+        assertEquals(Collections.singletonList(1L),
+                index.search("摸鱼", null, null, Collections.singletonList("生活"), 0, 10).getIds());
+
+        index.put(1L, "换个标题", "内容", Collections.singletonList("生活"), 10L, 0, 1000);
+        assertEquals(Collections.singletonList(2L), index.search("摸鱼", null, null, null, 0, 10).getIds());
+        index.remove(2L);
+        assertEquals(0, index.search("摸鱼", null, null, null, 0, 10).getTotal());
+        assertEquals(1, index.size());
+    }
+}
@@ -0,0 +1,134 @@
+package com.cong.fishisland.service;
+
+import com.cong.fishisland.service.impl.redpacket.RedPacketAmountPool;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 红包金额池并发压测
+ * 多线程同时抢同一个红包，校验不超发、不重复领取、流水与领取记录一致；需要本机 6379 端口有可用的 Redis
+ *
+ * @author cong
+ */
+class RedPacketAmountPoolStressTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final int PACKET_COUNT = 100;
+    private static final int USER_COUNT = 300;
+    private static final int ATTEMPTS_PER_USER = 3;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate stringRedisTemplate;
+    private RedPacketAmountPool pool;
+    private String redPacketId;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory("127.0.0.1", 6379);
+        connectionFactory.afterPropertiesSet();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        try {
+            stringRedisTemplate.hasKey("ping");
+        } catch (Exception e) {
+            connectionFactory.destroy();
+            connectionFactory = null;
+            assumeTrue(false, "本地 Redis 不可用，跳过红包并发压测");
+        }
+        pool = new RedPacketAmountPool(stringRedisTemplate);
+        redPacketId = "rptest" + UUID.randomUUID().toString().replace("-", "");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (connectionFactory == null) {
+            return;
+        }
+        stringRedisTemplate.delete(Arrays.asList("redpacket:amounts:" + redPacketId, "redpacket:grabbed:" + redPacketId));
+        // 清理本测试写入的积分流水，避免被正在运行的服务入账
+        List<String> ledger = stringRedisTemplate.opsForList().range("redpacket:ledger", 0, -1);
+        if (ledger != null) {
+            ledger.stream()
+                    .filter(entry -> entry.contains(":" + redPacketId + ":"))
+                    .forEach(entry -> stringRedisTemplate.opsForList().remove("redpacket:ledger", 1, entry));
+        }
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void testGrab_concurrentUsersNeverOverdraw() throws InterruptedException {
+        List<Integer> amounts = new ArrayList<>();
+        int total = 0;
+        for (int i = 0; i < PACKET_COUNT; i++) {
+            int amount = i % 10 + 1;
+            amounts.add(amount);
+            total += amount;
+        }
+        pool.store(redPacketId, amounts, TTL);
+
+        Map<Long, Long> wonByUser = new ConcurrentHashMap<>();
+        AtomicInteger duplicateWins = new AtomicInteger();
+        AtomicInteger alreadyGrabbed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(USER_COUNT * ATTEMPTS_PER_USER);
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        for (int attempt = 0; attempt < ATTEMPTS_PER_USER; attempt++) {
+            for (long userId = 1; userId <= USER_COUNT; userId++) {
+                long uid = userId;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        long result = pool.grab(redPacketId, uid, "rpr" + UUID.randomUUID(), System.currentTimeMillis(), TTL);
+                        if (result > 0 && wonByUser.put(uid, result) != null) {
+                            duplicateWins.incrementAndGet();
+                        } else if (result == RedPacketAmountPool.ALREADY_GRABBED) {
+                            alreadyGrabbed.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS), "压测未在限定时间内完成");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        executor.shutdown();
+
+        assertEquals(0, duplicateWins.get(), "同一用户不能抢到两次");
+        assertEquals(PACKET_COUNT, wonByUser.size(), "份数应全部被抢完且不超发");
+        assertEquals(total, wonByUser.values().stream().mapToLong(Long::longValue).sum(), "抢到的总额应等于红包总额");
+        assertTrue(pool.remainingAmounts(redPacketId).isEmpty());
+        assertEquals(PACKET_COUNT, pool.grabbedCount(redPacketId));
+        assertTrue(alreadyGrabbed.get() > 0, "重复请求应被脚本拦截");
+
+        List<String> ledger = stringRedisTemplate.opsForList().range("redpacket:ledger", 0, -1);
+        assertNotNull(ledger);
+        long ledgerEntries = ledger.stream().filter(entry -> entry.contains(":" + redPacketId + ":")).count();
+        assertEquals(PACKET_COUNT, ledgerEntries, "每次成功领取都应写入一条积分流水");
+
+        System.out.printf("%d 次抢红包请求耗时 %d ms%n", USER_COUNT * ATTEMPTS_PER_USER, elapsedMillis);
+    }
+}
@@ -0,0 +1,177 @@
+package com.cong.fishisland.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.cong.fishisland.constant.VipTypeConstant;
+import com.cong.fishisland.mapper.user.UserVipMapper;
+import com.cong.fishisland.model.entity.user.UserVip;
+import com.cong.fishisland.service.impl.user.VipEntitlementIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 会员有效期索引测试
+ * 数据库用 Mock 代替，校验加载完成后查询不再访问数据库、到期自然失效、变更后回库刷新并广播，以及单次查询耗时
+ *
+ * @author cong
+ */
+@Slf4j
+class VipEntitlementIndexTest {
+
+    private static final long DAY_MILLIS = 24L * 3600 * 1000;
+
+    private UserVipMapper userVipMapper;
+    private RTopic topic;
+    private VipEntitlementIndex index;
+
+    @BeforeAll
+    static void initTableInfo() {
+        // Lambda 条件构造需要实体的表信息，脱离 Spring 容器时手动初始化
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), UserVip.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        userVipMapper = mock(UserVipMapper.class);
+        topic = mock(RTopic.class);
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        when(redissonClient.getTopic(anyString(), any())).thenReturn(topic);
+        index = new VipEntitlementIndex(userVipMapper, redissonClient);
+        index.subscribe();
+    }
+
+    /**
+     * 加载完成前走数据库，加载完成后查询只读内存
+     */
+    @Test
+    void testIsVip_servedFromMemoryAfterRebuild() {
+        long now = System.currentTimeMillis();
+        when(userVipMapper.selectList(any())).thenReturn(Collections.singletonList(monthly(1L, now + DAY_MILLIS)));
+        assertTrue(index.isVip(1L));
+        verify(userVipMapper, times(1)).selectList(any());
+
+        when(userVipMapper.selectList(any())).thenReturn(Arrays.asList(
+                permanent(1L), monthly(2L, now + DAY_MILLIS), monthly(2L, now + 3 * DAY_MILLIS), monthly(3L, now + 200)));
+        index.rebuild();
+        clearInvocations(userVipMapper);
+
+        assertTrue(index.isVip(1L));
+        assertTrue(index.isPermanent(1L));
+        assertTrue(index.isVip(2L));
+        assertFalse(index.isPermanent(2L));
+        assertEquals(now + 3 * DAY_MILLIS, index.expiryOf(2L), "多条记录取最晚的到期时间");
+        assertFalse(index.isVip(4L));
+        assertFalse(index.isVip(null));
+        verifyNoInteractions(userVipMapper);
+    }
+
+    /**
+     * 到期后不需要任何刷新即失效
+     */
+    @Test
+    void testIsVip_expiresByTime() throws InterruptedException {
+        when(userVipMapper.selectList(any())).thenReturn(Collections.singletonList(monthly(3L, System.currentTimeMillis() + 100)));
+        index.rebuild();
+        assertTrue(index.isVip(3L));
+
+        Thread.sleep(150);
+
+        assertFalse(index.isVip(3L));
+    }
+
+    /**
+     * 会员变更后回库刷新本节点并通知其他节点
+     */
+    @Test
+    void testOnVipChanged_reloadsAndBroadcasts() {
+        long now = System.currentTimeMillis();
+        when(userVipMapper.selectList(any())).thenReturn(Arrays.asList(permanent(1L), monthly(5L, now + DAY_MILLIS)));
+        index.rebuild();
+
+        when(userVipMapper.selectList(any())).thenReturn(Collections.singletonList(monthly(4L, now + DAY_MILLIS)));
+        index.onVipChanged(4L);
+        when(userVipMapper.selectList(any())).thenReturn(Collections.emptyList());
+        index.onVipChanged(1L);
+
+        assertTrue(index.isVip(4L));
+        assertFalse(index.isVip(1L), "会员记录删除后不再是会员");
+        assertTrue(index.isVip(5L));
+        verify(topic).publish(endsWith(":4"));
+        verify(topic).publish(endsWith(":1"));
+    }
+
+    /**
+     * 批量查询按传入顺序返回，每个用户都有结果
+     */
+    @Test
+    void testAreVips_keepsOrder() {
+        when(userVipMapper.selectList(any())).thenReturn(Arrays.asList(permanent(1L), monthly(3L, System.currentTimeMillis() + DAY_MILLIS)));
+        index.rebuild();
+
+        Map<Long, Boolean> result = index.areVips(Arrays.asList(3L, 2L, 1L, 3L, null));
+
+        assertEquals(Arrays.asList(3L, 2L, 1L), new ArrayList<>(result.keySet()));
+        assertEquals(Arrays.asList(true, false, true), new ArrayList<>(result.values()));
+    }
+
+    /**
+     * 十万会员下单次判断的耗时
+     */
+    @Test
+    void testIsVip_throughput() {
+        int vipCount = 100_000;
+        long expiry = System.currentTimeMillis() + DAY_MILLIS;
+        List<UserVip> vips = new ArrayList<>(vipCount);
+        for (long i = 0; i < vipCount; i++) {
+            vips.add(i % 10 == 0 ? permanent(i * 2) : monthly(i * 2, expiry));
+        }
+        when(userVipMapper.selectList(any())).thenReturn(vips);
+        index.rebuild();
+
+        int lookups = 5_000_000;
+        int hits = 0;
+        long start = System.nanoTime();
+        for (long i = 0; i < lookups; i++) {
+            if (index.isVip(i % (vipCount * 2L))) {
+                hits++;
+            }
+        }
+        double nanosPerLookup = (System.nanoTime() - start) / (double) lookups;
+        log.info("会员判断 {} 次，单次 {} ns", lookups, String.format("%.1f", nanosPerLookup));
+
+        assertEquals(lookups / 2, hits);
+        assertTrue(nanosPerLookup < 2_000, "单次判断应在微秒以内，实际 " + nanosPerLookup + " ns");
+    }
+
+    private static UserVip permanent(Long userId) {
+        UserVip vip = new UserVip();
+        vip.setUserId(userId);
+        vip.setType(VipTypeConstant.PERMANENT);
+        return vip;
+    }
+
+    private static UserVip monthly(Long userId, long validUntil) {
+        UserVip vip = new UserVip();
+        vip.setUserId(userId);
+        vip.setType(VipTypeConstant.MONTHLY);
+        vip.setValidDays(new Date(validUntil));
+        return vip;
+    }
+}
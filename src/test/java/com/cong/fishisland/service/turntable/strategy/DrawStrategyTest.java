@@ -69,7 +69,7 @@ class DrawStrategyTest {
      */
     @Test
     void testWeightRandomDraw_NullList() {
-        TurntablePrize prize = weightRandomDrawStrategy.draw(null);
+        TurntablePrize prize = weightRandomDrawStrategy.draw((List<TurntablePrize>) null);
         assertNull(prize);
     }
 
@@ -95,11 +95,9 @@ class DrawStrategyTest {
      */
     @Test
     void testGuaranteeDraw_SmallGuarantee() {
-        guaranteeDrawStrategy.setMinQuality(2); // 稀有及以上
-
         // 执行多次抽奖，验证只抽中稀有及以上
         for (int i = 0; i < 100; i++) {
-            TurntablePrize prize = guaranteeDrawStrategy.draw(testPrizes);
+            TurntablePrize prize = guaranteeDrawStrategy.draw(testPrizes, 2);
             assertNotNull(prize);
             assertTrue(prize.getQuality() >= 2, "保底应抽中稀有及以上品质");
         }
@@ -110,11 +108,9 @@ class DrawStrategyTest {
      */
     @Test
     void testGuaranteeDraw_BigGuarantee() {
-        guaranteeDrawStrategy.setMinQuality(3); // 史诗及以上
-
         // 执行多次抽奖，验证只抽中史诗及以上
         for (int i = 0; i < 100; i++) {
-            TurntablePrize prize = guaranteeDrawStrategy.draw(testPrizes);
+            TurntablePrize prize = guaranteeDrawStrategy.draw(testPrizes, 3);
             assertNotNull(prize);
             assertTrue(prize.getQuality() >= 3, "大保底应抽中史诗及以上品质");
         }
@@ -125,8 +121,7 @@ class DrawStrategyTest {
      */
     @Test
     void testGuaranteeDraw_EmptyList() {
-        guaranteeDrawStrategy.setMinQuality(2);
-        TurntablePrize prize = guaranteeDrawStrategy.draw(new ArrayList<>());
+        TurntablePrize prize = guaranteeDrawStrategy.draw(new ArrayList<>(), 2);
         assertNull(prize);
     }
 
@@ -135,10 +130,8 @@ class DrawStrategyTest {
      */
     @Test
     void testGuaranteeDraw_NoQualifiedPrize() {
-        guaranteeDrawStrategy.setMinQuality(5); // 不存在的品质
-
-        // 应该降级使用所有奖品
-        TurntablePrize prize = guaranteeDrawStrategy.draw(testPrizes);
+        // 不存在的品质，应该降级使用所有奖品
+        TurntablePrize prize = guaranteeDrawStrategy.draw(testPrizes, 5);
         assertNotNull(prize);
     }
 
@@ -154,10 +147,8 @@ class DrawStrategyTest {
         prize.setProbability(1000);
         normalPrizes.add(prize);
 
-        guaranteeDrawStrategy.setMinQuality(2); // 要求稀有及以上
-
-        // 应该降级返回普通品质
-        TurntablePrize result = guaranteeDrawStrategy.draw(normalPrizes);
+        // 要求稀有及以上，应该降级返回普通品质
+        TurntablePrize result = guaranteeDrawStrategy.draw(normalPrizes, 2);
         assertNotNull(result);
         assertEquals(1, result.getQuality());
     }
@@ -172,12 +163,24 @@ class DrawStrategyTest {
     }
 
     /**
-     * 测试保底策略的minQuality设置
+     * 测试保底策略 - 使用预构建抽样器，大保底排除已拥有的奖品
      */
     @Test
-    void testGuaranteeStrategy_SetMinQuality() {
-        guaranteeDrawStrategy.setMinQuality(4);
-        assertEquals(4, guaranteeDrawStrategy.getMinQuality());
+    void testGuaranteeDraw_SamplerExcludesOwned() {
+        TurntablePrizeSampler sampler = TurntablePrizeSampler.of(testPrizes);
+
+        // 传说已拥有，剩余奖品中没有传说，降级为剩余奖品
+        for (int i = 0; i < 100; i++) {
+            TurntablePrize prize = guaranteeDrawStrategy.draw(sampler, 4, p -> p.getId() == 4L);
+            assertNotNull(prize);
+            assertNotEquals(4L, prize.getId());
+        }
+
+        // 全部已拥有时不排除，按保底品质抽取
+        for (int i = 0; i < 100; i++) {
+            TurntablePrize prize = guaranteeDrawStrategy.draw(sampler, 4, p -> true);
+            assertEquals(4L, prize.getId());
+        }
     }
 
     // ==================== 辅助方法 ====================
@@ -0,0 +1,201 @@
+package com.cong.fishisland.service.turntable.strategy;
+
+import com.cong.fishisland.model.entity.turntable.TurntablePrize;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 奖品别名表测试
+ * 用卡方拟合优度检验（显著性水平 0.001，固定随机种子）验证抽中频率与权重一致，并对比逐个累加权重的抽取吞吐
+ *
+ * @author cong
+ */
+@Slf4j
+class PrizeAliasTableTest {
+
+    private static final int SAMPLES = 1_000_000;
+
+    /**
+     * 自由度 4 时显著性水平 0.001 的卡方临界值
+     */
+    private static final double CHI_SQUARE_CRITICAL_DF4 = 18.467;
+
+    /**
+     * 自由度 49 时显著性水平 0.001 的卡方临界值
+     */
+    private static final double CHI_SQUARE_CRITICAL_DF49 = 85.351;
+
+    /**
+     * 典型转盘权重（总权重 1000）
+     */
+    @Test
+    void testSample_matchesWeightsOnTypicalTurntable() {
+        List<TurntablePrize> prizes = createPrizes(500, 300, 150, 45, 5);
+        double chiSquare = chiSquare(prizes, PrizeAliasTable.of(prizes), new Random(20261018L));
+        log.info("典型转盘卡方统计量 {}，临界值 {}", String.format("%.3f", chiSquare), CHI_SQUARE_CRITICAL_DF4);
+        assertTrue(chiSquare < CHI_SQUARE_CRITICAL_DF4, "抽中频率与权重不符，卡方统计量 " + chiSquare);
+    }
+
+    /**
+     * 奖品较多、权重差异大（1 ~ 50）
+     */
+    @Test
+    void testSample_matchesWeightsOnManyUnevenPrizes() {
+        int[] weights = new int[50];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = i + 1;
+        }
+        List<TurntablePrize> prizes = createPrizes(weights);
+        double chiSquare = chiSquare(prizes, PrizeAliasTable.of(prizes), new Random(42L));
+        log.info("50 个奖品卡方统计量 {}，临界值 {}", String.format("%.3f", chiSquare), CHI_SQUARE_CRITICAL_DF49);
+        assertTrue(chiSquare < CHI_SQUARE_CRITICAL_DF49, "抽中频率与权重不符，卡方统计量 " + chiSquare);
+    }
+
+    /**
+     * 权重为 0 的奖品不会被抽中；总权重为 0 时等概率抽取
+     */
+    @Test
+    void testSample_zeroWeights() {
+        List<TurntablePrize> prizes = createPrizes(0, 10, 0, 30);
+        PrizeAliasTable table = PrizeAliasTable.of(prizes);
+        Random random = new Random(7L);
+        for (int i = 0; i < 10000; i++) {
+            TurntablePrize prize = table.sample(random);
+            assertTrue(prize.getProbability() > 0);
+        }
+
+        List<TurntablePrize> allZero = createPrizes(0, 0, 0);
+        PrizeAliasTable uniform = PrizeAliasTable.of(allZero);
+        Map<TurntablePrize, Integer> counts = new IdentityHashMap<>();
+        for (int i = 0; i < 30000; i++) {
+            counts.merge(uniform.sample(random), 1, Integer::sum);
+        }
+        assertEquals(3, counts.size());
+    }
+
+    /**
+     * 空表返回 null
+     */
+    @Test
+    void testSample_emptyTable() {
+        assertTrue(PrizeAliasTable.of(new ArrayList<>()).isEmpty());
+        assertNull(PrizeAliasTable.of(null).sample());
+    }
+
+    /**
+     * 保底档位只包含对应品质及以上的奖品，且档位内频率仍与权重一致
+     */
+    @Test
+    void testSampler_guaranteeTierMatchesWeights() {
+        List<TurntablePrize> prizes = createPrizes(500, 300, 150, 45, 5);
+        TurntablePrizeSampler sampler = TurntablePrizeSampler.of(prizes);
+        PrizeAliasTable rareTable = sampler.guaranteeTable(2);
+        assertEquals(4, rareTable.size());
+
+        List<TurntablePrize> rareAndAbove = prizes.subList(1, prizes.size());
+        double chiSquare = chiSquare(rareAndAbove, rareTable, new Random(99L));
+        // 4 个奖品，自由度 3，临界值 16.266
+        assertTrue(chiSquare < 16.266, "保底档位抽中频率与权重不符，卡方统计量 " + chiSquare);
+
+        // 没有 SSR 以上的奖品时降级为全部奖品
+        TurntablePrizeSampler commonOnly = TurntablePrizeSampler.of(prizes.subList(0, 2));
+        assertSame(commonOnly.normalTable(), commonOnly.guaranteeTable(4));
+    }
+
+    /**
+     * 单线程吞吐对比：每次抽奖累加权重扫描 vs 预构建别名表（次/秒）
+     */
+    @Test
+    void testThroughput_aliasVersusLinearScan() {
+        int[] weights = new int[64];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 1 + (i * 37) % 100;
+        }
+        List<TurntablePrize> prizes = createPrizes(weights);
+        PrizeAliasTable table = PrizeAliasTable.of(prizes);
+
+        double linear = measure(() -> linearScan(prizes));
+        double alias = measure(table::sample);
+
+        log.info("{} 个奖品抽取吞吐：累加扫描 {} 次/秒，别名表 {} 次/秒，提升 {} 倍", prizes.size(),
+                String.format("%.0f", linear), String.format("%.0f", alias), String.format("%.1f", alias / linear));
+        assertTrue(alias > linear, "别名表抽取应快于逐个累加权重");
+    }
+
+    // ==================== 辅助方法 ====================
+
+    /**
+     * 卡方统计量：sum((观测 - 期望)^2 / 期望)
+     */
+    private static double chiSquare(List<TurntablePrize> prizes, PrizeAliasTable table, Random random) {
+        Map<TurntablePrize, Integer> counts = new IdentityHashMap<>();
+        for (int i = 0; i < SAMPLES; i++) {
+            counts.merge(table.sample(random), 1, Integer::sum);
+        }
+        int totalWeight = prizes.stream().mapToInt(TurntablePrize::getProbability).sum();
+        double chiSquare = 0;
+        for (TurntablePrize prize : prizes) {
+            double expected = (double) SAMPLES * prize.getProbability() / totalWeight;
+            double diff = counts.getOrDefault(prize, 0) - expected;
+            chiSquare += diff * diff / expected;
+        }
+        return chiSquare;
+    }
+
+    /**
+     * 原实现：逐个累加权重
+     */
+    private static TurntablePrize linearScan(List<TurntablePrize> prizes) {
+        int totalWeight = 0;
+        for (TurntablePrize prize : prizes) {
+            totalWeight += prize.getProbability();
+        }
+        int randomValue = ThreadLocalRandom.current().nextInt(totalWeight);
+        int currentWeight = 0;
+        for (TurntablePrize prize : prizes) {
+            currentWeight += prize.getProbability();
+            if (randomValue < currentWeight) {
+                return prize;
+            }
+        }
+        return prizes.get(prizes.size() - 1);
+    }
+
+    private static double measure(Supplier<TurntablePrize> draw) {
+        int warmup = 200_000;
+        int measured = 2_000_000;
+        long sink = 0;
+        for (int i = 0; i < warmup; i++) {
+            sink += draw.get().getId();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < measured; i++) {
+            sink += draw.get().getId();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sink > 0);
+        return measured * 1e9 / elapsed;
+    }
+
+    private static List<TurntablePrize> createPrizes(int... weights) {
+        List<TurntablePrize> prizes = new ArrayList<>(weights.length);
+        for (int i = 0; i < weights.length; i++) {
+            TurntablePrize prize = new TurntablePrize();
+            prize.setId((long) i + 1);
+            prize.setQuality(Math.min(4, i + 1));
+            prize.setProbability(weights[i]);
+            prizes.add(prize);
+        }
+        return prizes;
+    }
+}
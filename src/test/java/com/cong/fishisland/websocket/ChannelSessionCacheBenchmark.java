@@ -0,0 +1,80 @@
+package com.cong.fishisland.websocket;
+
+import com.cong.fishisland.model.dto.ws.WSChannelSessionDTO;
+import com.cong.fishisland.model.entity.user.User;
+import com.cong.fishisland.service.UserMuteService;
+import com.cong.fishisland.service.UserService;
+import com.cong.fishisland.service.UserVipService;
+import com.cong.fishisland.websocket.cache.ChannelSessionCache;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 连接会话缓存吞吐基准
+ * 不属于单元测试（类名不匹配 surefire 默认规则，不随 mvn test 运行），在 IDE 中直接运行 main 方法，
+ * 可选参数：每轮消息数 模拟往返微秒；每次 Redis/MySQL 查询用固定延迟模拟网络往返，
+ * 对比每条消息都重新解析会话和读取连接缓存时单核每秒可处理的消息数
+ *
+ * @author cong
+ */
+public class ChannelSessionCacheBenchmark {
+
+    private static final String TOKEN = "benchmark-token";
+    private static final long USER_ID = 10001L;
+    private static final int WARMUP_MESSAGES = 200;
+
+    public static void main(String[] args) {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long rttNanos = TimeUnit.MICROSECONDS.toNanos(args.length > 1 ? Long.parseLong(args[1]) : 200);
+
+        User user = new User();
+        user.setId(USER_ID);
+        user.setUserRole("user");
+        UserService userService = mock(UserService.class);
+        UserMuteService userMuteService = mock(UserMuteService.class);
+        UserVipService userVipService = mock(UserVipService.class);
+        when(userService.getLoginUser(anyString())).thenAnswer(invocation -> simulateRtt(user, rttNanos));
+        when(userMuteService.getMuteEndTime(anyLong())).thenAnswer(invocation -> simulateRtt(0L, rttNanos));
+        when(userVipService.isUserVip(anyLong())).thenAnswer(invocation -> simulateRtt(false, rttNanos));
+        ChannelSessionCache cache = new ChannelSessionCache(userService, userMuteService, userVipService) {
+            @Override
+            protected Object getLoginIdByToken(String token) {
+                return simulateRtt(String.valueOf(USER_ID), rttNanos);
+            }
+        };
+
+        EmbeddedChannel channel = new EmbeddedChannel();
+        for (int round = 1; round <= 3; round++) {
+            double uncached = measure(() -> cache.load(TOKEN), messages);
+            double cached = measure(() -> cache.get(channel, TOKEN), messages);
+            System.out.printf("第 %d 轮：未缓存 %.0f msg/s/core，连接缓存 %.0f msg/s/core，提升 %.1f 倍%n",
+                    round, uncached, cached, cached / uncached);
+        }
+    }
+
+    private static double measure(Supplier<WSChannelSessionDTO> resolver, int messages) {
+        for (int i = 0; i < WARMUP_MESSAGES; i++) {
+            resolver.get();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            if (resolver.get() == null) {
+                throw new IllegalStateException("会话解析失败");
+            }
+        }
+        return messages * 1e9 / (System.nanoTime() - start);
+    }
+
+    private static <T> T simulateRtt(T value, long rttNanos) {
+        LockSupport.parkNanos(rttNanos);
+        return value;
+    }
+}
@@ -0,0 +1,107 @@
+package com.cong.fishisland.websocket;
+
+import com.cong.fishisland.model.dto.ws.WSChannelSessionDTO;
+import com.cong.fishisland.model.entity.user.User;
+import com.cong.fishisland.service.UserMuteService;
+import com.cong.fishisland.service.UserService;
+import com.cong.fishisland.service.UserVipService;
+import com.cong.fishisland.websocket.cache.ChannelSessionCache;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 连接会话缓存测试
+ * 校验命中缓存时不访问任何服务（包括 token 校验），失效后下一条消息重新加载，注销后重新加载时被拒绝
+ *
+ * @author cong
+ */
+class ChannelSessionCacheTest {
+
+    private static final String TOKEN = "session-token";
+    private static final long USER_ID = 10001L;
+
+    private UserService userService;
+    private UserVipService userVipService;
+    private ChannelSessionCache cache;
+    /**
+     * token 对应的登录 ID，置空模拟注销
+     */
+    private volatile Object loginId;
+    private final AtomicInteger tokenLookups = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setUserRole("user");
+        userService = mock(UserService.class);
+        UserMuteService userMuteService = mock(UserMuteService.class);
+        userVipService = mock(UserVipService.class);
+        when(userService.getLoginUser(anyString())).thenReturn(user);
+        when(userMuteService.getMuteEndTime(anyLong())).thenReturn(0L);
+        when(userVipService.isUserVip(anyLong())).thenReturn(false);
+        loginId = String.valueOf(USER_ID);
+        tokenLookups.set(0);
+        cache = new ChannelSessionCache(userService, userMuteService, userVipService) {
+            @Override
+            protected Object getLoginIdByToken(String token) {
+                tokenLookups.incrementAndGet();
+                return loginId;
+            }
+        };
+    }
+
+    /**
+     * 连接上已有会话时不再访问任何服务，也不再校验 token
+     */
+    @Test
+    void testGet_cachedSessionSkipsLookups() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        WSChannelSessionDTO first = cache.get(channel, TOKEN);
+        WSChannelSessionDTO second = cache.get(channel, TOKEN);
+
+        assertSame(first, second);
+        assertEquals(USER_ID, second.getUid());
+        assertEquals(1, tokenLookups.get());
+        verify(userService, times(1)).getLoginUser(TOKEN);
+        verify(userVipService, times(1)).isUserVip(USER_ID);
+    }
+
+    /**
+     * 失效后下一条消息重新加载
+     */
+    @Test
+    void testInvalidate_reloadsOnNextMessage() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        WSChannelSessionDTO first = cache.get(channel, TOKEN);
+        cache.invalidate(channel);
+        WSChannelSessionDTO second = cache.get(channel, TOKEN);
+
+        assertNotSame(first, second);
+        verify(userService, times(2)).getLoginUser(TOKEN);
+    }
+
+    /**
+     * 注销后会话随登录态事件失效，下一条消息重新校验 token 并被拒绝
+     */
+    @Test
+    void testGet_rejectsRevokedTokenAfterInvalidate() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        assertNotNull(cache.get(channel, TOKEN));
+
+        loginId = null;
+        cache.invalidate(channel);
+
+        assertNull(cache.get(channel, TOKEN));
+        assertNull(cache.get(channel, TOKEN), "拒绝后不会留下可用的会话");
+        verify(userService, times(1)).getLoginUser(TOKEN);
+    }
+}
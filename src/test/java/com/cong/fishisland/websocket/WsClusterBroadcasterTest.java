@@ -0,0 +1,104 @@
+package com.cong.fishisland.websocket;
+
+import com.cong.fishisland.model.dto.ws.WsClusterEnvelope;
+import com.cong.fishisland.model.ws.response.UserChatResponse;
+import com.cong.fishisland.websocket.cluster.WsClusterBroadcaster;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * WebSocket 集群广播测试
+ * 用同一个本地 Redis 模拟两个节点，需要本机 6379 端口有可用的 Redis（或 Redis 兼容的替身服务）
+ *
+ * @author cong
+ */
+class WsClusterBroadcasterTest {
+
+    private RedissonClient redissonClient;
+    private WsClusterBroadcaster nodeA;
+    private WsClusterBroadcaster nodeB;
+    private final BlockingQueue<WsClusterEnvelope> receivedByA = new LinkedBlockingQueue<>();
+    private final BlockingQueue<WsClusterEnvelope> receivedByB = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setUp() {
+        Config config = new Config();
+        config.useSingleServer()
+                .setAddress(System.getProperty("test.redis.address", "redis://127.0.0.1:6379"))
+                .setConnectionMinimumIdleSize(1)
+                .setConnectionPoolSize(2)
+                .setRetryAttempts(0);
+        try {
+            redissonClient = Redisson.create(config);
+        } catch (Exception e) {
+            assumeTrue(false, "本地 Redis 不可用，跳过集群广播测试");
+        }
+        nodeA = new WsClusterBroadcaster(redissonClient);
+        nodeB = new WsClusterBroadcaster(redissonClient);
+        nodeA.subscribe(receivedByA::add);
+        nodeB.subscribe(receivedByB::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (redissonClient == null) {
+            return;
+        }
+        nodeA.destroy();
+        nodeB.destroy();
+        redissonClient.shutdown();
+    }
+
+    /**
+     * 节点发布的消息只投递给其他节点，不回投给自己
+     */
+    @Test
+    void testPublish_deliveredToOtherNodesOnly() throws InterruptedException {
+        nodeA.publish(WsClusterEnvelope.builder().type("chat").payload("{\"type\":\"chat\"}").skipUid(1L).build());
+
+        WsClusterEnvelope envelope = receivedByB.poll(5, TimeUnit.SECONDS);
+        assertNotNull(envelope, "其他节点应收到广播");
+        assertEquals("chat", envelope.getType());
+        assertEquals(1L, envelope.getSkipUid());
+        assertEquals(nodeA.getNodeId(), envelope.getNodeId());
+        assertNull(receivedByA.poll(500, TimeUnit.MILLISECONDS), "发布节点不应收到自己的广播");
+    }
+
+    /**
+     * 在线用户表跨节点可见，按 uid 去重
+     */
+    @Test
+    void testOnlineRegistry_visibleAcrossNodes() {
+        nodeA.registerOnline(100L, user("100"));
+        nodeB.registerOnline(100L, user("100"));
+        nodeB.registerOnline(200L, user("200"));
+
+        List<UserChatResponse> onlineUsers = nodeA.getOnlineUsers();
+        assertEquals(2, onlineUsers.size());
+        assertTrue(nodeA.isOnline(200L));
+
+        nodeB.unregisterOnline(100L);
+        assertTrue(nodeB.isOnline(100L), "用户在节点 A 仍在线");
+        nodeA.unregisterOnline(100L);
+        assertFalse(nodeB.isOnline(100L));
+    }
+
+    private static UserChatResponse user(String id) {
+        UserChatResponse response = new UserChatResponse();
+        response.setId(id);
+        response.setName("user-" + id);
+        return response;
+    }
+}